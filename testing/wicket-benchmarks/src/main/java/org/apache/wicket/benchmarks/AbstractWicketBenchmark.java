@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.util.tester.WicketTester;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Base class for benchmarks that need an application, a session and a request cycle bound to the
+ * benchmark thread.
+ */
+@State(Scope.Thread)
+public abstract class AbstractWicketBenchmark
+{
+	/** the tester providing application, session and request cycle */
+	protected WicketTester tester;
+
+	/**
+	 * Create the tester.
+	 */
+	@Setup
+	public void setUpTester()
+	{
+		tester = new WicketTester(newApplication());
+	}
+
+	/**
+	 * Destroy the tester.
+	 */
+	@TearDown
+	public void tearDownTester()
+	{
+		tester.destroy();
+	}
+
+	/**
+	 * @return the application to benchmark with
+	 */
+	protected WebApplication newApplication()
+	{
+		return new MockApplication();
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.markup.IMarkupCacheKeyProvider;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Renders pages with a deep tree of nested containers, each with a label.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComponentRenderBenchmark extends AbstractWicketBenchmark
+{
+	/** depth of the component tree */
+	@Param({ "10", "100" })
+	public int depth;
+
+	/**
+	 * Construct and render a page.
+	 *
+	 * @return the rendered markup
+	 */
+	@Benchmark
+	public String render()
+	{
+		tester.startPage(new DeepPage(depth));
+		return tester.getLastResponseAsString();
+	}
+
+	/**
+	 * A page with nested containers.
+	 */
+	public static class DeepPage extends WebPage
+		implements
+			IMarkupResourceStreamProvider,
+			IMarkupCacheKeyProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int depth;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param depth
+		 *            depth of the component tree
+		 */
+		public DeepPage(int depth)
+		{
+			this.depth = depth;
+
+			MarkupContainer parent = this;
+			for (int level = 0; level < depth; level++)
+			{
+				WebMarkupContainer container = new WebMarkupContainer("container");
+				parent.add(container);
+				container.add(new Label("label", "level " + level));
+				parent = container;
+			}
+		}
+
+		@Override
+		public String getCacheKey(MarkupContainer container, Class<?> containerClass)
+		{
+			return DeepPage.class.getName() + depth;
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			StringBuilder markup = new StringBuilder("<html><body>");
+			for (int level = 0; level < depth; level++)
+			{
+				markup.append("<div wicket:id=\"container\"><span wicket:id=\"label\"></span>");
+			}
+			for (int level = 0; level < depth; level++)
+			{
+				markup.append("</div>");
+			}
+			markup.append("</body></html>");
+			return new StringResourceStream(markup);
+		}
+	}
+}
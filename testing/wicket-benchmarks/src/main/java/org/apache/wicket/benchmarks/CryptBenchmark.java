@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.SecretKey;
+
+import org.apache.wicket.util.crypt.AesCrypt;
+import org.apache.wicket.util.crypt.CachingSunJceCryptFactory;
+import org.apache.wicket.util.crypt.ICrypt;
+import org.apache.wicket.util.crypt.SunJceCrypt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encrypts and decrypts URLs as {@link org.apache.wicket.core.request.mapper.CryptoMapper} does,
+ * comparing {@link SunJceCrypt} with {@link AesCrypt}.
+ * <p>
+ * The <code>session*</code> benchmarks create a crypt for each URL as the key-in-session crypt
+ * factories do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptBenchmark
+{
+	private static final String URL = "wicket/bookmarkable/org.apache.wicket.examples.HomePage?3-1.0-form-submit&id=42";
+
+	private static final String KEY = "session.2f1c6a3e-8d3b-4f6e-9c1a-7b5d2e0f4a91";
+
+	private ICrypt sunJceCrypt;
+
+	private ICrypt aesCrypt;
+
+	private SecretKey aesKey;
+
+	private String sunJceEncrypted;
+
+	private String aesEncrypted;
+
+	/**
+	 * Create the crypts and encrypt the URL once.
+	 */
+	@Setup
+	public void setup()
+	{
+		sunJceCrypt = new CachingSunJceCryptFactory(KEY).newCrypt();
+		sunJceEncrypted = sunJceCrypt.encryptUrlSafe(URL);
+
+		aesKey = AesCrypt.generateSecretKey();
+		aesCrypt = new AesCrypt(aesKey);
+		aesEncrypted = aesCrypt.encryptUrlSafe(URL);
+	}
+
+	/**
+	 * Encrypt with a cached {@link SunJceCrypt}.
+	 *
+	 * @return the encrypted URL
+	 */
+	@Benchmark
+	public String sunJceEncrypt()
+	{
+		return sunJceCrypt.encryptUrlSafe(URL);
+	}
+
+	/**
+	 * Decrypt with a cached {@link SunJceCrypt}.
+	 *
+	 * @return the decrypted URL
+	 */
+	@Benchmark
+	public String sunJceDecrypt()
+	{
+		return sunJceCrypt.decryptUrlSafe(sunJceEncrypted);
+	}
+
+	/**
+	 * Encrypt with a new {@link SunJceCrypt}.
+	 *
+	 * @return the encrypted URL
+	 */
+	@Benchmark
+	public String sessionSunJceEncrypt()
+	{
+		ICrypt crypt = new SunJceCrypt();
+		crypt.setKey(KEY);
+		return crypt.encryptUrlSafe(URL);
+	}
+
+	/**
+	 * Encrypt with a cached {@link AesCrypt}.
+	 *
+	 * @return the encrypted URL
+	 */
+	@Benchmark
+	public String aesEncrypt()
+	{
+		return aesCrypt.encryptUrlSafe(URL);
+	}
+
+	/**
+	 * Decrypt with a cached {@link AesCrypt}.
+	 *
+	 * @return the decrypted URL
+	 */
+	@Benchmark
+	public String aesDecrypt()
+	{
+		return aesCrypt.decryptUrlSafe(aesEncrypted);
+	}
+
+	/**
+	 * Encrypt with a new {@link AesCrypt}.
+	 *
+	 * @return the encrypted URL
+	 */
+	@Benchmark
+	public String sessionAesEncrypt()
+	{
+		return new AesCrypt(aesKey).encryptUrlSafe(URL);
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Adds children to and gets children from a container, with child counts below and above the
+ * threshold at which the children are switched from a list to a map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkupContainerBenchmark extends AbstractWicketBenchmark
+{
+	/** count of children */
+	@Param({ "1", "8", "23", "24", "100" })
+	public int children;
+
+	private String[] ids;
+
+	private WebMarkupContainer container;
+
+	/**
+	 * Create the container.
+	 */
+	@Setup
+	public void setUp()
+	{
+		ids = new String[children];
+		for (int i = 0; i < children; i++)
+		{
+			ids[i] = "child" + i;
+		}
+
+		container = add();
+	}
+
+	/**
+	 * Create a container and add all children.
+	 *
+	 * @return the container
+	 */
+	@Benchmark
+	public WebMarkupContainer add()
+	{
+		WebMarkupContainer container = new WebMarkupContainer("container");
+		for (String id : ids)
+		{
+			container.add(new WebMarkupContainer(id));
+		}
+		return container;
+	}
+
+	/**
+	 * Get all children by id.
+	 *
+	 * @param blackhole
+	 *            consumer of the children
+	 */
+	@Benchmark
+	public void get(Blackhole blackhole)
+	{
+		for (String id : ids)
+		{
+			blackhole.consume(container.get(id));
+		}
+	}
+
+	/**
+	 * Iterate over all children.
+	 *
+	 * @param blackhole
+	 *            consumer of the children
+	 */
+	@Benchmark
+	public void iterate(Blackhole blackhole)
+	{
+		for (Component child : container)
+		{
+			blackhole.consume(child);
+		}
+	}
+}
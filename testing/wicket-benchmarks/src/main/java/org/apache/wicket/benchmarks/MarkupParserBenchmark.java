@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.markup.Markup;
+import org.apache.wicket.markup.MarkupParser;
+import org.apache.wicket.markup.parser.XmlPullParser;
+import org.apache.wicket.markup.parser.IXmlPullParser.HttpTagType;
+import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses markup with the {@link XmlPullParser} alone and with the {@link MarkupParser} including
+ * all markup filters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkupParserBenchmark extends AbstractWicketBenchmark
+{
+	/** count of repeated markup blocks */
+	@Param({ "10", "100" })
+	public int blocks;
+
+	private String markup;
+
+	/**
+	 * Create the markup.
+	 */
+	@Setup
+	public void setUp()
+	{
+		StringBuilder builder = new StringBuilder(
+			"<!DOCTYPE html>\n<html xmlns:wicket=\"http://wicket.apache.org\">\n<head>\n" +
+				"<title>Benchmark</title>\n<script>var x = '<b>';</script>\n</head>\n<body>\n");
+		for (int i = 0; i < blocks; i++)
+		{
+			builder.append("<div wicket:id=\"item")
+				.append(i)
+				.append("\" class=\"item\">\n")
+				.append("\t<!-- comment -->\n")
+				.append("\t<a href=\"#\" wicket:id=\"link\"><span wicket:id=\"label\">text</span></a>\n")
+				.append("\t<wicket:message key=\"message\">default</wicket:message>\n")
+				.append("\t<input type=\"text\" wicket:id=\"field\" value=\"\"/>\n")
+				.append("\t<img src=\"image.png\" alt=\"image\">\n")
+				.append("</div>\n");
+		}
+		builder.append("</body>\n</html>\n");
+		markup = builder.toString();
+	}
+
+	/**
+	 * Pull all elements with the {@link XmlPullParser}.
+	 *
+	 * @return count of elements
+	 * @throws IOException
+	 * @throws ParseException
+	 */
+	@Benchmark
+	public int xmlPullParser() throws IOException, ParseException
+	{
+		XmlPullParser parser = new XmlPullParser();
+		parser.parse(markup);
+
+		int count = 0;
+		while (parser.next() != HttpTagType.NOT_INITIALIZED)
+		{
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Parse the markup with the {@link MarkupParser}.
+	 *
+	 * @return the markup
+	 * @throws IOException
+	 * @throws ResourceStreamNotFoundException
+	 */
+	@Benchmark
+	public Markup markupParser() throws IOException, ResourceStreamNotFoundException
+	{
+		return new MarkupParser(markup).parse();
+	}
+}
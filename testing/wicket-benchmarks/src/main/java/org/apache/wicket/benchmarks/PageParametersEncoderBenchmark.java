@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.mapper.parameter.PageParametersEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encodes and decodes page parameters with the {@link PageParametersEncoder}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageParametersEncoderBenchmark
+{
+	private final PageParametersEncoder encoder = new PageParametersEncoder();
+
+	private PageParameters parameters;
+
+	private Url url;
+
+	/**
+	 * Create parameters and url.
+	 */
+	@Setup
+	public void setUp()
+	{
+		parameters = new PageParameters();
+		parameters.set(0, "products");
+		parameters.set(1, "42");
+		parameters.add("color", "red");
+		parameters.add("size", "large");
+		parameters.add("tag", "new");
+		parameters.add("tag", "sale");
+		parameters.add("query", "a b&c");
+
+		url = encoder.encodePageParameters(parameters);
+	}
+
+	/**
+	 * Encode parameters to an url.
+	 *
+	 * @return the url
+	 */
+	@Benchmark
+	public Url encode()
+	{
+		return encoder.encodePageParameters(parameters);
+	}
+
+	/**
+	 * Decode parameters from an url.
+	 *
+	 * @return the parameters
+	 */
+	@Benchmark
+	public PageParameters decode()
+	{
+		return encoder.decodePageParameters(url);
+	}
+}
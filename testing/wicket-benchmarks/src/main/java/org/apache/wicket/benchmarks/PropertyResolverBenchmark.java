@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.core.util.lang.PropertyResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolves property expressions with {@link PropertyResolver#getValue(String, Object)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyResolverBenchmark extends AbstractWicketBenchmark
+{
+	private Person person;
+
+	/**
+	 * Create the object to resolve properties on.
+	 */
+	@Setup
+	public void setUp()
+	{
+		person = new Person();
+	}
+
+	/**
+	 * Resolve a property with a getter.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	public Object getter()
+	{
+		return PropertyResolver.getValue("name", person);
+	}
+
+	/**
+	 * Resolve a field.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	public Object field()
+	{
+		return PropertyResolver.getValue("age", person);
+	}
+
+	/**
+	 * Resolve a nested property.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	public Object nested()
+	{
+		return PropertyResolver.getValue("address.street", person);
+	}
+
+	/**
+	 * Resolve a list element.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	public Object list()
+	{
+		return PropertyResolver.getValue("tags.1", person);
+	}
+
+	/**
+	 * Resolve a map value.
+	 *
+	 * @return the value
+	 */
+	@Benchmark
+	public Object map()
+	{
+		return PropertyResolver.getValue("attributes[color]", person);
+	}
+
+	/**
+	 * An example object.
+	 */
+	public static class Person
+	{
+		private final String name = "Jane";
+
+		/** a public field */
+		public int age = 42;
+
+		private final Address address = new Address();
+
+		private final List<String> tags = Arrays.asList("a", "b", "c");
+
+		private final Map<String, String> attributes = new HashMap<>();
+
+		{
+			attributes.put("color", "red");
+		}
+
+		/**
+		 * @return the name
+		 */
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 * @return the address
+		 */
+		public Address getAddress()
+		{
+			return address;
+		}
+
+		/**
+		 * @return the tags
+		 */
+		public List<String> getTags()
+		{
+			return tags;
+		}
+
+		/**
+		 * @return the attributes
+		 */
+		public Map<String, String> getAttributes()
+		{
+			return attributes;
+		}
+	}
+
+	/**
+	 * An example object.
+	 */
+	public static class Address
+	{
+		/**
+		 * @return the street
+		 */
+		public String getStreet()
+		{
+			return "Main Street";
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.core.request.handler.PageProvider;
+import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.protocol.http.RequestLogger;
+import org.apache.wicket.request.IRequestHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Logs request handlers with the {@link RequestLogger}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestLoggerBenchmark extends AbstractWicketBenchmark
+{
+	private RequestLogger logger;
+
+	private IRequestHandler handler;
+
+	/**
+	 * Create the logger.
+	 */
+	@Setup
+	public void setUp()
+	{
+		logger = new RequestLogger();
+		handler = new RenderPageRequestHandler(new PageProvider(WebPage.class));
+	}
+
+	/**
+	 * Log the event target.
+	 */
+	@Benchmark
+	public void logEventTarget()
+	{
+		logger.logEventTarget(handler);
+	}
+
+	/**
+	 * Log the event and the response target.
+	 */
+	@Benchmark
+	public void logEventAndResponseTarget()
+	{
+		logger.logEventTarget(handler);
+		logger.logResponseTarget(handler);
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.Page;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.form.Form;
+import org.apache.wicket.markup.html.form.TextField;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.model.CompoundPropertyModel;
+import org.apache.wicket.model.PropertyModel;
+import org.apache.wicket.serialize.ISerializer;
+import org.apache.wicket.serialize.compact.CompactSerializer;
+import org.apache.wicket.serialize.java.JavaSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serializes and deserializes pages with the {@link JavaSerializer} and the
+ * {@link CompactSerializer}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark extends AbstractWicketBenchmark
+{
+	/** count of rows on the page */
+	@Param({ "10", "100" })
+	public int rows;
+
+	/** the serializer to use */
+	@Param({ "java", "compact" })
+	public String serializerType;
+
+	private ISerializer serializer;
+
+	private Page page;
+
+	private byte[] data;
+
+	/**
+	 * Create the page.
+	 */
+	@Setup
+	public void setUp()
+	{
+		String applicationKey = tester.getApplication().getApplicationKey();
+		if ("compact".equals(serializerType))
+		{
+			serializer = new CompactSerializer(applicationKey);
+		}
+		else
+		{
+			serializer = new JavaSerializer(applicationKey);
+		}
+
+		page = new ExamplePage(rows);
+		data = serializer.serialize(page);
+	}
+
+	/**
+	 * Serialize the page.
+	 *
+	 * @return the serialized page
+	 */
+	@Benchmark
+	public byte[] serialize()
+	{
+		return serializer.serialize(page);
+	}
+
+	/**
+	 * Deserialize the page.
+	 *
+	 * @return the page
+	 */
+	@Benchmark
+	public Object deserialize()
+	{
+		return serializer.deserialize(data);
+	}
+
+	/**
+	 * A page with a form and a list of rows.
+	 */
+	public static class ExamplePage extends WebPage
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param rows
+		 *            count of rows
+		 */
+		public ExamplePage(int rows)
+		{
+			Person person = new Person();
+			Form<Person> form = new Form<>("form", new CompoundPropertyModel<>(person));
+			add(form);
+			form.add(new TextField<String>("name"));
+			form.add(new TextField<String>("street", new PropertyModel<>(person, "address.street")));
+
+			List<Person> persons = new ArrayList<>();
+			for (int i = 0; i < rows; i++)
+			{
+				Person row = new Person();
+				row.name = "Person " + i;
+				persons.add(row);
+			}
+			add(new ListView<Person>("rows", persons)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void populateItem(ListItem<Person> item)
+				{
+					item.add(new Label("name", new PropertyModel<>(item.getModel(), "name")));
+				}
+			}.setReuseItems(true));
+		}
+	}
+
+	/**
+	 * An example model object.
+	 */
+	public static class Person implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		/** the name */
+		public String name = "Jane";
+
+		/** the address */
+		public Address address = new Address();
+	}
+
+	/**
+	 * An example model object.
+	 */
+	public static class Address implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		/** the street */
+		public String street = "Main Street";
+	}
+}
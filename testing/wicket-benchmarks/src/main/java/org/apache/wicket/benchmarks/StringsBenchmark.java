@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.util.string.Strings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Escapes markup with {@link Strings#escapeMarkup(CharSequence)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringsBenchmark
+{
+	private static final String PLAIN = "The quick brown fox jumps over the lazy dog, again and again.";
+
+	private static final String SPECIAL = "<a href=\"page?a=1&b=2\">Fox & Dog's \"lazy\" <b>day</b></a>";
+
+	private static final String UNICODE = "Grüße aus Zürich – naïve café, 東京 & ☃";
+
+	/**
+	 * Escape text without special characters.
+	 *
+	 * @return the escaped text
+	 */
+	@Benchmark
+	public CharSequence plain()
+	{
+		return Strings.escapeMarkup(PLAIN);
+	}
+
+	/**
+	 * Escape text with special characters.
+	 *
+	 * @return the escaped text
+	 */
+	@Benchmark
+	public CharSequence special()
+	{
+		return Strings.escapeMarkup(SPECIAL);
+	}
+
+	/**
+	 * Escape text with special characters, spaces and unicode characters.
+	 *
+	 * @return the escaped text
+	 */
+	@Benchmark
+	public CharSequence unicode()
+	{
+		return Strings.escapeMarkup(UNICODE, true, true);
+	}
+}
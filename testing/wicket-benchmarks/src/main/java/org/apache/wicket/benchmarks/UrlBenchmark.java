@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.mock.MockWebRequest;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.Url.QueryParameter;
+import org.apache.wicket.request.UrlRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parses urls with {@link Url#parse(CharSequence)} and renders them with {@link UrlRenderer}.
+ * <p>
+ * Run with {@code -prof gc} to report the allocation per operation ({@code gc.alloc.rate.norm}),
+ * e.g. per rendered link with {@link #renderLinks()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlBenchmark
+{
+	private static final String RELATIVE = "wicket/bookmarkable/org.apache.wicket.examples.HomePage?1-1.0-form-submit&name=value";
+
+	private static final String ABSOLUTE = "https://www.example.com:8443/context/filter/products/42/details?color=red&size=large#reviews";
+
+	private UrlRenderer renderer;
+
+	private Url url;
+
+	private Url[] links;
+
+	/**
+	 * Create the renderer.
+	 */
+	@Setup
+	public void setUp()
+	{
+		renderer = new UrlRenderer(new MockWebRequest(
+			Url.parse("https://www.example.com:8443/products/41?color=blue"), "/context",
+			"/filter", ""));
+		url = Url.parse("products/42/details?color=red&size=large");
+
+		links = new Url[10];
+		for (int i = 0; i < links.length; i++)
+		{
+			links[i] = Url.parse("products/41/" + i + "?" + i + "-1.ILinkListener-list-" + i +
+				"-link");
+		}
+	}
+
+	/**
+	 * Parse a relative url.
+	 *
+	 * @return the url
+	 */
+	@Benchmark
+	public Url parseRelative()
+	{
+		return Url.parse(RELATIVE);
+	}
+
+	/**
+	 * Parse an absolute url.
+	 *
+	 * @return the url
+	 */
+	@Benchmark
+	public Url parseAbsolute()
+	{
+		return Url.parse(ABSOLUTE);
+	}
+
+	/**
+	 * Render an url relative to the base url.
+	 *
+	 * @return the rendered url
+	 */
+	@Benchmark
+	public String renderRelative()
+	{
+		return renderer.renderRelativeUrl(url);
+	}
+
+	/**
+	 * Render the links of a page relative to the base url, as link components do.
+	 *
+	 * @return the length of the rendered urls
+	 */
+	@Benchmark
+	@OperationsPerInvocation(10)
+	public int renderLinks()
+	{
+		int length = 0;
+		for (Url link : links)
+		{
+			length += renderer.renderRelativeUrl(link).length();
+		}
+		return length;
+	}
+
+	/**
+	 * Parse a relative url and access its query parameters, as request mapping does.
+	 *
+	 * @return the query parameters
+	 */
+	@Benchmark
+	public List<QueryParameter> parseQueryParameters()
+	{
+		return Url.parse(RELATIVE).getQueryParameters();
+	}
+
+	/**
+	 * Render a full url.
+	 *
+	 * @return the rendered url
+	 */
+	@Benchmark
+	public String renderFull()
+	{
+		return renderer.renderFullUrl(url);
+	}
+
+	/**
+	 * Render an url to a string.
+	 *
+	 * @return the rendered url
+	 */
+	@Benchmark
+	public String urlToString()
+	{
+		return url.toString();
+	}
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.wicket;
 
+import java.io.File;
 import java.net.URLConnection;
 import java.time.Duration;
 import java.util.Collections;
@@ -41,6 +42,8 @@ import org.apache.wicket.event.IEvent;
 import org.apache.wicket.event.IEventSink;
 import org.apache.wicket.javascript.DefaultJavaScriptCompressor;
 import org.apache.wicket.markup.MarkupFactory;
+import org.apache.wicket.markup.MarkupPrewarmer;
+import org.apache.wicket.markup.ParsedMarkupCache;
 import org.apache.wicket.markup.head.HeaderItem;
 import org.apache.wicket.markup.head.IHeaderResponse;
 import org.apache.wicket.markup.head.ResourceAggregator;
@@ -600,6 +603,12 @@ public abstract class Application implements UnboundListener, IEventSink, IMetad
 			markupFactory.getMarkupCache().shutdown();
 		}
 
+		File parsedMarkupCacheFile = getMarkupSettings().getParsedMarkupCacheFile();
+		if (markupFactory.hasParsedMarkupCache() && parsedMarkupCacheFile != null)
+		{
+			markupFactory.getParsedMarkupCache().save(parsedMarkupCacheFile);
+		}
+
 		onDestroy();
 
 		destroyInitializers();
@@ -760,11 +769,36 @@ public abstract class Application implements UnboundListener, IEventSink, IMetad
 		internalInit();
 		initInitializers();
 		init();
+		initMarkup();
 		applicationListeners.onAfterInitialized(this);
 
 		validateInit();
 	}
 
+	/**
+	 * Loads parsed markup and parses the markup of containers in advance, if configured in the
+	 * {@link MarkupSettings}.
+	 */
+	private void initMarkup()
+	{
+		ParsedMarkupCache parsedMarkupCache = getMarkupSettings().getMarkupFactory()
+			.getParsedMarkupCache();
+		if (parsedMarkupCache != null)
+		{
+			File file = getMarkupSettings().getParsedMarkupCacheFile();
+			if (file != null)
+			{
+				parsedMarkupCache.load(file);
+			}
+
+			List<String> packages = getMarkupSettings().getMarkupPrewarmPackages();
+			if (packages.isEmpty() == false)
+			{
+				new MarkupPrewarmer(this, parsedMarkupCache).prewarm(packages);
+			}
+		}
+	}
+
 	/**
 	 * Gives the Application object a chance to validate if it has been properly initialized
 	 */
@@ -22,6 +22,7 @@ import java.util.List;
 
 import org.apache.wicket.behavior.Behavior;
 import org.apache.wicket.behavior.InvalidBehaviorIdException;
+import org.apache.wicket.markup.html.cache.RenderCacheBehavior;
 import org.apache.wicket.model.IDetachable;
 import org.apache.wicket.util.lang.Args;
 
@@ -50,6 +51,11 @@ final class Behaviors implements IDetachable
 
 			internalAdd(behavior);
 
+			if (behavior instanceof RenderCacheBehavior)
+			{
+				component.setFlag(Component.FLAG_RENDER_CACHE, true);
+			}
+
 			if (!behavior.isTemporary(component))
 			{
 				component.addStateChange();
@@ -16,7 +16,11 @@
  */
 package org.apache.wicket;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -57,6 +61,7 @@ import org.apache.wicket.markup.WicketTag;
 import org.apache.wicket.markup.head.IHeaderResponse;
 import org.apache.wicket.markup.head.StringHeaderItem;
 import org.apache.wicket.markup.html.IHeaderContributor;
+import org.apache.wicket.markup.html.cache.RenderCacheBehavior;
 import org.apache.wicket.markup.html.form.Form;
 import org.apache.wicket.markup.html.form.FormComponent;
 import org.apache.wicket.markup.html.internal.HtmlHeaderContainer;
@@ -78,6 +83,8 @@ import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.response.StringResponse;
+import org.apache.wicket.serialize.compact.CompactObjectInputStream;
+import org.apache.wicket.serialize.compact.CompactObjectOutputStream;
 import org.apache.wicket.settings.DebugSettings;
 import org.apache.wicket.settings.ExceptionSettings;
 import org.apache.wicket.util.IHierarchical;
@@ -386,6 +393,12 @@ public abstract class Component
 	 */
 	private static final int FLAG_MODEL_SET = 0x100000;
 
+	/**
+	 * Flag that is set when a {@link RenderCacheBehavior} is added, so components without one do not
+	 * have to search their behaviors for it. Made package private for access in {@link Behaviors}
+	 */
+	static final int FLAG_RENDER_CACHE = 0x200000;
+
 	/**
 	 * Flag that restricts visibility of a component when set to true. This is usually used when a
 	 * component wants to restrict visibility of another component. Calling
@@ -441,6 +454,12 @@ public abstract class Component
 	private static final short RFLAG_DETACHING = 0x1000;	
 	/** True when a component is being removed from the hierarchy */
 	private static final short RFLAG_REMOVING_FROM_HIERARCHY = 0x2000;
+	/**
+	 * True when the output of the component is rendered from the {@link RenderCacheBehavior} in this
+	 * request, so its children are not rendered. Made package private for access in
+	 * {@link MarkupContainer}
+	 */
+	static final short RFLAG_RENDER_CACHED = 0x4000;
 
 	/**
 	 * Flags that only keep their value during the request. Useful for cache markers, etc. At the
@@ -645,6 +664,140 @@ public abstract class Component
 		}
 	}
 
+	/**
+	 * Writes the state of this component compactly if written to a
+	 * {@link CompactObjectOutputStream}, otherwise with default serialization.
+	 * <p>
+	 * Note that the presence of this method alone adds an end marker to the default serialized
+	 * form of each component.
+	 * 
+	 * @param s
+	 *            stream to write to
+	 * @throws IOException
+	 */
+	private void writeObject(final ObjectOutputStream s) throws IOException
+	{
+		if (s instanceof CompactObjectOutputStream)
+		{
+			CompactObjectOutputStream out = (CompactObjectOutputStream)s;
+			out.writeVarInt(flags);
+			out.writeObject(id);
+			out.writeObject(parent);
+			out.writeVarInt(generatedMarkupId + 1);
+
+			int length = data_length();
+			out.writeVarInt(length);
+			for (int i = 0; i < length; i++)
+			{
+				Object object = data_get(i);
+				if (object instanceof MetaDataEntry<?>[])
+				{
+					MetaDataEntry<?>[] entries = (MetaDataEntry<?>[])object;
+					out.writeBoolean(true);
+					out.writeVarInt(entries.length);
+					for (MetaDataEntry<?> entry : entries)
+					{
+						out.writeObject(entry.key);
+						out.writeObject(entry.object);
+					}
+				}
+				else
+				{
+					out.writeBoolean(false);
+					out.writeObject(object);
+				}
+			}
+		}
+		else
+		{
+			s.defaultWriteObject();
+		}
+	}
+
+	/**
+	 * Reads the state of this component compactly if read from a {@link CompactObjectInputStream},
+	 * otherwise with default serialization.
+	 * 
+	 * @param s
+	 *            stream to read from
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(final ObjectInputStream s) throws IOException, ClassNotFoundException
+	{
+		if (s instanceof CompactObjectInputStream)
+		{
+			CompactObjectInputStream in = (CompactObjectInputStream)s;
+			flags = in.readVarInt();
+			try
+			{
+				IdField.FIELD.set(this, in.readObject());
+			}
+			catch (IllegalAccessException e)
+			{
+				throw new WicketRuntimeException("Cannot restore the id of " + getClass(), e);
+			}
+			parent = (MarkupContainer)in.readObject();
+			generatedMarkupId = in.readVarInt() - 1;
+
+			int length = in.readVarInt();
+			Object[] array = new Object[length];
+			for (int i = 0; i < length; i++)
+			{
+				if (in.readBoolean())
+				{
+					MetaDataEntry<?>[] entries = new MetaDataEntry<?>[in.readVarInt()];
+					for (int e = 0; e < entries.length; e++)
+					{
+						entries[e] = new MetaDataEntry<>((MetaDataKey<Object>)in.readObject(),
+							in.readObject());
+					}
+					array[i] = entries;
+				}
+				else
+				{
+					array[i] = in.readObject();
+				}
+			}
+
+			if (length == 1)
+			{
+				data = array[0];
+			}
+			else if (length > 1)
+			{
+				data = array;
+			}
+		}
+		else
+		{
+			s.defaultReadObject();
+		}
+	}
+
+	/**
+	 * The final {@link Component#id}, restored reflectively by
+	 * {@link Component#readObject(ObjectInputStream)}.
+	 */
+	private static final class IdField
+	{
+		private static final Field FIELD;
+
+		static
+		{
+			try
+			{
+				FIELD = Component.class.getDeclaredField("id");
+				FIELD.setAccessible(true);
+			}
+			catch (NoSuchFieldException e)
+			{
+				throw new ExceptionInInitializerError(e);
+			}
+		}
+	}
+
 	/**
 	 * Constructor. All components have names. A component's id cannot be null. This is the minimal
 	 * constructor of component. It does not register a model.
@@ -934,6 +1087,10 @@ public abstract class Component
 			try {
 				setRequestFlag(RFLAG_BEFORE_RENDER_SUPER_CALL_VERIFIED, false);
 
+				RenderCacheBehavior renderCache = getRenderCache();
+				setRequestFlag(RFLAG_RENDER_CACHED,
+					renderCache != null && renderCache.isCached(this));
+
 				Application application = getApplication();
 				application.getComponentPreOnBeforeRenderListeners().onBeforeRender(this);
 
@@ -1623,8 +1780,56 @@ public abstract class Component
 	 *            Model object to convert to string
 	 * @return The string
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public final String getDefaultModelObjectAsString(final Object modelObject)
+	{
+		final String modelString = convertModelObjectToString(modelObject);
+		if (modelString != null)
+		{
+			// If we should escape the markup
+			if (getFlag(FLAG_ESCAPE_MODEL_STRINGS))
+			{
+				// Escape HTML sensitive characters only. Not all none-ascii chars
+				return Strings.escapeMarkup(modelString, false, false).toString();
+			}
+			return modelString;
+		}
+		return "";
+	}
+
+	/**
+	 * Writes a model object as a string to the response. Like
+	 * {@link #getDefaultModelObjectAsString(Object)} the string is HTML escaped depending on the
+	 * "escape model strings" flag, but it is escaped while it is written, without creating an
+	 * escaped copy.
+	 * 
+	 * @see #getDefaultModelObjectAsString(Object)
+	 * 
+	 * @param modelObject
+	 *            Model object to convert to string
+	 */
+	protected final void writeDefaultModelObjectAsString(final Object modelObject)
+	{
+		final String modelString = convertModelObjectToString(modelObject);
+		if (modelString != null)
+		{
+			if (getFlag(FLAG_ESCAPE_MODEL_STRINGS))
+			{
+				Strings.escapeMarkup(modelString, false, false, getResponse().getWriter());
+			}
+			else
+			{
+				getResponse().write(modelString);
+			}
+		}
+	}
+
+	/**
+	 * @param modelObject
+	 *            Model object to convert to string
+	 * @return the unescaped string or {@code null}
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private String convertModelObjectToString(final Object modelObject)
 	{
 		if (modelObject != null)
 		{
@@ -1634,20 +1839,9 @@ public abstract class Component
 			final IConverter converter = getConverter(objectClass);
 
 			// Model string from property
-			final String modelString = converter.convertToString(modelObject, getLocale());
-
-			if (modelString != null)
-			{
-				// If we should escape the markup
-				if (getFlag(FLAG_ESCAPE_MODEL_STRINGS))
-				{
-					// Escape HTML sensitive characters only. Not all none-ascii chars
-					return Strings.escapeMarkup(modelString, false, false).toString();
-				}
-				return modelString;
-			}
+			return converter.convertToString(modelObject, getLocale());
 		}
-		return "";
+		return null;
 	}
 
 	/**
@@ -2295,7 +2489,15 @@ public abstract class Component
 			try
 			{
 				notifyBehaviorsComponentBeforeRender();
-				onRender();
+				RenderCacheBehavior renderCache = getRenderCache();
+				if (renderCache != null)
+				{
+					renderCache.render(this, this::onRender);
+				}
+				else
+				{
+					onRender();
+				}
 				notifyBehaviorsComponentRendered();
 
 				// Component has been rendered
@@ -3625,6 +3827,27 @@ public abstract class Component
 		return new Behaviors(this).getBehaviors(type);
 	}
 
+	/**
+	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT USE IT!
+	 * 
+	 * @return the accepted {@link RenderCacheBehavior} caching the output of this component, or
+	 *         {@code null}
+	 */
+	public final RenderCacheBehavior getRenderCache()
+	{
+		if (getFlag(FLAG_RENDER_CACHE))
+		{
+			for (RenderCacheBehavior behavior : getBehaviors(RenderCacheBehavior.class))
+			{
+				if (isBehaviorAccepted(behavior))
+				{
+					return behavior;
+				}
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT USE IT!
 	 * 
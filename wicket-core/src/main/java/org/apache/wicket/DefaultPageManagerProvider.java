@@ -22,6 +22,7 @@ import org.apache.wicket.page.IPageManager;
 import org.apache.wicket.page.PageManager;
 import org.apache.wicket.pageStore.AsynchronousPageStore;
 import org.apache.wicket.pageStore.CryptingPageStore;
+import org.apache.wicket.pageStore.DeltaPageStore;
 import org.apache.wicket.pageStore.DiskPageStore;
 import org.apache.wicket.pageStore.FilePageStore;
 import org.apache.wicket.pageStore.GroupingPageStore;
@@ -29,7 +30,9 @@ import org.apache.wicket.pageStore.IPageStore;
 import org.apache.wicket.pageStore.InMemoryPageStore;
 import org.apache.wicket.pageStore.InSessionPageStore;
 import org.apache.wicket.pageStore.NoopPageStore;
+import org.apache.wicket.pageStore.OffHeapPageStore;
 import org.apache.wicket.pageStore.RequestPageStore;
+import org.apache.wicket.pageStore.SegmentPageStore;
 import org.apache.wicket.pageStore.SerializedPage;
 import org.apache.wicket.pageStore.SerializingPageStore;
 import org.apache.wicket.serialize.ISerializer;
@@ -45,6 +48,8 @@ import org.apache.wicket.util.lang.Bytes;
  * <li>{@link InSessionPageStore} keeping the last accessed page in the session</li>
  * <li>{@link AsynchronousPageStore} moving storage of pages to an asynchronous worker thread (enabled by default with {@link StoreSettings#isAsynchronous()})</li>
  * <li>{@link SerializingPageStore} serializing all pages (so they are available for back-button)</li>
+ * <li>{@link OffHeapPageStore} caching serialized pages outside of the heap (disabled by default in {@link StoreSettings#getOffHeapCacheSize()})</li>
+ * <li>{@link DeltaPageStore} storing consecutive versions of pages as deltas (disabled by default in {@link StoreSettings#getDeltaSnapshotInterval()})</li>
  * <li>{@link CryptingPageStore} encrypting all pages (disabled by default in {@link StoreSettings#isEncrypted()})</li>
  * <li>{@link DiskPageStore} persisting all pages, configured according to {@link StoreSettings}</li>
  * </ol>
@@ -74,6 +79,7 @@ import org.apache.wicket.util.lang.Bytes;
  * <ul>
  * <li>{@link GroupingPageStore} groups pages, e.g. to limit storage size on a per-group basis</li>
  * <li>{@link FilePageStore} as an alternative to the trusted {@link DiskPageStore}</li>
+ * <li>{@link SegmentPageStore} sharing few files between all sessions (enabled with {@link StoreSettings#isSegmented()})</li>
  * <li>other implementations from <a href="https://github.com/wicketstuff/core/tree/master/datastores-parent">wicketstuff-datastores</a></li>
  * </ul>
  */
@@ -99,6 +105,10 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		
 		store = newCryptingStore(store);
 
+		store = newDeltaStore(store);
+
+		store = newCacheStore(store);
+
 		store = newSerializingStore(store);
 		
 		store = newAsynchronousStore(store);
@@ -148,6 +158,8 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 	 * Store pages asynchronously into the persistent store, if enabled in {@link StoreSettings#isAsynchronous()}.
 	 * 
 	 * @see AsynchronousPageStore
+	 * @see StoreSettings#getAsynchronousThreads()
+	 * @see StoreSettings#getAsynchronousBatchSize()
 	 */
 	protected IPageStore newAsynchronousStore(IPageStore pageStore)
 	{
@@ -156,7 +168,10 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		if (storeSettings.isAsynchronous())
 		{
 			int capacity = storeSettings.getAsynchronousQueueCapacity();
-			pageStore = new AsynchronousPageStore(pageStore, capacity);
+			int threads = storeSettings.getAsynchronousThreads();
+			int batchSize = storeSettings.getAsynchronousBatchSize();
+			pageStore = new AsynchronousPageStore(pageStore, capacity, threads, batchSize,
+				storeSettings.getAsynchronousStatistics());
 		}
 
 		return pageStore;
@@ -172,6 +187,45 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		return new SerializingPageStore(pageStore, getSerializer());
 	}
 
+	/**
+	 * Cache serialized pages outside of the heap, if enabled in {@link StoreSettings#getOffHeapCacheSize()}.
+	 * 
+	 * @see OffHeapPageStore
+	 * @see StoreSettings#getMaxSizePerSession()
+	 * @see StoreSettings#getOffHeapCacheStatistics()
+	 */
+	protected IPageStore newCacheStore(IPageStore pageStore)
+	{
+		StoreSettings storeSettings = application.getStoreSettings();
+
+		Bytes size = storeSettings.getOffHeapCacheSize();
+		if (size.bytes() > 0)
+		{
+			pageStore = new OffHeapPageStore(pageStore, size, storeSettings.getMaxSizePerSession(),
+				storeSettings.getOffHeapCacheStatistics());
+		}
+
+		return pageStore;
+	}
+
+	/**
+	 * Store consecutive versions of pages as deltas, if enabled in {@link StoreSettings#getDeltaSnapshotInterval()}.
+	 * 
+	 * @see DeltaPageStore
+	 */
+	protected IPageStore newDeltaStore(IPageStore pageStore)
+	{
+		StoreSettings storeSettings = application.getStoreSettings();
+
+		int snapshotInterval = storeSettings.getDeltaSnapshotInterval();
+		if (snapshotInterval > 0)
+		{
+			pageStore = new DeltaPageStore(pageStore, snapshotInterval);
+		}
+
+		return pageStore;
+	}
+
 	/**
 	 * Crypt all pages, if enabled in {@link StoreSettings#isEncrypted()}.
 	 * 
@@ -193,8 +247,10 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 	 * Keep persistent copies of all pages on disk.
 	 * 
 	 * @see DiskPageStore
+	 * @see SegmentPageStore
 	 * @see StoreSettings#getMaxSizePerSession()
 	 * @see StoreSettings#getFileStoreFolder()
+	 * @see StoreSettings#isSegmented()
 	 */
 	protected IPageStore newPersistentStore()
 	{
@@ -202,6 +258,14 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		Bytes maxSizePerSession = storeSettings.getMaxSizePerSession();
 		File fileStoreFolder = storeSettings.getFileStoreFolder();
 
+		if (storeSettings.isSegmented())
+		{
+			SegmentPageStore store = new SegmentPageStore(application.getName(), fileStoreFolder,
+				maxSizePerSession);
+			store.startCompaction();
+			return store;
+		}
+
 		return new DiskPageStore(application.getName(), fileStoreFolder, maxSizePerSession);
 	}
 }
\ No newline at end of file
@@ -16,9 +16,13 @@
  */
 package org.apache.wicket;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
@@ -50,6 +54,8 @@ import org.apache.wicket.markup.resolver.ComponentResolvers;
 import org.apache.wicket.model.IComponentInheritedModel;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.IWrapModel;
+import org.apache.wicket.serialize.compact.CompactObjectInputStream;
+import org.apache.wicket.serialize.compact.CompactObjectOutputStream;
 import org.apache.wicket.settings.DebugSettings;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Classes;
@@ -1308,6 +1314,96 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		return oldChild;
 	}
 
+	/**
+	 * Writes the children compactly if written to a {@link CompactObjectOutputStream}, otherwise
+	 * with default serialization.
+	 * 
+	 * @param s
+	 *            stream to write to
+	 * @throws IOException
+	 */
+	private void writeObject(final ObjectOutputStream s) throws IOException
+	{
+		if (s instanceof CompactObjectOutputStream)
+		{
+			CompactObjectOutputStream out = (CompactObjectOutputStream)s;
+			if (children == null)
+			{
+				out.writeVarInt(0);
+			}
+			else if (children instanceof Component)
+			{
+				out.writeVarInt(1);
+				out.writeObject(children);
+			}
+			else
+			{
+				Collection<Component> values = children instanceof List ? children()
+					: this.<Map<String, Component>> children().values();
+				out.writeVarInt(values.size());
+				out.writeBoolean(children instanceof LinkedMap);
+				for (Component child : values)
+				{
+					out.writeObject(child);
+				}
+			}
+		}
+		else
+		{
+			s.defaultWriteObject();
+		}
+	}
+
+	/**
+	 * Reads the children compactly if read from a {@link CompactObjectInputStream}, otherwise with
+	 * default serialization.
+	 * 
+	 * @param s
+	 *            stream to read from
+	 * @throws IOException
+	 * @throws ClassNotFoundException
+	 */
+	private void readObject(final ObjectInputStream s) throws IOException, ClassNotFoundException
+	{
+		if (s instanceof CompactObjectInputStream)
+		{
+			CompactObjectInputStream in = (CompactObjectInputStream)s;
+			int size = in.readVarInt();
+			if (size == 1)
+			{
+				children = in.readObject();
+			}
+			else if (size > 1)
+			{
+				if (in.readBoolean())
+				{
+					Map<String, Component> childrenMap = new LinkedMap<>(
+						Math.max(MAPIFY_THRESHOLD * 2, size * 2));
+					for (int i = 0; i < size; i++)
+					{
+						Component child = (Component)in.readObject();
+						childrenMap.put(child.getId(), child);
+					}
+					children = childrenMap;
+				}
+				else
+				{
+					List<Component> childrenList = new ArrayList<>(
+						Math.max(INITIAL_CHILD_LIST_CAPACITY, size));
+					for (int i = 0; i < size; i++)
+					{
+						childrenList.add((Component)in.readObject());
+					}
+					children = childrenList;
+				}
+			}
+		}
+		else
+		{
+			s.defaultReadObject();
+		}
+	}
+
 	/**
 	 * Retrieves the during the request removed children. These are stored in the metadata and
 	 * cleared at the end of the request {@link #onDetach()}
@@ -1739,6 +1835,12 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	{
 		super.onBeforeRenderChildren();
 
+		if (getRequestFlag(RFLAG_RENDER_CACHED))
+		{
+			// the children are not rendered
+			return;
+		}
+
 		try
 		{
 			// Loop through child components
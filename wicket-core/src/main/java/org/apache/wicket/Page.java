@@ -17,10 +17,12 @@
 package org.apache.wicket;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.apache.wicket.authorization.UnauthorizedActionException;
 import org.apache.wicket.core.util.lang.WicketObjects;
@@ -31,6 +33,7 @@ import org.apache.wicket.markup.MarkupType;
 import org.apache.wicket.markup.html.WebPage;
 import org.apache.wicket.markup.resolver.IComponentResolver;
 import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.ModelPrefetcher;
 import org.apache.wicket.page.IPageManager;
 import org.apache.wicket.pageStore.IPageStore;
 import org.apache.wicket.request.component.IRequestablePage;
@@ -993,6 +996,13 @@ public abstract class Page extends MarkupContainer
 				delay.beforeRender();
 			}
 
+			Executor prefetchExecutor = getApplication().getApplicationSettings()
+				.getModelPrefetchExecutor();
+			if (prefetchExecutor != null)
+			{
+				new ModelPrefetcher(prefetchExecutor).prefetch(Collections.singletonList(this));
+			}
+
 			markRendering(true);
 			
 			render();
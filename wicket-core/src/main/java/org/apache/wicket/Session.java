@@ -38,6 +38,7 @@ import org.apache.wicket.feedback.FeedbackMessages;
 import org.apache.wicket.feedback.IFeedbackContributor;
 import org.apache.wicket.page.IPageManager;
 import org.apache.wicket.page.PageAccessSynchronizer;
+import org.apache.wicket.page.QueuedPageAccessSynchronizer;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.session.ISessionStore;
@@ -982,9 +983,14 @@ public abstract class Session implements IClusterable, IEventSink, IMetadataCont
 	 * @param timeout
 	 *              The configured timeout. See {@link org.apache.wicket.settings.RequestCycleSettings#getTimeout()}
 	 * @return A new instance of PageAccessSynchronizer
+	 * @see org.apache.wicket.settings.PageSettings#isQueuedPageLocking()
 	 */
 	protected PageAccessSynchronizer newPageAccessSynchronizer(Duration timeout)
 	{
+		if (Application.exists() && Application.get().getPageSettings().isQueuedPageLocking())
+		{
+			return new QueuedPageAccessSynchronizer(timeout);
+		}
 		return new PageAccessSynchronizer(timeout);
 	}
 
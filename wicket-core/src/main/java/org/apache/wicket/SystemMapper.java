@@ -25,7 +25,7 @@ import org.apache.wicket.core.request.mapper.PageInstanceMapper;
 import org.apache.wicket.core.request.mapper.ResourceReferenceMapper;
 import org.apache.wicket.request.IRequestMapper;
 import org.apache.wicket.request.component.IRequestablePage;
-import org.apache.wicket.request.mapper.CompoundRequestMapper;
+import org.apache.wicket.request.mapper.IndexedCompoundRequestMapper;
 import org.apache.wicket.request.mapper.parameter.PageParametersEncoder;
 import org.apache.wicket.request.resource.caching.IResourceCachingStrategy;
 
@@ -34,7 +34,7 @@ import org.apache.wicket.request.resource.caching.IResourceCachingStrategy;
  * 
  * @author igor.vaynberg
  */
-public class SystemMapper extends CompoundRequestMapper
+public class SystemMapper extends IndexedCompoundRequestMapper
 {
 	private final Application application;
 
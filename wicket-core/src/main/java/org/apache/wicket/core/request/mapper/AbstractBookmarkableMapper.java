@@ -739,6 +739,37 @@ public abstract class AbstractBookmarkableMapper extends AbstractComponentMapper
 		return result;
 	}
 
+	/**
+	 * Gets whether the mount segments can be indexed, i.e. a URL has to start with them literally.
+	 * This is not the case when the matching is case insensitive or {@link #segmentsMatch(String,
+	 * String)} is overridden.
+	 * 
+	 * @return {@code true} if the mount segments can be indexed
+	 * @see org.apache.wicket.request.mapper.IIndexableRequestMapper
+	 */
+	protected boolean isIndexable()
+	{
+		if (isCaseSensitiveMatch() == false)
+		{
+			return false;
+		}
+
+		for (Class<?> type = getClass(); type != AbstractBookmarkableMapper.class; type = type
+			.getSuperclass())
+		{
+			try
+			{
+				type.getDeclaredMethod("segmentsMatch", String.class, String.class);
+				return false;
+			}
+			catch (NoSuchMethodException e)
+			{
+				// not overridden here
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * @return whether the matching of mounted segments against request's url ones should be
 	 *      case sensitive or not
@@ -750,12 +781,14 @@ public abstract class AbstractBookmarkableMapper extends AbstractComponentMapper
 
 	/**
 	 * Sets whether the matching of mounted segments against request's url ones should be
-	 * case sensitive or not.
+	 * case sensitive or not. Since {@link org.apache.wicket.SystemMapper} indexes the mount
+	 * segments, this has to be set before the mapper is mounted.
 	 *
 	 * @param isCaseSensitive
 	 *          a flag indicating whether the matching of mounted segments against request's
 	 *          url ones should be case sensitive or not
 	 * @return this instance, for chaining
+	 * @see #isIndexable()
 	 */
 	public AbstractBookmarkableMapper setCaseSensitiveMatch(boolean isCaseSensitive)
 	{
@@ -24,6 +24,7 @@ import org.apache.wicket.request.IRequestHandler;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.mapper.IIndexableRequestMapper;
 import org.apache.wicket.request.mapper.info.ComponentInfo;
 import org.apache.wicket.request.mapper.info.PageComponentInfo;
 import org.apache.wicket.request.mapper.info.PageInfo;
@@ -62,7 +63,7 @@ import org.apache.wicket.util.string.Strings;
  * 
  * @author Matej Knopp
  */
-public class MountedMapper extends AbstractBookmarkableMapper
+public class MountedMapper extends AbstractBookmarkableMapper implements IIndexableRequestMapper
 {
 	/** bookmarkable page class. */
 	private final Supplier<Class<? extends IRequestablePage>> pageClassProvider;
@@ -239,6 +240,18 @@ public class MountedMapper extends AbstractBookmarkableMapper
 		return true;
 	}
 
+	/**
+	 * Returns the mount segments, or <code>null</code> if they are not matched literally.
+	 * 
+	 * @see #isIndexable()
+	 * @see IIndexableRequestMapper#getIndexSegments()
+	 */
+	@Override
+	public String[] getIndexSegments()
+	{
+		return isIndexable() ? mountSegments : null;
+	}
+
 	/**
 	 * @see AbstractBookmarkableMapper#pageMustHaveBeenCreatedBookmarkable()
 	 */
@@ -16,6 +16,7 @@
  */
 package org.apache.wicket.core.request.mapper;
 
+import java.util.Arrays;
 import java.util.List;
 
 import javax.servlet.http.HttpServletResponse;
@@ -26,6 +27,7 @@ import org.apache.wicket.request.IRequestMapper;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.handler.resource.ResourceReferenceRequestHandler;
+import org.apache.wicket.request.mapper.IIndexableRequestMapper;
 import org.apache.wicket.request.http.flow.AbortWithHttpErrorCodeException;
 import org.apache.wicket.request.mapper.parameter.INamedParameters;
 import org.apache.wicket.request.mapper.parameter.IPageParametersEncoder;
@@ -70,7 +72,7 @@ import org.apache.wicket.util.string.Strings;
  *
  * @author Peter Ertl
  */
-public class ResourceMapper extends AbstractBookmarkableMapper
+public class ResourceMapper extends AbstractBookmarkableMapper implements IIndexableRequestMapper
 {
 	// encode page parameters into url + decode page parameters from url
 	private final IPageParametersEncoder parametersEncoder;
@@ -118,6 +120,24 @@ public class ResourceMapper extends AbstractBookmarkableMapper
 		parametersEncoder = encoder;
 	}
 
+	/**
+	 * Returns the mount segments without the last one, since the caching strategy may decorate
+	 * it with version information. Returns <code>null</code> if the segments are not matched
+	 * literally.
+	 * 
+	 * @see #isIndexable()
+	 * @see IIndexableRequestMapper#getIndexSegments()
+	 */
+	@Override
+	public String[] getIndexSegments()
+	{
+		if (isIndexable() == false)
+		{
+			return null;
+		}
+		return Arrays.copyOf(mountSegments, Math.max(0, mountSegments.length - 1));
+	}
+
 	@Override
 	public IRequestHandler mapRequest(final Request request)
 	{
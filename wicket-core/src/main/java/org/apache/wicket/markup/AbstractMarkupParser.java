@@ -17,6 +17,7 @@
 package org.apache.wicket.markup;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.text.ParseException;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -164,6 +165,21 @@ public abstract class AbstractMarkupParser
 	 * @throws ResourceStreamNotFoundException
 	 */
 	public final Markup parse() throws IOException, ResourceStreamNotFoundException
+	{
+		return parse(markup.getMarkupResourceStream().getResource().getInputStream());
+	}
+
+	/**
+	 * Parses markup that was already read from the markup resource stream.
+	 * 
+	 * @param input
+	 *            the content of the markup resource stream
+	 * @return The markup
+	 * @throws IOException
+	 * @throws ResourceStreamNotFoundException
+	 */
+	final Markup parse(final InputStream input) throws IOException,
+		ResourceStreamNotFoundException
 	{
 		// The root of all markup filters is the xml parser
 		markupFilterChain = new RootMarkupFilter(xmlParser, markup.getMarkupResourceStream());
@@ -177,8 +193,7 @@ public abstract class AbstractMarkupParser
 
 		// Initialize the xml parser
 		MarkupResourceStream markupResourceStream = markup.getMarkupResourceStream();
-		xmlParser.parse(markupResourceStream.getResource().getInputStream(),
-			markupSettings.getDefaultMarkupEncoding());
+		xmlParser.parse(input, markupSettings.getDefaultMarkupEncoding());
 
 		// parse the xml markup and tokenize it into wicket relevant markup
 		// elements
@@ -31,9 +31,12 @@ import org.apache.wicket.markup.parser.XmlTag;
 import org.apache.wicket.markup.parser.XmlTag.TagType;
 import org.apache.wicket.markup.parser.filter.HtmlHandler;
 import org.apache.wicket.request.Response;
+import org.apache.wicket.response.StringResponse;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Generics;
+import org.apache.wicket.util.lang.Objects;
 import org.apache.wicket.util.string.AppendingStringBuffer;
+import org.apache.wicket.util.string.PreEncodedString;
 import org.apache.wicket.util.string.StringValue;
 import org.apache.wicket.util.string.Strings;
 import org.apache.wicket.util.value.IValueMap;
@@ -126,6 +129,12 @@ public class ComponentTag extends MarkupElement
 
 	private IAutoComponentFactory autoComponentFactory;
 
+	/** If mutable, the immutable tag that this tag is a copy of */
+	private ComponentTag copyOf;
+
+	/** If immutable, the rendered tag, created on first write */
+	private volatile Template template;
+
 	/**
 	 * Automatically create a XmlTag, assign the name and the type, and construct a ComponentTag
 	 * based on this XmlTag.
@@ -285,7 +294,8 @@ public class ComponentTag extends MarkupElement
 	 */
 	public final String getAttribute(String name)
 	{
-		return xmlTag.getAttributes().getString(name);
+		CharSequence value = xmlTag.getAttribute(name);
+		return value != null ? value.toString() : null;
 	}
 
 	/**
@@ -450,6 +460,7 @@ public class ComponentTag extends MarkupElement
 		dest.id = id;
 		dest.flags = flags;
 		dest.autoComponentFactory = autoComponentFactory;
+		dest.copyOf = xmlTag.isMutable() ? copyOf : this;
 
 		if (markupClassRef != null)
 		{
@@ -705,7 +716,10 @@ public class ComponentTag extends MarkupElement
 	}
 
 	/**
-	 * Write the tag to the response
+	 * Write the tag to the response.
+	 * <p>
+	 * Tags loaded with the markup are rendered once only. A copy of such a tag writes the rendering
+	 * of the original, as long as neither its name, type nor attributes were modified.
 	 * 
 	 * @param response
 	 *            The response to write to
@@ -716,6 +730,74 @@ public class ComponentTag extends MarkupElement
 	 */
 	public final void writeOutput(final Response response, final boolean stripWicketAttributes,
 		final String namespace)
+	{
+		String namespacePrefix = null;
+		if (stripWicketAttributes == true)
+		{
+			namespacePrefix = namespace + ":";
+		}
+
+		final ComponentTag original = getUnmodifiedOriginal();
+		if (original != null)
+		{
+			response.write(original.getTemplate(namespacePrefix));
+		}
+		else
+		{
+			writeTag(response, namespacePrefix);
+		}
+	}
+
+	/**
+	 * @return the immutable tag this tag renders the same as, or {@code null} if modified
+	 */
+	private ComponentTag getUnmodifiedOriginal()
+	{
+		if (xmlTag.isMutable() == false)
+		{
+			return this;
+		}
+
+		if ((copyOf != null) && xmlTag.sharesAttributesWith(copyOf.xmlTag) &&
+			(getType() == copyOf.getType()) && Objects.equal(getName(), copyOf.getName()) &&
+			Objects.equal(getNamespace(), copyOf.getNamespace()))
+		{
+			return copyOf;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the rendering of this immutable tag.
+	 * 
+	 * @param namespacePrefix
+	 *            prefix of attributes to strip, may be {@code null}
+	 * @return rendered tag
+	 */
+	private PreEncodedString getTemplate(final String namespacePrefix)
+	{
+		Template result = template;
+		if ((result == null) || !Objects.equal(result.namespacePrefix, namespacePrefix))
+		{
+			StringResponse response = new StringResponse();
+			writeTag(response, namespacePrefix);
+
+			// a benign race may render more than once
+			result = new Template(namespacePrefix, new PreEncodedString(response.getBuffer()));
+			template = result;
+		}
+		return result.text;
+	}
+
+	/**
+	 * Writes the tag from its name, type and attributes.
+	 * 
+	 * @param response
+	 *            The response to write to
+	 * @param namespacePrefix
+	 *            prefix of attributes to strip, may be {@code null}
+	 */
+	private void writeTag(final Response response, final String namespacePrefix)
 	{
 		response.write("<");
 
@@ -732,13 +814,7 @@ public class ComponentTag extends MarkupElement
 
 		response.write(getName());
 
-		String namespacePrefix = null;
-		if (stripWicketAttributes == true)
-		{
-			namespacePrefix = namespace + ":";
-		}
-
-		if (getAttributes().size() > 0)
+		if (xmlTag.hasAttributes())
 		{
 			for (String key : getAttributes().keySet())
 			{
@@ -757,8 +833,7 @@ public class ComponentTag extends MarkupElement
 					if (value != null)
 					{
 						response.write("=\"");
-						value = Strings.escapeMarkup(value);
-						response.write(value);
+						Strings.escapeMarkup(value, false, false, response.getWriter());
 						response.write("\"");
 					}
 				}
@@ -952,6 +1027,16 @@ public class ComponentTag extends MarkupElement
 		return userData.get(key);
 	}
 
+	/**
+	 * Gets all userData.
+	 * 
+	 * @return userData, may be {@code null}
+	 */
+	Map<String, Object> getUserData()
+	{
+		return userData;
+	}
+
 	/**
 	 * Sets userData.
 	 * 
@@ -993,5 +1078,19 @@ public class ComponentTag extends MarkupElement
 		this.autoComponentFactory = autoComponentFactory;
 	}
 
+	/**
+	 * The rendering of an immutable tag.
+	 */
+	private static final class Template
+	{
+		private final String namespacePrefix;
+
+		private final PreEncodedString text;
 
+		private Template(final String namespacePrefix, final PreEncodedString text)
+		{
+			this.namespacePrefix = namespacePrefix;
+			this.text = text;
+		}
+	}
 }
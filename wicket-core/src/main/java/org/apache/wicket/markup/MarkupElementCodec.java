@@ -0,0 +1,636 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.core.util.lang.WicketObjects;
+import org.apache.wicket.markup.parser.XmlTag;
+import org.apache.wicket.markup.parser.XmlTag.TagType;
+import org.apache.wicket.markup.parser.filter.WicketTagIdentifier;
+
+/**
+ * Encodes the elements of a parsed {@link Markup} into a compact binary form and back.
+ * <p>
+ * Supported are {@link RawMarkup}, {@link ComponentTag} and {@link WicketTag}, including the
+ * references between open and close tags. Objects attached to tags by markup filters (behaviors,
+ * auto component factories and user data) are written as references to static final fields if
+ * possible, or with Java serialization otherwise. Markup with other elements or objects cannot be
+ * encoded.
+ *
+ * @see ParsedMarkupCache
+ */
+class MarkupElementCodec
+{
+	private static final byte RAW_MARKUP = 0;
+
+	private static final byte COMPONENT_TAG = 1;
+
+	private static final byte WICKET_TAG = 2;
+
+	private static final byte NULL = 0;
+
+	private static final byte STRING = 1;
+
+	private static final byte BOOLEAN = 2;
+
+	private static final byte CONSTANT = 3;
+
+	private static final byte SERIALIZED = 4;
+
+	private static final byte CONTAINER_INFO = 5;
+
+	private static final byte MARKUP_CACHE_KEY = 6;
+
+	private static final TagType[] TAG_TYPES = TagType.values();
+
+	private MarkupElementCodec()
+	{
+	}
+
+	/**
+	 * Encode the elements of the given markup.
+	 *
+	 * @param markup
+	 *            markup
+	 * @return encoded elements
+	 * @throws NotSerializableException
+	 *             if the markup contains elements or objects which cannot be encoded
+	 */
+	static byte[] encode(final Markup markup) throws NotSerializableException
+	{
+		Map<MarkupElement, Integer> elementIndices = new IdentityHashMap<>();
+		Map<XmlTag, Integer> xmlTagIndices = new IdentityHashMap<>();
+		for (int index = 0; index < markup.size(); index++)
+		{
+			MarkupElement element = markup.get(index);
+			elementIndices.put(element, index);
+			if (element instanceof ComponentTag)
+			{
+				xmlTagIndices.put(((ComponentTag)element).getXmlTag(), index);
+			}
+		}
+
+		try
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream output = new DataOutputStream(bytes);
+
+			MarkupResourceStream markupResourceStream = markup.getMarkupResourceStream();
+			writeString(output, markupResourceStream.getEncoding());
+			writeString(output, markupResourceStream.getDoctype());
+			writeString(output, markupResourceStream.getWicketNamespace());
+
+			output.writeInt(markup.size());
+			for (MarkupElement element : markup)
+			{
+				if (element.getClass() == RawMarkup.class)
+				{
+					output.writeByte(RAW_MARKUP);
+					writeString(output, element.toString());
+				}
+				else if (element.getClass() == ComponentTag.class)
+				{
+					output.writeByte(COMPONENT_TAG);
+					writeTag(output, (ComponentTag)element, elementIndices, xmlTagIndices);
+				}
+				else if (element.getClass() == WicketTag.class)
+				{
+					output.writeByte(WICKET_TAG);
+					writeTag(output, (ComponentTag)element, elementIndices, xmlTagIndices);
+				}
+				else
+				{
+					throw new NotSerializableException(element.getClass().getName());
+				}
+			}
+
+			output.flush();
+			return bytes.toByteArray();
+		}
+		catch (NotSerializableException ex)
+		{
+			throw ex;
+		}
+		catch (IOException ex)
+		{
+			NotSerializableException notSerializable = new NotSerializableException(ex.getMessage());
+			notSerializable.initCause(ex);
+			throw notSerializable;
+		}
+	}
+
+	private static void writeTag(final DataOutputStream output, final ComponentTag tag,
+		final Map<MarkupElement, Integer> elementIndices, final Map<XmlTag, Integer> xmlTagIndices)
+		throws IOException
+	{
+		XmlTag xmlTag = tag.getXmlTag();
+		if (xmlTag.isMutable())
+		{
+			throw new NotSerializableException("mutable tag " + tag);
+		}
+
+		writeString(output, xmlTag.getName());
+		writeString(output, xmlTag.getNamespace());
+		output.writeByte(xmlTag.getType() == null ? -1 : xmlTag.getType().ordinal());
+
+		if (xmlTag.getLength() > 0)
+		{
+			output.writeBoolean(true);
+			writeString(output, xmlTag.toCharSequence().toString());
+			output.writeInt(xmlTag.getPos());
+			output.writeInt(xmlTag.getLineNumber());
+			output.writeInt(xmlTag.getColumnNumber());
+		}
+		else
+		{
+			output.writeBoolean(false);
+		}
+
+		if (xmlTag.hasAttributes())
+		{
+			output.writeInt(xmlTag.getAttributes().size());
+			for (Map.Entry<String, Object> attribute : xmlTag.getAttributes().entrySet())
+			{
+				writeString(output, attribute.getKey());
+				writeObject(output, attribute.getValue());
+			}
+		}
+		else
+		{
+			output.writeInt(0);
+		}
+
+		output.writeInt(indexOf(xmlTag.getOpenTag(), xmlTagIndices));
+		output.writeInt(indexOf(tag.getOpenTag(), elementIndices));
+
+		writeString(output, tag.getId());
+
+		int flags = 0;
+		for (int bit = 0; bit < Integer.SIZE; bit++)
+		{
+			if (tag.getFlag(1 << bit))
+			{
+				flags |= 1 << bit;
+			}
+		}
+		output.writeInt(flags);
+
+		Class<? extends Component> markupClass = tag.getMarkupClass();
+		writeString(output, markupClass == null ? null : markupClass.getName());
+
+		List<Behavior> behaviors = new ArrayList<>();
+		Iterator<? extends Behavior> iterator = tag.getBehaviors();
+		while (iterator.hasNext())
+		{
+			behaviors.add(iterator.next());
+		}
+		output.writeInt(tag.hasBehaviors() ? behaviors.size() : -1);
+		for (Behavior behavior : behaviors)
+		{
+			writeObject(output, behavior);
+		}
+
+		Map<String, Object> userData = tag.getUserData();
+		output.writeInt(userData == null ? -1 : userData.size());
+		if (userData != null)
+		{
+			for (Map.Entry<String, Object> data : userData.entrySet())
+			{
+				writeString(output, data.getKey());
+				if (WicketTagIdentifier.CONTAINER_INFO.equals(data.getKey()))
+				{
+					output.writeByte(CONTAINER_INFO);
+				}
+				else if (WicketTagIdentifier.MARKUP_CACHE_KEY.equals(data.getKey()))
+				{
+					output.writeByte(MARKUP_CACHE_KEY);
+				}
+				else
+				{
+					writeObject(output, data.getValue());
+				}
+			}
+		}
+
+		writeObject(output, tag.getAutoComponentFactory());
+	}
+
+	private static <T> int indexOf(final T element, final Map<T, Integer> indices)
+		throws NotSerializableException
+	{
+		if (element == null)
+		{
+			return -1;
+		}
+
+		Integer index = indices.get(element);
+		if (index == null)
+		{
+			throw new NotSerializableException("tag not contained in markup " + element);
+		}
+		return index;
+	}
+
+	private static void writeObject(final DataOutputStream output, final Object object)
+		throws IOException
+	{
+		if (object == null)
+		{
+			output.writeByte(NULL);
+		}
+		else if (object instanceof String)
+		{
+			output.writeByte(STRING);
+			writeString(output, (String)object);
+		}
+		else if (object instanceof Boolean)
+		{
+			output.writeByte(BOOLEAN);
+			output.writeBoolean((Boolean)object);
+		}
+		else
+		{
+			Field field = findConstant(object);
+			if (field != null)
+			{
+				output.writeByte(CONSTANT);
+				writeString(output, field.getDeclaringClass().getName());
+				writeString(output, field.getName());
+			}
+			else if (object instanceof Serializable)
+			{
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				try (ObjectOutputStream serialized = new ObjectOutputStream(bytes))
+				{
+					serialized.writeObject(object);
+				}
+
+				output.writeByte(SERIALIZED);
+				output.writeInt(bytes.size());
+				bytes.writeTo(output);
+			}
+			else
+			{
+				throw new NotSerializableException(object.getClass().getName());
+			}
+		}
+	}
+
+	/**
+	 * Find a static final field holding the given object, declared in the class of the object or
+	 * the class it is nested in or created by (for lambdas).
+	 */
+	private static Field findConstant(final Object object)
+	{
+		Class<?> clazz = object.getClass();
+
+		List<Class<?>> candidates = new ArrayList<>();
+		candidates.add(clazz);
+		if (clazz.getEnclosingClass() != null)
+		{
+			candidates.add(clazz.getEnclosingClass());
+		}
+		int lambda = clazz.getName().indexOf("$$");
+		if (lambda > 0)
+		{
+			Class<?> creator = WicketObjects.resolveClass(clazz.getName().substring(0, lambda));
+			if (creator != null)
+			{
+				candidates.add(creator);
+			}
+		}
+
+		for (Class<?> candidate : candidates)
+		{
+			for (Field field : candidate.getDeclaredFields())
+			{
+				int modifiers = field.getModifiers();
+				if (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers) &&
+					field.getType().isPrimitive() == false)
+				{
+					try
+					{
+						field.setAccessible(true);
+						if (field.get(null) == object)
+						{
+							return field;
+						}
+					}
+					catch (RuntimeException | IllegalAccessException ex)
+					{
+						// not accessible
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	private static void writeString(final DataOutputStream output, final String string)
+		throws IOException
+	{
+		if (string == null)
+		{
+			output.writeInt(-1);
+		}
+		else
+		{
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			output.writeInt(bytes.length);
+			output.write(bytes);
+		}
+	}
+
+	/**
+	 * Decode markup elements into a new markup.
+	 *
+	 * @param data
+	 *            encoded elements
+	 * @param markupResourceStream
+	 *            the resource stream of the markup
+	 * @return markup
+	 * @throws IOException
+	 *             if the elements cannot be decoded
+	 */
+	static Markup decode(final byte[] data, final MarkupResourceStream markupResourceStream)
+		throws IOException
+	{
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+
+		String encoding = readString(input);
+		String doctype = readString(input);
+		String wicketNamespace = readString(input);
+
+		int size = input.readInt();
+		List<MarkupElement> elements = new ArrayList<>(size);
+		List<int[]> openTags = new ArrayList<>();
+		for (int index = 0; index < size; index++)
+		{
+			byte kind = input.readByte();
+			switch (kind)
+			{
+				case RAW_MARKUP :
+					elements.add(new RawMarkup(readString(input)));
+					break;
+				case COMPONENT_TAG :
+				case WICKET_TAG :
+					elements.add(readTag(input, kind, elements, openTags, markupResourceStream));
+					break;
+				default :
+					throw new InvalidClassException("unknown markup element " + kind);
+			}
+		}
+
+		for (int[] openTag : openTags)
+		{
+			ComponentTag tag = (ComponentTag)elements.get(openTag[0]);
+			if (openTag[2] >= 0)
+			{
+				tag.setOpenTag((ComponentTag)elements.get(openTag[2]));
+			}
+			tag.getXmlTag().setOpenTag(
+				openTag[1] < 0 ? null : ((ComponentTag)elements.get(openTag[1])).getXmlTag());
+		}
+
+		setProperties(markupResourceStream, encoding, doctype, wicketNamespace);
+
+		Markup markup = new Markup(markupResourceStream);
+		for (MarkupElement element : elements)
+		{
+			markup.addMarkupElement(element);
+		}
+		markup.makeImmutable();
+		return markup;
+	}
+
+	/**
+	 * Set the properties of a markup resource stream usually detected by the parser.
+	 *
+	 * @param markupResourceStream
+	 *            the markup resource stream
+	 * @param encoding
+	 *            the encoding
+	 * @param doctype
+	 *            the doctype excluding 'DOCTYPE'
+	 * @param wicketNamespace
+	 *            the wicket namespace
+	 */
+	static void setProperties(final MarkupResourceStream markupResourceStream,
+		final String encoding, final String doctype, final String wicketNamespace)
+	{
+		markupResourceStream.setEncoding(encoding);
+		if (doctype != null)
+		{
+			markupResourceStream.setDoctype("!DOCTYPE " + doctype);
+		}
+		markupResourceStream.setWicketNamespace(wicketNamespace);
+	}
+
+	private static ComponentTag readTag(final DataInputStream input, final byte kind,
+		final List<MarkupElement> elements, final List<int[]> openTags,
+		final MarkupResourceStream markupResourceStream)
+		throws IOException
+	{
+		String name = readString(input);
+		String namespace = readString(input);
+		byte type = input.readByte();
+
+		XmlTag xmlTag;
+		if (input.readBoolean())
+		{
+			String text = readString(input);
+			xmlTag = new XmlTag(text, input.readInt(), input.readInt(), input.readInt(),
+				type < 0 ? null : TAG_TYPES[type]);
+		}
+		else
+		{
+			xmlTag = new XmlTag();
+			xmlTag.setType(type < 0 ? null : TAG_TYPES[type]);
+		}
+		xmlTag.setName(name);
+		xmlTag.setNamespace(namespace);
+
+		int attributes = input.readInt();
+		for (int a = 0; a < attributes; a++)
+		{
+			String key = readString(input);
+			xmlTag.getAttributes().put(key, readObject(input));
+		}
+
+		// open tags are linked when all elements are read
+		openTags.add(new int[] { elements.size(), input.readInt(), input.readInt() });
+
+		ComponentTag tag = kind == WICKET_TAG ? new WicketTag(xmlTag) : new ComponentTag(xmlTag);
+
+		tag.setId(readString(input));
+
+		int flags = input.readInt();
+		for (int bit = 0; bit < Integer.SIZE; bit++)
+		{
+			if ((flags & (1 << bit)) != 0)
+			{
+				tag.setFlag(1 << bit, true);
+			}
+		}
+
+		String markupClass = readString(input);
+		if (markupClass != null)
+		{
+			Class<Component> clazz = WicketObjects.resolveClass(markupClass);
+			if (clazz == null)
+			{
+				throw new InvalidClassException(markupClass);
+			}
+			tag.setMarkupClass(clazz);
+		}
+
+		int behaviors = input.readInt();
+		for (int b = 0; b < behaviors; b++)
+		{
+			tag.addBehavior((Behavior)readObject(input));
+		}
+
+		int userData = input.readInt();
+		for (int d = 0; d < userData; d++)
+		{
+			String key = readString(input);
+			input.mark(1);
+			byte marker = input.readByte();
+			if (marker == CONTAINER_INFO)
+			{
+				tag.setUserData(key, markupResourceStream.getContainerInfo());
+			}
+			else if (marker == MARKUP_CACHE_KEY)
+			{
+				tag.setUserData(key, markupResourceStream.getCacheKey());
+			}
+			else
+			{
+				input.reset();
+				tag.setUserData(key, readObject(input));
+			}
+		}
+
+		tag.setAutoComponentFactory((ComponentTag.IAutoComponentFactory)readObject(input));
+
+		return tag;
+	}
+
+	private static Object readObject(final DataInputStream input) throws IOException
+	{
+		byte kind = input.readByte();
+		switch (kind)
+		{
+			case NULL :
+				return null;
+			case STRING :
+				return readString(input);
+			case BOOLEAN :
+				return input.readBoolean();
+			case CONSTANT :
+				String className = readString(input);
+				String fieldName = readString(input);
+				Class<?> clazz = WicketObjects.resolveClass(className);
+				if (clazz == null)
+				{
+					throw new InvalidClassException(className);
+				}
+				try
+				{
+					Field field = clazz.getDeclaredField(fieldName);
+					field.setAccessible(true);
+					return field.get(null);
+				}
+				catch (ReflectiveOperationException | RuntimeException ex)
+				{
+					throw new InvalidClassException(className, ex.getMessage());
+				}
+			case SERIALIZED :
+				byte[] bytes = new byte[input.readInt()];
+				input.readFully(bytes);
+				try (ObjectInputStream serialized = new ClassResolvingObjectInputStream(
+					new ByteArrayInputStream(bytes)))
+				{
+					return serialized.readObject();
+				}
+				catch (ClassNotFoundException ex)
+				{
+					throw new InvalidClassException(ex.getMessage());
+				}
+			default :
+				throw new InvalidClassException("unknown object " + kind);
+		}
+	}
+
+	private static String readString(final DataInputStream input) throws IOException
+	{
+		int length = input.readInt();
+		if (length < 0)
+		{
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Resolves classes with {@link WicketObjects#resolveClass(String)}.
+	 */
+	private static class ClassResolvingObjectInputStream extends ObjectInputStream
+	{
+		ClassResolvingObjectInputStream(final InputStream in) throws IOException
+		{
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(final ObjectStreamClass desc)
+			throws IOException, ClassNotFoundException
+		{
+			Class<?> clazz = WicketObjects.resolveClass(desc.getName());
+			if (clazz == null)
+			{
+				return super.resolveClass(desc);
+			}
+			return clazz;
+		}
+	}
+}
@@ -26,6 +26,7 @@ import org.apache.wicket.markup.loader.IMarkupLoader;
 import org.apache.wicket.markup.parser.IMarkupFilter;
 import org.apache.wicket.markup.parser.IXmlPullParser;
 import org.apache.wicket.markup.parser.XmlPullParser;
+import org.apache.wicket.settings.MarkupSettings;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
@@ -50,6 +51,9 @@ public class MarkupFactory
 	/** A markup cache */
 	private IMarkupCache markupCache = null;
 
+	/** The cache of parsed markup */
+	private ParsedMarkupCache parsedMarkupCache = null;
+
 	/** The markup resource stream provider used by MarkupCache */
 	private IMarkupResourceStreamProvider markupResourceStreamProvider = null;
 
@@ -178,6 +182,40 @@ public class MarkupFactory
 		return markupCache != null;
 	}
 
+	/**
+	 * Get the cache of parsed markup, used to skip parsing of markup resources which did not
+	 * change since they were parsed last. By default a cache is created if markup is pre-warmed or
+	 * saved to a file.
+	 * 
+	 * @see MarkupSettings#setMarkupPrewarmPackages(String...)
+	 * @see MarkupSettings#setParsedMarkupCacheFile(java.io.File)
+	 * 
+	 * @return Null, to disable caching of parsed markup.
+	 */
+	public ParsedMarkupCache getParsedMarkupCache()
+	{
+		if (parsedMarkupCache == null)
+		{
+			MarkupSettings settings = Application.get().getMarkupSettings();
+			if (settings.getMarkupPrewarmPackages().isEmpty() == false ||
+				settings.getParsedMarkupCacheFile() != null)
+			{
+				parsedMarkupCache = new ParsedMarkupCache();
+			}
+		}
+
+		return parsedMarkupCache;
+	}
+
+	/**
+	 * @return <code>true</code> if a cache of parsed markup is available. Make sure you called
+	 *         {@link #getParsedMarkupCache()} at least once before to initialize the cache.
+	 */
+	public boolean hasParsedMarkupCache()
+	{
+		return parsedMarkupCache != null;
+	}
+
 	/**
 	 * Get the markup associated with the container.
 	 * 
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.mock.MockWebRequest;
+import org.apache.wicket.protocol.http.BufferedWebResponse;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parses the markup of {@link MarkupContainer}s in advance, filling a {@link ParsedMarkupCache}
+ * so the first requests do not have to.
+ * <p>
+ * The classpath is scanned for markup files in the given packages, each markup file with a
+ * corresponding {@link MarkupContainer} class is parsed in a {@link ForkJoinPool}. Since markup
+ * filters need an {@link Application} and a {@link org.apache.wicket.request.cycle.RequestCycle},
+ * each parse is done in its own thread context with a mock request.
+ * <p>
+ * Only the markup files without locale, style or variation are parsed.
+ *
+ * @see org.apache.wicket.settings.MarkupSettings#setMarkupPrewarmPackages(String...)
+ */
+public class MarkupPrewarmer
+{
+	private static final Logger log = LoggerFactory.getLogger(MarkupPrewarmer.class);
+
+	private final Application application;
+
+	private final ParsedMarkupCache cache;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param application
+	 *            the application
+	 * @param cache
+	 *            the cache to fill
+	 */
+	public MarkupPrewarmer(final Application application, final ParsedMarkupCache cache)
+	{
+		this.application = Args.notNull(application, "application");
+		this.cache = Args.notNull(cache, "cache");
+	}
+
+	/**
+	 * Parse the markup of all containers in the given packages and their sub-packages.
+	 *
+	 * @param packages
+	 *            names of packages
+	 * @return count of parsed markups
+	 */
+	public int prewarm(final Collection<String> packages)
+	{
+		long start = System.currentTimeMillis();
+
+		List<Class<? extends MarkupContainer>> containers = scan(packages);
+
+		AtomicInteger count = new AtomicInteger();
+		ForkJoinPool pool = newPool();
+		try
+		{
+			List<ForkJoinTask<?>> tasks = new ArrayList<>();
+			for (Class<? extends MarkupContainer> container : containers)
+			{
+				tasks.add(pool.submit(() -> {
+					if (prewarm(container))
+					{
+						count.incrementAndGet();
+					}
+				}));
+			}
+
+			for (ForkJoinTask<?> task : tasks)
+			{
+				task.join();
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		log.info("Parsed markup of {} containers in {} ms", count.get(),
+			System.currentTimeMillis() - start);
+
+		return count.get();
+	}
+
+	/**
+	 * Create the pool to parse markup in, by default with a parallelism equal to the number of
+	 * available processors.
+	 *
+	 * @return pool
+	 */
+	protected ForkJoinPool newPool()
+	{
+		return new ForkJoinPool();
+	}
+
+	/**
+	 * Parse the markup of a single container.
+	 *
+	 * @param containerClass
+	 *            class of container
+	 * @return {@code true} if markup was parsed
+	 */
+	protected boolean prewarm(final Class<? extends MarkupContainer> containerClass)
+	{
+		ThreadContext oldContext = ThreadContext.detach();
+		try
+		{
+			ThreadContext.setApplication(application);
+			ThreadContext.setRequestCycle(application.createRequestCycle(
+				new MockWebRequest(Url.parse("/")), new BufferedWebResponse(null)));
+
+			IResourceStream resourceStream = application.getResourceSettings()
+				.getResourceStreamLocator()
+				.locate(containerClass, containerClass.getName().replace('.', '/'), null, null,
+					null, MarkupType.HTML_MARKUP_TYPE.getExtension(), true);
+			if (resourceStream == null)
+			{
+				return false;
+			}
+
+			ContainerInfo containerInfo = new ContainerInfo(containerClass, null, null, null,
+				MarkupType.HTML_MARKUP_TYPE);
+			cache.getMarkup(new MarkupResourceStream(resourceStream, containerInfo,
+				containerClass));
+			return true;
+		}
+		catch (Exception ex)
+		{
+			log.debug("Cannot parse markup of " + containerClass.getName(), ex);
+			return false;
+		}
+		finally
+		{
+			ThreadContext.restore(oldContext);
+		}
+	}
+
+	/**
+	 * Scan the classpath for containers with markup.
+	 *
+	 * @param packages
+	 *            names of packages
+	 * @return container classes
+	 */
+	protected List<Class<? extends MarkupContainer>> scan(final Collection<String> packages)
+	{
+		Set<String> classNames = new TreeSet<>();
+
+		ClassLoader classLoader = application.getApplicationSettings()
+			.getClassResolver()
+			.getClassLoader();
+		for (String packageName : packages)
+		{
+			String packagePath = packageName.replace('.', '/');
+			try
+			{
+				Enumeration<URL> urls = classLoader.getResources(packagePath);
+				while (urls.hasMoreElements())
+				{
+					scan(urls.nextElement(), packagePath, classNames);
+				}
+			}
+			catch (IOException | URISyntaxException ex)
+			{
+				log.warn("Cannot scan package " + packageName, ex);
+			}
+		}
+
+		List<Class<? extends MarkupContainer>> containers = new ArrayList<>();
+		for (String className : classNames)
+		{
+			try
+			{
+				Class<?> clazz = Class.forName(className, false, classLoader);
+				if (MarkupContainer.class.isAssignableFrom(clazz))
+				{
+					containers.add(clazz.asSubclass(MarkupContainer.class));
+				}
+			}
+			catch (ClassNotFoundException | LinkageError ex)
+			{
+				// markup with locale, style or variation
+			}
+		}
+		return containers;
+	}
+
+	private void scan(final URL url, final String packagePath, final Set<String> classNames)
+		throws IOException, URISyntaxException
+	{
+		String extension = "." + MarkupType.HTML_MARKUP_TYPE.getExtension();
+
+		if ("file".equals(url.getProtocol()))
+		{
+			Path root = Paths.get(url.toURI());
+			try (Stream<Path> files = Files.walk(root))
+			{
+				files.forEach(file -> {
+					String name = root.relativize(file).toString().replace(file.getFileSystem()
+						.getSeparator(), "/");
+					if (name.endsWith(extension))
+					{
+						classNames.add(toClassName(packagePath + "/" + name, extension));
+					}
+				});
+			}
+		}
+		else if ("jar".equals(url.getProtocol()))
+		{
+			URLConnection connection = url.openConnection();
+			if (connection instanceof JarURLConnection)
+			{
+				connection.setUseCaches(false);
+				try (JarFile jar = ((JarURLConnection)connection).getJarFile())
+				{
+					Enumeration<JarEntry> entries = jar.entries();
+					while (entries.hasMoreElements())
+					{
+						String name = entries.nextElement().getName();
+						if (name.startsWith(packagePath + "/") && name.endsWith(extension))
+						{
+							classNames.add(toClassName(name, extension));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private String toClassName(final String path, final String extension)
+	{
+		return path.substring(0, path.length() - extension.length()).replace('/', '.');
+	}
+}
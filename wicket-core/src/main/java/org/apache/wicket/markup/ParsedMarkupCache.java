@@ -0,0 +1,476 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.settings.MarkupSettings;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache of parsed markup, keyed by the location of the markup resource and the class of the
+ * container it is parsed for, and validated by the checksum of the content.
+ * <p>
+ * {@link org.apache.wicket.markup.loader.SimpleMarkupLoader} consults this cache before parsing
+ * a markup resource: If the content of the resource did not change since it was parsed last, a
+ * new {@link Markup} is created from the elements already parsed, thus skipping the
+ * {@link MarkupParser} and all its markup filters.
+ * <p>
+ * The cache can be filled in advance by a {@link MarkupPrewarmer}, and can be saved to and loaded
+ * from a file, so restarts of the application do not have to parse unchanged markup at all. The
+ * file is ignored if it was written by a different Wicket version or with different
+ * {@link MarkupSettings}.
+ *
+ * @see MarkupFactory#getParsedMarkupCache()
+ * @see MarkupSettings#setParsedMarkupCacheFile(File)
+ */
+public class ParsedMarkupCache
+{
+	private static final Logger log = LoggerFactory.getLogger(ParsedMarkupCache.class);
+
+	/** "WMKC" */
+	private static final int MAGIC = 0x574d4b43;
+
+	private static final int VERSION = 1;
+
+	/** location and container class => entry */
+	private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Note that you can not use Application.get() since {@link #save(File)} might be called on
+	 * application shutdown.
+	 */
+	private final Application application;
+
+	/**
+	 * Constructor.
+	 */
+	public ParsedMarkupCache()
+	{
+		application = Application.get();
+	}
+
+	/**
+	 * Get the markup of the given resource stream, either from the cache or by parsing it with
+	 * {@link MarkupFactory#newMarkupParser(MarkupResourceStream)}.
+	 *
+	 * @param markupResourceStream
+	 *            the markup resource stream
+	 * @return markup
+	 * @throws IOException
+	 * @throws ResourceStreamNotFoundException
+	 */
+	public Markup getMarkup(final MarkupResourceStream markupResourceStream) throws IOException,
+		ResourceStreamNotFoundException
+	{
+		String location = markupResourceStream.locationAsString();
+		if (location == null)
+		{
+			return MarkupFactory.get().newMarkupParser(markupResourceStream).parse();
+		}
+
+		byte[] content = read(markupResourceStream);
+		long checksum = checksum(content);
+		Key key = new Key(location, getContainerClassName(markupResourceStream));
+
+		Entry entry = entries.get(key);
+		if (entry != null && entry.checksum == checksum)
+		{
+			Markup markup = entry.restore(markupResourceStream);
+			if (markup != null)
+			{
+				hits.incrementAndGet();
+				return markup;
+			}
+		}
+
+		misses.incrementAndGet();
+
+		Markup markup = parse(markupResourceStream, content);
+		entries.put(key, new Entry(checksum, markup));
+		return markup;
+	}
+
+	/**
+	 * Parse the markup from its content, which was already read from the resource stream.
+	 *
+	 * @param markupResourceStream
+	 *            the markup resource stream
+	 * @param content
+	 *            the content of the markup resource stream
+	 * @return markup
+	 * @throws IOException
+	 * @throws ResourceStreamNotFoundException
+	 */
+	protected Markup parse(final MarkupResourceStream markupResourceStream, final byte[] content)
+		throws IOException, ResourceStreamNotFoundException
+	{
+		return MarkupFactory.get()
+			.newMarkupParser(markupResourceStream)
+			.parse(new ByteArrayInputStream(content));
+	}
+
+	/**
+	 * Read the content of a markup resource, so it is read once only for both checksum and parsing.
+	 */
+	private byte[] read(final MarkupResourceStream markupResourceStream) throws IOException,
+		ResourceStreamNotFoundException
+	{
+		try (InputStream input = markupResourceStream.getResource().getInputStream())
+		{
+			return IOUtils.toByteArray(input);
+		}
+		finally
+		{
+			markupResourceStream.close();
+		}
+	}
+
+	/**
+	 * Calculate the checksum of the content of a markup resource.
+	 */
+	private long checksum(final byte[] content)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(content);
+		return ((long)content.length << 32) ^ crc.getValue();
+	}
+
+	/**
+	 * Markup filters depend on the class of the container, e.g. pages have an additional one.
+	 */
+	private String getContainerClassName(final MarkupResourceStream markupResourceStream)
+	{
+		ContainerInfo containerInfo = markupResourceStream.getContainerInfo();
+		if (containerInfo == null)
+		{
+			return null;
+		}
+		return containerInfo.getContainerClass().getName();
+	}
+
+	/**
+	 * @return count of markups taken from the cache
+	 */
+	public long getHitCount()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * @return count of markups parsed
+	 */
+	public long getMissCount()
+	{
+		return misses.get();
+	}
+
+	/**
+	 * @return count of cached markups
+	 */
+	public int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Remove all markups from the cache.
+	 */
+	public void clear()
+	{
+		entries.clear();
+	}
+
+	/**
+	 * Save all cached markups to a file. Markups with elements that cannot be encoded, e.g. created
+	 * by custom markup filters, are skipped.
+	 *
+	 * @param file
+	 *            the file to write to
+	 */
+	public void save(final File file)
+	{
+		Args.notNull(file, "file");
+
+		Path path = file.toPath();
+		try
+		{
+			if (path.getParent() != null)
+			{
+				Files.createDirectories(path.getParent());
+			}
+
+			Path temp = Files.createTempFile(path.toAbsolutePath().getParent(),
+				path.getFileName().toString(), ".tmp");
+			int saved = 0;
+			try
+			{
+				try (DataOutputStream output = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(temp))))
+				{
+					output.writeInt(MAGIC);
+					output.writeInt(VERSION);
+					output.writeUTF(getFingerprint());
+
+					for (Map.Entry<Key, Entry> entry : entries.entrySet())
+					{
+						byte[] data = entry.getValue().encode();
+						if (data == null)
+						{
+							continue;
+						}
+
+						output.writeBoolean(true);
+						Key key = entry.getKey();
+						output.writeUTF(key.location);
+						output.writeBoolean(key.containerClass != null);
+						if (key.containerClass != null)
+						{
+							output.writeUTF(key.containerClass);
+						}
+						output.writeLong(entry.getValue().checksum);
+						output.writeInt(data.length);
+						output.write(data);
+						saved++;
+					}
+					output.writeBoolean(false);
+				}
+
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+			finally
+			{
+				Files.deleteIfExists(temp);
+			}
+
+			log.info("Saved {} of {} parsed markups to {}", saved, entries.size(), file);
+		}
+		catch (IOException ex)
+		{
+			log.error("Cannot save parsed markups to " + file, ex);
+		}
+	}
+
+	/**
+	 * Load markups from a file written by {@link #save(File)}. Nothing is loaded if the file does
+	 * not exist or was written by a different Wicket version or with different markup settings.
+	 *
+	 * @param file
+	 *            the file to read from
+	 */
+	public void load(final File file)
+	{
+		Args.notNull(file, "file");
+
+		if (file.exists() == false)
+		{
+			return;
+		}
+
+		try (DataInputStream input = new DataInputStream(
+			new BufferedInputStream(Files.newInputStream(file.toPath()))))
+		{
+			if (input.readInt() != MAGIC || input.readInt() != VERSION ||
+				getFingerprint().equals(input.readUTF()) == false)
+			{
+				log.info("Ignoring outdated parsed markups in {}", file);
+				return;
+			}
+
+			int loaded = 0;
+			while (input.readBoolean())
+			{
+				String location = input.readUTF();
+				String containerClass = input.readBoolean() ? input.readUTF() : null;
+				long checksum = input.readLong();
+				byte[] data = new byte[input.readInt()];
+				input.readFully(data);
+
+				entries.putIfAbsent(new Key(location, containerClass), new Entry(checksum, data));
+				loaded++;
+			}
+
+			log.info("Loaded {} parsed markups from {}", loaded, file);
+		}
+		catch (IOException ex)
+		{
+			log.error("Cannot load parsed markups from " + file, ex);
+		}
+	}
+
+	/**
+	 * Get a fingerprint of everything besides the markup itself that influences the parsed
+	 * elements.
+	 *
+	 * @return fingerprint
+	 */
+	protected String getFingerprint()
+	{
+		MarkupSettings settings = application.getMarkupSettings();
+
+		return String.join(";", String.valueOf(application.getFrameworkSettings().getVersion()),
+			application.getConfigurationType().name(),
+			settings.getMarkupFactory().getClass().getName(),
+			String.valueOf(settings.getAutomaticLinking()),
+			String.valueOf(settings.getCompressWhitespace()),
+			String.valueOf(settings.getDefaultMarkupEncoding()),
+			String.valueOf(settings.getStripComments()),
+			String.valueOf(settings.getStripWicketTags()),
+			String.valueOf(settings.getThrowExceptionOnMissingXmlDeclaration()));
+	}
+
+	/**
+	 * The key of a parsed markup: the same resource may be parsed differently for different
+	 * container classes, e.g. a page and a subclass inheriting its markup.
+	 */
+	private static final class Key
+	{
+		private final String location;
+
+		private final String containerClass;
+
+		Key(final String location, final String containerClass)
+		{
+			this.location = location;
+			this.containerClass = containerClass;
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (obj instanceof Key == false)
+			{
+				return false;
+			}
+			Key other = (Key)obj;
+			return location.equals(other.location) &&
+				Objects.equals(containerClass, other.containerClass);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(location, containerClass);
+		}
+	}
+
+	/**
+	 * A parsed markup, either as {@link Markup} or encoded by {@link MarkupElementCodec}.
+	 */
+	private static class Entry
+	{
+		private final long checksum;
+
+		private final Markup markup;
+
+		private volatile byte[] data;
+
+		Entry(final long checksum, final Markup markup)
+		{
+			this.checksum = checksum;
+			this.markup = markup;
+		}
+
+		Entry(final long checksum, final byte[] data)
+		{
+			this.checksum = checksum;
+			markup = null;
+			this.data = data;
+		}
+
+		/**
+		 * Create a markup for the given resource stream, sharing the immutable elements.
+		 *
+		 * @return {@code null} if markup cannot be restored
+		 */
+		Markup restore(final MarkupResourceStream markupResourceStream)
+		{
+			if (markup == null)
+			{
+				try
+				{
+					return MarkupElementCodec.decode(data, markupResourceStream);
+				}
+				catch (IOException | RuntimeException ex)
+				{
+					log.debug("Cannot decode markup " + markupResourceStream, ex);
+					return null;
+				}
+			}
+
+			MarkupResourceStream parsedResourceStream = markup.getMarkupResourceStream();
+			MarkupElementCodec.setProperties(markupResourceStream,
+				parsedResourceStream.getEncoding(), parsedResourceStream.getDoctype(),
+				parsedResourceStream.getWicketNamespace());
+
+			Markup restored = new Markup(markupResourceStream);
+			for (MarkupElement element : markup)
+			{
+				restored.addMarkupElement(element);
+			}
+			restored.makeImmutable();
+			return restored;
+		}
+
+		byte[] encode()
+		{
+			if (data == null && markup != null)
+			{
+				try
+				{
+					data = MarkupElementCodec.encode(markup);
+				}
+				catch (NotSerializableException ex)
+				{
+					log.debug("Cannot encode markup {}: {}", markup.getMarkupResourceStream(),
+						ex.getMessage());
+				}
+			}
+			return data;
+		}
+	}
+}
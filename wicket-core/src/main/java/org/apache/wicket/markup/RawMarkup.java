@@ -16,6 +16,8 @@
  */
 package org.apache.wicket.markup;
 
+import org.apache.wicket.util.string.PreEncodedString;
+
 /**
  * This class is for framework purposes only, which is why the class is (default) protected.
  * <p>
@@ -26,8 +28,8 @@ package org.apache.wicket.markup;
  */
 public class RawMarkup extends MarkupElement
 {
-	/** The raw markup string * */
-	private final CharSequence string;
+	/** The raw markup string, encoded once for all responses * */
+	private final PreEncodedString string;
 
 	/**
 	 * Create a RawMarkup element referencing an uninterpreted markup string.
@@ -37,7 +39,7 @@ public class RawMarkup extends MarkupElement
 	 */
 	public RawMarkup(final CharSequence string)
 	{
-		this.string = string;
+		this.string = new PreEncodedString(string);
 	}
 
 	/**
@@ -52,7 +54,7 @@ public class RawMarkup extends MarkupElement
 	{
 		if (o instanceof CharSequence)
 		{
-			return string.equals(o);
+			return string.toString().equals(o);
 		}
 
 		if (o instanceof RawMarkup)
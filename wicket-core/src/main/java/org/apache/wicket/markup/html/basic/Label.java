@@ -112,7 +112,9 @@ public class Label extends WebComponent
 	@Override
 	public void onComponentTagBody(final MarkupStream markupStream, final ComponentTag openTag)
 	{
-		replaceComponentTagBody(markupStream, openTag, getDefaultModelObjectAsString());
+		// skip the body in the markup, the model string is escaped while it is written
+		replaceComponentTagBody(markupStream, openTag, null);
+		writeDefaultModelObjectAsString(getDefaultModelObject());
 	}
 
 	/**
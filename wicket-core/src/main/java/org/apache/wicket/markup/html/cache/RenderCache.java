@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.html.cache;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.apache.wicket.markup.head.HeaderItem;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+
+/**
+ * A cache of the rendered output of components, i.e. their markup and the header items
+ * contributed by them and their children.
+ * <p>
+ * Each entry expires after its time to live. The size of all cached markup is limited, least
+ * recently used entries are evicted first.
+ *
+ * @see RenderCacheBehavior
+ * @see org.apache.wicket.settings.MarkupSettings#setRenderCacheSize(Bytes)
+ */
+public class RenderCache
+{
+	private final long maxSize;
+
+	/** entries in access order */
+	private final LinkedHashMap<Serializable, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long size;
+
+	private long hits;
+
+	private long misses;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxSize
+	 *            maximum size of all cached markup
+	 */
+	public RenderCache(Bytes maxSize)
+	{
+		this.maxSize = Args.notNull(maxSize, "maxSize").bytes();
+	}
+
+	/**
+	 * Get a rendered output.
+	 *
+	 * @param key
+	 *            cache key
+	 * @return entry or {@code null} if not cached or expired
+	 */
+	public synchronized Entry get(Serializable key)
+	{
+		Entry entry = entries.get(key);
+		if (entry != null && entry.isExpired(System.nanoTime()))
+		{
+			entries.remove(key);
+			size -= entry.size();
+			entry = null;
+		}
+
+		if (entry == null)
+		{
+			misses++;
+			return null;
+		}
+
+		hits++;
+		return entry;
+	}
+
+	/**
+	 * Put a rendered output.
+	 *
+	 * @param key
+	 *            cache key
+	 * @param markup
+	 *            rendered markup
+	 * @param headerItems
+	 *            contributed header items
+	 * @param timeToLive
+	 *            duration after which the entry expires
+	 * @return {@code true} if the output was cached
+	 */
+	public synchronized boolean put(Serializable key, CharSequence markup,
+		List<HeaderItem> headerItems, Duration timeToLive)
+	{
+		Args.notNull(key, "key");
+		Args.notNull(markup, "markup");
+		Args.notNull(headerItems, "headerItems");
+		Args.notNull(timeToLive, "timeToLive");
+
+		Entry entry = new Entry(markup.toString(), headerItems,
+			System.nanoTime() + timeToLive.toNanos());
+		if (entry.size() > maxSize || timeToLive.isNegative() || timeToLive.isZero())
+		{
+			return false;
+		}
+
+		Entry old = entries.put(key, entry);
+		if (old != null)
+		{
+			size -= old.size();
+		}
+		size += entry.size();
+
+		evict();
+
+		return true;
+	}
+
+	private void evict()
+	{
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (size > maxSize && iterator.hasNext())
+		{
+			Entry entry = iterator.next();
+			iterator.remove();
+			size -= entry.size();
+		}
+	}
+
+	/**
+	 * Remove all entries whose key matches the given filter, e.g. all entries of a changed model
+	 * object.
+	 *
+	 * @param filter
+	 *            filter of keys, the outputs of components are cached by
+	 *            {@link RenderCacheBehavior.Key}s
+	 */
+	public synchronized void remove(Predicate<Serializable> filter)
+	{
+		Iterator<Map.Entry<Serializable, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext())
+		{
+			Map.Entry<Serializable, Entry> entry = iterator.next();
+			if (filter.test(entry.getKey()))
+			{
+				iterator.remove();
+				size -= entry.getValue().size();
+			}
+		}
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public synchronized void clear()
+	{
+		entries.clear();
+		size = 0;
+	}
+
+	/**
+	 * @return size of all cached markup
+	 */
+	public synchronized Bytes getSize()
+	{
+		return Bytes.bytes(size);
+	}
+
+	/**
+	 * @return count of outputs served from the cache
+	 */
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+
+	/**
+	 * @return count of outputs not found in the cache
+	 */
+	public synchronized long getMissCount()
+	{
+		return misses;
+	}
+
+	/**
+	 * A cached output.
+	 */
+	public static final class Entry
+	{
+		private final String markup;
+
+		private final List<HeaderItem> headerItems;
+
+		private final long expires;
+
+		private Entry(String markup, List<HeaderItem> headerItems, long expires)
+		{
+			this.markup = markup;
+			this.headerItems = Collections.unmodifiableList(new ArrayList<>(headerItems));
+			this.expires = expires;
+		}
+
+		/**
+		 * @return the rendered markup
+		 */
+		public String getMarkup()
+		{
+			return markup;
+		}
+
+		/**
+		 * @return the contributed header items, in order of contribution
+		 */
+		public List<HeaderItem> getHeaderItems()
+		{
+			return headerItems;
+		}
+
+		private boolean isExpired(long now)
+		{
+			return now - expires >= 0;
+		}
+
+		private long size()
+		{
+			// two bytes per char
+			return 2L * markup.length();
+		}
+	}
+}
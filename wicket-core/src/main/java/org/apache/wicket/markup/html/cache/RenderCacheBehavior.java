@@ -0,0 +1,476 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.html.cache;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.Page;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.markup.head.HeaderItem;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.html.DecoratingHeaderResponse;
+import org.apache.wicket.markup.html.internal.HtmlHeaderContainer;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.response.StringResponse;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.visit.IVisit;
+import org.apache.wicket.util.visit.IVisitor;
+import org.danekja.java.util.function.serializable.SerializableFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A behavior caching the rendered output of a component and all its children in the
+ * {@link org.apache.wicket.settings.MarkupSettings#getRenderCache() render cache} of the
+ * application, i.e. the markup and all header items contributed by them.
+ * <p>
+ * The output is cached by a key supplied by the user, e.g. the identity and version of the
+ * model object, which is combined with the class of the page, the page relative path of the
+ * component and its locale, style and variation. If the output of a key is cached, the children
+ * of the component are neither configured nor rendered - no {@code onConfigure()},
+ * {@code onComponentTag()} or model {@code getObject()} is called for any of them. The cached
+ * header items are rendered through the header response of the page, so they are
+ * still aggregated and deduplicated with all other contributions.
+ * <p>
+ * Only the output of stateless components is cached: a link or form in the component makes the
+ * page stateful and its output is not put into the cache. Note that cached markup contains the
+ * markup ids and urls of the request it was rendered in, so the cache key has to cover all page
+ * parameters the urls depend on, and markup ids output by the children have to be unique among
+ * all pages the component is used in.
+ * <p>
+ * The output is put into the cache only if both the markup and the header items of the component
+ * were rendered in the same request, since a cached output must replay both. A component whose
+ * header contributions are not rendered, e.g. because it is rendered without a page header, is
+ * never cached.
+ * <p>
+ * The component itself is still configured and decides its own visibility. A behavior instance
+ * can only be added to a single component.
+ *
+ * <pre>
+ * footer.add(new RenderCacheBehavior(Duration.ofMinutes(10), c -&gt; footerVersion()));
+ * </pre>
+ *
+ * @see RenderCachingContainer
+ */
+public class RenderCacheBehavior extends Behavior
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger log = LoggerFactory.getLogger(RenderCacheBehavior.class);
+
+	private final Duration timeToLive;
+
+	private final SerializableFunction<Component, ? extends Serializable> cacheKey;
+
+	private Component component;
+
+	/** whether the cache was looked up in the current request */
+	private transient boolean lookedUp;
+
+	/** the full key in the current request, {@code null} if not cacheable */
+	private transient Key key;
+
+	/** the cached output in the current request */
+	private transient RenderCache.Entry hit;
+
+	/** markup rendered in the current request */
+	private transient CharSequence markup;
+
+	/** header items contributed in the current request */
+	private transient List<HeaderItem> headerItems;
+
+	/** whether the rendered component is stateless */
+	private transient boolean stateless;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param timeToLive
+	 *            duration after which the cached output expires
+	 * @param cacheKey
+	 *            function returning the cache key for the component, e.g. the identity and version
+	 *            of its model object, or {@code null} if the output should not be cached
+	 */
+	public RenderCacheBehavior(Duration timeToLive,
+		SerializableFunction<Component, ? extends Serializable> cacheKey)
+	{
+		this.timeToLive = Args.notNull(timeToLive, "timeToLive");
+		this.cacheKey = Args.notNull(cacheKey, "cacheKey");
+	}
+
+	/**
+	 * Gets the cache key for the output of the component.
+	 *
+	 * @param component
+	 *            the cached component
+	 * @return key or {@code null} if the output should not be cached
+	 */
+	protected Serializable getCacheKey(Component component)
+	{
+		return cacheKey.apply(component);
+	}
+
+	/**
+	 * @param component
+	 *            the cached component
+	 * @return duration after which the cached output expires
+	 */
+	protected Duration getTimeToLive(Component component)
+	{
+		return timeToLive;
+	}
+
+	@Override
+	public void bind(Component component)
+	{
+		Args.notNull(component, "component");
+
+		if (component instanceof Page)
+		{
+			throw new IllegalArgumentException("Behavior " + getClass().getName() +
+				" cannot be added to a page");
+		}
+
+		if (this.component != null && this.component != component)
+		{
+			throw new IllegalStateException("this kind of behavior cannot be attached to " +
+				"multiple components; it is already attached to component " + this.component +
+				", but component " + component + " wants to be attached too");
+		}
+
+		this.component = component;
+	}
+
+	@Override
+	public void unbind(Component component)
+	{
+		this.component = null;
+	}
+
+	@Override
+	public void detach(Component component)
+	{
+		lookedUp = false;
+		key = null;
+		hit = null;
+		markup = null;
+		headerItems = null;
+		stateless = false;
+	}
+
+	/**
+	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT USE IT!
+	 * <p>
+	 * Looks up the output of the component.
+	 *
+	 * @param component
+	 *            the cached component
+	 * @return {@code true} if the output is cached and its children need not be rendered
+	 */
+	public final boolean isCached(Component component)
+	{
+		lookup(component);
+
+		return hit != null;
+	}
+
+	/**
+	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT USE IT!
+	 * <p>
+	 * Writes the cached markup of the component, or renders it and captures its markup.
+	 *
+	 * @param component
+	 *            the cached component
+	 * @param renderer
+	 *            renders the component
+	 */
+	public final void render(Component component, Runnable renderer)
+	{
+		lookup(component);
+
+		if (hit != null)
+		{
+			component.getResponse().write(hit.getMarkup());
+
+			markChildrenRendered(component);
+			return;
+		}
+
+		if (key == null)
+		{
+			renderer.run();
+			return;
+		}
+
+		RequestCycle requestCycle = component.getRequestCycle();
+		StringResponse captured = new StringResponse();
+		Response original = requestCycle.setResponse(captured);
+		try
+		{
+			renderer.run();
+		}
+		finally
+		{
+			requestCycle.setResponse(original);
+		}
+		original.write(captured.getBuffer());
+
+		markup = captured.getBuffer();
+		stateless = isStateless(component);
+		put(component);
+	}
+
+	/**
+	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT USE IT!
+	 * <p>
+	 * Renders the cached header items of the component and its children, or renders and records
+	 * them.
+	 *
+	 * @param component
+	 *            the cached component
+	 * @param container
+	 *            the header container
+	 * @param renderer
+	 *            renders the header contributions of the component and all its children
+	 */
+	public final void renderHead(Component component, HtmlHeaderContainer container,
+		Runnable renderer)
+	{
+		if (component.isVisibleInHierarchy() == false || component.isRenderAllowed() == false)
+		{
+			return;
+		}
+
+		lookup(component);
+
+		IHeaderResponse response = container.getHeaderResponse();
+		if (hit != null)
+		{
+			for (HeaderItem item : hit.getHeaderItems())
+			{
+				response.render(item);
+			}
+			return;
+		}
+
+		if (key == null)
+		{
+			renderer.run();
+			return;
+		}
+
+		RecordingHeaderResponse recording = new RecordingHeaderResponse(response);
+		container.setHeaderResponse(recording);
+		try
+		{
+			renderer.run();
+		}
+		finally
+		{
+			container.setHeaderResponse(response);
+		}
+
+		headerItems = recording.items;
+		put(component);
+	}
+
+	private void lookup(Component component)
+	{
+		if (lookedUp)
+		{
+			return;
+		}
+		lookedUp = true;
+
+		RenderCache cache = component.getApplication().getMarkupSettings().getRenderCache();
+		if (cache == null)
+		{
+			return;
+		}
+
+		Serializable userKey = getCacheKey(component);
+		if (userKey != null)
+		{
+			key = new Key(component, userKey);
+			hit = cache.get(key);
+		}
+	}
+
+	/**
+	 * Puts the output into the cache as soon as both markup and header items are captured, in
+	 * whichever order they are rendered.
+	 */
+	private void put(Component component)
+	{
+		if (markup == null || headerItems == null)
+		{
+			return;
+		}
+
+		if (stateless)
+		{
+			RenderCache cache = component.getApplication().getMarkupSettings().getRenderCache();
+			if (cache != null)
+			{
+				cache.put(key, markup, headerItems, getTimeToLive(component));
+			}
+		}
+		else
+		{
+			log.debug("Not caching the output of stateful component {}", component);
+		}
+
+		key = null;
+	}
+
+	private static boolean isStateless(Component component)
+	{
+		if (component.isStateless() == false)
+		{
+			return false;
+		}
+
+		if (component instanceof MarkupContainer)
+		{
+			Boolean stateless = ((MarkupContainer)component).visitChildren(
+				new IVisitor<Component, Boolean>()
+				{
+					@Override
+					public void component(Component child, IVisit<Boolean> visit)
+					{
+						if (child.isStateless() == false)
+						{
+							visit.stop(false);
+						}
+					}
+				});
+			return stateless == null;
+		}
+		return true;
+	}
+
+	/**
+	 * Tells the page that the children were rendered, so the component use check does not
+	 * complain about them.
+	 */
+	private static void markChildrenRendered(Component component)
+	{
+		if (component instanceof MarkupContainer &&
+			component.getApplication().getDebugSettings().getComponentUseCheck())
+		{
+			Page page = component.getPage();
+			((MarkupContainer)component).visitChildren(
+				(final Component child, final IVisit<Void> visit) -> page.componentRendered(child));
+		}
+	}
+
+	/**
+	 * The key of a cached output.
+	 */
+	public static final class Key implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String pageClass;
+
+		private final String path;
+
+		private final Locale locale;
+
+		private final String style;
+
+		private final String variation;
+
+		private final Serializable cacheKey;
+
+		private Key(Component component, Serializable cacheKey)
+		{
+			this.pageClass = component.getPage().getClass().getName();
+			this.path = component.getPageRelativePath();
+			this.locale = component.getLocale();
+			this.style = component.getStyle();
+			this.variation = component.getVariation();
+			this.cacheKey = cacheKey;
+		}
+
+		/**
+		 * @return the page relative path of the component
+		 */
+		public String getPath()
+		{
+			return path;
+		}
+
+		/**
+		 * @return the key supplied by {@link RenderCacheBehavior#getCacheKey(Component)}
+		 */
+		public Serializable getCacheKey()
+		{
+			return cacheKey;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (this == o)
+				return true;
+			if (!(o instanceof Key))
+				return false;
+
+			Key key = (Key)o;
+
+			return pageClass.equals(key.pageClass) && path.equals(key.path) &&
+				Objects.equals(locale, key.locale) && Objects.equals(style, key.style) &&
+				Objects.equals(variation, key.variation) && cacheKey.equals(key.cacheKey);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(pageClass, path, locale, style, variation, cacheKey);
+		}
+	}
+
+	/**
+	 * Records all rendered header items.
+	 */
+	private static class RecordingHeaderResponse extends DecoratingHeaderResponse
+	{
+		private final List<HeaderItem> items = new ArrayList<>();
+
+		RecordingHeaderResponse(IHeaderResponse real)
+		{
+			super(real);
+		}
+
+		@Override
+		public void render(HeaderItem item)
+		{
+			items.add(item);
+
+			super.render(item);
+		}
+	}
+}
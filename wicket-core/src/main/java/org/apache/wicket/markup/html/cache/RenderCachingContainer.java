@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.html.cache;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.model.IModel;
+
+/**
+ * A container whose rendered output, including all its children, is cached by the key returned
+ * from {@link #getCacheKey()}.
+ *
+ * @see RenderCacheBehavior
+ */
+public abstract class RenderCachingContainer extends WebMarkupContainer
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * @see Component#Component(String)
+	 */
+	public RenderCachingContainer(final String id)
+	{
+		this(id, null);
+	}
+
+	/**
+	 * @see Component#Component(String, IModel)
+	 */
+	public RenderCachingContainer(final String id, final IModel<?> model)
+	{
+		super(id, model);
+
+		add(new ContainerRenderCacheBehavior());
+	}
+
+	/**
+	 * Gets the cache key for the output of this container, e.g. the identity and version of its
+	 * model object.
+	 *
+	 * @return key or {@code null} if the output should not be cached
+	 */
+	protected abstract Serializable getCacheKey();
+
+	/**
+	 * @return duration after which the cached output expires, 5 minutes by default
+	 */
+	protected Duration getTimeToLive()
+	{
+		return Duration.ofMinutes(5);
+	}
+
+	private static class ContainerRenderCacheBehavior extends RenderCacheBehavior
+	{
+		private static final long serialVersionUID = 1L;
+
+		ContainerRenderCacheBehavior()
+		{
+			super(Duration.ZERO, component -> ((RenderCachingContainer)component).getCacheKey());
+		}
+
+		@Override
+		protected Duration getTimeToLive(Component component)
+		{
+			return ((RenderCachingContainer)component).getTimeToLive();
+		}
+	}
+}
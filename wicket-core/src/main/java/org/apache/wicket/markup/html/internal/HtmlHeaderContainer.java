@@ -36,6 +36,7 @@ import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.renderStrategy.AbstractHeaderRenderStrategy;
 import org.apache.wicket.request.Response;
 import org.apache.wicket.response.StringResponse;
+import org.apache.wicket.util.lang.Args;
 
 
 /**
@@ -352,6 +353,21 @@ public class HtmlHeaderContainer extends TransparentWebMarkupContainer
 		return headerResponse;
 	}
 
+	/**
+	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT USE IT!
+	 * <p>
+	 * Temporarily replaces the header response, e.g. to record the contributions of some
+	 * components.
+	 *
+	 * @param headerResponse
+	 *            header response
+	 * @see org.apache.wicket.markup.html.cache.RenderCacheBehavior
+	 */
+	public final void setHeaderResponse(IHeaderResponse headerResponse)
+	{
+		this.headerResponse = Args.notNull(headerResponse, "headerResponse");
+	}
+
 	@Override
 	public IMarkupFragment getMarkup()
 	{
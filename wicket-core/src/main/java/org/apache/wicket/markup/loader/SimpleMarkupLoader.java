@@ -23,6 +23,7 @@ import org.apache.wicket.markup.Markup;
 import org.apache.wicket.markup.MarkupFactory;
 import org.apache.wicket.markup.MarkupParser;
 import org.apache.wicket.markup.MarkupResourceStream;
+import org.apache.wicket.markup.ParsedMarkupCache;
 import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
 
 /**
@@ -41,13 +42,22 @@ public class SimpleMarkupLoader implements IMarkupLoader
 
 	/**
 	 * Uses {@link MarkupFactory#newMarkupParser(MarkupResourceStream)} and
-	 * {@link MarkupParser#parse()} to load the Markup.
+	 * {@link MarkupParser#parse()} to load the Markup, unless the markup is available from the
+	 * {@link MarkupFactory#getParsedMarkupCache()} already.
 	 */
 	@Override
 	public final Markup loadMarkup(final MarkupContainer container,
 		final MarkupResourceStream markupResourceStream, final IMarkupLoader baseLoader,
 		final boolean enforceReload) throws IOException, ResourceStreamNotFoundException
 	{
-		return MarkupFactory.get().newMarkupParser(markupResourceStream).parse();
+		MarkupFactory markupFactory = MarkupFactory.get();
+
+		ParsedMarkupCache parsedMarkupCache = markupFactory.getParsedMarkupCache();
+		if (parsedMarkupCache != null && enforceReload == false)
+		{
+			return parsedMarkupCache.getMarkup(markupResourceStream);
+		}
+
+		return markupFactory.newMarkupParser(markupResourceStream).parse();
 	}
 }
@@ -52,6 +52,9 @@ public class XmlTag
 	/** Attribute map. */
 	private AttributeMap attributes;
 
+	/** True if the attribute map is the immutable map of the tag this tag was copied from. */
+	private boolean sharedAttributes;
+
 	/** Name of tag, such as "img" or "input". */
 	String name;
 
@@ -90,6 +93,26 @@ public class XmlTag
 		this.type = type;
 	}
 
+	/**
+	 * Construct.
+	 *
+	 * @param text
+	 *            the text of the tag
+	 * @param pos
+	 *            the position of the tag
+	 * @param line
+	 *            the line number of the tag
+	 * @param col
+	 *            the column number of the tag
+	 * @param type
+	 *            the type of the tag
+	 */
+	public XmlTag(final CharSequence text, final int pos, final int line, final int col,
+		final TagType type)
+	{
+		this(new TextSegment(text, pos, line, col), type);
+	}
+
 	/**
 	 * Gets whether this tag closes the provided open tag.
 	 * 
@@ -117,7 +140,7 @@ public class XmlTag
 		{
 			return false;
 		}
-		return getAttributes().equals(that.getAttributes());
+		return readAttributes().equals(that.readAttributes());
 	}
 
 	/**
@@ -130,9 +153,40 @@ public class XmlTag
 		return attributes();
 	}
 
+	/**
+	 * Gets whether this tag has the same attributes as the given tag, i.e. this tag is a copy of the
+	 * given one and its attributes were not accessed for modification since.
+	 * 
+	 * @param tag
+	 *            the tag to compare with
+	 * @return true if both tags share their attributes
+	 */
+	public final boolean sharesAttributesWith(final XmlTag tag)
+	{
+		return attributes == tag.attributes;
+	}
+
+	/**
+	 * @return the attributes for reading only, without copying shared attributes
+	 */
+	private AttributeMap readAttributes()
+	{
+		if (attributes != null)
+		{
+			return attributes;
+		}
+		return attributes();
+	}
+
 	private AttributeMap attributes()
 	{
-		if (attributes == null)
+		if (sharedAttributes)
+		{
+			// copy on write
+			attributes = new AttributeMap(attributes);
+			sharedAttributes = false;
+		}
+		else if (attributes == null)
 		{
 			if ((copyOf == this) || (copyOf == null) || (copyOf.attributes == null))
 			{
@@ -233,7 +287,7 @@ public class XmlTag
 	 */
 	public CharSequence getAttribute(final String key)
 	{
-		return getAttributes().getCharSequence(key);
+		return readAttributes().getCharSequence(key);
 	}
 
 	/**
@@ -296,6 +350,7 @@ public class XmlTag
 		if (isMutable)
 		{
 			isMutable = false;
+			sharedAttributes = false;
 			if (attributes != null)
 			{
 				attributes.makeImmutable();
@@ -342,7 +397,16 @@ public class XmlTag
 		dest.copyOf = copyOf;
 		if (attributes != null)
 		{
-			dest.attributes = new AttributeMap(attributes);
+			if (isMutable && !sharedAttributes)
+			{
+				dest.attributes = new AttributeMap(attributes);
+			}
+			else
+			{
+				// immutable attributes are copied on first write only
+				dest.attributes = attributes;
+				dest.sharedAttributes = true;
+			}
 		}
 	}
 
@@ -511,7 +575,7 @@ public class XmlTag
 	public String toDebugString()
 	{
 		return "[Tag name = " + name + ", pos = " + text.pos + ", line = " + text.lineNumber +
-			", attributes = [" + getAttributes() + "], type = " + type + "]";
+			", attributes = [" + readAttributes() + "], type = " + type + "]";
 	}
 
 	/**
@@ -574,7 +638,7 @@ public class XmlTag
 
 		buffer.append(name);
 
-		buffer.append(attributes().toCharSequence());
+		buffer.append(readAttributes().toCharSequence());
 
 		if (type == TagType.OPEN_CLOSE)
 		{
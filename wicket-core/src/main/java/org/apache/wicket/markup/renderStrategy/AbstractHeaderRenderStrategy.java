@@ -24,6 +24,7 @@ import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.application.HeaderContributorListenerCollection;
 import org.apache.wicket.markup.head.IHeaderResponse;
 import org.apache.wicket.markup.html.IHeaderContributor;
+import org.apache.wicket.markup.html.cache.RenderCacheBehavior;
 import org.apache.wicket.markup.html.internal.HtmlHeaderContainer;
 import org.apache.wicket.markup.html.internal.HtmlHeaderContainer.HeaderStreamState;
 import org.apache.wicket.markup.html.internal.InlineEnclosure;
@@ -105,6 +106,12 @@ public abstract class AbstractHeaderRenderStrategy implements IHeaderRenderStrat
 		// First the application level headers
 		renderApplicationLevelHeaders(headerContainer);
 
+		// A cached root component renders its hierarchy on its own
+		if (renderCachedRootComponent(headerContainer, headerStreamState, rootComponent))
+		{
+			return;
+		}
+
 		// Then the root component's headers
 		renderRootComponent(headerContainer, headerStreamState, rootComponent);
 
@@ -112,6 +119,65 @@ public abstract class AbstractHeaderRenderStrategy implements IHeaderRenderStrat
 		renderChildHeaders(headerContainer, rootComponent);
 	}
 
+	/**
+	 * Render the root component and its child hierarchy, if its output is cached by a
+	 * {@link RenderCacheBehavior}.
+	 * 
+	 * @param headerContainer
+	 * @param headerStreamState
+	 * @param rootComponent
+	 * @return {@code true} if the root component is cached
+	 */
+	protected final boolean renderCachedRootComponent(final HtmlHeaderContainer headerContainer,
+		final HeaderStreamState headerStreamState, final Component rootComponent)
+	{
+		if (rootComponent.getRenderCache() == null)
+		{
+			return false;
+		}
+
+		headerContainer.renderHeaderTagBody(headerStreamState);
+
+		return renderCachedHeaders(headerContainer, rootComponent);
+	}
+
+	/**
+	 * Render the headers of a component and its child hierarchy, if its output is cached by a
+	 * {@link RenderCacheBehavior}: the header items of the whole hierarchy are rendered from the
+	 * cache, or recorded for it.
+	 * 
+	 * @param headerContainer
+	 * @param component
+	 * @return {@code true} if the component is cached, so its child hierarchy must not be visited
+	 */
+	protected final boolean renderCachedHeaders(final HtmlHeaderContainer headerContainer,
+		final Component component)
+	{
+		RenderCacheBehavior renderCache = component.getRenderCache();
+		if (renderCache == null)
+		{
+			return false;
+		}
+
+		renderCache.renderHead(component, headerContainer,
+			() -> renderHierarchyHeaders(headerContainer, component));
+		return true;
+	}
+
+	/**
+	 * Render the headers of a component and its child hierarchy, in the order of this strategy.
+	 * 
+	 * @param headerContainer
+	 * @param component
+	 */
+	protected void renderHierarchyHeaders(final HtmlHeaderContainer headerContainer,
+		final Component component)
+	{
+		component.internalRenderHead(headerContainer);
+
+		renderChildHeaders(headerContainer, component);
+	}
+
 	/**
 	 * Render the root component (e.g. Page).
 	 * 
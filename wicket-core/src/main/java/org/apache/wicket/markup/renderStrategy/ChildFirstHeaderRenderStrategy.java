@@ -21,7 +21,6 @@ import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.markup.html.internal.HtmlHeaderContainer;
 import org.apache.wicket.markup.html.internal.HtmlHeaderContainer.HeaderStreamState;
 import org.apache.wicket.util.lang.Args;
-import org.apache.wicket.util.visit.IVisit;
 
 /**
  * This a header render strategy implements a child->parent->root sequence, which is inverse to how
@@ -53,6 +52,12 @@ public class ChildFirstHeaderRenderStrategy extends AbstractHeaderRenderStrategy
 		// First the application level headers
 		renderApplicationLevelHeaders(headerContainer);
 
+		// A cached root component renders its hierarchy on its own
+		if (renderCachedRootComponent(headerContainer, headerStreamState, rootComponent))
+		{
+			return;
+		}
+
 		// Then its child hierarchy
 		renderChildHeaders(headerContainer, rootComponent);
 
@@ -75,23 +80,55 @@ public class ChildFirstHeaderRenderStrategy extends AbstractHeaderRenderStrategy
 
 		if (rootComponent instanceof MarkupContainer)
 		{
-			new DeepChildFirstVisitor()
+			renderHeaders(headerContainer, rootComponent, rootComponent);
+		}
+	}
+
+	/**
+	 * Render the headers of a component after those of its children. A container cached by a
+	 * {@link org.apache.wicket.markup.html.cache.RenderCacheBehavior} renders its child hierarchy
+	 * on its own.
+	 * 
+	 * @param headerContainer
+	 * @param component
+	 * @param rootComponent
+	 */
+	private void renderHeaders(final HtmlHeaderContainer headerContainer,
+		final Component component, final Component rootComponent)
+	{
+		if (component instanceof MarkupContainer)
+		{
+			// no need to go deeper into invisible containers
+			if (component.isVisibleInHierarchy() == false)
+			{
+				return;
+			}
+
+			if (component != rootComponent && component.getRenderCache() != null)
 			{
-				@Override
-				public void component(final Component component, final IVisit<Void> visit)
-				{
-					if (component != rootComponent)
-					{
-						component.internalRenderHead(headerContainer);
-					}
-				}
+				renderCachedHeaders(headerContainer, component);
+				return;
+			}
+
+			for (Component child : (MarkupContainer)component)
+			{
+				renderHeaders(headerContainer, child, rootComponent);
+			}
+		}
 
-				@Override
-				public boolean preCheck(Component component)
-				{
-					return component.isVisibleInHierarchy();
-				}
-			}.visit(rootComponent);
+		if (component != rootComponent &&
+			renderCachedHeaders(headerContainer, component) == false)
+		{
+			component.internalRenderHead(headerContainer);
 		}
 	}
+
+	@Override
+	protected void renderHierarchyHeaders(final HtmlHeaderContainer headerContainer,
+		final Component component)
+	{
+		renderChildHeaders(headerContainer, component);
+
+		component.internalRenderHead(headerContainer);
+	}
 }
@@ -59,14 +59,19 @@ public class ParentFirstHeaderRenderStrategy extends AbstractHeaderRenderStrateg
 				@Override
 				public void component(final Component component, final IVisit<Void> visit)
 				{
-					if (component.isVisibleInHierarchy())
+					if (component.isVisibleInHierarchy() == false)
 					{
-						component.internalRenderHead(headerContainer);
+						visit.dontGoDeeper();
 					}
-					else
+					else if (renderCachedHeaders(headerContainer, component))
 					{
+						// a cached container renders its child hierarchy on its own
 						visit.dontGoDeeper();
 					}
+					else
+					{
+						component.internalRenderHead(headerContainer);
+					}
 				}
 			});
 		}
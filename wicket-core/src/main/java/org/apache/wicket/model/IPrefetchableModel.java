@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.model;
+
+import org.danekja.java.util.function.serializable.SerializableSupplier;
+
+/**
+ * A model whose object can be loaded in advance, concurrently with other models, before the
+ * components using it are rendered.
+ * <p>
+ * {@link LoadableDetachableModel} provides both methods, so a subclass has to implement this
+ * interface only:
+ * 
+ * <pre>
+ * class CustomerModel extends LoadableDetachableModel&lt;Customer&gt;
+ * 	implements IPrefetchableModel&lt;Customer&gt;
+ * {
+ * 	protected Customer load()
+ * 	{
+ * 		return customerService.find(id);
+ * 	}
+ * }
+ * </pre>
+ * 
+ * Prefetching happens on a thread of the executor configured with
+ * {@link org.apache.wicket.settings.ApplicationSettings#setModelPrefetchExecutor(java.util.concurrent.Executor)},
+ * where the {@link org.apache.wicket.Application} and {@link org.apache.wicket.Session} are
+ * available but no {@link org.apache.wicket.request.cycle.RequestCycle}. So loading must not access
+ * components, the request or the response.
+ * <p>
+ * All models of a page are prefetched concurrently and in no particular order, so only models
+ * loading independently of each other may be prefetchable: a model must neither depend on the
+ * object of another model being loaded nor on state changed by another model or while rendering.
+ * 
+ * @param <T>
+ *            The Model Object type
+ * 
+ * @see ModelPrefetcher
+ */
+public interface IPrefetchableModel<T> extends IModel<T>
+{
+	/**
+	 * @return {@code true} if the object is already loaded and does not have to be prefetched
+	 */
+	boolean isAttached();
+
+	/**
+	 * Load the object so following calls to {@link #getObject()} do not have to.
+	 * <p>
+	 * If loading fails the model has to stay detached, so the failure is repeated by
+	 * {@link #getObject()} while rendering.
+	 */
+	void prefetchObject();
+
+	/**
+	 * Create a prefetchable {@link LoadableDetachableModel} for the given supplier.
+	 * 
+	 * @param <T>
+	 * @param getter
+	 *            Used for loading the object.
+	 * @return the model
+	 */
+	static <T> IPrefetchableModel<T> of(SerializableSupplier<T> getter)
+	{
+		return new PrefetchableModel<>(getter);
+	}
+
+	/**
+	 * A prefetchable {@link LoadableDetachableModel} for a supplier.
+	 * 
+	 * @param <T>
+	 */
+	class PrefetchableModel<T> extends LoadableDetachableModel<T> implements IPrefetchableModel<T>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final SerializableSupplier<T> getter;
+
+		private PrefetchableModel(SerializableSupplier<T> getter)
+		{
+			this.getter = getter;
+		}
+
+		@Override
+		protected T load()
+		{
+			return getter.get();
+		}
+	}
+}
@@ -138,6 +138,32 @@ public abstract class LoadableDetachableModel<T> implements IModel<T>
 		return transientModelObject;
 	}
 
+	/**
+	 * Loads the model object in advance, unless it is attached already. Subclasses implementing
+	 * {@link IPrefetchableModel} are loaded by the {@link ModelPrefetcher}, possibly on another
+	 * thread than the one rendering the page.
+	 * <p>
+	 * If loading fails the model is detached again, so the failure is repeated by
+	 * {@link #getObject()}.
+	 * 
+	 * @see IPrefetchableModel#prefetchObject()
+	 */
+	public void prefetchObject()
+	{
+		if (state == null || state == InternalState.DETACHED)
+		{
+			try
+			{
+				getObject();
+			}
+			catch (RuntimeException ex)
+			{
+				detach();
+				throw ex;
+			}
+		}
+	}
+
 	/**
 	 * Gets the attached status of this model instance
 	 * 
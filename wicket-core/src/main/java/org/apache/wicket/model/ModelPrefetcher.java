@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.Component;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.Session;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.visit.IVisit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads the {@link IPrefetchableModel}s of components concurrently before they are rendered.
+ * <p>
+ * After the components are configured, the models of all visible components are collected and
+ * prefetched on an {@link Executor}. Rendering waits until all models are loaded, so the latency
+ * of a page is the slowest of its model loads instead of their sum.
+ * <p>
+ * Models failing to load are left detached and loaded again while rendering, so the failure is
+ * reported as if there was no prefetching.
+ * 
+ * @see org.apache.wicket.settings.ApplicationSettings#setModelPrefetchExecutor(Executor)
+ */
+public class ModelPrefetcher
+{
+	private static final Logger log = LoggerFactory.getLogger(ModelPrefetcher.class);
+
+	private final Executor executor;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param executor
+	 *            executor to load models on
+	 */
+	public ModelPrefetcher(final Executor executor)
+	{
+		this.executor = Args.notNull(executor, "executor");
+	}
+
+	/**
+	 * Prefetch the models of the given components and their visible children.
+	 * 
+	 * @param components
+	 *            configured components
+	 */
+	public void prefetch(final Collection<? extends Component> components)
+	{
+		List<IPrefetchableModel<?>> models = collect(components);
+		if (models.size() == 1)
+		{
+			// no concurrency to gain
+			prefetch(models.get(0));
+			return;
+		}
+
+		load(models).join();
+	}
+
+	/**
+	 * Start prefetching the models of the given components and their visible children without
+	 * waiting for them to be loaded.
+	 * <p>
+	 * The components must not be rendered until the returned future is completed.
+	 * 
+	 * @param components
+	 *            configured components
+	 * @return future completed when all models are loaded or failed to load
+	 */
+	public CompletableFuture<Void> prefetchAsync(final Collection<? extends Component> components)
+	{
+		return load(collect(components));
+	}
+
+	/**
+	 * Start prefetching the models of the given components and all their children before they are
+	 * configured, so their configuration can use the loaded models.
+	 * <p>
+	 * Since visibility is not known before configuration, the models of components turning out
+	 * invisible are loaded too. The components must not be configured until the returned future is
+	 * completed.
+	 * 
+	 * @param components
+	 *            components not configured yet
+	 * @return future completed when all models are loaded or failed to load
+	 */
+	public CompletableFuture<Void> prefetchUnconfiguredAsync(
+		final Collection<? extends Component> components)
+	{
+		return load(collect(components, false));
+	}
+
+	private CompletableFuture<Void> load(final List<IPrefetchableModel<?>> models)
+	{
+		final Application application = ThreadContext.getApplication();
+		final Session session = ThreadContext.getSession();
+
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[models.size()];
+		for (int i = 0; i < futures.length; i++)
+		{
+			IPrefetchableModel<?> model = models.get(i);
+			try
+			{
+				futures[i] = CompletableFuture.runAsync(() -> {
+					ThreadContext oldContext = ThreadContext.detach();
+					try
+					{
+						ThreadContext.setApplication(application);
+						ThreadContext.setSession(session);
+
+						prefetch(model);
+					}
+					finally
+					{
+						ThreadContext.restore(oldContext);
+					}
+				}, executor);
+			}
+			catch (RejectedExecutionException ex)
+			{
+				// e.g. saturated or shut down, so load it in this thread
+				log.debug("Cannot prefetch model {} concurrently", model, ex);
+
+				prefetch(model);
+				futures[i] = CompletableFuture.completedFuture(null);
+			}
+		}
+
+		// failures are repeated while rendering
+		return CompletableFuture.allOf(futures).exceptionally(ex -> null);
+	}
+
+	private void prefetch(final IPrefetchableModel<?> model)
+	{
+		try
+		{
+			model.prefetchObject();
+		}
+		catch (RuntimeException ex)
+		{
+			log.debug("Cannot prefetch model {}", model, ex);
+		}
+	}
+
+	/**
+	 * Collect the models of the given components and their visible children.
+	 * 
+	 * @param components
+	 *            configured components
+	 * @return detached prefetchable models
+	 */
+	protected List<IPrefetchableModel<?>> collect(final Collection<? extends Component> components)
+	{
+		return collect(components, true);
+	}
+
+	private List<IPrefetchableModel<?>> collect(final Collection<? extends Component> components,
+		final boolean visibleOnly)
+	{
+		Set<IModel<?>> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<IPrefetchableModel<?>> models = new ArrayList<>();
+
+		for (Component component : components)
+		{
+			if (visibleOnly && component.determineVisibility() == false)
+			{
+				continue;
+			}
+
+			collect(component.getDefaultModel(), seen, models);
+
+			if (component instanceof MarkupContainer)
+			{
+				((MarkupContainer)component).visitChildren((Component child, IVisit<Void> visit) -> {
+					if (visibleOnly && child.determineVisibility() == false)
+					{
+						visit.dontGoDeeper();
+						return;
+					}
+					collect(child.getDefaultModel(), seen, models);
+				});
+			}
+		}
+		return models;
+	}
+
+	private void collect(IModel<?> model, final Set<IModel<?>> seen,
+		final List<IPrefetchableModel<?>> models)
+	{
+		while (model != null && seen.add(model))
+		{
+			if (model instanceof IPrefetchableModel &&
+				((IPrefetchableModel<?>)model).isAttached() == false)
+			{
+				models.add((IPrefetchableModel<?>)model);
+			}
+
+			if (model instanceof IWrapModel)
+			{
+				model = ((IWrapModel<?>)model).getWrappedModel();
+			}
+			else if (model instanceof ChainingModel)
+			{
+				Object target = ((ChainingModel<?>)model).getTarget();
+				model = target instanceof IModel ? (IModel<?>)target : null;
+			}
+			else
+			{
+				model = null;
+			}
+		}
+	}
+}
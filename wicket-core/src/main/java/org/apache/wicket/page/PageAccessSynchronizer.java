@@ -22,6 +22,8 @@ import java.time.Instant;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import org.apache.wicket.Application;
@@ -35,6 +37,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Synchronizes access to page instances from multiple threads
+ * <p>
+ * Threads waiting for a page lock do not hold any monitor, so virtual threads waiting for a page
+ * do not pin their carrier thread.
  * 
  * @author Igor Vaynberg (ivaynberg)
  */
@@ -142,34 +147,63 @@ public class PageAccessSynchronizer implements Serializable
 		}
 		else
 		{
-			if (logger.isWarnEnabled())
+			throw couldNotLock(pageId, start, timeout, previous.thread);
+		}
+	}
+
+	/**
+	 * Log a failed attempt to lock a page.
+	 * 
+	 * @param pageId
+	 *            page id
+	 * @param start
+	 *            start of the attempt
+	 * @param timeout
+	 *            allowed time
+	 * @param holder
+	 *            thread holding the lock
+	 * @return exception to throw
+	 */
+	CouldNotLockPageException couldNotLock(int pageId, Instant start, Duration timeout, Thread holder)
+	{
+		final Thread thread = Thread.currentThread();
+
+		if (logger.isWarnEnabled())
+		{
+			logger.warn(
+				"Thread '{}' failed to acquire lock to page with id '{}', attempted for {} out of allowed {}." +
+						" The thread that holds the lock has name '{}'.",
+				name(thread), pageId, Duration.between(start, Instant.now()), timeout,
+						name(holder));
+			if (Application.exists())
 			{
-				logger.warn(
-					"Thread '{}' failed to acquire lock to page with id '{}', attempted for {} out of allowed {}." +
-							" The thread that holds the lock has name '{}'.",
-					thread.getName(), pageId, Duration.between(start, Instant.now()), timeout,
-							previous.thread.getName());
-				if (Application.exists())
+				ThreadDumpStrategy strategy = Application.get()
+					.getExceptionSettings()
+					.getThreadDumpStrategy();
+				switch (strategy)
 				{
-					ThreadDumpStrategy strategy = Application.get()
-						.getExceptionSettings()
-						.getThreadDumpStrategy();
-					switch (strategy)
-					{
-						case ALL_THREADS :
-							Threads.dumpAllThreads(logger);
-							break;
-						case THREAD_HOLDING_LOCK :
-							Threads.dumpSingleThread(logger, previous.thread);
-							break;
-						case NO_THREADS :
-						default :
-							// do nothing
-					}
+					case ALL_THREADS :
+						Threads.dumpAllThreads(logger);
+						break;
+					case THREAD_HOLDING_LOCK :
+						Threads.dumpSingleThread(logger, holder);
+						break;
+					case NO_THREADS :
+					default :
+						// do nothing
 				}
 			}
-			throw new CouldNotLockPageException(pageId, thread.getName(), timeout);
 		}
+		return new CouldNotLockPageException(pageId, name(thread), timeout);
+	}
+
+	/**
+	 * Virtual threads are unnamed by default, so fall back to their string representation.
+	 */
+	private static String name(Thread thread)
+	{
+		String name = thread.getName();
+		return name.isEmpty() ? thread.toString() : name;
 	}
 
 	/**
@@ -222,6 +256,18 @@ public class PageAccessSynchronizer implements Serializable
 		}
 	}
 
+	/**
+	 * Hook method called when the page of a lock is known, after {@link #lockPage(int)}.
+	 * <p>
+	 * Default implementation does nothing.
+	 * 
+	 * @param page
+	 *            locked page
+	 */
+	protected void onPageLocked(IManageablePage page)
+	{
+	}
+
 	/*
 	 * used by tests
 	 */
@@ -254,6 +300,10 @@ public class PageAccessSynchronizer implements Serializable
 				{
 					lockPage(pageId);
 					page = manager.getPage(pageId);
+					if (page != null)
+					{
+						onPageLocked(page);
+					}
 				}
 				finally
 				{
@@ -285,6 +335,7 @@ public class PageAccessSynchronizer implements Serializable
 			public void touchPage(IManageablePage page)
 			{
 				lockPage(page.getPageId());
+				onPageLocked(page);
 				
 				manager.touchPage(page);
 			}
@@ -341,7 +392,8 @@ public class PageAccessSynchronizer implements Serializable
 		/** thread that owns the lock */
 		private final Thread thread;
 
-		private volatile boolean released = false;
+		/** counted down on release */
+		private final CountDownLatch released = new CountDownLatch(1);
 
 		/**
 		 * Constructor
@@ -371,9 +423,9 @@ public class PageAccessSynchronizer implements Serializable
 			return thread;
 		}
 
-		final synchronized void waitForRelease(long remaining, boolean isDebugEnabled)
+		final void waitForRelease(long remaining, boolean isDebugEnabled)
 		{
-			if (released)
+			if (released.getCount() == 0)
 			{
 				// the thread holding the lock released it before we were able to wait for the
 				// release
@@ -393,7 +445,7 @@ public class PageAccessSynchronizer implements Serializable
 			}
 			try
 			{
-				wait(remaining);
+				released.await(remaining, TimeUnit.MILLISECONDS);
 			}
 			catch (InterruptedException e)
 			{
@@ -401,14 +453,13 @@ public class PageAccessSynchronizer implements Serializable
 			}
 		}
 
-		final synchronized void markReleased(boolean isDebugEnabled)
+		final void markReleased(boolean isDebugEnabled)
 		{
 			if (isDebugEnabled)
 			{
 				logger.debug("'{}' notifying blocked threads", thread.getName());
 			}
-			released = true;
-			notifyAll();
+			released.countDown();
 		}
 	}
 }
@@ -24,7 +24,9 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import javax.servlet.http.Cookie;
+import org.apache.wicket.Application;
 import org.apache.wicket.Component;
 import org.apache.wicket.Page;
 import org.apache.wicket.feedback.FeedbackDelay;
@@ -41,6 +43,7 @@ import org.apache.wicket.markup.parser.filter.HtmlHeaderSectionHandler;
 import org.apache.wicket.markup.renderStrategy.AbstractHeaderRenderStrategy;
 import org.apache.wicket.markup.renderStrategy.IHeaderRenderStrategy;
 import org.apache.wicket.markup.repeater.AbstractRepeater;
+import org.apache.wicket.model.ModelPrefetcher;
 import org.apache.wicket.request.IRequestCycle;
 import org.apache.wicket.request.Response;
 import org.apache.wicket.request.cycle.RequestCycle;
@@ -254,6 +257,13 @@ public abstract class PartialPageUpdate
 			delay.beforeRender();
 		}
 
+		Executor prefetchExecutor = Application.get().getApplicationSettings()
+			.getModelPrefetchExecutor();
+		if (prefetchExecutor != null)
+		{
+			new ModelPrefetcher(prefetchExecutor).prefetch(toBeWritten);
+		}
+
 		// write components
 		for (Component component : toBeWritten)
 		{
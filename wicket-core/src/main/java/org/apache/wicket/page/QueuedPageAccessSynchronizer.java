@@ -0,0 +1,466 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.page;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.util.LazyInitializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link PageAccessSynchronizer} queuing threads waiting for a page in FIFO order.
+ * <p>
+ * Instead of all waiting threads competing for a released lock, the releasing thread hands the
+ * lock over to the longest waiting thread directly and unparks it with {@link LockSupport}. Threads
+ * only barge in if no other thread is waiting, so a thread cannot be overtaken by later threads
+ * and a timeout is reached only if the threads in front of it hold the page that long.
+ * <p>
+ * Each page has its own queue, acquiring and releasing is done with compare-and-set operations
+ * only. As with {@link PageAccessSynchronizer} a thread can lock a page again while it holds the
+ * lock already, a single unlock releases it.
+ * <p>
+ * The time each thread waited for a lock is recorded in the {@link Statistics} of the
+ * {@link org.apache.wicket.settings.PageSettings}, by class of the locked page.
+ *
+ * @see org.apache.wicket.settings.PageSettings#setQueuedPageLocking(boolean)
+ */
+public class QueuedPageAccessSynchronizer extends PageAccessSynchronizer
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final Logger logger = LoggerFactory.getLogger(QueuedPageAccessSynchronizer.class);
+
+	/**
+	 * Marker of a removed queue.
+	 */
+	private static final Object RETIRED = new Object();
+
+	/** queues of pages */
+	private final Supplier<ConcurrentMap<Integer, PageQueue>> queues = new LazyInitializer<ConcurrentMap<Integer, PageQueue>>()
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected ConcurrentMap<Integer, PageQueue> createInstance()
+		{
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	/**
+	 * Constructor
+	 *
+	 * @param timeout
+	 *            timeout value for acquiring a page lock
+	 */
+	public QueuedPageAccessSynchronizer(Duration timeout)
+	{
+		super(timeout);
+	}
+
+	@Override
+	public void lockPage(int pageId) throws CouldNotLockPageException
+	{
+		final Thread thread = Thread.currentThread();
+		final Instant start = Instant.now();
+		final long startNanos = System.nanoTime();
+		final Duration timeout = getTimeout(pageId);
+		final long deadline = startNanos + timeout.toNanos();
+
+		while (true)
+		{
+			PageQueue queue = queues.get().computeIfAbsent(pageId, PageQueue::new);
+
+			Object owner = queue.owner.get();
+			if (owner == thread)
+			{
+				// lock is already owned by this thread
+				return;
+			}
+
+			if (owner == RETIRED)
+			{
+				queues.get().remove(pageId, queue);
+				continue;
+			}
+
+			if (owner == null && queue.waiters.isEmpty() && queue.owner.compareAndSet(null, thread))
+			{
+				queue.waited = 0;
+				logger.debug("'{}' acquired lock to page with id '{}'", thread.getName(), pageId);
+				return;
+			}
+
+			Waiter waiter = new Waiter(thread);
+			queue.waiters.add(waiter);
+			logger.debug("'{}' waiting for lock to page with id '{}'", thread.getName(), pageId);
+
+			if (await(queue, waiter, deadline))
+			{
+				queue.waited = System.nanoTime() - startNanos;
+				logger.debug("'{}' acquired lock to page with id '{}'", thread.getName(), pageId);
+				return;
+			}
+
+			if (System.nanoTime() - deadline >= 0)
+			{
+				Object holder = queue.owner.get();
+				throw couldNotLock(pageId, start, timeout,
+					holder instanceof Thread ? (Thread)holder : thread);
+			}
+
+			// queue was retired while waiting, try again
+		}
+	}
+
+	/**
+	 * Wait until the lock is handed over.
+	 *
+	 * @return {@code false} if timed out or the queue was retired
+	 */
+	private boolean await(PageQueue queue, Waiter waiter, long deadline)
+	{
+		while (true)
+		{
+			if (waiter.state.get() == Waiter.GRANTED)
+			{
+				return true;
+			}
+
+			Object owner = queue.owner.get();
+			if (owner == null)
+			{
+				// released before this waiter was queued
+				queue.handOff();
+				continue;
+			}
+
+			long remaining = deadline - System.nanoTime();
+			if (owner == RETIRED || remaining <= 0)
+			{
+				if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.CANCELLED))
+				{
+					queue.waiters.remove(waiter);
+					tryRetire(queue);
+					return false;
+				}
+
+				// granted in the meantime
+				return true;
+			}
+
+			LockSupport.parkNanos(queue, remaining);
+		}
+	}
+
+	@Override
+	public void unlockAllPages()
+	{
+		final Thread thread = Thread.currentThread();
+
+		for (PageQueue queue : queues.get().values())
+		{
+			if (queue.owner.get() == thread)
+			{
+				release(queue);
+			}
+		}
+	}
+
+	@Override
+	public void unlockPage(int pageId)
+	{
+		PageQueue queue = queues.get().get(pageId);
+		if (queue != null && queue.owner.get() == Thread.currentThread())
+		{
+			release(queue);
+		}
+	}
+
+	private void release(PageQueue queue)
+	{
+		logger.debug("'{}' released lock to page with id '{}'", Thread.currentThread().getName(),
+			queue.pageId);
+
+		queue.owner.set(null);
+
+		queue.handOff();
+
+		tryRetire(queue);
+	}
+
+	/**
+	 * Remove a queue if it is neither owned nor waited for.
+	 */
+	private void tryRetire(PageQueue queue)
+	{
+		if (queue.waiters.isEmpty() && queue.owner.compareAndSet(null, RETIRED))
+		{
+			queues.get().remove(queue.pageId, queue);
+		}
+	}
+
+	/**
+	 * Records the time waited for the lock of the page.
+	 */
+	@Override
+	protected void onPageLocked(IManageablePage page)
+	{
+		PageQueue queue = queues.get().get(page.getPageId());
+		if (queue != null && queue.owner.get() == Thread.currentThread() && queue.waited >= 0)
+		{
+			long waited = queue.waited;
+			queue.waited = -1;
+
+			if (Application.exists())
+			{
+				Application.get()
+					.getPageSettings()
+					.getPageLockStatistics()
+					.record(page.getClass(), waited);
+			}
+		}
+	}
+
+	/*
+	 * used by tests
+	 */
+	Supplier<ConcurrentMap<Integer, PageQueue>> getQueues()
+	{
+		return queues;
+	}
+
+	/**
+	 * The owner and waiting threads of a page.
+	 */
+	static class PageQueue
+	{
+		private final int pageId;
+
+		/**
+		 * The owning thread, {@code null} or {@link QueuedPageAccessSynchronizer#RETIRED}.
+		 */
+		final AtomicReference<Object> owner = new AtomicReference<>();
+
+		final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+		/**
+		 * Nanoseconds the owner waited for the lock, {@code -1} if recorded already.
+		 */
+		volatile long waited = -1;
+
+		PageQueue(int pageId)
+		{
+			this.pageId = pageId;
+		}
+
+		/**
+		 * Hand the lock over to the first waiter, if not owned.
+		 */
+		void handOff()
+		{
+			Waiter waiter;
+			while ((waiter = waiters.peek()) != null)
+			{
+				if (owner.compareAndSet(null, waiter.thread) == false)
+				{
+					// owned or retired
+					return;
+				}
+
+				waiters.remove(waiter);
+
+				if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.GRANTED))
+				{
+					LockSupport.unpark(waiter.thread);
+					return;
+				}
+
+				// timed out in the meantime
+				owner.set(null);
+			}
+		}
+	}
+
+	/**
+	 * A thread waiting for a lock.
+	 */
+	static class Waiter
+	{
+		static final int WAITING = 0;
+
+		static final int GRANTED = 1;
+
+		static final int CANCELLED = 2;
+
+		final Thread thread;
+
+		final AtomicInteger state = new AtomicInteger(WAITING);
+
+		Waiter(Thread thread)
+		{
+			this.thread = thread;
+		}
+	}
+
+	/**
+	 * Statistics of the times threads waited for page locks, by page class.
+	 */
+	public static class Statistics
+	{
+		private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+		void record(Class<?> pageClass, long waitedNanos)
+		{
+			histograms.computeIfAbsent(pageClass.getName(), name -> new Histogram())
+				.record(waitedNanos);
+		}
+
+		/**
+		 * @return histograms by name of page class
+		 */
+		public Map<String, Histogram> getHistograms()
+		{
+			return new TreeMap<>(histograms);
+		}
+
+		/**
+		 * Forget all recorded times.
+		 */
+		public void clear()
+		{
+			histograms.clear();
+		}
+	}
+
+	/**
+	 * A histogram of wait times, with buckets doubling in size from one millisecond up.
+	 */
+	public static class Histogram
+	{
+		/**
+		 * Count of buckets, the last bucket contains all times of 2^({@value} - 2) milliseconds
+		 * and longer.
+		 */
+		public static final int BUCKETS = 18;
+
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+		private final AtomicLong total = new AtomicLong();
+
+		private final AtomicLong max = new AtomicLong();
+
+		void record(long nanos)
+		{
+			long millis = nanos / 1_000_000;
+
+			int bucket = millis == 0 ? 0 : 64 - Long.numberOfLeadingZeros(millis);
+			counts.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+
+			total.addAndGet(nanos);
+			max.accumulateAndGet(nanos, Math::max);
+		}
+
+		/**
+		 * Get the count of waits in a bucket: bucket {@code 0} holds waits below one millisecond,
+		 * bucket {@code n} waits from 2^(n-1) up to 2^n milliseconds.
+		 *
+		 * @param bucket
+		 *            index of bucket
+		 * @return count
+		 */
+		public long getCount(int bucket)
+		{
+			return counts.get(bucket);
+		}
+
+		/**
+		 * @return count of all waits
+		 */
+		public long getCount()
+		{
+			long count = 0;
+			for (int b = 0; b < BUCKETS; b++)
+			{
+				count += counts.get(b);
+			}
+			return count;
+		}
+
+		/**
+		 * @return average wait
+		 */
+		public Duration getAverage()
+		{
+			long count = getCount();
+			return Duration.ofNanos(count == 0 ? 0 : total.get() / count);
+		}
+
+		/**
+		 * @return maximum wait
+		 */
+		public Duration getMax()
+		{
+			return Duration.ofNanos(max.get());
+		}
+
+		/**
+		 * Get an upper bound of a percentile of waits.
+		 *
+		 * @param percentile
+		 *            percentile between {@code 0} and {@code 100}
+		 * @return upper bound of the bucket containing the percentile
+		 */
+		public Duration getPercentile(double percentile)
+		{
+			long count = getCount();
+			long threshold = (long)Math.ceil(count * percentile / 100);
+
+			long sum = 0;
+			for (int b = 0; b < BUCKETS - 1; b++)
+			{
+				sum += counts.get(b);
+				if (sum >= threshold)
+				{
+					return Duration.ofMillis(1L << b);
+				}
+			}
+			return getMax();
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("count %d, average %s, 99th percentile %s, max %s", getCount(),
+				getAverage(), getPercentile(99), getMax());
+		}
+	}
+}
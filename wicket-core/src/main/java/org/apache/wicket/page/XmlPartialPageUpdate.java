@@ -89,7 +89,7 @@ public class XmlPartialPageUpdate extends PartialPageUpdate
 		response.write("<component id=\"");
 		response.write(markupId);
 		response.write("\" ><![CDATA[");
-		response.write(encode(bodyBuffer.getContents()));
+		writeEncoded(response, bodyBuffer.getContents());
 		response.write("]]></component>");
 
 		bodyBuffer.reset();
@@ -112,7 +112,7 @@ public class XmlPartialPageUpdate extends PartialPageUpdate
 			// we need to write response as CDATA and parse it on client,
 			// because konqueror crashes when there is a <script> element
 			response.write("<![CDATA[<head xmlns:wicket=\"http://wicket.apache.org\">");
-			response.write(encode(contents));
+			writeEncoded(response, contents);
 			response.write("</head>]]>");
 			response.write("</header-contribution>");
 		}
@@ -158,7 +158,7 @@ public class XmlPartialPageUpdate extends PartialPageUpdate
 		response.write(">");
 
 		response.write("<![CDATA[");
-		response.write(encode(js));
+		writeEncoded(response, js);
 		response.write("]]>");
 
 		response.write("</");
@@ -168,10 +168,49 @@ public class XmlPartialPageUpdate extends PartialPageUpdate
 		bodyBuffer.reset();
 	}
 
+	/**
+	 * Encodes the content of a CDATA section.
+	 * 
+	 * @param str
+	 *            content
+	 * @return the content with all CDATA end markers split into two sections
+	 * @deprecated the content is encoded while it is written by
+	 *             {@link #writeEncoded(Response, CharSequence)}
+	 */
+	@Deprecated
 	protected CharSequence encode(CharSequence str)
 	{
 		return Strings.replaceAll(str, "]]>", "]]]]><![CDATA[>"); 
 	}
 
+	/**
+	 * Writes the content of a CDATA section, splitting all CDATA end markers into two sections.
+	 * The content is written in runs between the markers, without creating an encoded copy.
+	 * 
+	 * @param response
+	 *            response to write to
+	 * @param str
+	 *            content
+	 */
+	protected void writeEncoded(Response response, CharSequence str)
+	{
+		int len = str.length();
+		int start = 0;
+		for (int i = 0; i + 2 < len; i++)
+		{
+			if (str.charAt(i) == ']' && str.charAt(i + 1) == ']' && str.charAt(i + 2) == '>')
+			{
+				response.write(str, start, i + 2);
+				response.write("]]><![CDATA[");
+				start = i + 2;
+				i++;
+			}
+		}
+		if (start < len)
+		{
+			response.write(str, start, len);
+		}
+	}
+
 
 }
@@ -17,14 +17,19 @@
 package org.apache.wicket.pageStore;
 
 import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import org.apache.wicket.MetaDataKey;
@@ -35,14 +40,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Facade for {@link IPageStore} moving {@link #addPage(IPageContext, IManageablePage)} to a worker thread.
+ * Facade for {@link IPageStore} moving {@link #addPage(IPageContext, IManageablePage)} to worker threads.
  * <p>
- * Creates an {@link PendingAdd} for {@link #addPage(IPageContext, IManageablePage)} and puts ito a {@link #queue}.
- * Later {@link PageAddingRunnable} reads in blocking manner from {@link #queue} and performs the add.
+ * Creates an {@link PendingAdd} for {@link #addPage(IPageContext, IManageablePage)} and puts it into one of the
+ * {@link #queues}. Later {@link PageAddingRunnable} reads in blocking manner from its queue and performs the add.
  * <p>
- * It starts only one instance of {@link PageAddingRunnable} because all we need is to make the page
- * storing asynchronous. We don't want to write concurrently in the wrapped {@link IPageStore},
- * though it may happen in the extreme case when the queue is full. These cases should be avoided.
+ * By default only one instance of {@link PageAddingRunnable} is started, because all we need is to make the page
+ * storing asynchronous. If the wrapped {@link IPageStore} is slow, additional threads can be started: each
+ * session is assigned to a single thread, so all pages of a session are still added in order. Each thread
+ * drains its queue in batches, passing all pages of a session to
+ * {@link IPageStore#addPages(IPageContext, List)} at once.
+ * <p>
+ * Writing concurrently in the wrapped {@link IPageStore} for a single session may happen in the extreme case
+ * when the queue is full. These cases should be avoided.
  * 
  * @author Matej Knopp
  * @author manuelbarzi
@@ -64,14 +74,14 @@ public class AsynchronousPageStore extends DelegatingPageStore
 	private static final long POLL_WAIT = 1000L;
 
 	/**
-	 * The page saving thread.
+	 * The page saving threads.
 	 */
-	private final Thread pageSavingThread;
+	private final List<Thread> pageSavingThreads;
 
 	/**
-	 * The queue where the entries which have to be saved are temporary stored
+	 * The queues where the entries which have to be saved are temporary stored, one for each thread.
 	 */
-	private final BlockingQueue<PendingAdd> queue;
+	private final List<BlockingQueue<PendingAdd>> queues;
 
 	/**
 	 * A map 'sessionId:::pageId' -> {@link PendingAdd}. Used for fast retrieval of {@link PendingAdd}s which
@@ -79,8 +89,10 @@ public class AsynchronousPageStore extends DelegatingPageStore
 	 */
 	private final ConcurrentMap<String, PendingAdd> queueMap;
 
+	private final Statistics statistics;
+
 	/**
-	 * Construct.
+	 * Construct with a single thread adding pages one by one.
 	 * 
 	 * @param delegate
 	 *            the wrapped {@link IPageStore} that actually saved the page
@@ -88,16 +100,73 @@ public class AsynchronousPageStore extends DelegatingPageStore
 	 *            the capacity of the queue that delays the saving
 	 */
 	public AsynchronousPageStore(final IPageStore delegate, final int capacity)
+	{
+		this(delegate, capacity, 1, 1, new Statistics());
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param delegate
+	 *            the wrapped {@link IPageStore} that actually saved the page
+	 * @param capacity
+	 *            the capacity of the queues that delay the saving, shared between all threads
+	 * @param threads
+	 *            count of threads adding pages
+	 * @param batchSize
+	 *            maximum count of pages added by a thread at once
+	 * @param statistics
+	 *            statistics to record into
+	 */
+	public AsynchronousPageStore(final IPageStore delegate, final int capacity, final int threads,
+		final int batchSize, final Statistics statistics)
 	{
 		super(delegate);
-		
-		queue = new LinkedBlockingQueue<>(capacity);
+
+		Args.withinRange(1, Integer.MAX_VALUE, threads, "threads");
+		Args.withinRange(1, Integer.MAX_VALUE, batchSize, "batchSize");
+		this.statistics = Args.notNull(statistics, "statistics");
+
 		queueMap = new ConcurrentHashMap<>();
 
-		PageAddingRunnable savingRunnable = new PageAddingRunnable(delegate, queue, queueMap);
-		pageSavingThread = new Thread(savingRunnable, "Wicket-AsyncPageStore-PageSavingThread");
-		pageSavingThread.setDaemon(true);
-		pageSavingThread.start();
+		int queueCapacity = Math.max(1, capacity / threads);
+		queues = new ArrayList<>(threads);
+		pageSavingThreads = new ArrayList<>(threads);
+		for (int t = 0; t < threads; t++)
+		{
+			BlockingQueue<PendingAdd> queue = new LinkedBlockingQueue<>(queueCapacity);
+			queues.add(queue);
+
+			PageAddingRunnable savingRunnable = new PageAddingRunnable(delegate, queue, queueMap,
+				batchSize, statistics);
+			Thread pageSavingThread = new Thread(savingRunnable,
+				"Wicket-AsyncPageStore-PageSavingThread" + (threads > 1 ? "-" + t : ""));
+			pageSavingThread.setDaemon(true);
+			pageSavingThread.start();
+			pageSavingThreads.add(pageSavingThread);
+		}
+	}
+
+	/**
+	 * Get the statistics of this store.
+	 * 
+	 * @return statistics
+	 */
+	public Statistics getStatistics()
+	{
+		return statistics;
+	}
+
+	/**
+	 * Get the queue for the given session, so all pages of a session are added by a single thread.
+	 * 
+	 * @param sessionId
+	 *            id of session
+	 * @return queue
+	 */
+	private BlockingQueue<PendingAdd> getQueue(String sessionId)
+	{
+		return queues.get(Math.floorMod(sessionId.hashCode(), queues.size()));
 	}
 
 	/**
@@ -125,6 +194,11 @@ public class AsynchronousPageStore extends DelegatingPageStore
 
 		private final String sessionId;
 
+		/**
+		 * Time of creation in nanos, for {@link Statistics}.
+		 */
+		private final long created = System.nanoTime();
+
 		/**
 		 * Is this context passed to an asynchronously called {@link IPageStore#addPage(IPageContext, IManageablePage)}.
 		 */
@@ -257,17 +331,25 @@ public class AsynchronousPageStore extends DelegatingPageStore
 
 		private final IPageStore delegate;
 
+		private final int batchSize;
+
+		private final Statistics statistics;
+
 		private PageAddingRunnable(IPageStore delegate, BlockingQueue<PendingAdd> entries,
-		                           ConcurrentMap<String, PendingAdd> entryMap)
+		                           ConcurrentMap<String, PendingAdd> entryMap, int batchSize, Statistics statistics)
 		{
 			this.delegate = delegate;
 			this.entries = entries;
 			this.addQueue = entryMap;
+			this.batchSize = batchSize;
+			this.statistics = statistics;
 		}
 
 		@Override
 		public void run()
 		{
+			List<PendingAdd> batch = new ArrayList<>(batchSize);
+
 			while (!Thread.interrupted())
 			{
 				PendingAdd add = null;
@@ -282,10 +364,68 @@ public class AsynchronousPageStore extends DelegatingPageStore
 
 				if (add != null)
 				{
-					log.debug("Saving asynchronously: {}...", add);
-					add.asynchronous = true;					
-					delegate.addPage(add, add.page);
-					addQueue.remove(add.getKey());
+					batch.add(add);
+					entries.drainTo(batch, batchSize - 1);
+
+					statistics.onBatch(batch);
+
+					try
+					{
+						addBatch(batch);
+					}
+					finally
+					{
+						batch.clear();
+					}
+				}
+			}
+		}
+
+		/**
+		 * Add all pages of a batch, grouped by session.
+		 */
+		private void addBatch(List<PendingAdd> batch)
+		{
+			Map<String, List<PendingAdd>> bySession = new LinkedHashMap<>();
+			for (PendingAdd add : batch)
+			{
+				add.asynchronous = true;
+				bySession.computeIfAbsent(add.sessionId, key -> new ArrayList<>()).add(add);
+			}
+
+			for (List<PendingAdd> adds : bySession.values())
+			{
+				log.debug("Saving asynchronously: {}...", adds);
+
+				try
+				{
+					if (adds.size() == 1)
+					{
+						PendingAdd add = adds.get(0);
+						delegate.addPage(add, add.page);
+					}
+					else
+					{
+						List<IManageablePage> pages = new ArrayList<>(adds.size());
+						for (PendingAdd add : adds)
+						{
+							pages.add(add.page);
+						}
+
+						// all adds of a session share the same attributes
+						delegate.addPages(adds.get(0), pages);
+					}
+				}
+				catch (Exception ex)
+				{
+					log.error("An error occurred while saving asynchronously: {}", adds, ex);
+				}
+				finally
+				{
+					for (PendingAdd add : adds)
+					{
+						addQueue.remove(add.getKey(), add);
+					}
 				}
 			}
 		}
@@ -294,16 +434,19 @@ public class AsynchronousPageStore extends DelegatingPageStore
 	@Override
 	public void destroy()
 	{
-		if (pageSavingThread.isAlive())
+		for (Thread pageSavingThread : pageSavingThreads)
 		{
-			pageSavingThread.interrupt();
-			try
+			if (pageSavingThread.isAlive())
 			{
-				pageSavingThread.join();
-			}
-			catch (InterruptedException e)
-			{
-				log.error(e.getMessage(), e);
+				pageSavingThread.interrupt();
+				try
+				{
+					pageSavingThread.join();
+				}
+				catch (InterruptedException e)
+				{
+					log.error(e.getMessage(), e);
+				}
 			}
 		}
 
@@ -345,7 +488,10 @@ public class AsynchronousPageStore extends DelegatingPageStore
 			PendingAdd entry = queueMap.remove(key);
 			if (entry != null)
 			{
-				queue.remove(entry);
+				if (getQueue(sessionId).remove(entry))
+				{
+					statistics.onRemoved(1);
+				}
 			}
 		}
 
@@ -362,21 +508,25 @@ public class AsynchronousPageStore extends DelegatingPageStore
 			queueMap.put(key, add);
 			try
 			{
-				if (queue.offer(add, OFFER_WAIT, TimeUnit.MILLISECONDS))
+				if (getQueue(add.sessionId).offer(add, OFFER_WAIT, TimeUnit.MILLISECONDS))
 				{
+					statistics.onOffered();
+
 					log.debug("Offered for storing asynchronously page with id '{}'", page.getPageId());
 					return;
 				}
 				else
 				{
+					statistics.onSynchronous();
+
 					log.debug("Storing synchronously page with id '{}'", page.getPageId());
-					queueMap.remove(key);
+					queueMap.remove(key, add);
 				}
 			}
 			catch (InterruptedException e)
 			{
 				log.error(e.getMessage(), e);
-				queueMap.remove(key);
+				queueMap.remove(key, add);
 			}
 		}
 		else
@@ -395,7 +545,7 @@ public class AsynchronousPageStore extends DelegatingPageStore
 			return;
 		}
 		
-		Iterator<PendingAdd> iterator = queue.iterator();
+		Iterator<PendingAdd> iterator = getQueue(sessionId).iterator();
 		while (iterator.hasNext())
 		{
 			PendingAdd add = iterator.next(); 
@@ -403,9 +553,125 @@ public class AsynchronousPageStore extends DelegatingPageStore
 			if (add.sessionId.equals(sessionId))
 			{
 				iterator.remove();
+				queueMap.remove(add.getKey(), add);
+				statistics.onRemoved(1);
 			}
 		}
 		
 		getDelegate().removeAllPages(context);
 	}
+
+	/**
+	 * Statistics of an {@link AsynchronousPageStore}.
+	 */
+	public static class Statistics
+	{
+		private final AtomicLong offered = new AtomicLong();
+
+		private final AtomicLong taken = new AtomicLong();
+
+		private final AtomicLong synchronous = new AtomicLong();
+
+		private final AtomicLong added = new AtomicLong();
+
+		private final AtomicLong batches = new AtomicLong();
+
+		private final AtomicLong maxBatchSize = new AtomicLong();
+
+		private final AtomicLong totalWait = new AtomicLong();
+
+		private final AtomicLong maxWait = new AtomicLong();
+
+		void onOffered()
+		{
+			offered.incrementAndGet();
+		}
+
+		void onRemoved(int count)
+		{
+			taken.addAndGet(count);
+		}
+
+		void onSynchronous()
+		{
+			synchronous.incrementAndGet();
+		}
+
+		void onBatch(List<PendingAdd> batch)
+		{
+			taken.addAndGet(batch.size());
+			added.addAndGet(batch.size());
+
+			batches.incrementAndGet();
+			maxBatchSize.accumulateAndGet(batch.size(), Math::max);
+
+			long now = System.nanoTime();
+			for (PendingAdd add : batch)
+			{
+				long wait = now - add.created;
+
+				totalWait.addAndGet(wait);
+				maxWait.accumulateAndGet(wait, Math::max);
+			}
+		}
+
+		/**
+		 * @return count of pages currently waiting to be added
+		 */
+		public long getQueueSize()
+		{
+			return Math.max(0, offered.get() - taken.get());
+		}
+
+		/**
+		 * @return count of pages which were added synchronously because the queue was full
+		 */
+		public long getSynchronousCount()
+		{
+			return synchronous.get();
+		}
+
+		/**
+		 * @return count of batches
+		 */
+		public long getBatchCount()
+		{
+			return batches.get();
+		}
+
+		/**
+		 * @return average count of pages in a batch
+		 */
+		public double getAverageBatchSize()
+		{
+			long count = batches.get();
+			return count == 0 ? 0 : (double)added.get() / count;
+		}
+
+		/**
+		 * @return maximum count of pages in a batch
+		 */
+		public long getMaxBatchSize()
+		{
+			return maxBatchSize.get();
+		}
+
+		/**
+		 * @return average time a page waited in the queue
+		 */
+		public Duration getAverageWaitTime()
+		{
+			long count = added.get();
+			return Duration.ofNanos(count == 0 ? 0 : totalWait.get() / count);
+		}
+
+		/**
+		 * @return maximum time a page waited in the queue
+		 */
+		public Duration getMaxWaitTime()
+		{
+			return Duration.ofNanos(maxWait.get());
+		}
+
+	}
 }
\ No newline at end of file
@@ -19,6 +19,8 @@ package org.apache.wicket.pageStore;
 import java.io.Serializable;
 import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.crypto.SecretKey;
 
@@ -129,6 +131,25 @@ public class CryptingPageStore extends DelegatingPageStore
 
 	@Override
 	public void addPage(IPageContext context, IManageablePage page)
+	{
+		getDelegate().addPage(context, encrypt(context, page));
+	}
+
+	/**
+	 * Encrypts all pages and delegates them at once.
+	 */
+	@Override
+	public void addPages(IPageContext context, List<IManageablePage> pages)
+	{
+		List<IManageablePage> encryptedPages = new ArrayList<>(pages.size());
+		for (IManageablePage page : pages)
+		{
+			encryptedPages.add(encrypt(context, page));
+		}
+		getDelegate().addPages(context, encryptedPages);
+	}
+
+	private IManageablePage encrypt(IPageContext context, IManageablePage page)
 	{
 		if (page instanceof SerializedPage == false)
 		{
@@ -140,9 +161,7 @@ public class CryptingPageStore extends DelegatingPageStore
 		byte[] decrypted = serializedPage.getData();
 		byte[] encrypted = getSessionData(context).encrypt(decrypted, crypter, random);
 
-		page = new SerializedPage(page.getPageId(), serializedPage.getPageType(), encrypted);
-
-		getDelegate().addPage(context, page);
+		return new SerializedPage(page.getPageId(), serializedPage.getPageType(), encrypted);
 	}
 
 	private static class SessionData implements Serializable
@@ -0,0 +1,532 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.pageStore.delta.BinaryDelta;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A store that delegates consecutive versions of a page as binary deltas.
+ * <p>
+ * Each time a versioned page is changed it gets a new page id, but its serialized form usually
+ * differs in a few bytes only. This store keeps the latest page of each session, and delegates the
+ * following page of the same type as a delta against it. After a configurable count of deltas
+ * (or if a delta is not smaller than the page), the page is delegated as a full snapshot again.
+ * When a page is read, it is rebuilt from its snapshot and all following deltas transparently.
+ * <p>
+ * All pages passing through this store are restricted to be {@link SerializedPage}s. You can
+ * achieve this with
+ * <ul>
+ * <li>a {@link SerializingPageStore} delegating to this store and</li>
+ * <li>delegating to a store that does not deserialize its pages, e.g. a {@link DiskPageStore}.</li>
+ * </ul>
+ * If a page is replaced or removed while other pages are stored as deltas against it, these are
+ * replaced with snapshots beforehand. Nevertheless a page can no longer be rebuilt, if the delegate
+ * has evicted any of its preceding versions on its own, e.g. because of
+ * {@link org.apache.wicket.settings.StoreSettings#getMaxSizePerSession()}. Such a page is removed
+ * when it is requested.
+ * <p>
+ * Each session keeps the ids of its pages stored as deltas, up to a maximum count. When it is
+ * exceeded, the oldest delta is removed from the delegate, as if evicted by it. Additionally the
+ * serialized form of the latest page and its base is kept on the heap, i.e. up to two pages per
+ * active session. This is not part of the serialized session.
+ * <p>
+ * A {@link CryptingPageStore} has to follow this store, since encrypted pages cannot be diffed.
+ */
+public class DeltaPageStore extends DelegatingPageStore
+{
+	private static final Logger log = LoggerFactory.getLogger(DeltaPageStore.class);
+
+	private static final MetaDataKey<SessionData> KEY = new MetaDataKey<SessionData>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/**
+	 * Marker of data holding a delta, not part of a Java serialization stream.
+	 */
+	private static final byte[] MAGIC = { 'W', 'D', 'L', 'T' };
+
+	private static final int HEADER_LENGTH = MAGIC.length + 4;
+
+	/**
+	 * Default maximum count of deltas per session.
+	 */
+	public static final int DEFAULT_MAX_DELTAS = 500;
+
+	private final int snapshotInterval;
+
+	private final int maxDeltas;
+
+	/**
+	 * Keeps at most {@value #DEFAULT_MAX_DELTAS} deltas per session.
+	 * 
+	 * @param delegate
+	 *            store to delegate to
+	 * @param snapshotInterval
+	 *            count of versions after which a full snapshot is delegated
+	 */
+	public DeltaPageStore(IPageStore delegate, int snapshotInterval)
+	{
+		this(delegate, snapshotInterval, DEFAULT_MAX_DELTAS);
+	}
+
+	/**
+	 * @param delegate
+	 *            store to delegate to
+	 * @param snapshotInterval
+	 *            count of versions after which a full snapshot is delegated
+	 * @param maxDeltas
+	 *            maximum count of deltas per session, older deltas are removed
+	 */
+	public DeltaPageStore(IPageStore delegate, int snapshotInterval, int maxDeltas)
+	{
+		super(delegate);
+
+		this.snapshotInterval = Args.withinRange(1, Integer.MAX_VALUE, snapshotInterval,
+			"snapshotInterval");
+		this.maxDeltas = Args.withinRange(1, Integer.MAX_VALUE, maxDeltas, "maxDeltas");
+	}
+
+	/**
+	 * Pages are always serialized, so versioning is supported.
+	 */
+	@Override
+	public boolean supportsVersioning()
+	{
+		return true;
+	}
+
+	/**
+	 * Supports asynchronous add if the delegate supports it.
+	 */
+	@Override
+	public boolean canBeAsynchronous(IPageContext context)
+	{
+		// session data must be added here *before* any asynchronous calls
+		// when session is no longer available
+		getSessionData(context);
+
+		return getDelegate().canBeAsynchronous(context);
+	}
+
+	private SessionData getSessionData(IPageContext context)
+	{
+		return context.getSessionData(KEY, () -> new SessionData());
+	}
+
+	@Override
+	public IManageablePage getPage(IPageContext context, int id)
+	{
+		return getPage(context, id, snapshotInterval);
+	}
+
+	/**
+	 * Get a page, rebuilding it from its base if needed.
+	 *
+	 * @param depth
+	 *            maximum depth of bases to follow
+	 */
+	private IManageablePage getPage(IPageContext context, int id, int depth)
+	{
+		IManageablePage page = getDelegate().getPage(context, id);
+
+		if (page instanceof SerializedPage)
+		{
+			SerializedPage serializedPage = (SerializedPage)page;
+
+			byte[] data = serializedPage.getData();
+			if (isDelta(data))
+			{
+				int baseId = ByteBuffer.wrap(data, MAGIC.length, 4).getInt();
+
+				if (depth == 0)
+				{
+					log.warn("Cannot rebuild page with id '{}', too many deltas", id);
+					return null;
+				}
+
+				IManageablePage base = getPage(context, baseId, depth - 1);
+				if (base instanceof SerializedPage == false)
+				{
+					log.debug("Cannot rebuild page with id '{}', base with id '{}' is not available", id, baseId);
+
+					// the base was evicted by the delegate
+					SessionData sessionData = getSessionData(context);
+					synchronized (sessionData)
+					{
+						sessionData.remove(id);
+					}
+					getDelegate().removePage(context, page);
+					return null;
+				}
+
+				byte[] delta = Arrays.copyOfRange(data, HEADER_LENGTH, data.length);
+				data = BinaryDelta.apply(((SerializedPage)base).getData(), delta);
+
+				page = new SerializedPage(id, serializedPage.getPageType(), data);
+			}
+		}
+
+		return page;
+	}
+
+	@Override
+	public void addPage(IPageContext context, IManageablePage page)
+	{
+		if (page instanceof SerializedPage == false)
+		{
+			throw new WicketRuntimeException("DeltaPageStore works with serialized pages only");
+		}
+		SerializedPage serializedPage = (SerializedPage)page;
+
+		SessionData sessionData = getSessionData(context);
+		synchronized (sessionData)
+		{
+			materializeDependents(context, sessionData, page.getPageId());
+
+			getDelegate().addPage(context, sessionData.add(serializedPage, snapshotInterval));
+
+			removeExcessDeltas(context, sessionData);
+		}
+	}
+
+	@Override
+	public void addPages(IPageContext context, List<IManageablePage> pages)
+	{
+		List<IManageablePage> delegated = new ArrayList<>(pages.size());
+
+		SessionData sessionData = getSessionData(context);
+		synchronized (sessionData)
+		{
+			for (IManageablePage page : pages)
+			{
+				if (page instanceof SerializedPage == false)
+				{
+					throw new WicketRuntimeException("DeltaPageStore works with serialized pages only");
+				}
+
+				if (sessionData.getDependents(page.getPageId()).isEmpty() == false)
+				{
+					// dependents have to be read before their base is replaced
+					if (delegated.isEmpty() == false)
+					{
+						getDelegate().addPages(context, delegated);
+						delegated.clear();
+					}
+
+					materializeDependents(context, sessionData, page.getPageId());
+				}
+
+				delegated.add(sessionData.add((SerializedPage)page, snapshotInterval));
+			}
+
+			if (delegated.isEmpty() == false)
+			{
+				getDelegate().addPages(context, delegated);
+			}
+
+			removeExcessDeltas(context, sessionData);
+		}
+	}
+
+	/**
+	 * Removes the oldest deltas exceeding the maximum count.
+	 */
+	private void removeExcessDeltas(IPageContext context, SessionData sessionData)
+	{
+		while (sessionData.getDeltaCount() > maxDeltas)
+		{
+			materializeDependents(context, sessionData, sessionData.getOldest());
+			int oldest = sessionData.removeOldest();
+
+			log.debug("Removing delta of page with id '{}', too many deltas", oldest);
+
+			// the store needs the id only
+			getDelegate().removePage(context, new SerializedPage(oldest, new byte[0]));
+		}
+	}
+
+	@Override
+	public void removePage(IPageContext context, IManageablePage page)
+	{
+		SessionData sessionData = getSessionData(context);
+		synchronized (sessionData)
+		{
+			materializeDependents(context, sessionData, page.getPageId());
+
+			sessionData.remove(page.getPageId());
+		}
+
+		super.removePage(context, page);
+	}
+
+	/**
+	 * A page is about to be replaced or removed, so all deltas against it are replaced with
+	 * snapshots.
+	 *
+	 * @param id
+	 *            id of base page
+	 */
+	private void materializeDependents(IPageContext context, SessionData sessionData, int id)
+	{
+		for (Integer dependentId : sessionData.getDependents(id))
+		{
+			IManageablePage dependent = getPage(context, dependentId);
+			if (dependent instanceof SerializedPage)
+			{
+				log.debug("Replacing delta of page with id '{}' with a snapshot", dependentId);
+
+				getDelegate().addPage(context, dependent);
+
+				sessionData.materialized((SerializedPage)dependent);
+			}
+			else
+			{
+				sessionData.remove(dependentId);
+			}
+		}
+	}
+
+	@Override
+	public void removeAllPages(IPageContext context)
+	{
+		SessionData sessionData = getSessionData(context);
+		synchronized (sessionData)
+		{
+			sessionData.clear();
+		}
+
+		super.removeAllPages(context);
+	}
+
+	private static boolean isDelta(byte[] data)
+	{
+		return data.length >= HEADER_LENGTH &&
+			Arrays.equals(data, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+	}
+
+	/**
+	 * A version of a page.
+	 */
+	private static class Version
+	{
+		private final int pageId;
+
+		private final String pageType;
+
+		/**
+		 * The full data of this version.
+		 */
+		private final byte[] data;
+
+		/**
+		 * Count of deltas to rebuild this version, <code>0</code> for a snapshot.
+		 */
+		private final int depth;
+
+		/**
+		 * The base of this version, <code>null</code> for a snapshot.
+		 */
+		private final Version base;
+
+		public Version(int pageId, String pageType, byte[] data, int depth, Version base)
+		{
+			this.pageId = pageId;
+			this.pageType = pageType;
+			this.data = data;
+			this.depth = depth;
+			this.base = base;
+		}
+	}
+
+	/**
+	 * Data kept in the session, access has to be synchronized on the instance.
+	 */
+	private static class SessionData implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The latest version, transient since a snapshot can always be used if the session was
+		 * serialized in the meantime.
+		 */
+		private transient Version latest;
+
+		/**
+		 * Ids of pages delegated as deltas, mapped to the ids of their bases, oldest first.
+		 */
+		private final Map<Integer, Integer> bases = new LinkedHashMap<>();
+
+		/**
+		 * Add a page.
+		 *
+		 * @return the page to delegate, might be a delta
+		 */
+		public SerializedPage add(SerializedPage page, int snapshotInterval)
+		{
+			Version base = null;
+			int depth = 0;
+
+			if (latest != null && Objects.equals(latest.pageType, page.getPageType()))
+			{
+				if (latest.pageId != page.getPageId())
+				{
+					// a new version of the latest page
+					base = latest;
+					depth = latest.depth + 1;
+				}
+				else
+				{
+					// the latest page again, e.g. after an Ajax request
+					base = latest.base;
+					depth = latest.depth;
+				}
+			}
+
+			if (base != null && depth < snapshotInterval)
+			{
+				byte[] delta = BinaryDelta.create(base.data, page.getData());
+
+				if (HEADER_LENGTH + delta.length < page.getData().length)
+				{
+					ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + delta.length);
+					buffer.put(MAGIC);
+					buffer.putInt(base.pageId);
+					buffer.put(delta);
+
+					// keep a single base only
+					if (base.base != null)
+					{
+						base = new Version(base.pageId, base.pageType, base.data, base.depth, null);
+					}
+					latest = new Version(page.getPageId(), page.getPageType(), page.getData(),
+						depth, base);
+					// re-added pages become the newest
+					bases.remove(page.getPageId());
+					bases.put(page.getPageId(), base.pageId);
+
+					return new SerializedPage(page.getPageId(), page.getPageType(),
+						buffer.array());
+				}
+			}
+
+			latest = new Version(page.getPageId(), page.getPageType(), page.getData(), 0, null);
+			bases.remove(page.getPageId());
+
+			return page;
+		}
+
+		/**
+		 * A page formerly delegated as a delta was delegated as a snapshot.
+		 */
+		public void materialized(SerializedPage page)
+		{
+			bases.remove(page.getPageId());
+
+			if (latest == null)
+			{
+				return;
+			}
+
+			if (latest.pageId == page.getPageId())
+			{
+				latest = new Version(page.getPageId(), page.getPageType(), page.getData(), 0, null);
+			}
+			else if (latest.base != null && latest.base.pageId == page.getPageId())
+			{
+				latest = new Version(latest.pageId, latest.pageType, latest.data, 1,
+					new Version(page.getPageId(), page.getPageType(), page.getData(), 0, null));
+			}
+		}
+
+		/**
+		 * Get the ids of all pages delegated as deltas against the given page.
+		 */
+		public List<Integer> getDependents(int pageId)
+		{
+			List<Integer> dependents = new ArrayList<>();
+			for (Map.Entry<Integer, Integer> entry : bases.entrySet())
+			{
+				if (entry.getValue() == pageId)
+				{
+					dependents.add(entry.getKey());
+				}
+			}
+			return dependents;
+		}
+
+		public int getDeltaCount()
+		{
+			return bases.size();
+		}
+
+		public int getOldest()
+		{
+			return bases.keySet().iterator().next();
+		}
+
+		/**
+		 * Forget the oldest delta.
+		 *
+		 * @return id of its page
+		 */
+		public int removeOldest()
+		{
+			Iterator<Integer> iterator = bases.keySet().iterator();
+			int pageId = iterator.next();
+			iterator.remove();
+
+			if (latest != null && latest.pageId == pageId)
+			{
+				latest = null;
+			}
+			return pageId;
+		}
+
+		public void remove(int pageId)
+		{
+			bases.remove(pageId);
+
+			if (latest != null && latest.pageId == pageId)
+			{
+				latest = null;
+			}
+		}
+
+		public void clear()
+		{
+			latest = null;
+			bases.clear();
+		}
+	}
+}
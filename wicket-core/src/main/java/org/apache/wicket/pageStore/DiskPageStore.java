@@ -225,6 +225,29 @@ public class DiskPageStore extends AbstractPersistentPageStore implements IPersi
 		diskData.savePage(serializedPage.getPageId(), type, data);
 	}
 
+	/**
+	 * Stores all pages with a single access to the data file.
+	 */
+	@Override
+	protected void addPersistedPages(String sessionIdentifier, List<IManageablePage> pages)
+	{
+		List<SerializedPage> serializedPages = new ArrayList<>(pages.size());
+		for (IManageablePage page : pages)
+		{
+			if (page instanceof SerializedPage == false)
+			{
+				throw new WicketRuntimeException("DiskPageStore works with serialized pages only");
+			}
+			serializedPages.add((SerializedPage)page);
+		}
+
+		DiskData diskData = getDiskData(sessionIdentifier, true);
+
+		log.debug("Storing data for {} pages in session with id '{}'", serializedPages.size(), sessionIdentifier);
+
+		diskData.savePages(serializedPages);
+	}
+
 	/**
 	 * Get the data on disk for the given session identifier.
 	 * 
@@ -444,6 +467,51 @@ public class DiskPageStore extends AbstractPersistentPageStore implements IPersi
 			}
 		}
 
+		/**
+		 * Saves several serialized pages to appropriate file, opening it once only.
+		 * 
+		 * @param pages
+		 */
+		public synchronized void savePages(List<SerializedPage> pages)
+		{
+			if (sessionIdentifier == null)
+			{
+				return;
+			}
+
+			FileChannel channel = getFileChannel(true);
+			if (channel == null)
+			{
+				log.warn("Cannot save {} pages because the data file cannot be opened.", pages.size());
+				return;
+			}
+
+			try
+			{
+				for (SerializedPage page : pages)
+				{
+					byte[] data = page.getData();
+
+					// allocate window for page
+					FileWindow window = getManager().createPageWindow(page.getPageId(), page.getPageType(), data.length);
+
+					try
+					{
+						// write the content
+						channel.write(ByteBuffer.wrap(data), window.getFilePartOffset());
+					}
+					catch (IOException e)
+					{
+						log.error("Error writing to a channel " + channel, e);
+					}
+				}
+			}
+			finally
+			{
+				IOUtils.closeQuietly(channel);
+			}
+		}
+
 		/**
 		 * Removes the page from disk.
 		 * 
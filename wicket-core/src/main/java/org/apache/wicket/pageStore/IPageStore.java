@@ -16,6 +16,8 @@
  */
 package org.apache.wicket.pageStore;
 
+import java.util.List;
+
 import org.apache.wicket.page.IManageablePage;
 
 /**
@@ -55,6 +57,26 @@ public interface IPageStore
 	 */
 	void addPage(IPageContext context, IManageablePage page);
 
+	/**
+	 * Stores several pages at once - optional operation.
+	 * <p>
+	 * Called by {@link AsynchronousPageStore} with batches of pages. The default implementation
+	 * adds each page on its own, stores may override this method to store all pages more
+	 * efficiently.
+	 * 
+	 * @param context
+	 *            the context of the pages
+	 * @param pages
+	 *            the pages in order of adding
+	 */
+	default void addPages(IPageContext context, List<IManageablePage> pages)
+	{
+		for (IManageablePage page : pages)
+		{
+			addPage(context, page);
+		}
+	}
+
 	/**
 	 * Removes a page from storage.
 	 * 
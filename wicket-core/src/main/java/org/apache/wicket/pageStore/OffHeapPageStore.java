@@ -0,0 +1,720 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.util.io.ByteBuffers;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+
+/**
+ * A store keeping a cache of serialized pages of all sessions outside of the Java heap, in front of
+ * a persistent store.
+ * <p>
+ * Pages are copied into blocks of direct {@link ByteBuffer}s, allocated up to a maximum size shared
+ * by all sessions. When there is no space left, the least recently used pages are evicted. In
+ * addition each session is limited to a maximum size, so a single session cannot evict the pages of
+ * all other sessions.
+ * <p>
+ * All pages are delegated, so this store just saves reading and deserializing of pages from the
+ * persistent store, e.g. on back-button or when switching between browser tabs. Pages read from
+ * the delegate are cached too.
+ * <p>
+ * All pages passing through this store are restricted to be {@link SerializedPage}s. You can
+ * achieve this with a {@link SerializingPageStore} delegating to this store.
+ * <p>
+ * Hits, misses and memory usage are recorded in {@link Statistics}, to tune the cache and
+ * {@link org.apache.wicket.settings.StoreSettings#getMaxSizePerSession()}.
+ *
+ * @see org.apache.wicket.settings.StoreSettings#getOffHeapCacheSize()
+ */
+public class OffHeapPageStore extends DelegatingPageStore
+{
+	/**
+	 * Default size of blocks.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	/**
+	 * Blocks are allocated in chunks of this size.
+	 */
+	private static final int CHUNK_SIZE = 1024 * 1024;
+
+	private final Arena arena;
+
+	private final long maxSizePerSession;
+
+	private final Statistics statistics;
+
+	/**
+	 * All cached pages, least recently used first.
+	 */
+	private final LinkedHashMap<Key, CachedPage> pages = new LinkedHashMap<>(16, 0.75f, true);
+
+	private final Map<String, SessionPages> sessions = new HashMap<>();
+
+	/**
+	 * @param delegate
+	 *            store to delegate to
+	 * @param maxSize
+	 *            maximum size of cached pages of all sessions
+	 * @param maxSizePerSession
+	 *            maximum size of cached pages of a single session
+	 * @param statistics
+	 *            statistics to update
+	 */
+	public OffHeapPageStore(IPageStore delegate, Bytes maxSize, Bytes maxSizePerSession,
+		Statistics statistics)
+	{
+		this(delegate, maxSize, maxSizePerSession, DEFAULT_BLOCK_SIZE, statistics);
+	}
+
+	/**
+	 * @param delegate
+	 *            store to delegate to
+	 * @param maxSize
+	 *            maximum size of cached pages of all sessions
+	 * @param maxSizePerSession
+	 *            maximum size of cached pages of a single session
+	 * @param blockSize
+	 *            size of blocks pages are stored in
+	 * @param statistics
+	 *            statistics to update
+	 */
+	public OffHeapPageStore(IPageStore delegate, Bytes maxSize, Bytes maxSizePerSession,
+		int blockSize, Statistics statistics)
+	{
+		super(delegate);
+
+		Args.notNull(maxSize, "maxSize");
+		Args.withinRange(1, CHUNK_SIZE, blockSize, "blockSize");
+
+		this.arena = new Arena(maxSize.bytes(), blockSize);
+		this.maxSizePerSession = Args.notNull(maxSizePerSession, "maxSizePerSession").bytes();
+		this.statistics = Args.notNull(statistics, "statistics");
+
+		statistics.onCapacity(arena.capacity());
+	}
+
+	/**
+	 * Pages are always serialized, so versioning is supported.
+	 */
+	@Override
+	public boolean supportsVersioning()
+	{
+		return true;
+	}
+
+	/**
+	 * Supports asynchronous add if the delegate supports it.
+	 */
+	@Override
+	public boolean canBeAsynchronous(IPageContext context)
+	{
+		// session id must be bound here *before* any asynchronous calls
+		context.getSessionId(true);
+
+		return getDelegate().canBeAsynchronous(context);
+	}
+
+	@Override
+	public IManageablePage getPage(IPageContext context, int id)
+	{
+		String sessionId = context.getSessionId(false);
+		if (sessionId == null)
+		{
+			return getDelegate().getPage(context, id);
+		}
+
+		SerializedPage page = get(new Key(sessionId, id));
+		if (page != null)
+		{
+			statistics.onHit();
+			return page;
+		}
+		statistics.onMiss();
+
+		IManageablePage delegated = getDelegate().getPage(context, id);
+		if (delegated instanceof SerializedPage)
+		{
+			put(sessionId, (SerializedPage)delegated);
+		}
+		return delegated;
+	}
+
+	@Override
+	public void addPage(IPageContext context, IManageablePage page)
+	{
+		put(context.getSessionId(true), checkSerialized(page));
+
+		getDelegate().addPage(context, page);
+	}
+
+	@Override
+	public void addPages(IPageContext context, List<IManageablePage> pages)
+	{
+		String sessionId = context.getSessionId(true);
+		for (IManageablePage page : pages)
+		{
+			put(sessionId, checkSerialized(page));
+		}
+
+		getDelegate().addPages(context, pages);
+	}
+
+	private SerializedPage checkSerialized(IManageablePage page)
+	{
+		if (page instanceof SerializedPage == false)
+		{
+			throw new WicketRuntimeException("OffHeapPageStore works with serialized pages only");
+		}
+		return (SerializedPage)page;
+	}
+
+	@Override
+	public void removePage(IPageContext context, IManageablePage page)
+	{
+		String sessionId = context.getSessionId(false);
+		if (sessionId != null)
+		{
+			synchronized (pages)
+			{
+				CachedPage cached = pages.remove(new Key(sessionId, page.getPageId()));
+				if (cached != null)
+				{
+					release(cached);
+				}
+			}
+		}
+
+		getDelegate().removePage(context, page);
+	}
+
+	@Override
+	public void removeAllPages(IPageContext context)
+	{
+		String sessionId = context.getSessionId(false);
+		if (sessionId != null)
+		{
+			synchronized (pages)
+			{
+				SessionPages sessionPages = sessions.get(sessionId);
+				if (sessionPages != null)
+				{
+					for (CachedPage cached : sessionPages.pages.values().toArray(new CachedPage[0]))
+					{
+						pages.remove(cached.key);
+						release(cached);
+					}
+				}
+			}
+		}
+
+		getDelegate().removeAllPages(context);
+	}
+
+	@Override
+	public void destroy()
+	{
+		synchronized (pages)
+		{
+			pages.clear();
+			sessions.clear();
+			arena.clear();
+
+			updateStatistics();
+		}
+
+		super.destroy();
+	}
+
+	/**
+	 * Get a cached page.
+	 */
+	private SerializedPage get(Key key)
+	{
+		synchronized (pages)
+		{
+			CachedPage cached = pages.get(key);
+			if (cached == null)
+			{
+				return null;
+			}
+
+			// keep access order of session in sync
+			sessions.get(key.sessionId).pages.get(key.pageId);
+
+			return new SerializedPage(key.pageId, cached.pageType, arena.read(cached.blocks,
+				cached.length));
+		}
+	}
+
+	/**
+	 * Put a page into the cache, evicting other pages if needed.
+	 */
+	private void put(String sessionId, SerializedPage page)
+	{
+		byte[] data = page.getData();
+		if (data.length > maxSizePerSession || arena.blocksFor(data.length) > arena.blockCount())
+		{
+			return;
+		}
+
+		Key key = new Key(sessionId, page.getPageId());
+
+		synchronized (pages)
+		{
+			CachedPage previous = pages.remove(key);
+			if (previous != null)
+			{
+				release(previous);
+			}
+
+			SessionPages sessionPages = sessions.computeIfAbsent(sessionId,
+				id -> new SessionPages());
+			while (sessionPages.bytes + data.length > maxSizePerSession)
+			{
+				CachedPage eldest = sessionPages.pages.values().iterator().next();
+				pages.remove(eldest.key);
+				release(eldest);
+				statistics.onEviction();
+			}
+
+			int required = arena.blocksFor(data.length);
+			Iterator<CachedPage> eldest = pages.values().iterator();
+			while (arena.freeBlocks() < required)
+			{
+				CachedPage evicted = eldest.next();
+				eldest.remove();
+				release(evicted);
+				statistics.onEviction();
+			}
+
+			CachedPage cached = new CachedPage(key, page.getPageType(), data.length,
+				arena.write(data));
+			pages.put(key, cached);
+
+			// session might have been removed on eviction
+			sessionPages = sessions.computeIfAbsent(sessionId, id -> new SessionPages());
+			sessionPages.pages.put(key.pageId, cached);
+			sessionPages.bytes += cached.length;
+			statistics.onSessionBytes(sessionPages.bytes);
+
+			updateStatistics();
+		}
+	}
+
+	/**
+	 * Release a page already removed from {@link #pages}.
+	 */
+	private void release(CachedPage cached)
+	{
+		SessionPages sessionPages = sessions.get(cached.key.sessionId);
+		sessionPages.pages.remove(cached.key.pageId);
+		sessionPages.bytes -= cached.length;
+		if (sessionPages.pages.isEmpty())
+		{
+			sessions.remove(cached.key.sessionId);
+		}
+
+		arena.free(cached.blocks);
+
+		updateStatistics();
+	}
+
+	private void updateStatistics()
+	{
+		statistics.onUsage(arena.usedBytes(), pages.size(), sessions.size());
+	}
+
+	/**
+	 * Get the cached bytes of a session.
+	 *
+	 * @param sessionId
+	 *            id of session
+	 * @return bytes
+	 */
+	public long getSessionBytes(String sessionId)
+	{
+		synchronized (pages)
+		{
+			SessionPages sessionPages = sessions.get(sessionId);
+			return sessionPages == null ? 0 : sessionPages.bytes;
+		}
+	}
+
+	private static class Key
+	{
+		private final String sessionId;
+
+		private final int pageId;
+
+		private Key(String sessionId, int pageId)
+		{
+			this.sessionId = sessionId;
+			this.pageId = pageId;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (obj instanceof Key == false)
+			{
+				return false;
+			}
+			Key other = (Key)obj;
+			return pageId == other.pageId && sessionId.equals(other.sessionId);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(sessionId, pageId);
+		}
+	}
+
+	private static class CachedPage
+	{
+		private final Key key;
+
+		private final String pageType;
+
+		private final int length;
+
+		private final int[] blocks;
+
+		private CachedPage(Key key, String pageType, int length, int[] blocks)
+		{
+			this.key = key;
+			this.pageType = pageType;
+			this.length = length;
+			this.blocks = blocks;
+		}
+	}
+
+	/**
+	 * Cached pages of a single session.
+	 */
+	private static class SessionPages
+	{
+		/**
+		 * Pages by id, least recently used first.
+		 */
+		private final LinkedHashMap<Integer, CachedPage> pages = new LinkedHashMap<>(16, 0.75f,
+			true);
+
+		private long bytes;
+	}
+
+	/**
+	 * Fixed size blocks in direct buffers, allocated lazily in chunks.
+	 * <p>
+	 * Not thread-safe.
+	 */
+	private static class Arena
+	{
+		private final int blockSize;
+
+		private final int blocksPerChunk;
+
+		private final int blockCount;
+
+		private final ByteBuffer[] chunks;
+
+		/**
+		 * Stack of free blocks.
+		 */
+		private int[] free = new int[16];
+
+		private int freeCount;
+
+		/**
+		 * Count of blocks in allocated chunks.
+		 */
+		private int allocated;
+
+		private Arena(long maxSize, int blockSize)
+		{
+			this.blockSize = blockSize;
+			this.blocksPerChunk = CHUNK_SIZE / blockSize;
+			this.blockCount = (int)Math.min(Integer.MAX_VALUE, maxSize / blockSize);
+
+			chunks = new ByteBuffer[(blockCount + blocksPerChunk - 1) / blocksPerChunk];
+		}
+
+		long capacity()
+		{
+			return (long)blockCount * blockSize;
+		}
+
+		int blockCount()
+		{
+			return blockCount;
+		}
+
+		int blocksFor(int length)
+		{
+			return Math.max(1, (length + blockSize - 1) / blockSize);
+		}
+
+		int freeBlocks()
+		{
+			return freeCount + (blockCount - allocated);
+		}
+
+		long usedBytes()
+		{
+			return (long)(allocated - freeCount) * blockSize;
+		}
+
+		int[] write(byte[] data)
+		{
+			int[] blocks = new int[blocksFor(data.length)];
+
+			for (int b = 0; b < blocks.length; b++)
+			{
+				int block = allocate();
+				blocks[b] = block;
+
+				int offset = b * blockSize;
+				ByteBuffer buffer = position(block);
+				buffer.put(data, offset, Math.min(blockSize, data.length - offset));
+			}
+
+			return blocks;
+		}
+
+		byte[] read(int[] blocks, int length)
+		{
+			byte[] data = new byte[length];
+
+			for (int b = 0; b < blocks.length; b++)
+			{
+				int offset = b * blockSize;
+				ByteBuffer buffer = position(blocks[b]);
+				buffer.get(data, offset, Math.min(blockSize, length - offset));
+			}
+
+			return data;
+		}
+
+		void free(int[] blocks)
+		{
+			for (int block : blocks)
+			{
+				if (freeCount == free.length)
+				{
+					int[] grown = new int[free.length * 2];
+					System.arraycopy(free, 0, grown, 0, freeCount);
+					free = grown;
+				}
+				free[freeCount++] = block;
+			}
+		}
+
+		/**
+		 * Free all chunks at once, instead of waiting for the garbage collector.
+		 */
+		void clear()
+		{
+			for (int c = 0; c < chunks.length; c++)
+			{
+				ByteBuffers.free(chunks[c]);
+				chunks[c] = null;
+			}
+			free = new int[16];
+			freeCount = 0;
+			allocated = 0;
+		}
+
+		private int allocate()
+		{
+			if (freeCount > 0)
+			{
+				return free[--freeCount];
+			}
+
+			int block = allocated++;
+			int chunk = block / blocksPerChunk;
+			if (chunks[chunk] == null)
+			{
+				int blocks = Math.min(blocksPerChunk, blockCount - chunk * blocksPerChunk);
+				chunks[chunk] = ByteBuffer.allocateDirect(blocks * blockSize);
+			}
+			return block;
+		}
+
+		private ByteBuffer position(int block)
+		{
+			ByteBuffer chunk = chunks[block / blocksPerChunk];
+			chunk.clear();
+			chunk.position((block % blocksPerChunk) * blockSize);
+			return chunk;
+		}
+	}
+
+	/**
+	 * Statistics of an {@link OffHeapPageStore}.
+	 */
+	public static class Statistics
+	{
+		private final AtomicLong hits = new AtomicLong();
+
+		private final AtomicLong misses = new AtomicLong();
+
+		private final AtomicLong evictions = new AtomicLong();
+
+		private final AtomicLong capacity = new AtomicLong();
+
+		private final AtomicLong usedBytes = new AtomicLong();
+
+		private final AtomicLong pageCount = new AtomicLong();
+
+		private final AtomicLong sessionCount = new AtomicLong();
+
+		private final AtomicLong maxSessionBytes = new AtomicLong();
+
+		void onHit()
+		{
+			hits.incrementAndGet();
+		}
+
+		void onMiss()
+		{
+			misses.incrementAndGet();
+		}
+
+		void onEviction()
+		{
+			evictions.incrementAndGet();
+		}
+
+		void onCapacity(long bytes)
+		{
+			capacity.set(bytes);
+		}
+
+		void onUsage(long bytes, int pages, int sessions)
+		{
+			usedBytes.set(bytes);
+			pageCount.set(pages);
+			sessionCount.set(sessions);
+		}
+
+		void onSessionBytes(long bytes)
+		{
+			maxSessionBytes.accumulateAndGet(bytes, Math::max);
+		}
+
+		/**
+		 * @return count of pages found in the cache
+		 */
+		public long getHitCount()
+		{
+			return hits.get();
+		}
+
+		/**
+		 * @return count of pages not found in the cache
+		 */
+		public long getMissCount()
+		{
+			return misses.get();
+		}
+
+		/**
+		 * @return ratio of hits to all requested pages, between {@code 0} and {@code 1}
+		 */
+		public double getHitRate()
+		{
+			long hitCount = hits.get();
+			long total = hitCount + misses.get();
+			return total == 0 ? 0 : (double)hitCount / total;
+		}
+
+		/**
+		 * @return count of pages evicted to make space for other pages
+		 */
+		public long getEvictionCount()
+		{
+			return evictions.get();
+		}
+
+		/**
+		 * @return maximum bytes of cached pages
+		 */
+		public long getCapacity()
+		{
+			return capacity.get();
+		}
+
+		/**
+		 * @return bytes currently used by cached pages, including unused space in their blocks
+		 */
+		public long getUsedBytes()
+		{
+			return usedBytes.get();
+		}
+
+		/**
+		 * @return count of currently cached pages
+		 */
+		public long getPageCount()
+		{
+			return pageCount.get();
+		}
+
+		/**
+		 * @return count of sessions with currently cached pages
+		 */
+		public long getSessionCount()
+		{
+			return sessionCount.get();
+		}
+
+		/**
+		 * @return average bytes of cached pages per session
+		 */
+		public long getAverageSessionBytes()
+		{
+			long count = sessionCount.get();
+			return count == 0 ? 0 : usedBytes.get() / count;
+		}
+
+		/**
+		 * @return maximum bytes of cached pages a single session ever used
+		 */
+		public long getMaxSessionBytes()
+		{
+			return maxSessionBytes.get();
+		}
+	}
+}
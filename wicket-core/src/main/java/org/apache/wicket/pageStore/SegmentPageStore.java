@@ -0,0 +1,1019 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.io.ByteBuffers;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A storage of pages in shared segment files.
+ * <p>
+ * All pages passed into this store are restricted to be {@link SerializedPage}s.
+ * <p>
+ * While {@link DiskPageStore} and {@link FilePageStore} use at least one file per session, this
+ * implementation appends the pages of all sessions to a few memory-mapped segment files. An
+ * in-memory index maps session and page id to the location of the page inside a segment, thus
+ * adding or getting a page neither opens a file nor needs a system call, and sessions do not block
+ * each other.
+ * <p>
+ * Replaced and removed pages leave garbage in their segments, {@link #compact()} reclaims segments
+ * once their live data drops below half of their size. Compaction runs in a background thread
+ * when started with {@link #startCompaction()}, otherwise it has to be called by the user.
+ * <p>
+ * Segment files are mapped on first use and unmapped when they are deleted or the store is
+ * destroyed.
+ */
+public class SegmentPageStore extends AbstractPersistentPageStore implements IPersistentPageStore
+{
+	private static final Logger log = LoggerFactory.getLogger(SegmentPageStore.class);
+
+	/**
+	 * Default size of a single segment.
+	 */
+	public static final Bytes DEFAULT_SEGMENT_SIZE = Bytes.megabytes(32);
+
+	/**
+	 * Name of the file where the page index is stored.
+	 */
+	private static final String INDEX_FILE_NAME = "SegmentPageStoreIndex";
+
+	private static final String FILE_PREFIX = "segment-";
+
+	private static final String FILE_SUFFIX = ".data";
+
+	/**
+	 * Segments with less live data than this ratio are compacted.
+	 */
+	private static final double COMPACTION_RATIO = 0.5d;
+
+	/**
+	 * The time between two compactions. In millis.
+	 */
+	private static final long COMPACTION_INTERVAL = 5000L;
+
+	private final Bytes maxSizePerSession;
+
+	private final int segmentSize;
+
+	private final File folder;
+
+	private final ConcurrentMap<Integer, Segment> segments = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, SessionPages> sessionPages = new ConcurrentHashMap<>();
+
+	private final AtomicInteger segmentIds = new AtomicInteger();
+
+	/**
+	 * The segment new pages are appended to.
+	 */
+	private volatile Segment active;
+
+	/**
+	 * Guards compaction, so segments are not deleted while their pages are copied.
+	 */
+	private final Object compactionLock = new Object();
+
+	private Thread compactingThread;
+
+	/**
+	 * Create a store that supports {@link SerializedPage}s only.
+	 *
+	 * @param applicationName
+	 *            name of application
+	 * @param fileStoreFolder
+	 *            folder to store to
+	 * @param maxSizePerSession
+	 *            maximum size per session
+	 *
+	 * @see SerializingPageStore
+	 */
+	public SegmentPageStore(String applicationName, File fileStoreFolder, Bytes maxSizePerSession)
+	{
+		this(applicationName, fileStoreFolder, maxSizePerSession, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Create a store that supports {@link SerializedPage}s only.
+	 *
+	 * @param applicationName
+	 *            name of application
+	 * @param fileStoreFolder
+	 *            folder to store to
+	 * @param maxSizePerSession
+	 *            maximum size per session
+	 * @param segmentSize
+	 *            size of each segment file
+	 *
+	 * @see SerializingPageStore
+	 */
+	public SegmentPageStore(String applicationName, File fileStoreFolder, Bytes maxSizePerSession,
+		Bytes segmentSize)
+	{
+		super(applicationName);
+
+		this.folder = new File(fileStoreFolder, applicationName + "-segmentstore");
+		this.maxSizePerSession = Args.notNull(maxSizePerSession, "maxSizePerSession");
+		this.segmentSize = Args.withinRange(1L, (long)Integer.MAX_VALUE,
+			Args.notNull(segmentSize, "segmentSize").bytes(), "segmentSize").intValue();
+
+		try
+		{
+			if (folder.exists() || folder.mkdirs())
+			{
+				loadIndex();
+			}
+			else
+			{
+				log.warn("Cannot create segment store folder for some reason.");
+			}
+		}
+		catch (SecurityException e)
+		{
+			throw new WicketRuntimeException(
+				"SecurityException occurred while creating SegmentPageStore. Consider using a non-disk based IPageStore implementation. "
+					+ "See org.apache.wicket.Application.setPageManagerProvider(IPageManagerProvider)",
+				e);
+		}
+	}
+
+	/**
+	 * Start a background thread calling {@link #compact()} periodically, until the store is
+	 * destroyed.
+	 */
+	public synchronized void startCompaction()
+	{
+		if (compactingThread == null)
+		{
+			compactingThread = new Thread(new CompactingRunnable(),
+				"Wicket-SegmentPageStore-CompactingThread");
+			compactingThread.setDaemon(true);
+			compactingThread.start();
+		}
+	}
+
+	/**
+	 * Pages are already serialized.
+	 */
+	@Override
+	public boolean supportsVersioning()
+	{
+		return true;
+	}
+
+	@Override
+	public void destroy()
+	{
+		log.debug("Destroying...");
+
+		Thread thread;
+		synchronized (this)
+		{
+			thread = compactingThread;
+			compactingThread = null;
+		}
+
+		if (thread != null && thread.isAlive())
+		{
+			thread.interrupt();
+			try
+			{
+				thread.join();
+			}
+			catch (InterruptedException e)
+			{
+				log.error(e.getMessage(), e);
+			}
+		}
+
+		saveIndex();
+
+		for (Segment segment : segments.values())
+		{
+			segment.close(true);
+		}
+
+		super.destroy();
+		log.debug("Destroyed.");
+	}
+
+	@Override
+	protected IManageablePage getPersistedPage(String sessionIdentifier, int id)
+	{
+		SessionPages pages = sessionPages.get(sessionIdentifier);
+		if (pages != null)
+		{
+			synchronized (pages)
+			{
+				PageLocation location = pages.get(id);
+				if (location != null)
+				{
+					Segment segment = segments.get(location.segmentId);
+					if (segment != null)
+					{
+						log.debug("Returning page with id '{}' in session with id '{}'", id,
+							sessionIdentifier);
+
+						return new SerializedPage(id, location.pageType,
+							segment.read(location.offset, location.length));
+					}
+				}
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	protected void removePersistedPage(String sessionIdentifier, IManageablePage page)
+	{
+		SessionPages pages = sessionPages.get(sessionIdentifier);
+		if (pages != null)
+		{
+			log.debug("Removing page with id '{}' in session with id '{}'", page.getPageId(),
+				sessionIdentifier);
+
+			synchronized (pages)
+			{
+				release(pages.remove(page.getPageId()));
+			}
+		}
+	}
+
+	@Override
+	protected void removeAllPersistedPages(String sessionIdentifier)
+	{
+		SessionPages pages = sessionPages.remove(sessionIdentifier);
+		if (pages != null)
+		{
+			synchronized (pages)
+			{
+				for (PageLocation location : pages.clear())
+				{
+					release(location);
+				}
+			}
+		}
+	}
+
+	@Override
+	protected void addPersistedPage(String sessionIdentifier, IManageablePage page)
+	{
+		if (page instanceof SerializedPage == false)
+		{
+			throw new WicketRuntimeException("SegmentPageStore works with serialized pages only");
+		}
+		SerializedPage serializedPage = (SerializedPage)page;
+
+		log.debug("Storing data for page with id '{}' in session with id '{}'",
+			serializedPage.getPageId(), sessionIdentifier);
+
+		PageLocation location = append(serializedPage.getPageId(), serializedPage.getPageType(),
+			serializedPage.getData());
+
+		SessionPages pages = sessionPages.computeIfAbsent(sessionIdentifier,
+			key -> new SessionPages());
+		synchronized (pages)
+		{
+			if (pages.cleared)
+			{
+				// all pages were removed concurrently
+				release(location);
+				return;
+			}
+
+			release(pages.put(location));
+
+			long maxSize = maxSizePerSession.bytes();
+			while (pages.size > maxSize && pages.locations.size() > 1)
+			{
+				release(pages.removeEldest());
+			}
+		}
+	}
+
+	/**
+	 * Append the given data to the active segment.
+	 *
+	 * @return location of the data
+	 */
+	private PageLocation append(int pageId, String pageType, byte[] data)
+	{
+		while (true)
+		{
+			Segment segment = active;
+
+			int offset = segment == null ? -1 : segment.allocate(data.length);
+			if (offset >= 0)
+			{
+				segment.write(offset, data);
+
+				return new PageLocation(pageId, pageType, segment.id, offset, data.length);
+			}
+
+			roll(segment, data.length);
+		}
+	}
+
+	/**
+	 * Replace the given full segment with a new one.
+	 *
+	 * @param full
+	 *            the segment that is full, <code>null</code> if there is no active segment yet
+	 * @param length
+	 *            length of data which did not fit into the segment
+	 */
+	private synchronized void roll(Segment full, int length)
+	{
+		if (active == full)
+		{
+			if (full != null)
+			{
+				// nothing may be appended once compaction considers the segment
+				full.seal();
+			}
+
+			int id = segmentIds.getAndIncrement();
+			Segment segment = new Segment(id, getSegmentFile(id), Math.max(segmentSize, length));
+			segments.put(id, segment);
+
+			active = segment;
+		}
+	}
+
+	/**
+	 * Release the given location, i.e. its data is no longer needed.
+	 *
+	 * @param location
+	 *            location, might be <code>null</code>
+	 */
+	private void release(PageLocation location)
+	{
+		if (location != null)
+		{
+			Segment segment = segments.get(location.segmentId);
+			if (segment != null)
+			{
+				segment.release(location.length);
+			}
+		}
+	}
+
+	private File getSegmentFile(int id)
+	{
+		return new File(folder, FILE_PREFIX + id + FILE_SUFFIX);
+	}
+
+	/**
+	 * Compact all segments, usually called periodically by a background thread.
+	 * <p>
+	 * Live pages of segments with a low ratio of live data are copied to the active segment,
+	 * keeping their position in the order of their session. Sessions are locked only while their
+	 * locations are looked up and replaced, not while pages are copied. Segments without any live
+	 * data are deleted.
+	 * 
+	 * @see #startCompaction()
+	 */
+	public void compact()
+	{
+		synchronized (compactionLock)
+		{
+			Set<Integer> compacting = new HashSet<>();
+			for (Segment segment : segments.values())
+			{
+				if (segment != active && segment.getLive() > 0 &&
+					segment.getLive() < segment.capacity * COMPACTION_RATIO)
+				{
+					compacting.add(segment.id);
+				}
+			}
+
+			if (compacting.isEmpty() == false)
+			{
+				log.debug("Compacting segments {}", compacting);
+
+				for (SessionPages pages : sessionPages.values())
+				{
+					compact(pages, compacting);
+				}
+			}
+
+			for (Segment segment : segments.values())
+			{
+				if (segment != active && segment.getLive() == 0)
+				{
+					log.debug("Deleting segment {}", segment.id);
+
+					segments.remove(segment.id);
+					segment.close(false);
+					Files.remove(segment.file);
+				}
+			}
+		}
+	}
+
+	private void compact(SessionPages pages, Set<Integer> compacting)
+	{
+		List<PageLocation> locations;
+		synchronized (pages)
+		{
+			locations = pages.getLocations(compacting);
+		}
+
+		for (PageLocation location : locations)
+		{
+			// segments are deleted by compaction only, so the data is still there
+			byte[] data = segments.get(location.segmentId).read(location.offset, location.length);
+
+			PageLocation copy = append(location.pageId, location.pageType, data);
+
+			synchronized (pages)
+			{
+				if (pages.replace(location, copy))
+				{
+					release(location);
+				}
+				else
+				{
+					// page was replaced or removed concurrently
+					release(copy);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Load the index
+	 */
+	@SuppressWarnings("unchecked")
+	private void loadIndex()
+	{
+		File index = new File(folder, INDEX_FILE_NAME);
+		if (index.exists() && index.length() > 0)
+		{
+			try (InputStream stream = new FileInputStream(index))
+			{
+				ObjectInputStream ois = new ObjectInputStream(stream);
+
+				sessionPages.putAll((Map<String, SessionPages>)ois.readObject());
+			}
+			catch (Exception e)
+			{
+				log.error("Couldn't load SegmentPageStore index from file " + index + ".", e);
+
+				sessionPages.clear();
+			}
+		}
+		Files.remove(index);
+
+		int maxId = -1;
+		for (File file : Files.list(folder))
+		{
+			String name = file.getName();
+			if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX))
+			{
+				try
+				{
+					int id = Integer.parseInt(
+						name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+					segments.put(id, new Segment(id, file, (int)file.length()));
+					maxId = Math.max(maxId, id);
+				}
+				catch (Exception ex)
+				{
+					log.warn("Cannot open segment file {}", file.getAbsolutePath(), ex);
+				}
+			}
+		}
+		segmentIds.set(maxId + 1);
+
+		for (Iterator<SessionPages> iterator = sessionPages.values().iterator(); iterator.hasNext();)
+		{
+			SessionPages pages = iterator.next();
+			for (PageLocation location : pages.clear())
+			{
+				Segment segment = segments.get(location.segmentId);
+				if (segment != null)
+				{
+					segment.restore(location.length);
+					pages.put(location);
+				}
+			}
+			pages.cleared = false;
+
+			if (pages.locations.isEmpty())
+			{
+				iterator.remove();
+			}
+		}
+	}
+
+	private void saveIndex()
+	{
+		if (folder.exists())
+		{
+			File index = new File(folder, INDEX_FILE_NAME);
+			Files.remove(index);
+			try (OutputStream stream = new FileOutputStream(index))
+			{
+				ObjectOutputStream oos = new ObjectOutputStream(stream);
+
+				Map<String, SessionPages> map = new HashMap<>(sessionPages);
+				oos.writeObject(map);
+			}
+			catch (Exception e)
+			{
+				log.error("Couldn't write SegmentPageStore index to file " + index + ".", e);
+			}
+		}
+	}
+
+	@Override
+	public Set<String> getSessionIdentifiers()
+	{
+		return Collections.unmodifiableSet(sessionPages.keySet());
+	}
+
+	@Override
+	public List<IPersistedPage> getPersistedPages(String sessionIdentifier)
+	{
+		List<IPersistedPage> pages = new ArrayList<>();
+
+		SessionPages sessionPages = this.sessionPages.get(sessionIdentifier);
+		if (sessionPages != null)
+		{
+			synchronized (sessionPages)
+			{
+				pages.addAll(sessionPages.locations.values());
+			}
+		}
+
+		return pages;
+	}
+
+	@Override
+	public Bytes getTotalSize()
+	{
+		long size = 0;
+
+		for (Segment segment : segments.values())
+		{
+			size += segment.getLive();
+		}
+
+		return Bytes.bytes(size);
+	}
+
+	/**
+	 * Location of a page inside a segment.
+	 */
+	private static class PageLocation implements IPersistedPage, Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int pageId;
+
+		private final String pageType;
+
+		private final int segmentId;
+
+		private final int offset;
+
+		private final int length;
+
+		public PageLocation(int pageId, String pageType, int segmentId, int offset, int length)
+		{
+			this.pageId = pageId;
+			this.pageType = pageType;
+			this.segmentId = segmentId;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public int getPageId()
+		{
+			return pageId;
+		}
+
+		@Override
+		public String getPageType()
+		{
+			return pageType;
+		}
+
+		@Override
+		public Bytes getPageSize()
+		{
+			return Bytes.bytes(length);
+		}
+	}
+
+	/**
+	 * The locations of all pages of a single session, access has to be synchronized on the
+	 * instance.
+	 */
+	private static class SessionPages implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Locations in order of adding.
+		 */
+		private final LinkedHashMap<Integer, PageLocation> locations = new LinkedHashMap<>();
+
+		private long size;
+
+		/**
+		 * Have all pages been removed.
+		 */
+		private transient boolean cleared;
+
+		public PageLocation get(int pageId)
+		{
+			return locations.get(pageId);
+		}
+
+		/**
+		 * Put a location, making it the most recent one.
+		 *
+		 * @return the previous location of the page
+		 */
+		public PageLocation put(PageLocation location)
+		{
+			PageLocation previous = remove(location.pageId);
+
+			locations.put(location.pageId, location);
+			size += location.length;
+
+			return previous;
+		}
+
+		/**
+		 * Replace a location without changing its position in the order of adding.
+		 *
+		 * @return <code>false</code> if the location is no longer current
+		 */
+		public boolean replace(PageLocation location, PageLocation replacement)
+		{
+			if (locations.get(location.pageId) != location)
+			{
+				return false;
+			}
+
+			locations.put(location.pageId, replacement);
+			size += replacement.length - location.length;
+
+			return true;
+		}
+
+		public PageLocation remove(int pageId)
+		{
+			PageLocation location = locations.remove(pageId);
+			if (location != null)
+			{
+				size -= location.length;
+			}
+			return location;
+		}
+
+		public PageLocation removeEldest()
+		{
+			return remove(locations.keySet().iterator().next());
+		}
+
+		/**
+		 * Get all locations in the given segments.
+		 */
+		public List<PageLocation> getLocations(Set<Integer> segmentIds)
+		{
+			List<PageLocation> result = new ArrayList<>();
+			for (PageLocation location : locations.values())
+			{
+				if (segmentIds.contains(location.segmentId))
+				{
+					result.add(location);
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Remove all locations.
+		 *
+		 * @return the removed locations
+		 */
+		public List<PageLocation> clear()
+		{
+			List<PageLocation> result = new ArrayList<>(locations.values());
+
+			locations.clear();
+			size = 0;
+			cleared = true;
+
+			return result;
+		}
+	}
+
+	/**
+	 * A memory-mapped file pages are appended to.
+	 */
+	private static class Segment
+	{
+		private final int id;
+
+		private final File file;
+
+		private final int capacity;
+
+		private FileChannel channel;
+
+		/**
+		 * The mapped file, <code>null</code> until first used.
+		 */
+		private volatile MappedByteBuffer buffer;
+
+		private boolean closed;
+
+		/**
+		 * Shared by reads and writes, exclusive for closing, so the buffer is never unmapped
+		 * while it is accessed.
+		 */
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+		/**
+		 * Position to append to.
+		 */
+		private final AtomicInteger position;
+
+		/**
+		 * Count of bytes still referenced from a {@link PageLocation}.
+		 */
+		private final AtomicLong live = new AtomicLong();
+
+		/**
+		 * Create a segment, appending starts after the current length of the file.
+		 */
+		public Segment(int id, File file, int capacity)
+		{
+			this.id = id;
+			this.file = file;
+			this.capacity = capacity;
+
+			position = new AtomicInteger((int)Math.min(file.length(), capacity));
+		}
+
+		/**
+		 * Get the mapped file, mapping it on first use - the read lock has to be held.
+		 */
+		private MappedByteBuffer buffer()
+		{
+			MappedByteBuffer mapped = buffer;
+			if (mapped == null)
+			{
+				synchronized (this)
+				{
+					mapped = buffer;
+					if (mapped == null)
+					{
+						if (closed)
+						{
+							throw new IllegalStateException("Segment " + id + " is closed");
+						}
+
+						try
+						{
+							channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+								StandardOpenOption.READ, StandardOpenOption.WRITE);
+							mapped = channel.map(MapMode.READ_WRITE, 0, capacity);
+						}
+						catch (IOException ex)
+						{
+							IOUtils.closeQuietly(channel);
+							throw new WicketRuntimeException("Cannot map segment " + id, ex);
+						}
+						buffer = mapped;
+					}
+				}
+			}
+			return mapped;
+		}
+
+		/**
+		 * Allocate space for data - the allocated bytes are considered live immediately, so the
+		 * segment will not be deleted before the data is released.
+		 *
+		 * @return offset of the allocated space or <code>-1</code> if the data does not fit
+		 */
+		public int allocate(int length)
+		{
+			live.addAndGet(length);
+
+			while (true)
+			{
+				int current = position.get();
+				if ((long)current + length > capacity)
+				{
+					live.addAndGet(-length);
+					return -1;
+				}
+
+				if (position.compareAndSet(current, current + length))
+				{
+					return current;
+				}
+			}
+		}
+
+		/**
+		 * Prevent any further allocation.
+		 */
+		public void seal()
+		{
+			position.set(capacity);
+		}
+
+		/**
+		 * Write data into the mapped buffer.
+		 *
+		 * @throws IllegalStateException
+		 *             if the segment is closed
+		 */
+		public void write(int offset, byte[] data)
+		{
+			Lock readLock = lock.readLock();
+			readLock.lock();
+			try
+			{
+				ByteBuffer target = buffer().duplicate();
+				target.position(offset);
+				target.put(data);
+			}
+			finally
+			{
+				readLock.unlock();
+			}
+		}
+
+		/**
+		 * Copy data from the mapped buffer.
+		 *
+		 * @throws IllegalStateException
+		 *             if the segment is closed
+		 */
+		public byte[] read(int offset, int length)
+		{
+			byte[] data = new byte[length];
+
+			Lock readLock = lock.readLock();
+			readLock.lock();
+			try
+			{
+				ByteBuffer source = buffer().duplicate();
+				source.position(offset);
+				source.get(data);
+			}
+			finally
+			{
+				readLock.unlock();
+			}
+
+			return data;
+		}
+
+		public void restore(int length)
+		{
+			live.addAndGet(length);
+		}
+
+		public void release(int length)
+		{
+			live.addAndGet(-length);
+		}
+
+		public long getLive()
+		{
+			return live.get();
+		}
+
+		/**
+		 * Close the segment and unmap its file, waiting for running reads and writes to finish -
+		 * any later access fails with an {@link IllegalStateException}.
+		 *
+		 * @param force
+		 *            whether to write changes to the storage device first
+		 */
+		public void close(boolean force)
+		{
+			Lock writeLock = lock.writeLock();
+			writeLock.lock();
+			try
+			{
+				synchronized (this)
+				{
+					closed = true;
+
+					MappedByteBuffer mapped = buffer;
+					buffer = null;
+					if (mapped != null)
+					{
+						if (force)
+						{
+							mapped.force();
+						}
+						ByteBuffers.free(mapped);
+					}
+
+					IOUtils.closeQuietly(channel);
+				}
+			}
+			finally
+			{
+				writeLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Compacts segments periodically.
+	 */
+	private class CompactingRunnable implements Runnable
+	{
+		@Override
+		public void run()
+		{
+			while (!Thread.interrupted())
+			{
+				try
+				{
+					Thread.sleep(COMPACTION_INTERVAL);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					break;
+				}
+
+				try
+				{
+					compact();
+				}
+				catch (Exception ex)
+				{
+					log.error("Error compacting segments", ex);
+				}
+			}
+		}
+	}
+}
@@ -16,6 +16,9 @@
  */
 package org.apache.wicket.pageStore;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.wicket.page.IManageablePage;
 import org.apache.wicket.serialize.ISerializer;
 import org.apache.wicket.util.lang.Args;
@@ -74,11 +77,30 @@ public class SerializingPageStore extends DelegatingPageStore
 
 	@Override
 	public void addPage(IPageContext context, IManageablePage page)
+	{
+		getDelegate().addPage(context, serialize(page));
+	}
+
+	/**
+	 * Serializes all pages and delegates them at once.
+	 */
+	@Override
+	public void addPages(IPageContext context, List<IManageablePage> pages)
+	{
+		List<IManageablePage> serializedPages = new ArrayList<>(pages.size());
+		for (IManageablePage page : pages)
+		{
+			serializedPages.add(serialize(page));
+		}
+		getDelegate().addPages(context, serializedPages);
+	}
+
+	private IManageablePage serialize(IManageablePage page)
 	{
 		if (page instanceof SerializedPage == false)
 		{
 			page = new SerializedPage(page.getPageId(), Classes.name(page.getClass()), serializer.serialize(page));
 		}
-		getDelegate().addPage(context, page);
+		return page;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.delta;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import org.apache.wicket.WicketRuntimeException;
+
+/**
+ * A binary diff between two byte arrays.
+ * <p>
+ * The target is scanned with a rolling hash for blocks present in the base. Matches are encoded as
+ * copies from the base, everything else is inserted literally:
+ *
+ * <pre>
+ * delta   := length(target) op*
+ * op      := COPY offset length | INSERT length byte*
+ * </pre>
+ *
+ * All numbers are encoded as variable length integers.
+ */
+public final class BinaryDelta
+{
+	private static final int COPY = 0;
+
+	private static final int INSERT = 1;
+
+	/**
+	 * Size of blocks to match.
+	 */
+	private static final int BLOCK = 16;
+
+	private static final int PRIME = 31;
+
+	/**
+	 * {@link #PRIME} to the power of {@link #BLOCK}, needed to roll the hash.
+	 */
+	private static final int PRIME_POWER;
+
+	static
+	{
+		int power = 1;
+		for (int i = 0; i < BLOCK; i++)
+		{
+			power *= PRIME;
+		}
+		PRIME_POWER = power;
+	}
+
+	private BinaryDelta()
+	{
+	}
+
+	/**
+	 * Create a delta.
+	 *
+	 * @param base
+	 *            the base to create delta against
+	 * @param target
+	 *            the target to create delta for
+	 * @return delta to recreate the target from the base
+	 *
+	 * @see #apply(byte[], byte[])
+	 */
+	public static byte[] create(byte[] base, byte[] target)
+	{
+		ByteArrayOutputStream delta = new ByteArrayOutputStream(target.length / 8 + 16);
+
+		writeInt(delta, target.length);
+
+		int[] index = index(base);
+		int mask = index.length - 1;
+
+		int literal = 0;
+		int position = 0;
+		int hash = 0;
+		boolean hashed = false;
+
+		while (position + BLOCK <= target.length)
+		{
+			if (hashed == false)
+			{
+				hash = hash(target, position);
+				hashed = true;
+			}
+
+			int candidate = index[hash & mask] - 1;
+			if (candidate >= 0 && matches(base, candidate, target, position))
+			{
+				int start = position;
+				int offset = candidate;
+
+				// extend backwards into the pending literal
+				while (start > literal && offset > 0 && base[offset - 1] == target[start - 1])
+				{
+					start--;
+					offset--;
+				}
+
+				// extend forwards
+				int end = position + BLOCK;
+				int baseEnd = candidate + BLOCK;
+				while (end < target.length && baseEnd < base.length && base[baseEnd] == target[end])
+				{
+					end++;
+					baseEnd++;
+				}
+
+				insert(delta, target, literal, start);
+				copy(delta, offset, end - start);
+
+				position = end;
+				literal = end;
+				hashed = false;
+			}
+			else
+			{
+				if (position + BLOCK < target.length)
+				{
+					hash = hash * PRIME - PRIME_POWER * target[position] + target[position + BLOCK];
+				}
+				position++;
+			}
+		}
+
+		insert(delta, target, literal, target.length);
+
+		return delta.toByteArray();
+	}
+
+	/**
+	 * Apply a delta.
+	 *
+	 * @param base
+	 *            the base the delta was created against
+	 * @param delta
+	 *            the delta
+	 * @return the recreated target
+	 *
+	 * @see #create(byte[], byte[])
+	 */
+	public static byte[] apply(byte[] base, byte[] delta)
+	{
+		int[] position = new int[1];
+
+		byte[] target = new byte[readInt(delta, position)];
+		int targetPosition = 0;
+
+		try
+		{
+			while (position[0] < delta.length)
+			{
+				int op = delta[position[0]++];
+				if (op == COPY)
+				{
+					int offset = readInt(delta, position);
+					int length = readInt(delta, position);
+
+					System.arraycopy(base, offset, target, targetPosition, length);
+					targetPosition += length;
+				}
+				else if (op == INSERT)
+				{
+					int length = readInt(delta, position);
+
+					System.arraycopy(delta, position[0], target, targetPosition, length);
+					position[0] += length;
+					targetPosition += length;
+				}
+				else
+				{
+					throw new WicketRuntimeException("Unknown delta operation " + op);
+				}
+			}
+		}
+		catch (IndexOutOfBoundsException ex)
+		{
+			throw new WicketRuntimeException("Delta does not match its base", ex);
+		}
+
+		if (targetPosition != target.length)
+		{
+			throw new WicketRuntimeException("Delta does not match its base");
+		}
+
+		return target;
+	}
+
+	/**
+	 * Index all blocks of the base by their hash, storing <em>offset + 1</em> to distinguish empty
+	 * slots.
+	 */
+	private static int[] index(byte[] base)
+	{
+		int blocks = base.length / BLOCK;
+
+		int size = Integer.highestOneBit(Math.max(blocks, 1) * 2);
+		int[] index = new int[size];
+		int mask = size - 1;
+
+		for (int block = blocks - 1; block >= 0; block--)
+		{
+			int offset = block * BLOCK;
+
+			index[hash(base, offset) & mask] = offset + 1;
+		}
+
+		return index;
+	}
+
+	private static int hash(byte[] bytes, int offset)
+	{
+		int hash = 0;
+		for (int i = offset; i < offset + BLOCK; i++)
+		{
+			hash = hash * PRIME + bytes[i];
+		}
+		return hash;
+	}
+
+	private static boolean matches(byte[] base, int baseOffset, byte[] target, int targetOffset)
+	{
+		return Arrays.equals(base, baseOffset, baseOffset + BLOCK, target, targetOffset,
+			targetOffset + BLOCK);
+	}
+
+	private static void copy(ByteArrayOutputStream delta, int offset, int length)
+	{
+		delta.write(COPY);
+		writeInt(delta, offset);
+		writeInt(delta, length);
+	}
+
+	private static void insert(ByteArrayOutputStream delta, byte[] target, int from, int to)
+	{
+		if (to > from)
+		{
+			delta.write(INSERT);
+			writeInt(delta, to - from);
+			delta.write(target, from, to - from);
+		}
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readInt(byte[] bytes, int[] position)
+	{
+		int value = 0;
+		int shift = 0;
+		while (true)
+		{
+			byte b = bytes[position[0]++];
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+			shift += 7;
+		}
+	}
+}
@@ -19,12 +19,20 @@ package org.apache.wicket.protocol.http;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.function.Consumer;
 import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
 import org.apache.wicket.Application;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.request.Response;
@@ -32,6 +40,7 @@ import org.apache.wicket.request.http.WebResponse;
 import org.apache.wicket.response.filter.IResponseFilter;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.string.AppendingStringBuffer;
+import org.apache.wicket.util.string.PreEncodedString;
 
 /**
  * Subclass of {@link WebResponse} that buffers the actions and performs those on another response.
@@ -42,6 +51,8 @@ import org.apache.wicket.util.string.AppendingStringBuffer;
  */
 public class BufferedWebResponse extends WebResponse implements IMetaDataBufferingWebResponse
 {
+	private static final int ENCODE_BUFFER_SIZE = 8192;
+
 	private final WebResponse originalResponse;
 
 	/**
@@ -148,9 +159,41 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 		}
 	}
 
+	/**
+	 * A pre-encoded string and its position in the text.
+	 */
+	private static final class PreEncodedSegment
+	{
+		private final int offset;
+		private final PreEncodedString string;
+
+		private PreEncodedSegment(int offset, PreEncodedString string)
+		{
+			this.offset = offset;
+			this.string = string;
+		}
+	}
+
 	private final List<Action> actions = new ArrayList<Action>();
 	private StringBuilder charSequenceBuilder;
+	private List<PreEncodedSegment> preEncodedSegments;
+	private String contentType;
 	private ByteArrayOutputStream dataStream;
+	private StoredResponseBody storedBody;
+	private boolean preEncodedBytes = true;
+
+	/**
+	 * Sets whether text, e.g. pre-encoded strings, may be written as bytes. This has to be disabled when more
+	 * text is written to the original response afterwards, since a servlet response can't switch
+	 * from its output stream to its writer.
+	 * 
+	 * @param preEncodedBytes
+	 *            whether to write pre-encoded strings as bytes
+	 */
+	void setPreEncodedBytes(boolean preEncodedBytes)
+	{
+		this.preEncodedBytes = preEncodedBytes;
+	}
 
 	@Override
 	public void reset()
@@ -158,7 +201,67 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 		super.reset();
 		actions.clear();
 		charSequenceBuilder = null;
+		preEncodedSegments = null;
+		contentType = null;
 		dataStream = null;
+		releaseData();
+		storedBody = null;
+	}
+
+	/**
+	 * Moves the buffered data out of the heap, it is released after it has been written.
+	 * 
+	 * @param spillThreshold
+	 *            size in bytes above which the data is moved into a temporary file
+	 * @return size of the data in bytes
+	 * @see StoredResponsesMap
+	 */
+	long storeData(long spillThreshold)
+	{
+		if (charSequenceBuilder != null)
+		{
+			storedBody = StoredResponseBody.ofText(charSequenceBuilder, spillThreshold);
+		}
+		else if (dataStream != null)
+		{
+			storedBody = StoredResponseBody.ofBytes(dataStream, spillThreshold);
+		}
+		else
+		{
+			return 0;
+		}
+		charSequenceBuilder = null;
+		preEncodedSegments = null;
+		dataStream = null;
+
+		StoredResponseBody body = storedBody;
+		for (int i = 0; i < actions.size(); i++)
+		{
+			if (actions.get(i).getType() == ActionType.DATA)
+			{
+				actions.set(i, ActionType.DATA.action(res -> body.writeTo(res, canWriteUtf8Bytes(res))));
+			}
+		}
+		return body.size();
+	}
+
+	/**
+	 * Releases the data moved out of the heap, if any.
+	 */
+	void releaseData()
+	{
+		if (storedBody != null)
+		{
+			storedBody.release();
+		}
+	}
+
+	private void checkNotStored()
+	{
+		if (storedBody != null)
+		{
+			throw new IllegalStateException("The data has already been stored.");
+		}
 	}
 
 	@Override
@@ -182,6 +285,7 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 	@Override
 	public void setContentType(String mimeType)
 	{
+		contentType = mimeType;
 		actions.add(ActionType.HEADER.action(res -> res.setContentType(mimeType)));
 	}
 
@@ -212,36 +316,184 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 
 	@Override
 	public void write(CharSequence sequence)
+	{
+		prepareText();
+
+		if (sequence instanceof PreEncodedString)
+		{
+			if (preEncodedSegments == null)
+			{
+				preEncodedSegments = new ArrayList<>();
+			}
+			preEncodedSegments.add(
+				new PreEncodedSegment(charSequenceBuilder.length(), (PreEncodedString)sequence));
+		}
+		charSequenceBuilder.append(sequence);
+	}
+
+	@Override
+	public void write(CharSequence sequence, int start, int end)
+	{
+		prepareText();
+
+		charSequenceBuilder.append(sequence, start, end);
+	}
+
+	private void prepareText()
 	{
 		if (dataStream != null)
 		{
 			throw new IllegalStateException(
 				"Can't call write(CharSequence) after write(byte[]) has been called.");
 		}
+		checkNotStored();
 
 		if (charSequenceBuilder == null)
 		{
 			StringBuilder builder = new StringBuilder(4096);
 			charSequenceBuilder = builder;
-			actions.add(ActionType.DATA.action(res ->
-			{
-				AppendingStringBuffer responseBuffer = new AppendingStringBuffer(builder);
+			actions.add(ActionType.DATA.action(res -> writeText(res, builder, preEncodedSegments)));
+		}
+	}
 
-				List<IResponseFilter> responseFilters = Application.get()
-						.getRequestCycleSettings()
-						.getResponseFilters();
+	/**
+	 * Writes text to the response. If the text contains pre-encoded strings and is written as
+	 * UTF-8 straight to the container without response filters, the pre-encoded bytes are written
+	 * and only the remaining text is encoded.
+	 * 
+	 * @param response
+	 * @param text
+	 * @param segments
+	 *            pre-encoded strings in the text, may be {@code null}
+	 */
+	private void writeText(WebResponse response, CharSequence text,
+		List<PreEncodedSegment> segments)
+	{
+		if (segments == null || canWriteUtf8Bytes(response) == false)
+		{
+			writeText(response, text);
+			return;
+		}
 
-				if (responseFilters != null)
-				{
-					for (IResponseFilter filter : responseFilters)
-					{
-						responseBuffer = filter.filter(responseBuffer);
-					}
-				}
-				res.write(responseBuffer);
-			}));
+		CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		ByteBuffer buffer = ByteBuffer.allocate(ENCODE_BUFFER_SIZE);
+
+		int start = 0;
+		for (PreEncodedSegment segment : segments)
+		{
+			writeEncoded(response, text, start, segment.offset, encoder, buffer);
+			response.write(segment.string.getBytes());
+			start = segment.offset + segment.string.length();
 		}
-		charSequenceBuilder.append(sequence);
+		writeEncoded(response, text, start, text.length(), encoder, buffer);
+	}
+
+	/**
+	 * Encodes a range of the text into the buffer and writes it to the response, chunk by chunk.
+	 */
+	private static void writeEncoded(WebResponse response, CharSequence text, int start, int end,
+		CharsetEncoder encoder, ByteBuffer buffer)
+	{
+		if (start == end)
+		{
+			return;
+		}
+
+		CharBuffer chars = CharBuffer.wrap(text, start, end);
+		encoder.reset();
+		CoderResult result;
+		do
+		{
+			result = encoder.encode(chars, buffer, true);
+			writeBuffer(response, buffer);
+		}
+		while (result.isOverflow());
+		do
+		{
+			result = encoder.flush(buffer);
+			writeBuffer(response, buffer);
+		}
+		while (result.isOverflow());
+	}
+
+	private static void writeBuffer(WebResponse response, ByteBuffer buffer)
+	{
+		if (buffer.position() > 0)
+		{
+			response.write(buffer.array(), 0, buffer.position());
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Gets whether text can be written as UTF-8 encoded bytes, i.e. the response is UTF-8 encoded,
+	 * written straight to the container without response filters, and no text follows.
+	 * 
+	 * @param response
+	 *            response to write to
+	 * @return {@code true} if bytes can be written
+	 */
+	private boolean canWriteUtf8Bytes(WebResponse response)
+	{
+		if (preEncodedBytes == false || isUtf8(contentType) == false ||
+			response instanceof BufferedWebResponse ||
+			response.getContainerResponse() instanceof HttpServletResponse == false)
+		{
+			return false;
+		}
+
+		List<IResponseFilter> responseFilters = Application.get()
+			.getRequestCycleSettings()
+			.getResponseFilters();
+		return responseFilters == null || responseFilters.isEmpty();
+	}
+
+	private static boolean isUtf8(String contentType)
+	{
+		if (contentType == null)
+		{
+			return false;
+		}
+		String type = contentType.toLowerCase(Locale.ROOT);
+		int index = type.indexOf("charset=");
+		if (index == -1)
+		{
+			return false;
+		}
+		String charset = type.substring(index + "charset=".length()).replace("\"", "");
+		int end = charset.indexOf(';');
+		if (end != -1)
+		{
+			charset = charset.substring(0, end);
+		}
+		charset = charset.trim();
+		return "utf-8".equals(charset) || "utf8".equals(charset);
+	}
+
+	/**
+	 * Writes text to the response after applying the response filters.
+	 * 
+	 * @param response
+	 * @param text
+	 */
+	static void writeText(WebResponse response, CharSequence text)
+	{
+		AppendingStringBuffer responseBuffer = new AppendingStringBuffer(text);
+
+		List<IResponseFilter> responseFilters = Application.get()
+				.getRequestCycleSettings()
+				.getResponseFilters();
+
+		if (responseFilters != null)
+		{
+			for (IResponseFilter filter : responseFilters)
+			{
+				responseBuffer = filter.filter(responseBuffer);
+			}
+		}
+		response.write(responseBuffer);
 	}
 
 	/**
@@ -251,6 +503,7 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 	 */
 	public CharSequence getText()
 	{
+		checkNotStored();
 		if (dataStream != null)
 		{
 			throw new IllegalStateException("write(byte[]) has already been called.");
@@ -280,6 +533,7 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 		{
 			charSequenceBuilder.setLength(0);
 		}
+		preEncodedSegments = null;
 		write(text);
 	}
 
@@ -297,6 +551,7 @@ public class BufferedWebResponse extends WebResponse implements IMetaDataBufferi
 			throw new IllegalStateException(
 				"Can't call write(byte[]) after write(CharSequence) has been called.");
 		}
+		checkNotStored();
 		if (dataStream == null)
 		{
 			ByteArrayOutputStream stream = new ByteArrayOutputStream();
@@ -178,6 +178,14 @@ class HeaderBufferingWebResponse extends WebResponse implements IMetaDataBufferi
 		originalResponse.write(sequence);
 	}
 
+	@Override
+	public void write(CharSequence sequence, int start, int end)
+	{
+		stopBuffering();
+
+		originalResponse.write(sequence, start, end);
+	}
+
 	@Override
 	public void write(byte[] array)
 	{
@@ -0,0 +1,440 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.response.filter.IResponseFilter;
+import org.apache.wicket.util.io.ByteBuffers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The data of a {@link BufferedWebResponse} moved out of the heap, either into a direct
+ * {@link ByteBuffer} or into a temporary file if it is larger than a threshold.
+ * <p>
+ * Text is kept encoded as UTF-8. It is written in chunks, as bytes if the response is UTF-8
+ * encoded too, otherwise decoded again. Only if response filters are configured the text is read
+ * onto the heap as a whole, since the filters need the complete text.
+ * <p>
+ * The body can be written once only, afterwards it is released.
+ * 
+ * @see StoredResponsesMap
+ */
+final class StoredResponseBody
+{
+	private static final Logger log = LoggerFactory.getLogger(StoredResponseBody.class);
+
+	private static final int CHUNK_SIZE = 8192;
+
+	private final boolean text;
+
+	private final long size;
+
+	private ByteBuffer memory;
+
+	private Path file;
+
+	private boolean released;
+
+	private StoredResponseBody(boolean text, long size, ByteBuffer memory, Path file)
+	{
+		this.text = text;
+		this.size = size;
+		this.memory = memory;
+		this.file = file;
+	}
+
+	/**
+	 * Store text.
+	 * 
+	 * @param text
+	 * @param spillThreshold
+	 *            size in bytes above which the text is stored in a temporary file
+	 * @return body
+	 */
+	static StoredResponseBody ofText(CharSequence text, long spillThreshold)
+	{
+		long size = utf8Length(text);
+		if (size > spillThreshold)
+		{
+			Path file = createFile();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE))
+			{
+				ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+				ChunkHandler write = () -> {
+					buffer.flip();
+					while (buffer.hasRemaining())
+					{
+						channel.write(buffer);
+					}
+					buffer.clear();
+				};
+				encode(text, buffer, write);
+				write.handle();
+			}
+			catch (IOException ex)
+			{
+				delete(file);
+				throw new WicketRuntimeException("Cannot store response in " + file, ex);
+			}
+			return new StoredResponseBody(true, size, null, file);
+		}
+
+		ByteBuffer memory = ByteBuffer.allocateDirect((int)size);
+		try
+		{
+			encode(text, memory, () -> {
+				throw new IllegalStateException("Encoded text exceeds its computed length");
+			});
+		}
+		catch (IOException ex)
+		{
+			throw new WicketRuntimeException(ex);
+		}
+		memory.flip();
+		return new StoredResponseBody(true, size, memory, null);
+	}
+
+	/**
+	 * Something to do with an encoded chunk of text.
+	 */
+	@FunctionalInterface
+	private interface ChunkHandler
+	{
+		void handle() throws IOException;
+	}
+
+	/**
+	 * Encodes the text as UTF-8 into the buffer, calling the handler whenever it is full.
+	 */
+	private static void encode(CharSequence text, ByteBuffer buffer, ChunkHandler full)
+		throws IOException
+	{
+		CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		CharBuffer chars = CharBuffer.wrap(text);
+		while (encoder.encode(chars, buffer, true).isOverflow())
+		{
+			full.handle();
+		}
+		while (encoder.flush(buffer).isOverflow())
+		{
+			full.handle();
+		}
+	}
+
+	/**
+	 * @return the length of the text encoded as UTF-8, lone surrogates are replaced by one byte
+	 */
+	private static long utf8Length(CharSequence text)
+	{
+		long length = 0;
+		for (int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+			if (c < 0x80)
+			{
+				length += 1;
+			}
+			else if (c < 0x800)
+			{
+				length += 2;
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < text.length() &&
+				Character.isLowSurrogate(text.charAt(i + 1)))
+			{
+				length += 4;
+				i++;
+			}
+			else if (Character.isSurrogate(c))
+			{
+				length += 1;
+			}
+			else
+			{
+				length += 3;
+			}
+		}
+		return length;
+	}
+	/**
+	 * Store binary data.
+	 * 
+	 * @param data
+	 * @param spillThreshold
+	 *            size in bytes above which the data is stored in a temporary file
+	 * @return body
+	 */
+	static StoredResponseBody ofBytes(ByteArrayOutputStream data, long spillThreshold)
+	{
+		long size = data.size();
+		if (size > spillThreshold)
+		{
+			Path file = createFile();
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE))
+			{
+				data.writeTo(Channels.newOutputStream(channel));
+			}
+			catch (IOException ex)
+			{
+				delete(file);
+				throw new WicketRuntimeException("Cannot store response in " + file, ex);
+			}
+			return new StoredResponseBody(false, size, null, file);
+		}
+
+		ByteBuffer memory = ByteBuffer.allocateDirect((int)size);
+		try
+		{
+			// avoid copying the array
+			data.writeTo(new OutputStream()
+			{
+				@Override
+				public void write(int b)
+				{
+					memory.put((byte)b);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len)
+				{
+					memory.put(b, off, len);
+				}
+			});
+		}
+		catch (IOException ex)
+		{
+			throw new WicketRuntimeException(ex);
+		}
+		memory.flip();
+		return new StoredResponseBody(false, size, memory, null);
+	}
+
+	/**
+	 * @return size of the body in bytes
+	 */
+	long size()
+	{
+		return size;
+	}
+
+	/**
+	 * Write the body to the given response and release it.
+	 * 
+	 * @param response
+	 * @param utf8Bytes
+	 *            whether text may be written as UTF-8 encoded bytes
+	 */
+	synchronized void writeTo(WebResponse response, boolean utf8Bytes)
+	{
+		if (released)
+		{
+			throw new IllegalStateException("The stored response has already been written");
+		}
+
+		try (ReadableByteChannel channel = open())
+		{
+			if (text == false || utf8Bytes)
+			{
+				ByteBuffer buffer = ByteBuffer.allocate((int)Math.min(CHUNK_SIZE, Math.max(1, size)));
+				while (channel.read(buffer) != -1)
+				{
+					if (buffer.position() > 0)
+					{
+						response.write(buffer.array(), 0, buffer.position());
+						buffer.clear();
+					}
+				}
+			}
+			else
+			{
+				List<IResponseFilter> responseFilters = Application.get()
+					.getRequestCycleSettings()
+					.getResponseFilters();
+				if (responseFilters == null || responseFilters.isEmpty())
+				{
+					decode(channel, response::write);
+				}
+				else
+				{
+					// filters need the whole text
+					StringBuilder text = new StringBuilder((int)Math.min(size, Integer.MAX_VALUE));
+					decode(channel, text::append);
+					BufferedWebResponse.writeText(response, text);
+				}
+			}
+		}
+		catch (IOException ex)
+		{
+			throw new WicketRuntimeException("Cannot read stored response", ex);
+		}
+		finally
+		{
+			release();
+		}
+	}
+
+	/**
+	 * Decodes UTF-8 bytes from the channel, passing each decoded chunk to the consumer.
+	 */
+	private static void decode(ReadableByteChannel channel, Consumer<CharBuffer> consumer)
+		throws IOException
+	{
+		CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		ByteBuffer bytes = ByteBuffer.allocate(CHUNK_SIZE);
+		CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
+		boolean end = false;
+		while (end == false)
+		{
+			end = channel.read(bytes) == -1;
+			bytes.flip();
+			CoderResult result;
+			do
+			{
+				result = decoder.decode(bytes, chars, end);
+				drain(chars, consumer);
+			}
+			while (result.isOverflow());
+			// keep an incomplete sequence for the next chunk
+			bytes.compact();
+		}
+		while (decoder.flush(chars).isOverflow())
+		{
+			drain(chars, consumer);
+		}
+		drain(chars, consumer);
+	}
+
+	private static void drain(CharBuffer chars, Consumer<CharBuffer> consumer)
+	{
+		chars.flip();
+		if (chars.hasRemaining())
+		{
+			consumer.accept(chars);
+		}
+		chars.clear();
+	}
+
+	/**
+	 * @return channel to read the stored bytes
+	 */
+	private ReadableByteChannel open() throws IOException
+	{
+		if (memory == null)
+		{
+			return FileChannel.open(file, StandardOpenOption.READ);
+		}
+
+		ByteBuffer source = memory.duplicate();
+		return new ReadableByteChannel()
+		{
+			@Override
+			public int read(ByteBuffer target)
+			{
+				if (source.hasRemaining() == false)
+				{
+					return -1;
+				}
+				int length = Math.min(source.remaining(), target.remaining());
+				ByteBuffer chunk = source.slice();
+				chunk.limit(length);
+				target.put(chunk);
+				source.position(source.position() + length);
+				return length;
+			}
+
+			@Override
+			public boolean isOpen()
+			{
+				return true;
+			}
+
+			@Override
+			public void close()
+			{
+			}
+		};
+	}
+
+	/**
+	 * Release the body, freeing its direct buffer or deleting its temporary file.
+	 */
+	synchronized void release()
+	{
+		released = true;
+		if (memory != null)
+		{
+			ByteBuffers.free(memory);
+			memory = null;
+		}
+		if (file != null)
+		{
+			delete(file);
+			file = null;
+		}
+	}
+
+	private static Path createFile()
+	{
+		try
+		{
+			return Files.createTempFile("wicket-response", ".tmp");
+		}
+		catch (IOException ex)
+		{
+			throw new WicketRuntimeException("Cannot create file to store response", ex);
+		}
+	}
+
+	private static void delete(Path file)
+	{
+		try
+		{
+			Files.deleteIfExists(file);
+		}
+		catch (IOException ex)
+		{
+			log.warn("Cannot delete stored response " + file, ex);
+		}
+	}
+}
@@ -18,14 +18,24 @@ package org.apache.wicket.protocol.http;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Iterator;
 import java.util.Map;
 import org.apache.wicket.util.collections.MostRecentlyUsedMap;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 
 /**
  * A map that contains the buffered responses. It has a constraint on the maximum entries that it
  * can contain, and a constraint on the duration of time an entry is considered valid/non-expired
+ * <p>
+ * Optionally the total size of the stored responses can be limited too: then the data of each
+ * response is moved out of the heap on {@link #put(String, Object)}, into a direct buffer or into
+ * a temporary file if it is larger than the spill threshold, and the least recently used responses
+ * are evicted when the limit is exceeded.
+ *
+ * @see org.apache.wicket.settings.RequestCycleSettings#setStoredResponsesMaxSize(Bytes)
  */
-class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
+public class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 {
 	private static final long serialVersionUID = 1L;
 
@@ -40,6 +50,9 @@ class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 
 		/** the time when this response is stored */
 		private Instant creationTime;
+
+		/** size of the stored data */
+		private long size;
 	}
 
 	/**
@@ -47,6 +60,19 @@ class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 	 */
 	private final Duration lifetime;
 
+	/** maximum size of all stored data, or -1 if data is kept on the heap */
+	private final long maxSize;
+
+	private final long spillThreshold;
+
+	private long size;
+
+	private long hits;
+
+	private long misses;
+
+	private long evictions;
+
 	/**
 	 * Construct.
 	 * 
@@ -60,15 +86,39 @@ class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 		super(maxEntries);
 
 		this.lifetime = lifetime;
+		maxSize = -1;
+		spillThreshold = -1;
+	}
+
+	/**
+	 * Construct a map limiting the size of the stored responses.
+	 * 
+	 * @param maxEntries
+	 *            how much entries this map can contain
+	 * @param lifetime
+	 *            the duration of time to keep an entry in the map before considering it expired
+	 * @param maxSize
+	 *            the maximum size of all stored responses
+	 * @param spillThreshold
+	 *            the size above which a response is stored in a temporary file
+	 */
+	public StoredResponsesMap(int maxEntries, Duration lifetime, Bytes maxSize,
+		Bytes spillThreshold)
+	{
+		super(maxEntries);
+
+		this.lifetime = lifetime;
+		this.maxSize = Args.notNull(maxSize, "maxSize").bytes();
+		this.spillThreshold = Args.notNull(spillThreshold, "spillThreshold").bytes();
 	}
 
 	@Override
 	protected synchronized boolean removeEldestEntry(java.util.Map.Entry<String, Object> eldest)
 	{
 		boolean removed = super.removeEldestEntry(eldest);
+		Value value = (Value)eldest.getValue();
 		if (removed == false)
 		{
-			Value value = (Value)eldest.getValue();
 			if (value != null)
 			{
 				Duration elapsedTime = Duration.between(value.creationTime, Instant.now());
@@ -79,6 +129,10 @@ class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 				}
 			}
 		}
+		if (removed)
+		{
+			evicted(value);
+		}
 		return removed;
 	}
 
@@ -95,15 +149,56 @@ class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 		value.creationTime = Instant.now();
 		value.response = (BufferedWebResponse)bufferedResponse;
 
+		if (maxSize >= 0)
+		{
+			value.size = value.response.storeData(spillThreshold);
+			if (value.size > maxSize)
+			{
+				value.response.releaseData();
+				synchronized (this)
+				{
+					evictions++;
+				}
+				return null;
+			}
+		}
+
 		Value oldValue;
 		synchronized (this)
 		{
 			oldValue = (Value)super.put(key, value);
+			if (oldValue != null)
+			{
+				size -= oldValue.size;
+				oldValue.response.releaseData();
+			}
+			size += value.size;
+
+			Iterator<Map.Entry<String, Object>> iterator = entrySet().iterator();
+			while (size > maxSize && maxSize >= 0 && iterator.hasNext())
+			{
+				Map.Entry<String, Object> entry = iterator.next();
+				if (entry.getValue() != value)
+				{
+					iterator.remove();
+					evicted((Value)entry.getValue());
+				}
+			}
 		}
 
 		return oldValue != null ? oldValue.response : null;
 	}
 
+	private void evicted(Value value)
+	{
+		if (value != null)
+		{
+			evictions++;
+			size -= value.size;
+			value.response.releaseData();
+		}
+	}
+
 	@Override
 	public BufferedWebResponse get(Object key)
 	{
@@ -123,7 +218,24 @@ class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 			else
 			{
 				// expired, remove it
-				remove(key);
+				synchronized (this)
+				{
+					if (super.remove(key) == value)
+					{
+						evicted(value);
+					}
+				}
+			}
+		}
+		synchronized (this)
+		{
+			if (result != null)
+			{
+				hits++;
+			}
+			else
+			{
+				misses++;
 			}
 		}
 		return result;
@@ -136,14 +248,67 @@ class StoredResponsesMap extends MostRecentlyUsedMap<String, Object>
 		synchronized (this)
 		{
 			removedValue = (Value)super.remove(key);
+			if (removedValue != null)
+			{
+				size -= removedValue.size;
+				hits++;
+			}
+			else
+			{
+				misses++;
+			}
 		}
 
 		return removedValue != null ? removedValue.response : null;
 	}
 
+	@Override
+	public synchronized void clear()
+	{
+		for (Object value : values())
+		{
+			((Value)value).response.releaseData();
+		}
+		super.clear();
+		size = 0;
+	}
+
 	@Override
 	public void putAll(Map<? extends String, ?> m)
 	{
 		throw new UnsupportedOperationException();
 	}
+
+	/**
+	 * @return size of all stored responses, always zero if the size is not limited
+	 */
+	public synchronized Bytes getStoredSize()
+	{
+		return Bytes.bytes(size);
+	}
+
+	/**
+	 * @return count of responses found by {@link #get(Object)} or {@link #remove(Object)}
+	 */
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+
+	/**
+	 * @return count of responses not found by {@link #get(Object)} or {@link #remove(Object)}
+	 */
+	public synchronized long getMissCount()
+	{
+		return misses;
+	}
+
+	/**
+	 * @return count of responses removed because they expired, or exceeded the maximum count or
+	 *         size
+	 */
+	public synchronized long getEvictionCount()
+	{
+		return evictions;
+	}
 }
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http;
+
+import java.time.Instant;
+
+import javax.servlet.http.Cookie;
+
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Response that buffers a page until its &lt;/head&gt; has been written, then writes the buffer to
+ * the original response and flushes it. Everything written afterwards goes to the original response
+ * directly, so the browser receives the head early and the body while it is rendered.
+ * <p>
+ * While buffering the response can be {@link #reset()}, e.g. when another request handler is
+ * scheduled or an exception occurs while rendering the head. Once streaming {@link #reset()} throws
+ * {@link IllegalStateException}.
+ * 
+ * @see org.apache.wicket.settings.RequestCycleSettings.RenderStrategy#STREAMING_RENDER
+ */
+public class StreamingWebResponse extends WebResponse implements IMetaDataBufferingWebResponse
+{
+	private static final String HEAD_END = "</head>";
+
+	private final WebResponse originalResponse;
+
+	private final BufferedWebResponse bufferedResponse;
+
+	private boolean streaming = false;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param originalResponse
+	 */
+	public StreamingWebResponse(final WebResponse originalResponse)
+	{
+		this.originalResponse = Args.notNull(originalResponse, "originalResponse");
+
+		bufferedResponse = new BufferedWebResponse(originalResponse);
+		// the body is written as text after the buffer
+		bufferedResponse.setPreEncodedBytes(false);
+	}
+
+	/**
+	 * @return whether the buffer has already been written to the original response
+	 */
+	public boolean isStreaming()
+	{
+		return streaming;
+	}
+
+	/**
+	 * Write the buffer to the original response, if not already streaming. Everything written
+	 * afterwards goes to the original response directly.
+	 * 
+	 * @param flush
+	 *            whether to flush the original response
+	 */
+	public void stream(final boolean flush)
+	{
+		if (streaming == false)
+		{
+			streaming = true;
+			bufferedResponse.writeTo(originalResponse);
+
+			if (flush)
+			{
+				originalResponse.flush();
+			}
+		}
+	}
+
+	private WebResponse getTarget()
+	{
+		if (streaming)
+		{
+			return originalResponse;
+		}
+		else
+		{
+			return bufferedResponse;
+		}
+	}
+
+	@Override
+	public void write(final CharSequence sequence)
+	{
+		getTarget().write(sequence);
+
+		if (streaming == false && containsHeadEnd(sequence))
+		{
+			stream(true);
+		}
+	}
+
+	@Override
+	public void write(final byte[] array)
+	{
+		getTarget().write(array);
+	}
+
+	@Override
+	public void write(final byte[] array, final int offset, final int length)
+	{
+		getTarget().write(array, offset, length);
+	}
+
+	@Override
+	public void addCookie(final Cookie cookie)
+	{
+		getTarget().addCookie(cookie);
+	}
+
+	@Override
+	public void clearCookie(final Cookie cookie)
+	{
+		getTarget().clearCookie(cookie);
+	}
+
+	@Override
+	public void setHeader(final String name, final String value)
+	{
+		getTarget().setHeader(name, value);
+	}
+
+	@Override
+	public void addHeader(final String name, final String value)
+	{
+		getTarget().addHeader(name, value);
+	}
+
+	@Override
+	public void setDateHeader(final String name, final Instant date)
+	{
+		getTarget().setDateHeader(name, date);
+	}
+
+	@Override
+	public void setContentLength(final long length)
+	{
+		getTarget().setContentLength(length);
+	}
+
+	@Override
+	public void setContentType(final String mimeType)
+	{
+		getTarget().setContentType(mimeType);
+	}
+
+	@Override
+	public void setStatus(final int sc)
+	{
+		getTarget().setStatus(sc);
+	}
+
+	@Override
+	public void sendError(final int sc, final String msg)
+	{
+		getTarget().sendError(sc, msg);
+	}
+
+	@Override
+	public void sendRedirect(final String url)
+	{
+		getTarget().sendRedirect(url);
+	}
+
+	@Override
+	public boolean isRedirect()
+	{
+		return getTarget().isRedirect();
+	}
+
+	@Override
+	public void disableCaching()
+	{
+		getTarget().disableCaching();
+	}
+
+	@Override
+	public void flush()
+	{
+		getTarget().flush();
+	}
+
+	@Override
+	public String encodeURL(final CharSequence url)
+	{
+		return originalResponse.encodeURL(url);
+	}
+
+	@Override
+	public String encodeRedirectURL(final CharSequence url)
+	{
+		return originalResponse.encodeRedirectURL(url);
+	}
+
+	@Override
+	public void reset()
+	{
+		if (streaming)
+		{
+			throw new IllegalStateException("Response is already streaming!");
+		}
+
+		bufferedResponse.reset();
+	}
+
+	@Override
+	public void writeMetaData(final WebResponse webResponse)
+	{
+		bufferedResponse.writeMetaData(webResponse);
+	}
+
+	@Override
+	public Object getContainerResponse()
+	{
+		return originalResponse.getContainerResponse();
+	}
+
+	/**
+	 * Check whether the given text contains &lt;/head&gt;, ignoring case.
+	 * 
+	 * @param sequence
+	 * @return <code>true</code> if the end of head is contained
+	 */
+	private static boolean containsHeadEnd(final CharSequence sequence)
+	{
+		int last = sequence.length() - HEAD_END.length();
+		for (int i = 0; i <= last; i++)
+		{
+			if (sequence.charAt(i) == '<' && sequence.charAt(i + 1) == '/')
+			{
+				int j = 2;
+				while (j < HEAD_END.length() &&
+					Character.toLowerCase(sequence.charAt(i + j)) == HEAD_END.charAt(j))
+				{
+					j++;
+				}
+				if (j == HEAD_END.length())
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
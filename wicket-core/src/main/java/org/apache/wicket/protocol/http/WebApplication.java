@@ -70,11 +70,13 @@ import org.apache.wicket.request.resource.JavaScriptResourceReference;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.resource.bundles.ReplacementResourceBundleReference;
 import org.apache.wicket.session.HttpSessionStore;
+import org.apache.wicket.settings.RequestCycleSettings;
 import org.apache.wicket.util.crypt.CharEncoding;
 import org.apache.wicket.util.file.FileCleaner;
 import org.apache.wicket.util.file.IFileCleaner;
 import org.apache.wicket.util.file.Path;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.lang.PackageName;
 import org.apache.wicket.util.string.Strings;
 import java.time.Duration;
@@ -706,6 +708,11 @@ public abstract class WebApplication extends Application
 			fileCleaner.destroy();
 		}
 
+		if (storedResponses != null)
+		{
+			storedResponses.clear();
+		}
+
 		super.internalDestroy();
 	}
 
@@ -962,8 +969,42 @@ public abstract class WebApplication extends Application
 	 * Can contain at most 1000 responses and each entry can live at most one minute. For now there
 	 * is no need to configure these parameters externally.
 	 */
-	private final StoredResponsesMap storedResponses = new StoredResponsesMap(1000,
-		Duration.ofSeconds(60));
+	private volatile StoredResponsesMap storedResponses;
+
+	/**
+	 * Gets the map of buffered responses, created on first access with the limits configured in
+	 * the {@link RequestCycleSettings}.
+	 *
+	 * @return stored responses
+	 * @see RequestCycleSettings#setStoredResponsesMaxSize(Bytes)
+	 */
+	public StoredResponsesMap getStoredResponses()
+	{
+		StoredResponsesMap responses = storedResponses;
+		if (responses == null)
+		{
+			synchronized (this)
+			{
+				responses = storedResponses;
+				if (responses == null)
+				{
+					RequestCycleSettings settings = getRequestCycleSettings();
+					if (settings.getStoredResponsesMaxSize() == null)
+					{
+						responses = new StoredResponsesMap(1000, Duration.ofSeconds(60));
+					}
+					else
+					{
+						responses = new StoredResponsesMap(1000, Duration.ofSeconds(60),
+							settings.getStoredResponsesMaxSize(),
+							settings.getStoredResponsesSpillThreshold());
+					}
+					storedResponses = responses;
+				}
+			}
+		}
+		return responses;
+	}
 
 	/**
 	 * 
@@ -974,7 +1015,7 @@ public abstract class WebApplication extends Application
 	public boolean hasBufferedResponse(String sessionId, Url url)
 	{
 		String key = sessionId + url.toString();
-		return storedResponses.containsKey(key);
+		return getStoredResponses().containsKey(key);
 	}
 
 	/**
@@ -988,7 +1029,7 @@ public abstract class WebApplication extends Application
 	public BufferedWebResponse getAndRemoveBufferedResponse(String sessionId, Url url)
 	{
 		String key = sessionId + url.toString();
-		return storedResponses.remove(key);
+		return getStoredResponses().remove(key);
 	}
 
 	/**
@@ -1008,7 +1049,7 @@ public abstract class WebApplication extends Application
 		}
 
 		String key = sessionId + url.toString();
-		storedResponses.put(key, response);
+		getStoredResponses().put(key, response);
 	}
 
 	@Override
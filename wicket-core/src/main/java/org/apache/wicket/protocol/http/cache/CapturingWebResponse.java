@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A response that passes headers on to the real response but captures the body, so it can be
+ * cached together with the headers. Responses with a cookie, a redirect, an error or any status other than {@code 200} are
+ * not cacheable.
+ */
+class CapturingWebResponse extends WebResponse
+{
+	private final WebResponse response;
+
+	private final StringBuilder text = new StringBuilder();
+
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+	private String contentType;
+
+	private final List<PageResponseCache.Header> headers = new ArrayList<>();
+
+	private boolean cacheable = true;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param response
+	 *            the real response
+	 */
+	CapturingWebResponse(WebResponse response)
+	{
+		this.response = Args.notNull(response, "response");
+	}
+
+	/**
+	 * @return whether the response can be cached
+	 */
+	boolean isCacheable()
+	{
+		return cacheable;
+	}
+
+	/**
+	 * @return the content type, may be {@code null}
+	 */
+	String getContentType()
+	{
+		return contentType;
+	}
+
+	/**
+	 * @return the headers set so far, in the order they were set
+	 */
+	List<PageResponseCache.Header> getHeaders()
+	{
+		return headers;
+	}
+
+	/**
+	 * @return the captured text, empty if the body was written as bytes
+	 */
+	CharSequence getText()
+	{
+		return text;
+	}
+
+	/**
+	 * @return the captured bytes, empty if the body was written as text
+	 */
+	byte[] getBytes()
+	{
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes the captured body to the real response.
+	 */
+	void writeTo()
+	{
+		if (text.length() > 0)
+		{
+			response.write(text);
+		}
+		if (bytes.size() > 0)
+		{
+			response.write(bytes.toByteArray());
+		}
+	}
+
+	@Override
+	public void write(CharSequence sequence)
+	{
+		if (bytes.size() > 0)
+		{
+			throw new IllegalStateException("Can't write text after binary data");
+		}
+		text.append(sequence);
+	}
+
+	@Override
+	public void write(CharSequence sequence, int start, int end)
+	{
+		if (bytes.size() > 0)
+		{
+			throw new IllegalStateException("Can't write text after binary data");
+		}
+		text.append(sequence, start, end);
+	}
+
+	@Override
+	public void write(byte[] array)
+	{
+		write(array, 0, array.length);
+	}
+
+	@Override
+	public void write(byte[] array, int offset, int length)
+	{
+		if (text.length() > 0)
+		{
+			throw new IllegalStateException("Can't write binary data after text");
+		}
+		bytes.write(array, offset, length);
+	}
+
+	@Override
+	public void reset()
+	{
+		super.reset();
+		response.reset();
+		text.setLength(0);
+		bytes.reset();
+		contentType = null;
+		headers.clear();
+		cacheable = true;
+	}
+
+	@Override
+	public void addCookie(Cookie cookie)
+	{
+		cacheable = false;
+		response.addCookie(cookie);
+	}
+
+	@Override
+	public void clearCookie(Cookie cookie)
+	{
+		cacheable = false;
+		response.clearCookie(cookie);
+	}
+
+	@Override
+	public void setHeader(String name, String value)
+	{
+		headers.add(new PageResponseCache.Header(name, value, false));
+		response.setHeader(name, value);
+	}
+
+	@Override
+	public void addHeader(String name, String value)
+	{
+		headers.add(new PageResponseCache.Header(name, value, true));
+		response.addHeader(name, value);
+	}
+
+	@Override
+	public void setDateHeader(String name, Instant date)
+	{
+		headers.add(new PageResponseCache.Header(name, date));
+		response.setDateHeader(name, date);
+	}
+
+	@Override
+	public void setContentLength(long length)
+	{
+		// the length is set when the body is written
+	}
+
+	@Override
+	public void setContentType(String mimeType)
+	{
+		contentType = mimeType;
+		response.setContentType(mimeType);
+	}
+
+	@Override
+	public void setStatus(int sc)
+	{
+		if (sc != HttpServletResponse.SC_OK)
+		{
+			cacheable = false;
+		}
+		response.setStatus(sc);
+	}
+
+	@Override
+	public void sendError(int sc, String msg)
+	{
+		cacheable = false;
+		response.sendError(sc, msg);
+	}
+
+	@Override
+	public String encodeRedirectURL(CharSequence url)
+	{
+		return response.encodeRedirectURL(url);
+	}
+
+	@Override
+	public void sendRedirect(String url)
+	{
+		cacheable = false;
+		response.sendRedirect(url);
+	}
+
+	@Override
+	public boolean isRedirect()
+	{
+		return response.isRedirect();
+	}
+
+	@Override
+	public void flush()
+	{
+		// the body is written when complete
+	}
+
+	@Override
+	public String encodeURL(CharSequence url)
+	{
+		return response.encodeURL(url);
+	}
+
+	@Override
+	public Object getContainerResponse()
+	{
+		return response.getContainerResponse();
+	}
+}
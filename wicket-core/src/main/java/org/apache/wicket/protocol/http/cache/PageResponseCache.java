@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * A cache of the responses of stateless pages.
+ * <p>
+ * Each response expires after its time to live. The size of all cached responses is limited,
+ * least recently used responses are evicted first.
+ *
+ * @see PageResponseCacheMapper
+ */
+public class PageResponseCache
+{
+	private final long maxSize;
+
+	/** entries in access order */
+	private final LinkedHashMap<PageResponseCacheMapper.Key, Entry> entries = new LinkedHashMap<>(16,
+		0.75f, true);
+
+	private long size;
+
+	private long hits;
+
+	private long misses;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxSize
+	 *            maximum size of all cached responses
+	 */
+	public PageResponseCache(Bytes maxSize)
+	{
+		this.maxSize = Args.notNull(maxSize, "maxSize").bytes();
+	}
+
+	/**
+	 * Get a response.
+	 *
+	 * @param key
+	 *            key of the response
+	 * @return entry or {@code null} if not cached or expired
+	 */
+	public synchronized Entry get(PageResponseCacheMapper.Key key)
+	{
+		Entry entry = entries.get(key);
+		if (entry != null && entry.isExpired(System.nanoTime()))
+		{
+			entries.remove(key);
+			size -= entry.body.length;
+			entry = null;
+		}
+
+		if (entry == null)
+		{
+			misses++;
+			return null;
+		}
+
+		hits++;
+		return entry;
+	}
+
+	/**
+	 * Put a response.
+	 *
+	 * @param key
+	 *            key of the response
+	 * @param contentType
+	 *            content type of the response
+	 * @param headers
+	 *            headers set by the page, in the order they were set
+	 * @param body
+	 *            body of the response
+	 * @param timeToLive
+	 *            duration after which the response expires
+	 * @return the cached entry, or {@code null} if the response cannot be cached
+	 */
+	public synchronized Entry put(PageResponseCacheMapper.Key key, String contentType,
+		List<Header> headers, byte[] body, Duration timeToLive)
+	{
+		Args.notNull(key, "key");
+		Args.notNull(headers, "headers");
+		Args.notNull(body, "body");
+		Args.notNull(timeToLive, "timeToLive");
+
+		if (body.length > maxSize || timeToLive.isNegative() || timeToLive.isZero())
+		{
+			return null;
+		}
+
+		Entry entry = new Entry(contentType, headers, body,
+			System.nanoTime() + timeToLive.toNanos());
+
+		Entry old = entries.put(key, entry);
+		if (old != null)
+		{
+			size -= old.body.length;
+		}
+		size += body.length;
+
+		evict();
+
+		return entry;
+	}
+
+	private void evict()
+	{
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (size > maxSize && iterator.hasNext())
+		{
+			Entry entry = iterator.next();
+			iterator.remove();
+			size -= entry.body.length;
+		}
+	}
+
+	/**
+	 * Remove all responses whose key matches the given filter, e.g. all responses of a page class.
+	 *
+	 * @param filter
+	 *            filter of keys
+	 */
+	public synchronized void remove(Predicate<PageResponseCacheMapper.Key> filter)
+	{
+		Iterator<Map.Entry<PageResponseCacheMapper.Key, Entry>> iterator = entries.entrySet()
+			.iterator();
+		while (iterator.hasNext())
+		{
+			Map.Entry<PageResponseCacheMapper.Key, Entry> entry = iterator.next();
+			if (filter.test(entry.getKey()))
+			{
+				iterator.remove();
+				size -= entry.getValue().body.length;
+			}
+		}
+	}
+
+	/**
+	 * Remove all responses.
+	 */
+	public synchronized void clear()
+	{
+		entries.clear();
+		size = 0;
+	}
+
+	/**
+	 * @return size of all cached responses
+	 */
+	public synchronized Bytes getSize()
+	{
+		return Bytes.bytes(size);
+	}
+
+	/**
+	 * @return count of responses served from the cache
+	 */
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+
+	/**
+	 * @return count of responses not found in the cache
+	 */
+	public synchronized long getMissCount()
+	{
+		return misses;
+	}
+
+	/**
+	 * A cached response.
+	 */
+	public static final class Entry
+	{
+		private final String contentType;
+
+		private final List<Header> headers;
+
+		private final byte[] body;
+
+		private final String etag;
+
+		private final Instant lastModified;
+
+		private final long expires;
+
+		private Entry(String contentType, List<Header> headers, byte[] body, long expires)
+		{
+			this.contentType = contentType;
+			this.headers = Collections.unmodifiableList(new ArrayList<>(headers));
+			this.body = body;
+			this.etag = etag(body);
+			// Last-Modified has a precision of one second
+			this.lastModified = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+			this.expires = expires;
+		}
+
+		/**
+		 * @return the content type, may be {@code null}
+		 */
+		public String getContentType()
+		{
+			return contentType;
+		}
+
+		/**
+		 * @return the headers set by the page, in the order they were set
+		 */
+		public List<Header> getHeaders()
+		{
+			return headers;
+		}
+
+		/**
+		 * @return the body, must not be modified
+		 */
+		public byte[] getBody()
+		{
+			return body;
+		}
+
+		/**
+		 * @return the entity tag of the body, including quotes
+		 */
+		public String getETag()
+		{
+			return etag;
+		}
+
+		/**
+		 * @return the time the response was cached
+		 */
+		public Instant getLastModified()
+		{
+			return lastModified;
+		}
+
+		private boolean isExpired(long now)
+		{
+			return now - expires >= 0;
+		}
+
+		private static String etag(byte[] body)
+		{
+			try
+			{
+				MessageDigest digest = MessageDigest.getInstance("MD5");
+				return '"' + Strings.toHexString(digest.digest(body)) + '"';
+			}
+			catch (NoSuchAlgorithmException e)
+			{
+				throw new WicketRuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * A header set by a page while its response was cached.
+	 */
+	public static final class Header
+	{
+		private final String name;
+
+		private final String value;
+
+		private final Instant date;
+
+		private final boolean add;
+
+		/**
+		 * Constructor for a header with a text value.
+		 *
+		 * @param name
+		 *            name of the header
+		 * @param value
+		 *            value of the header
+		 * @param add
+		 *            whether the header was added to existing values instead of replacing them
+		 */
+		public Header(String name, String value, boolean add)
+		{
+			this.name = Args.notNull(name, "name");
+			this.value = value;
+			this.date = null;
+			this.add = add;
+		}
+
+		/**
+		 * Constructor for a header with a date value.
+		 *
+		 * @param name
+		 *            name of the header
+		 * @param date
+		 *            value of the header
+		 */
+		public Header(String name, Instant date)
+		{
+			this.name = Args.notNull(name, "name");
+			this.value = null;
+			this.date = Args.notNull(date, "date");
+			this.add = false;
+		}
+
+		/**
+		 * @return the name of the header
+		 */
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 * Set the header on a response, as the page did.
+		 *
+		 * @param response
+		 *            response to set the header on
+		 */
+		public void writeTo(WebResponse response)
+		{
+			if (date != null)
+			{
+				response.setDateHeader(name, date);
+			}
+			else if (add)
+			{
+				response.addHeader(name, value);
+			}
+			else
+			{
+				response.setHeader(name, value);
+			}
+		}
+	}
+}
@@ -0,0 +1,503 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http.cache;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.Page;
+import org.apache.wicket.Session;
+import org.apache.wicket.core.request.handler.IPageProvider;
+import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
+import org.apache.wicket.request.IRequestCycle;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestHandlerDelegate;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.mapper.IRequestMapperDelegate;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * A {@link IRequestMapper} that caches the responses of stateless bookmarkable pages annotated
+ * with @{@link CacheResponse}.
+ * <p>
+ * Responses are cached by page class, page parameters, locale and style of the session and the
+ * values of the {@link CacheResponse#varyHeaders() request headers} the page depends on. The
+ * headers set by the page are cached along with the body and set again on every response served
+ * from the cache. Cached responses carry an {@code ETag} and a {@code Last-Modified} header,
+ * conditional requests for an unchanged response are answered with {@code 304 Not Modified}.
+ * <p>
+ * Only {@code GET} and {@code HEAD} requests without a bound session are served from the cache,
+ * and only responses of pages that stayed stateless and did neither redirect nor set a cookie are
+ * cached.
+ * <p>
+ * To setup it:
+ *
+ * <pre>
+ * public class MyApplication extends WebApplication
+ * {
+ * 	public void init()
+ * 	{
+ * 		super.init();
+ *
+ * 		mountPage(&quot;home&quot;, HomePage.class);
+ *
+ * 		// notice that in most cases this should be done as the
+ * 		// last mounting-related operation because it replaces the root mapper
+ * 		setRootRequestMapper(new PageResponseCacheMapper(getRootRequestMapper(),
+ * 			new PageResponseCache(Bytes.megabytes(10))));
+ * 	}
+ * }
+ * </pre>
+ */
+public class PageResponseCacheMapper implements IRequestMapperDelegate
+{
+	private final IRequestMapper delegate;
+
+	private final PageResponseCache cache;
+
+	/**
+	 * Constructor
+	 *
+	 * @param delegate
+	 *            mapper resolving the pages
+	 * @param cache
+	 *            cache of the responses
+	 */
+	public PageResponseCacheMapper(IRequestMapper delegate, PageResponseCache cache)
+	{
+		this.delegate = Args.notNull(delegate, "delegate");
+		this.cache = Args.notNull(cache, "cache");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public IRequestMapper getDelegateMapper()
+	{
+		return delegate;
+	}
+
+	/**
+	 * @return the cache of the responses
+	 */
+	public PageResponseCache getCache()
+	{
+		return cache;
+	}
+
+	@Override
+	public final int getCompatibilityScore(Request request)
+	{
+		return delegate.getCompatibilityScore(request);
+	}
+
+	@Override
+	public final IRequestHandler mapRequest(Request request)
+	{
+		IRequestHandler handler = delegate.mapRequest(request);
+
+		if (handler instanceof RenderPageRequestHandler && request instanceof WebRequest)
+		{
+			RenderPageRequestHandler renderHandler = (RenderPageRequestHandler)handler;
+			CacheResponse annotation = getAnnotation(renderHandler);
+			if (annotation != null && isCacheable((WebRequest)request))
+			{
+				Key key = new Key(renderHandler.getPageClass(), renderHandler.getPageParameters(),
+					getVaryHeaderValues((WebRequest)request, annotation.varyHeaders()));
+				handler = new CachingHandler(renderHandler, cache, key,
+					Duration.ofSeconds(annotation.timeToLive()), annotation.varyHeaders());
+			}
+		}
+
+		return handler;
+	}
+
+	@Override
+	public final Url mapHandler(IRequestHandler handler)
+	{
+		if (handler instanceof CachingHandler)
+		{
+			handler = ((CachingHandler)handler).getDelegateHandler();
+		}
+		return delegate.mapHandler(handler);
+	}
+
+	/**
+	 * Get the annotation of the page to be rendered by a bookmarkable url.
+	 *
+	 * @param handler
+	 *            handler rendering a page
+	 * @return annotation or {@code null} if the page is not bookmarkable or not annotated
+	 */
+	private CacheResponse getAnnotation(RenderPageRequestHandler handler)
+	{
+		IPageProvider provider = handler.getPageProvider();
+		if (provider.getPageId() != null || provider.hasPageInstance())
+		{
+			return null;
+		}
+
+		return handler.getPageClass().getAnnotation(CacheResponse.class);
+	}
+
+	/**
+	 * Checks whether a request may be served from the cache. By default only {@code GET} and
+	 * {@code HEAD} requests without a bound session are.
+	 *
+	 * @param request
+	 *            request
+	 * @return {@code true} if cacheable
+	 */
+	protected boolean isCacheable(WebRequest request)
+	{
+		if (request.isAjax())
+		{
+			return false;
+		}
+
+		Object containerRequest = request.getContainerRequest();
+		if (containerRequest instanceof HttpServletRequest)
+		{
+			String method = ((HttpServletRequest)containerRequest).getMethod();
+			if ("GET".equalsIgnoreCase(method) == false && "HEAD".equalsIgnoreCase(method) == false)
+			{
+				return false;
+			}
+		}
+
+		return Session.exists() == false || Session.get().isTemporary();
+	}
+
+	private static List<String> getVaryHeaderValues(WebRequest request, String[] varyHeaders)
+	{
+		List<String> values = new ArrayList<>(varyHeaders.length);
+		for (String header : varyHeaders)
+		{
+			values.add(request.getHeader(header));
+		}
+		return values;
+	}
+
+	/**
+	 * The key of a cached response.
+	 */
+	public static final class Key
+	{
+		private final String pageClass;
+
+		private final PageParameters pageParameters;
+
+		private final Locale locale;
+
+		private final String style;
+
+		private final List<String> headerValues;
+
+		private Key(Class<? extends IRequestablePage> pageClass, PageParameters pageParameters,
+			List<String> headerValues)
+		{
+			this.pageClass = pageClass.getName();
+			this.pageParameters = pageParameters == null ? new PageParameters()
+				: new PageParameters(pageParameters);
+			Session session = Session.get();
+			this.locale = session.getLocale();
+			this.style = session.getStyle();
+			this.headerValues = headerValues;
+		}
+
+		/**
+		 * @return the name of the page class
+		 */
+		public String getPageClass()
+		{
+			return pageClass;
+		}
+
+		/**
+		 * @return the page parameters
+		 */
+		public PageParameters getPageParameters()
+		{
+			return pageParameters;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (this == o)
+			{
+				return true;
+			}
+			if (o instanceof Key == false)
+			{
+				return false;
+			}
+			Key key = (Key)o;
+			return pageClass.equals(key.pageClass) && pageParameters.equals(key.pageParameters) &&
+				Objects.equals(locale, key.locale) && Objects.equals(style, key.style) &&
+				headerValues.equals(key.headerValues);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(pageClass, pageParameters, locale, style, headerValues);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Key [pageClass=" + pageClass + ", pageParameters=" + pageParameters +
+				", locale=" + locale + ", style=" + style + ", headerValues=" + headerValues + "]";
+		}
+	}
+
+	/**
+	 * Handler that serves the response of a page from the cache, or renders the page and caches
+	 * its response.
+	 */
+	public static class CachingHandler implements IRequestHandlerDelegate
+	{
+		private final RenderPageRequestHandler delegate;
+
+		private final PageResponseCache cache;
+
+		private final Key key;
+
+		private final Duration timeToLive;
+
+		private final String[] varyHeaders;
+
+		/**
+		 * Constructor
+		 *
+		 * @param delegate
+		 *            handler rendering the page
+		 * @param cache
+		 *            cache of the responses
+		 * @param key
+		 *            key of the response
+		 * @param timeToLive
+		 *            duration after which the cached response expires
+		 * @param varyHeaders
+		 *            names of request headers the response depends on
+		 */
+		public CachingHandler(RenderPageRequestHandler delegate, PageResponseCache cache, Key key,
+			Duration timeToLive, String[] varyHeaders)
+		{
+			this.delegate = Args.notNull(delegate, "delegate");
+			this.cache = Args.notNull(cache, "cache");
+			this.key = Args.notNull(key, "key");
+			this.timeToLive = Args.notNull(timeToLive, "timeToLive");
+			this.varyHeaders = Args.notNull(varyHeaders, "varyHeaders");
+		}
+
+		@Override
+		public RenderPageRequestHandler getDelegateHandler()
+		{
+			return delegate;
+		}
+
+		@Override
+		public void respond(IRequestCycle requestCycle)
+		{
+			WebRequest request = (WebRequest)requestCycle.getRequest();
+			WebResponse response = (WebResponse)requestCycle.getResponse();
+
+			PageResponseCache.Entry entry = cache.get(key);
+			if (entry != null)
+			{
+				for (PageResponseCache.Header header : entry.getHeaders())
+				{
+					header.writeTo(response);
+				}
+				write(entry, request, response);
+				return;
+			}
+
+			CapturingWebResponse capturingResponse = new CapturingWebResponse(response);
+			RequestCycle cycle = (RequestCycle)requestCycle;
+			cycle.setResponse(capturingResponse);
+			try
+			{
+				delegate.respond(requestCycle);
+			}
+			finally
+			{
+				cycle.setResponse(response);
+			}
+
+			if (isStorable(cycle, capturingResponse))
+			{
+				entry = cache.put(key, capturingResponse.getContentType(),
+					capturingResponse.getHeaders(), getBody(capturingResponse), timeToLive);
+			}
+
+			if (entry != null)
+			{
+				write(entry, request, response);
+			}
+			else
+			{
+				capturingResponse.writeTo();
+			}
+		}
+
+		private boolean isStorable(RequestCycle cycle, CapturingWebResponse response)
+		{
+			if (response.isCacheable() == false ||
+				cycle.getRequestHandlerScheduledAfterCurrent() != null)
+			{
+				return false;
+			}
+
+			if (delegate.isPageInstanceCreated() == false ||
+				delegate.getPage() instanceof Page == false ||
+				((Page)delegate.getPage()).isPageStateless() == false)
+			{
+				return false;
+			}
+
+			if (Session.exists() && Session.get().isTemporary() == false)
+			{
+				return false;
+			}
+
+			return response.getText().length() > 0 || response.getBytes().length > 0;
+		}
+
+		private static byte[] getBody(CapturingWebResponse response)
+		{
+			CharSequence text = response.getText();
+			if (text.length() == 0)
+			{
+				return response.getBytes();
+			}
+
+			return text.toString().getBytes(getCharset(response.getContentType()));
+		}
+
+		private static Charset getCharset(String contentType)
+		{
+			if (contentType != null)
+			{
+				int index = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+				if (index != -1)
+				{
+					String name = contentType.substring(index + "charset=".length());
+					int end = name.indexOf(';');
+					if (end != -1)
+					{
+						name = name.substring(0, end);
+					}
+					try
+					{
+						return Charset.forName(name.trim().replace("\"", ""));
+					}
+					catch (IllegalCharsetNameException | UnsupportedCharsetException e)
+					{
+						// fall back to the default encoding
+					}
+				}
+			}
+
+			return Charset.forName(
+				Application.get().getRequestCycleSettings().getResponseRequestEncoding());
+		}
+
+		private void write(PageResponseCache.Entry entry, WebRequest request,
+			WebResponse response)
+		{
+			if (entry.getContentType() != null)
+			{
+				response.setContentType(entry.getContentType());
+			}
+			response.setHeader("ETag", entry.getETag());
+			response.setLastModifiedTime(entry.getLastModified());
+			// let clients revalidate on every request
+			response.setHeader("Cache-Control", "no-cache");
+			if (varyHeaders.length > 0)
+			{
+				response.setHeader("Vary", String.join(", ", Arrays.asList(varyHeaders)));
+			}
+
+			if (isNotModified(entry, request))
+			{
+				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+
+			byte[] body = entry.getBody();
+			response.setContentLength(body.length);
+			response.write(body);
+		}
+
+		private static boolean isNotModified(PageResponseCache.Entry entry, WebRequest request)
+		{
+			String ifNoneMatch = request.getHeader("If-None-Match");
+			if (ifNoneMatch != null)
+			{
+				for (String etag : Strings.split(ifNoneMatch, ','))
+				{
+					etag = etag.trim();
+					if (etag.startsWith("W/"))
+					{
+						etag = etag.substring(2);
+					}
+					if (etag.equals("*") || etag.equals(entry.getETag()))
+					{
+						return true;
+					}
+				}
+				// If-Modified-Since is ignored when If-None-Match is present
+				return false;
+			}
+
+			Instant ifModifiedSince = request.getIfModifiedSinceHeader();
+			return ifModifiedSince != null && entry.getLastModified()
+				.isAfter(ifModifiedSince.truncatedTo(ChronoUnit.SECONDS)) == false;
+		}
+
+		@Override
+		public void detach(IRequestCycle requestCycle)
+		{
+			delegate.detach(requestCycle);
+		}
+	}
+}
@@ -20,6 +20,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -309,7 +310,7 @@ public class MockHttpServletResponse implements HttpServletResponse, IMetaDataBu
 	{
 		if (mode == MODE_BINARY)
 		{
-			return new String(byteStream.toByteArray());
+			return new String(byteStream.toByteArray(), Charset.forName(characterEncoding));
 		}
 		else
 		{
@@ -113,6 +113,26 @@ public class ServletWebResponse extends WebResponse
 		}
 	}
 
+	@Override
+	public void write(CharSequence sequence, int start, int end)
+	{
+		try
+		{
+			if (sequence instanceof String)
+			{
+				httpServletResponse.getWriter().write((String)sequence, start, end - start);
+			}
+			else
+			{
+				httpServletResponse.getWriter().append(sequence, start, end);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new ResponseIOException(e);
+		}
+	}
+
 	@Override
 	public void write(byte[] array)
 	{
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.cycle;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.wicket.core.request.handler.BookmarkableListenerRequestHandler;
+import org.apache.wicket.core.request.handler.IPageRequestHandler;
+import org.apache.wicket.core.request.handler.ListenerRequestHandler;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.Url.QueryParameter;
+import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.mapper.info.ComponentInfo;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+
+/**
+ * Memoizes the urls of listener request handlers for the duration of a request.
+ * <p>
+ * Urls of {@link ListenerRequestHandler}s and {@link BookmarkableListenerRequestHandler}s for the
+ * same page instance, page id, render count, behavior index and page parameters differ in the component
+ * path only, e.g. for the links in the rows of a repeater. The first url mapped for such a
+ * combination is kept as a template, following urls are created by copying the template and
+ * replacing the component path in its page component info parameter.
+ * <p>
+ * A template is used only if the first url contains the component path in a query parameter and
+ * the second url mapped by the request mapper is equal to the one created from the template, so
+ * request mappers encoding urls differently, e.g. encrypting them with a
+ * {@link org.apache.wicket.core.request.mapper.CryptoMapper}, are always asked to map the handler.
+ */
+final class ListenerUrlTemplates
+{
+	/** marks handlers whose urls cannot be created from a template */
+	private static final Template NONE = new Template(null, -1, null);
+
+	private final Map<Key, Template> templates = new HashMap<>();
+
+	/**
+	 * Map the handler to an url, using a template if possible.
+	 * 
+	 * @param handler
+	 *            handler to map
+	 * @param mapper
+	 *            mapper to map the handler with
+	 * @return url or {@code null}
+	 */
+	Url mapHandler(final IRequestHandler handler, final IRequestMapper mapper)
+	{
+		Key key = Key.of(handler);
+		if (key == null)
+		{
+			return mapper.mapHandler(handler);
+		}
+
+		String suffix = new ComponentInfo(null, componentPath(handler), null).toString();
+
+		Template template = templates.get(key);
+		if (template == null)
+		{
+			Url url = mapper.mapHandler(handler);
+			templates.put(key.copy(), Template.of(url, suffix));
+			return url;
+		}
+		else if (template == NONE)
+		{
+			return mapper.mapHandler(handler);
+		}
+
+		Url url = template.apply(suffix);
+		if (template.verified == false)
+		{
+			Url mapped = mapper.mapHandler(handler);
+			if (isEqual(url, mapped) == false)
+			{
+				templates.put(key.copy(), NONE);
+				return mapped;
+			}
+			template.verified = true;
+		}
+		return url;
+	}
+
+	/**
+	 * Remove all templates.
+	 */
+	void clear()
+	{
+		templates.clear();
+	}
+
+	private static String componentPath(final IRequestHandler handler)
+	{
+		if (handler instanceof ListenerRequestHandler)
+		{
+			return ((ListenerRequestHandler)handler).getComponentPath();
+		}
+		return ((BookmarkableListenerRequestHandler)handler).getComponentPath();
+	}
+
+	private static Url copy(final Url url)
+	{
+		Url copy = new Url(url);
+		copy.setFragment(url.getFragment());
+		copy.setContextRelative(url.isContextRelative());
+		return copy;
+	}
+
+	private static boolean isEqual(final Url url, final Url other)
+	{
+		return other != null && url.equals(other) &&
+			Objects.equals(url.getProtocol(), other.getProtocol()) &&
+			Objects.equals(url.getHost(), other.getHost()) &&
+			Objects.equals(url.getPort(), other.getPort()) &&
+			url.isContextRelative() == other.isContextRelative();
+	}
+
+	/**
+	 * A mapped url with the index of the query parameter holding the page component info.
+	 */
+	private static final class Template
+	{
+		private final Url url;
+
+		private final int index;
+
+		/** parameter name up to the component path */
+		private final String prefix;
+
+		private boolean verified;
+
+		private Template(final Url url, final int index, final String prefix)
+		{
+			this.url = url;
+			this.index = index;
+			this.prefix = prefix;
+		}
+
+		static Template of(final Url url, final String suffix)
+		{
+			if (url == null)
+			{
+				return NONE;
+			}
+
+			List<QueryParameter> parameters = url.getQueryParameters();
+			for (int i = 0; i < parameters.size(); i++)
+			{
+				QueryParameter parameter = parameters.get(i);
+				String name = parameter.getName();
+				if (parameter.getValue().isEmpty() && name.endsWith(suffix))
+				{
+					return new Template(copy(url), i,
+						name.substring(0, name.length() - suffix.length()));
+				}
+			}
+			return NONE;
+		}
+
+		Url apply(final String suffix)
+		{
+			Url result = copy(url);
+			result.getQueryParameters().set(index, new QueryParameter(prefix + suffix, ""));
+			return result;
+		}
+	}
+
+	/**
+	 * Everything but the component path a listener url depends on.
+	 */
+	private static final class Key
+	{
+		private final Class<?> handlerClass;
+
+		private final IRequestablePage page;
+
+		private final int pageId;
+
+		private final boolean stateless;
+
+		private final Integer renderCount;
+
+		private final Integer behaviorIndex;
+
+		private final PageParameters parameters;
+
+		private Key(final Class<?> handlerClass, final IRequestablePage page, final int pageId,
+			final boolean stateless, final Integer renderCount, final Integer behaviorIndex,
+			final PageParameters parameters)
+		{
+			this.handlerClass = handlerClass;
+			this.page = page;
+			this.pageId = pageId;
+			this.stateless = stateless;
+			this.renderCount = renderCount;
+			this.behaviorIndex = behaviorIndex;
+			this.parameters = parameters;
+		}
+
+		static Key of(final IRequestHandler handler)
+		{
+			boolean includeRenderCount;
+			Integer behaviorIndex;
+			if (handler instanceof ListenerRequestHandler)
+			{
+				ListenerRequestHandler listener = (ListenerRequestHandler)handler;
+				if (listener.isPageInstanceCreated() == false)
+				{
+					return null;
+				}
+				includeRenderCount = listener.includeRenderCount();
+				behaviorIndex = listener.getBehaviorIndex();
+			}
+			else if (handler instanceof BookmarkableListenerRequestHandler)
+			{
+				BookmarkableListenerRequestHandler listener = (BookmarkableListenerRequestHandler)handler;
+				if (listener.isPageInstanceCreated() == false)
+				{
+					return null;
+				}
+				includeRenderCount = listener.includeRenderCount();
+				behaviorIndex = listener.getBehaviorIndex();
+			}
+			else
+			{
+				return null;
+			}
+
+			IRequestablePage page = ((IPageRequestHandler)handler).getPage();
+			return new Key(handler.getClass(), page, page.getPageId(), page.isPageStateless(),
+				includeRenderCount ? page.getRenderCount() : null, behaviorIndex,
+				((IPageRequestHandler)handler).getPageParameters());
+		}
+
+		/**
+		 * @return copy not affected by changes of the page parameters
+		 */
+		Key copy()
+		{
+			return new Key(handlerClass, page, pageId, stateless, renderCount, behaviorIndex,
+				parameters != null ? new PageParameters(parameters) : null);
+		}
+
+		@Override
+		public boolean equals(final Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (obj instanceof Key == false)
+			{
+				return false;
+			}
+			Key other = (Key)obj;
+			return handlerClass == other.handlerClass && page == other.page &&
+				pageId == other.pageId &&
+				stateless == other.stateless && Objects.equals(renderCount, other.renderCount) &&
+				Objects.equals(behaviorIndex, other.behaviorIndex) &&
+				Objects.equals(parameters, other.parameters);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(handlerClass, System.identityHashCode(page), pageId, stateless,
+				renderCount, behaviorIndex, parameters);
+		}
+	}
+}
@@ -114,6 +114,9 @@ public class RequestCycle implements IRequestCycle, IEventSink, IMetadataContext
 
 	private UrlRenderer urlRenderer;
 
+	/** templates of listener urls, created lazily */
+	private ListenerUrlTemplates listenerUrlTemplates;
+
 	/** MetaDataEntry array. */
 	private MetaDataEntry<?>[] metaData;
 
@@ -444,6 +447,10 @@ public class RequestCycle implements IRequestCycle, IEventSink, IMetadataContext
 	 * probably need URL relative to the currently used page, for this use
 	 * {@linkplain #urlFor(org.apache.wicket.request.IRequestHandler)}
 	 * </p>
+	 * <p>
+	 * Urls of listeners on the same page differing in their component path only are created from
+	 * a template, so repeaters rendering many links do not need to map each of them.
+	 * </p>
 	 * 
 	 * @param handler
 	 *            the {@link IRequestHandler request handler} for which to create a callback url
@@ -451,7 +458,11 @@ public class RequestCycle implements IRequestCycle, IEventSink, IMetadataContext
 	 */
 	public Url mapUrlFor(IRequestHandler handler)
 	{
-		final Url url = requestMapper.mapHandler(handler);
+		if (listenerUrlTemplates == null)
+		{
+			listenerUrlTemplates = new ListenerUrlTemplates();
+		}
+		final Url url = listenerUrlTemplates.mapHandler(handler, requestMapper);
 		listeners.onUrlMapped(this, handler, url);
 		return url;
 	}
@@ -669,6 +680,11 @@ public class RequestCycle implements IRequestCycle, IEventSink, IMetadataContext
 			listeners.onDetach(this);
 		}
 
+		if (listenerUrlTemplates != null)
+		{
+			listenerUrlTemplates.clear();
+		}
+
 		if (Session.exists())
 		{
 			Session.get().detach();
@@ -81,7 +81,13 @@ public abstract class PageRenderer
 	protected boolean isOnePassRender()
 	{
 		return Application.get().getRequestCycleSettings().getRenderStrategy() ==
-				RequestCycleSettings.RenderStrategy.ONE_PASS_RENDER;
+				RequestCycleSettings.RenderStrategy.ONE_PASS_RENDER || isStreamingRender();
+	}
+
+	protected boolean isStreamingRender()
+	{
+		return Application.get().getRequestCycleSettings().getRenderStrategy() ==
+				RequestCycleSettings.RenderStrategy.STREAMING_RENDER;
 	}
 
 	protected boolean isRedirectToRender()
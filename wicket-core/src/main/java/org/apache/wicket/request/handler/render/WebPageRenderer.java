@@ -25,6 +25,7 @@ import org.apache.wicket.core.request.handler.RenderPageRequestHandler.RedirectP
 import org.apache.wicket.feedback.FeedbackCollector;
 import org.apache.wicket.feedback.FeedbackMessage;
 import org.apache.wicket.protocol.http.BufferedWebResponse;
+import org.apache.wicket.protocol.http.StreamingWebResponse;
 import org.apache.wicket.protocol.http.WebApplication;
 import org.apache.wicket.request.IRequestHandler;
 import org.apache.wicket.request.Request;
@@ -33,6 +34,7 @@ import org.apache.wicket.request.component.IRequestablePage;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.settings.RequestCycleSettings.RenderStrategy;
 import org.apache.wicket.util.lang.Objects;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -147,6 +149,112 @@ public class WebPageRenderer extends PageRenderer
 		}
 	}
 
+	/**
+	 * Renders page to a {@link StreamingWebResponse}, i.e. directly to the response of the request
+	 * cycle once the head has been rendered. All URLs in page will be rendered relative to
+	 * <code>targetUrl</code>
+	 * 
+	 * @param targetUrl
+	 * @param requestCycle
+	 * 
+	 * @see #onStreamingException(RequestCycle, RuntimeException)
+	 */
+	protected void streamPage(Url targetUrl, RequestCycle requestCycle)
+	{
+		// get the page before checking for a scheduled request handler because
+		// the page may call setResponsePage in its constructor
+		IRequestablePage requestablePage = getPage();
+
+		IRequestHandler scheduled = requestCycle.getRequestHandlerScheduledAfterCurrent();
+
+		if (scheduled != null)
+		{
+			// no need to render
+			return;
+		}
+
+		// keep the original response
+		final WebResponse originalResponse = (WebResponse)requestCycle.getResponse();
+
+		StreamingWebResponse response = new StreamingWebResponse(originalResponse);
+
+		// keep the original base URL
+		Url originalBaseUrl = requestCycle.getUrlRenderer().setBaseUrl(targetUrl);
+
+		try
+		{
+			requestCycle.setResponse(response);
+			try
+			{
+				requestablePage.renderPage();
+			}
+			catch (RuntimeException ex)
+			{
+				if (response.isStreaming() == false)
+				{
+					// nothing written yet, let the request cycle handle it
+					throw ex;
+				}
+
+				onStreamingException(requestCycle, ex);
+				return;
+			}
+
+			if (requestCycle.getRequestHandlerScheduledAfterCurrent() != null)
+			{
+				if (response.isStreaming() == false)
+				{
+					// see #renderPage()
+					originalResponse.reset();
+					response.writeMetaData(originalResponse);
+					return;
+				}
+
+				logger.warn(
+					"A request handler was scheduled while page {} was streamed, it is ignored",
+					requestablePage.getClass().getName());
+				requestCycle.scheduleRequestHandlerAfterCurrent(null);
+			}
+
+			// the page might not have a head
+			response.stream(false);
+		}
+		finally
+		{
+			// restore original response and base URL
+			requestCycle.setResponse(originalResponse);
+			requestCycle.getUrlRenderer().setBaseUrl(originalBaseUrl);
+		}
+	}
+
+	/**
+	 * Should the page be streamed instead of rendered to a buffer.
+	 * 
+	 * @param requestCycle
+	 * @return <code>true</code> for {@link RenderStrategy#STREAMING_RENDER}
+	 */
+	protected boolean shouldStreamPage(RequestCycle requestCycle)
+	{
+		return isStreamingRender() && requestCycle.getResponse() instanceof WebResponse;
+	}
+
+	/**
+	 * Called when an exception occurs while the page is streamed and parts of it have already been
+	 * written to the client. The response cannot be replaced with an error page anymore, so by
+	 * default the exception is logged and the registered request cycle listeners are notified,
+	 * leaving the client with a partial page.
+	 * 
+	 * @param requestCycle
+	 * @param exception
+	 */
+	protected void onStreamingException(RequestCycle requestCycle, RuntimeException exception)
+	{
+		logger.error("Error while streaming page, the response is incomplete. URL=" +
+			requestCycle.getRequest().getUrl(), exception);
+
+		requestCycle.getListeners().onException(requestCycle, exception);
+	}
+
 	/**
 	 * 
 	 * @param url
@@ -192,10 +300,17 @@ public class WebPageRenderer extends PageRenderer
 
 		if (shouldRenderPageAndWriteResponse(requestCycle, currentUrl, targetUrl))
 		{
-			BufferedWebResponse response = renderPage(currentUrl, requestCycle);
-			if (response != null)
+			if (shouldStreamPage(requestCycle))
 			{
-				response.writeTo((WebResponse)requestCycle.getResponse());
+				streamPage(currentUrl, requestCycle);
+			}
+			else
+			{
+				BufferedWebResponse response = renderPage(currentUrl, requestCycle);
+				if (response != null)
+				{
+					response.writeTo((WebResponse)requestCycle.getResponse());
+				}
 			}
 		}
 		else if (shouldRedirectToTargetUrl(requestCycle, currentUrl, targetUrl))
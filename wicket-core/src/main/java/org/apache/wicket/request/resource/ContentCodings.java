@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * Utility to negotiate content codings with the {@code Accept-Encoding} request header.
+ */
+public final class ContentCodings
+{
+	/** header sent by clients */
+	public static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+	/** header sent with encoded content */
+	public static final String CONTENT_ENCODING = "Content-Encoding";
+
+	/** header announcing that the content depends on the accepted encoding */
+	public static final String VARY = "Vary";
+
+	private ContentCodings()
+	{
+	}
+
+	/**
+	 * Get the codings accepted by the client of a request, i.e. the value of its
+	 * {@code Accept-Encoding} header.
+	 *
+	 * @param request
+	 *            the request
+	 * @return value of the {@code Accept-Encoding} header, may be {@code null}
+	 */
+	public static String getAcceptEncoding(Request request)
+	{
+		if (request instanceof WebRequest)
+		{
+			return ((WebRequest)request).getHeader(ACCEPT_ENCODING);
+		}
+		return null;
+	}
+
+	/**
+	 * Get the codings accepted by the client. Codings with a quality of zero are not accepted,
+	 * codings not mentioned are accepted only if the wildcard {@code *} is.
+	 *
+	 * @param acceptEncoding
+	 *            value of the {@code Accept-Encoding} header, may be {@code null}
+	 * @param codings
+	 *            codings in order of preference, e.g. {@code "br"} and {@code "gzip"}
+	 * @return accepted codings, in order of preference
+	 */
+	public static List<String> getAccepted(String acceptEncoding, List<String> codings)
+	{
+		if (Strings.isEmpty(acceptEncoding) || codings.isEmpty())
+		{
+			return Collections.emptyList();
+		}
+
+		Map<String, Boolean> accepted = new HashMap<>();
+		for (String coding : Strings.split(acceptEncoding, ','))
+		{
+			String[] parts = Strings.split(coding, ';');
+			String name = parts[0].trim().toLowerCase(Locale.ROOT);
+			boolean acceptable = true;
+			for (int p = 1; p < parts.length; p++)
+			{
+				String parameter = parts[p].trim();
+				if (parameter.startsWith("q="))
+				{
+					try
+					{
+						acceptable = Double.parseDouble(parameter.substring(2)) > 0;
+					}
+					catch (NumberFormatException ex)
+					{
+						acceptable = false;
+					}
+				}
+			}
+			accepted.put(name, acceptable);
+		}
+
+		List<String> result = new ArrayList<>(codings.size());
+		for (String coding : codings)
+		{
+			Boolean acceptable = accepted.get(coding.toLowerCase(Locale.ROOT));
+			if (acceptable == null)
+			{
+				acceptable = accepted.get("*");
+			}
+			if (Boolean.TRUE.equals(acceptable))
+			{
+				result.add(coding);
+			}
+		}
+		return result;
+	}
+}
@@ -20,12 +20,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 
+import org.apache.wicket.Application;
 import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.core.util.resource.WebExternalResourceStream;
+import org.apache.wicket.protocol.http.WebApplication;
 import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
 import org.apache.wicket.util.io.IOUtils;
 import org.apache.wicket.util.io.Streams;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
 import org.slf4j.Logger;
@@ -97,6 +100,33 @@ public class ContextRelativeResource extends AbstractResource implements IStatic
 		resourceResponse.setContentType(webExternalResourceStream.getContentType());
 		resourceResponse.setLastModified(webExternalResourceStream.lastModifiedTime());
 		resourceResponse.setFileName(path);
+
+		PrecompressedVariants precompressedVariants = Application.get()
+			.getResourceSettings()
+			.getPrecompressedVariants();
+		if (precompressedVariants != null)
+		{
+			resourceResponse.getHeaders().setHeader(ContentCodings.VARY,
+				ContentCodings.ACCEPT_ENCODING);
+
+			PrecompressedVariants.Variant variant = precompressedVariants.find(
+				ContentCodings.getAcceptEncoding(attributes.getRequest()),
+				WebApplication.get().getServletContext(), path);
+			if (variant != null)
+			{
+				resourceResponse.getHeaders().setHeader(ContentCodings.CONTENT_ENCODING,
+					variant.getCoding());
+				Bytes length = variant.getResourceStream().length();
+				if (length != null)
+				{
+					resourceResponse.setContentLength(length.bytes());
+				}
+				resourceResponse.setWriteCallback(
+					new ResourceStreamWriteCallback(variant.getResourceStream()));
+				return resourceResponse;
+			}
+		}
+
 		resourceResponse.setWriteCallback(new WriteCallback()
 		{
 			@Override
@@ -23,6 +23,8 @@ import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import javax.servlet.http.HttpServletResponse;
@@ -38,10 +40,12 @@ import org.apache.wicket.mock.MockWebRequest;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
+import org.apache.wicket.resource.IContentEncoder;
 import org.apache.wicket.resource.IScopeAwareTextResourceProcessor;
 import org.apache.wicket.resource.ITextResourceCompressor;
 import org.apache.wicket.response.StringResponse;
 import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.lang.Classes;
 import org.apache.wicket.util.lang.Packages;
 import org.apache.wicket.util.resource.IFixedLocationResourceStream;
@@ -49,6 +53,7 @@ import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
 import org.apache.wicket.util.resource.ResourceStreamWrapper;
 import org.apache.wicket.util.string.Strings;
+import org.apache.wicket.util.watch.IModificationWatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -333,6 +338,17 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 
 		resourceResponse.setLastModified(lastModified);
 
+		// the content may be encoded depending on the request
+		final List<IContentEncoder> encoders = getContentEncoders(resourceStream);
+		final PrecompressedVariants precompressedVariants = Application.get()
+			.getResourceSettings()
+			.getPrecompressedVariants();
+		if (encoders.isEmpty() == false || precompressedVariants != null)
+		{
+			resourceResponse.getHeaders().setHeader(ContentCodings.VARY,
+				ContentCodings.ACCEPT_ENCODING);
+		}
+
 		if (resourceResponse.dataNeedsToBeWritten(attributes))
 		{
 			String contentType = resourceStream.getContentType();
@@ -353,6 +369,23 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 
 			try
 			{
+				// get content range information
+				RequestCycle cycle = RequestCycle.get();
+				Long startbyte = cycle.getMetaData(CONTENT_RANGE_STARTBYTE);
+				Long endbyte = cycle.getMetaData(CONTENT_RANGE_ENDBYTE);
+
+				// send a precompressed variant as it is
+				if (precompressedVariants != null && startbyte == null && endbyte == null &&
+					isPrecompressedVariantAllowed())
+				{
+					PrecompressedVariants.Variant variant = precompressedVariants.find(
+						ContentCodings.getAcceptEncoding(attributes.getRequest()), resourceStream);
+					if (variant != null)
+					{
+						return respondVariant(variant, resourceResponse);
+					}
+				}
+
 				// read resource data to get the content length
 				InputStream inputStream = resourceStream.getInputStream();
 
@@ -361,6 +394,13 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 				if (readBuffered)
 				{
 					bytes = IOUtils.toByteArray(inputStream);
+
+					if (startbyte == null && endbyte == null)
+					{
+						bytes = encode(attributes, resourceStream, encoders, bytes,
+							resourceResponse);
+					}
+
 					resourceResponse.setContentLength(bytes.length);
 				}
 				else
@@ -368,11 +408,6 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 					resourceResponse.setContentLength(resourceStream.length().bytes());
 				}
 
-				// get content range information
-				RequestCycle cycle = RequestCycle.get();
-				Long startbyte = cycle.getMetaData(CONTENT_RANGE_STARTBYTE);
-				Long endbyte = cycle.getMetaData(CONTENT_RANGE_ENDBYTE);
-
 				// send response body with resource data
 				PartWriterCallback partWriterCallback = new PartWriterCallback(bytes != null
 					? new ByteArrayInputStream(bytes) : inputStream,
@@ -411,6 +446,132 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 		return resourceResponse;
 	}
 
+	/**
+	 * Get the encoders applicable to the given resource stream.
+	 *
+	 * @param resourceStream
+	 *            resource stream
+	 * @return encoders, empty if the content of the stream is not cached
+	 */
+	private List<IContentEncoder> getContentEncoders(final IResourceStream resourceStream)
+	{
+		if (resourceStream instanceof ProcessingResourceStream &&
+			((ProcessingResourceStream)resourceStream).isCacheable())
+		{
+			return Application.get().getResourceSettings().getContentEncoders();
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Encode the content with the first encoder accepted by the client.
+	 *
+	 * @return the encoded content or the original content if no encoder is accepted
+	 */
+	private byte[] encode(final Attributes attributes, final IResourceStream resourceStream,
+		final List<IContentEncoder> encoders, final byte[] original,
+		final ResourceResponse resourceResponse)
+	{
+		if (encoders.isEmpty())
+		{
+			return original;
+		}
+
+		IContentEncoder encoder = ProcessedResourceCache.selectEncoder(
+			ContentCodings.getAcceptEncoding(attributes.getRequest()), encoders);
+		if (encoder == null)
+		{
+			return original;
+		}
+
+		byte[] encoded = ((ProcessingResourceStream)resourceStream).getEncoded(encoder);
+		if (encoded == null)
+		{
+			return original;
+		}
+
+		resourceResponse.getHeaders().setHeader(ContentCodings.CONTENT_ENCODING,
+			encoder.getName());
+		return encoded;
+	}
+
+	/**
+	 * Whether a precompressed variant may be sent instead of the resource. Variants are sent as
+	 * they are, so by default this is only the case if the resource is neither compressed with a
+	 * {@link #getCompressor() compressor}, e.g. a {@link org.apache.wicket.resource.CssUrlReplacer},
+	 * nor processed by an overridden {@link #processResponse(Attributes, byte[])} or
+	 * {@link #compressResponse(Attributes, byte[])}.
+	 *
+	 * @return {@code true} if a precompressed variant may be sent
+	 */
+	protected boolean isPrecompressedVariantAllowed()
+	{
+		if (getCompress() && getCompressor() != null)
+		{
+			return false;
+		}
+
+		for (Class<?> type = getClass(); type != PackageResource.class; type = type
+			.getSuperclass())
+		{
+			try
+			{
+				type.getDeclaredMethod("processResponse", Attributes.class, byte[].class);
+				return false;
+			}
+			catch (NoSuchMethodException e)
+			{
+				// not overridden here
+			}
+
+			try
+			{
+				type.getDeclaredMethod("compressResponse", Attributes.class, byte[].class);
+				return false;
+			}
+			catch (NoSuchMethodException e)
+			{
+				// not overridden here
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Respond with a precompressed variant.
+	 */
+	private ResourceResponse respondVariant(final PrecompressedVariants.Variant variant,
+		final ResourceResponse resourceResponse)
+	{
+		IResourceStream variantStream = variant.getResourceStream();
+
+		resourceResponse.getHeaders().setHeader(ContentCodings.CONTENT_ENCODING,
+			variant.getCoding());
+		Bytes length = variantStream.length();
+		if (length != null)
+		{
+			resourceResponse.setContentLength(length.bytes());
+		}
+		resourceResponse.setWriteCallback(new ResourceStreamWriteCallback(variantStream));
+		return resourceResponse;
+	}
+
+	/**
+	 * Whether the output of {@link #processResponse(Attributes, byte[])} can be cached in the
+	 * {@link org.apache.wicket.settings.ResourceSettings#getProcessedResourceCache() processed
+	 * resource cache}. By default this is the case for resources compressed with a
+	 * {@link #getCompressor() compressor}.
+	 * <p>
+	 * Subclasses that process the response depending on the current request should return
+	 * {@code false}.
+	 *
+	 * @return {@code true} if the processed response can be cached
+	 */
+	protected boolean isProcessedResponseCacheable()
+	{
+		return getCompress() && getCompressor() != null;
+	}
+
 	/**
 	 * Gives a chance to modify the resource going to be written in the response
 	 * 
@@ -588,7 +749,9 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 
 		if (resourceStream != null)
 		{
-			resourceStream = new ProcessingResourceStream(resourceStream);
+			resourceStream = new ProcessingResourceStream(resourceStream,
+				new ProcessedCacheKey(getClass().getName(),
+					new CacheKey(scopeName, absolutePath, locale, style, variation)));
 		}
 		return resourceStream;
 	}
@@ -600,14 +763,60 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 	{
 		private static final long serialVersionUID = 1L;
 
-		private ProcessingResourceStream(IResourceStream delegate)
+		private final ProcessedCacheKey cacheKey;
+
+		private ProcessingResourceStream(IResourceStream delegate, ProcessedCacheKey cacheKey)
 		{
 			super(delegate);
+
+			this.cacheKey = cacheKey;
+		}
+
+		/**
+		 * @return cache for processed content or {@code null} if content is not cacheable
+		 */
+		private ProcessedResourceCache getCache()
+		{
+			if (readBuffered && isProcessedResponseCacheable())
+			{
+				return Application.get().getResourceSettings().getProcessedResourceCache();
+			}
+			return null;
+		}
+
+		private boolean isCacheable()
+		{
+			return getCache() != null;
+		}
+
+		/**
+		 * @return content encoded with the given encoder, or {@code null} if not cached
+		 */
+		private byte[] getEncoded(IContentEncoder encoder)
+		{
+			ProcessedResourceCache cache = getCache();
+			if (cache == null)
+			{
+				return null;
+			}
+			return cache.getEncoded(cacheKey, lastModifiedTime(), encoder);
 		}
 
 		@Override
 		public InputStream getInputStream() throws ResourceStreamNotFoundException
 		{
+			ProcessedResourceCache cache = getCache();
+			Instant lastModified = null;
+			if (cache != null)
+			{
+				lastModified = lastModifiedTime();
+				byte[] cached = cache.get(cacheKey, lastModified);
+				if (cached != null)
+				{
+					return new ByteArrayInputStream(cached);
+				}
+			}
+
 			byte[] bytes = null;
 			InputStream inputStream = super.getInputStream();
 
@@ -641,6 +850,10 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 			if (bytes != null)
 			{
 				byte[] processedBytes = processResponse(attributes, bytes);
+				if (cache != null && cache.put(cacheKey, lastModified, processedBytes))
+				{
+					watch(cache);
+				}
 				return new ByteArrayInputStream(processedBytes);
 			}
 			else
@@ -648,6 +861,24 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 				return inputStream;
 			}
 		}
+
+		/**
+		 * Remove the processed content from the cache as soon as the resource is modified.
+		 */
+		private void watch(ProcessedResourceCache cache)
+		{
+			IModificationWatcher watcher = Application.get()
+				.getResourceSettings()
+				.getResourceWatcher(true);
+			if (watcher != null)
+			{
+				IResourceStream delegate = getDelegate();
+				watcher.add(delegate, modifiable -> {
+					watcher.remove(delegate);
+					cache.remove(cacheKey);
+				});
+			}
+		}
 	}
 
 	/**
@@ -837,6 +1068,48 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 		}
 	}
 
+	/**
+	 * Key of processed content, which depends on the class of the resource too, since subclasses
+	 * may use their own compressor.
+	 */
+	private static class ProcessedCacheKey implements Serializable
+	{
+		private final String resourceClassName;
+		private final CacheKey cacheKey;
+
+		public ProcessedCacheKey(String resourceClassName, CacheKey cacheKey)
+		{
+			this.resourceClassName = resourceClassName;
+			this.cacheKey = cacheKey;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (this == o)
+				return true;
+			if (!(o instanceof ProcessedCacheKey))
+				return false;
+
+			ProcessedCacheKey that = (ProcessedCacheKey)o;
+
+			return resourceClassName.equals(that.resourceClassName) &&
+				cacheKey.equals(that.cacheKey);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * resourceClassName.hashCode() + cacheKey.hashCode();
+		}
+
+		@Override
+		public String toString()
+		{
+			return resourceClassName + ":" + cacheKey;
+		}
+	}
+
 	/**
 	 * If the package resource should be read buffered.<br>
 	 * <br>
@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.ServletContext;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.core.util.resource.UrlResourceStream;
+import org.apache.wicket.util.io.Connections;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.resource.FileResourceStream;
+import org.apache.wicket.util.resource.FileSystemResourceStream;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.ResourceStreamWrapper;
+import org.apache.wicket.util.watch.IModificationWatcher;
+
+/**
+ * Locates precompressed variants of static resources, i.e. files shipped next to the original
+ * with an additional extension for the content coding, e.g. {@code foo.js.gz} or
+ * {@code foo.css.br}.
+ * <p>
+ * Variants are served by {@link PackageResource} and {@link ContextRelativeResource} to clients
+ * accepting their content coding, see
+ * {@link org.apache.wicket.settings.ResourceSettings#setPrecompressedVariants(PrecompressedVariants)}:
+ *
+ * <pre>
+ * getResourceSettings().setPrecompressedVariants(new PrecompressedVariants(&quot;br&quot;, &quot;gzip&quot;));
+ * </pre>
+ *
+ * Note that variants are served as they are, so a {@link PackageResource} sends them only if it
+ * is neither compressed nor processed, see {@link PackageResource#isPrecompressedVariantAllowed()}.
+ * <p>
+ * Whether a variant inside a jar exists is remembered. When resources are watched for
+ * modifications, e.g. in development mode, this is forgotten as soon as the original resource is
+ * modified.
+ */
+public class PrecompressedVariants
+{
+	/** content coding for brotli */
+	public static final String BROTLI = "br";
+
+	/** content coding for gzip */
+	public static final String GZIP = "gzip";
+
+	private final List<String> codings;
+
+	/** url => whether it exists */
+	private final ConcurrentMap<String, Boolean> existingUrls = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param codings
+	 *            content codings in order of preference, e.g. {@value #BROTLI} and {@value #GZIP}
+	 */
+	public PrecompressedVariants(String... codings)
+	{
+		this.codings = Collections.unmodifiableList(
+			Args.notEmpty(Arrays.asList(codings), "codings"));
+	}
+
+	/**
+	 * @return content codings in order of preference
+	 */
+	public List<String> getCodings()
+	{
+		return codings;
+	}
+
+	/**
+	 * Get the file extension of variants with the given coding.
+	 *
+	 * @param coding
+	 *            content coding
+	 * @return extension, including the leading dot
+	 */
+	protected String getExtension(String coding)
+	{
+		if (GZIP.equals(coding))
+		{
+			return ".gz";
+		}
+		return "." + coding;
+	}
+
+	/**
+	 * Find a variant of a resource stream accepted by the client.
+	 *
+	 * @param acceptEncoding
+	 *            value of the {@code Accept-Encoding} header, may be {@code null}
+	 * @param resourceStream
+	 *            the original resource stream
+	 * @return variant or {@code null} if none is found
+	 */
+	public Variant find(String acceptEncoding, IResourceStream resourceStream)
+	{
+		for (String coding : ContentCodings.getAccepted(acceptEncoding, codings))
+		{
+			IResourceStream variant = locate(resourceStream, getExtension(coding));
+			if (variant != null)
+			{
+				return new Variant(coding, variant);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Find a variant of a file relative to the root of the servlet context accepted by the client.
+	 *
+	 * @param acceptEncoding
+	 *            value of the {@code Accept-Encoding} header, may be {@code null}
+	 * @param servletContext
+	 *            the servlet context
+	 * @param path
+	 *            the path of the original file, relative to the context root
+	 * @return variant or {@code null} if none is found
+	 */
+	public Variant find(String acceptEncoding, ServletContext servletContext, String path)
+	{
+		for (String coding : ContentCodings.getAccepted(acceptEncoding, codings))
+		{
+			String variantPath = path + getExtension(coding);
+
+			String realPath = servletContext.getRealPath(variantPath);
+			if (realPath != null)
+			{
+				Path file = Paths.get(realPath);
+				if (Files.isRegularFile(file))
+				{
+					return new Variant(coding, new FileSystemResourceStream(file));
+				}
+			}
+			else
+			{
+				try
+				{
+					URL url = servletContext.getResource(variantPath);
+					if (url != null)
+					{
+						return new Variant(coding, new UrlResourceStream(url));
+					}
+				}
+				catch (MalformedURLException ex)
+				{
+					// not a valid path
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Locate the sibling of a resource stream with the given extension.
+	 *
+	 * @param resourceStream
+	 *            the original resource stream
+	 * @param extension
+	 *            extension of the sibling
+	 * @return sibling or {@code null} if it does not exist
+	 */
+	protected IResourceStream locate(IResourceStream resourceStream, String extension)
+	{
+		while (resourceStream instanceof ResourceStreamWrapper)
+		{
+			resourceStream = ((ResourceStreamWrapper)resourceStream).getDelegate();
+		}
+
+		if (resourceStream instanceof FileResourceStream)
+		{
+			java.io.File file = new java.io.File(
+				((FileResourceStream)resourceStream).getFile().getPath() + extension);
+			if (file.isFile())
+			{
+				return new FileResourceStream(file);
+			}
+		}
+		else if (resourceStream instanceof FileSystemResourceStream)
+		{
+			Path path = ((FileSystemResourceStream)resourceStream).getPath();
+			Path sibling = path.resolveSibling(path.getFileName() + extension);
+			if (Files.isRegularFile(sibling))
+			{
+				return new FileSystemResourceStream(sibling);
+			}
+		}
+		else if (resourceStream instanceof UrlResourceStream)
+		{
+			try
+			{
+				URL url = new URL(((UrlResourceStream)resourceStream).getURL().toExternalForm() +
+					extension);
+				if (exists(url, resourceStream))
+				{
+					return new UrlResourceStream(url);
+				}
+			}
+			catch (MalformedURLException ex)
+			{
+				// not a valid url
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Forget about all variants known to exist or not.
+	 */
+	public void clear()
+	{
+		existingUrls.clear();
+	}
+
+	/**
+	 * Check whether an url exists, remembering the result since urls are typically located in
+	 * jars.
+	 */
+	private boolean exists(URL url, IResourceStream original)
+	{
+		String key = url.toExternalForm();
+
+		Boolean exists = existingUrls.get(key);
+		if (exists == null)
+		{
+			exists = connect(url);
+			if (existingUrls.putIfAbsent(key, exists) == null)
+			{
+				watch(original, key);
+			}
+		}
+		return exists;
+	}
+
+	/**
+	 * Forget whether the variant exists as soon as the original resource is modified.
+	 */
+	private void watch(IResourceStream original, String key)
+	{
+		IModificationWatcher watcher = Application.exists()
+			? Application.get().getResourceSettings().getResourceWatcher(true) : null;
+		if (watcher != null)
+		{
+			watcher.add(original, modifiable -> {
+				watcher.remove(original);
+				existingUrls.remove(key);
+			});
+		}
+	}
+
+	private static boolean connect(URL url)
+	{
+		URLConnection connection = null;
+		try
+		{
+			connection = url.openConnection();
+			try (InputStream input = connection.getInputStream())
+			{
+				return true;
+			}
+		}
+		catch (IOException ex)
+		{
+			return false;
+		}
+		finally
+		{
+			Connections.closeQuietly(connection);
+		}
+	}
+
+	/**
+	 * A precompressed variant of a resource.
+	 */
+	public static final class Variant
+	{
+		private final String coding;
+
+		private final IResourceStream resourceStream;
+
+		private Variant(String coding, IResourceStream resourceStream)
+		{
+			this.coding = coding;
+			this.resourceStream = resourceStream;
+		}
+
+		/**
+		 * @return content coding of the variant
+		 */
+		public String getCoding()
+		{
+			return coding;
+		}
+
+		/**
+		 * @return resource stream of the variant
+		 */
+		public IResourceStream getResourceStream()
+		{
+			return resourceStream;
+		}
+	}
+}
@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.wicket.resource.IContentEncoder;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache of processed resource content, i.e. the output of
+ * {@link PackageResource#processResponse(IResource.Attributes, byte[])} after compression with the
+ * configured {@link org.apache.wicket.resource.ITextResourceCompressor}.
+ * <p>
+ * Content is cached by a key of the resource, e.g. its class, path, locale and style, and the
+ * last modified time of its resource stream, so modified resources are never served from the
+ * cache. Optionally variants of the content encoded with {@link IContentEncoder}s are cached too.
+ * <p>
+ * The size of all cached content is limited, least recently used content is evicted first.
+ *
+ * @see org.apache.wicket.settings.ResourceSettings#setProcessedResourceCacheSize(Bytes)
+ */
+public class ProcessedResourceCache
+{
+	private static final Logger log = LoggerFactory.getLogger(ProcessedResourceCache.class);
+
+	private final long maxSize;
+
+	/** entries in access order */
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long size;
+
+	private long hits;
+
+	private long misses;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxSize
+	 *            maximum size of all cached content
+	 */
+	public ProcessedResourceCache(Bytes maxSize)
+	{
+		this.maxSize = Args.notNull(maxSize, "maxSize").bytes();
+	}
+
+	/**
+	 * Get processed content.
+	 *
+	 * @param cacheKey
+	 *            cache key of the resource
+	 * @param lastModified
+	 *            last modified time of the resource stream, may be {@code null}
+	 * @return content or {@code null} if not cached
+	 */
+	public synchronized byte[] get(Serializable cacheKey, Instant lastModified)
+	{
+		Entry entry = entries.get(new Key(cacheKey, lastModified));
+		if (entry == null)
+		{
+			misses++;
+			return null;
+		}
+
+		hits++;
+		return entry.content;
+	}
+
+	/**
+	 * Put processed content.
+	 *
+	 * @param cacheKey
+	 *            cache key of the resource
+	 * @param lastModified
+	 *            last modified time of the resource stream, may be {@code null}
+	 * @param content
+	 *            processed content
+	 * @return {@code true} if the resource was not cached before
+	 */
+	public synchronized boolean put(Serializable cacheKey, Instant lastModified, byte[] content)
+	{
+		if (content.length > maxSize)
+		{
+			return false;
+		}
+
+		Entry old = entries.put(new Key(cacheKey, lastModified), new Entry(content));
+		if (old != null)
+		{
+			size -= old.size();
+		}
+		size += content.length;
+
+		evict();
+
+		return old == null;
+	}
+
+	/**
+	 * Get content encoded with the given encoder, encoding it if not cached yet.
+	 *
+	 * @param cacheKey
+	 *            cache key of the resource
+	 * @param lastModified
+	 *            last modified time of the resource stream, may be {@code null}
+	 * @param encoder
+	 *            encoder
+	 * @return encoded content, or {@code null} if the content is not cached or cannot be encoded
+	 */
+	public byte[] getEncoded(Serializable cacheKey, Instant lastModified, IContentEncoder encoder)
+	{
+		Key key = new Key(cacheKey, lastModified);
+
+		byte[] content;
+		synchronized (this)
+		{
+			Entry entry = entries.get(key);
+			if (entry == null)
+			{
+				return null;
+			}
+
+			byte[] encoded = entry.encoded.get(encoder.getName());
+			if (encoded != null)
+			{
+				return encoded;
+			}
+			content = entry.content;
+		}
+
+		byte[] encoded;
+		try
+		{
+			encoded = encoder.encode(content);
+		}
+		catch (IOException ex)
+		{
+			log.error("Cannot encode content with " + encoder.getName(), ex);
+			return null;
+		}
+
+		synchronized (this)
+		{
+			Entry entry = entries.get(key);
+			if (entry != null && entry.content == content &&
+				entry.encoded.putIfAbsent(encoder.getName(), encoded) == null)
+			{
+				size += encoded.length;
+				evict();
+			}
+		}
+		return encoded;
+	}
+
+	private void evict()
+	{
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (size > maxSize && iterator.hasNext())
+		{
+			Entry entry = iterator.next();
+			iterator.remove();
+			size -= entry.size();
+		}
+	}
+
+	/**
+	 * Remove all content of a resource.
+	 *
+	 * @param cacheKey
+	 *            cache key of the resource
+	 */
+	public synchronized void remove(Serializable cacheKey)
+	{
+		Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+		while (iterator.hasNext())
+		{
+			Map.Entry<Key, Entry> entry = iterator.next();
+			if (entry.getKey().cacheKey.equals(cacheKey))
+			{
+				iterator.remove();
+				size -= entry.getValue().size();
+			}
+		}
+	}
+
+	/**
+	 * Remove all content.
+	 */
+	public synchronized void clear()
+	{
+		entries.clear();
+		size = 0;
+	}
+
+	/**
+	 * @return size of all cached content
+	 */
+	public synchronized Bytes getSize()
+	{
+		return Bytes.bytes(size);
+	}
+
+	/**
+	 * @return count of content served from the cache
+	 */
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+
+	/**
+	 * @return count of content not found in the cache
+	 */
+	public synchronized long getMissCount()
+	{
+		return misses;
+	}
+
+	/**
+	 * Select the first encoder accepted by the client.
+	 *
+	 * @param acceptEncoding
+	 *            value of the {@code Accept-Encoding} header, may be {@code null}
+	 * @param encoders
+	 *            encoders in order of preference
+	 * @return encoder or {@code null} if none is accepted
+	 */
+	public static IContentEncoder selectEncoder(String acceptEncoding,
+		List<IContentEncoder> encoders)
+	{
+		List<String> codings = new ArrayList<>(encoders.size());
+		for (IContentEncoder encoder : encoders)
+		{
+			codings.add(encoder.getName());
+		}
+
+		List<String> accepted = ContentCodings.getAccepted(acceptEncoding, codings);
+		if (accepted.isEmpty())
+		{
+			return null;
+		}
+		return encoders.get(codings.indexOf(accepted.get(0)));
+	}
+
+	private static class Key
+	{
+		private final Serializable cacheKey;
+
+		private final Instant lastModified;
+
+		Key(Serializable cacheKey, Instant lastModified)
+		{
+			this.cacheKey = Args.notNull(cacheKey, "cacheKey");
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (this == o)
+				return true;
+			if (!(o instanceof Key))
+				return false;
+
+			Key key = (Key)o;
+
+			return cacheKey.equals(key.cacheKey) && Objects.equals(lastModified, key.lastModified);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * cacheKey.hashCode() + Objects.hashCode(lastModified);
+		}
+	}
+
+	private static class Entry
+	{
+		private final byte[] content;
+
+		/** content coding => encoded content */
+		private final Map<String, byte[]> encoded = new HashMap<>(4);
+
+		Entry(byte[] content)
+		{
+			this.content = content;
+		}
+
+		long size()
+		{
+			long size = content.length;
+			for (byte[] bytes : encoded.values())
+			{
+				size += bytes.length;
+			}
+			return size;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.protocol.http.servlet.ResponseIOException;
+import org.apache.wicket.request.resource.AbstractResource.WriteCallback;
+import org.apache.wicket.request.resource.IResource.Attributes;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.resource.FileResourceStream;
+import org.apache.wicket.util.resource.FileSystemResourceStream;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
+import org.apache.wicket.util.resource.ResourceStreamWrapper;
+
+/**
+ * Writes a whole {@link IResourceStream} to the response. Streams of plain files are transferred
+ * with {@link FileChannel#transferTo(long, long, WritableByteChannel)}, so their content is not
+ * copied through a buffer on the heap.
+ * <p>
+ * The resource stream is closed after writing.
+ */
+public class ResourceStreamWriteCallback extends WriteCallback
+{
+	private final IResourceStream resourceStream;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param resourceStream
+	 *            the resource stream to write
+	 */
+	public ResourceStreamWriteCallback(IResourceStream resourceStream)
+	{
+		this.resourceStream = Args.notNull(resourceStream, "resourceStream");
+	}
+
+	@Override
+	public void writeData(Attributes attributes) throws IOException
+	{
+		try
+		{
+			Path file = getFile(resourceStream);
+			if (file != null)
+			{
+				transfer(file, attributes);
+			}
+			else
+			{
+				InputStream inputStream = resourceStream.getInputStream();
+				writeStream(attributes, inputStream);
+			}
+		}
+		catch (ResponseIOException e)
+		{
+			// the client has closed the connection
+		}
+		catch (ResourceStreamNotFoundException e)
+		{
+			throw new WicketRuntimeException(e);
+		}
+		finally
+		{
+			IOUtils.closeQuietly(resourceStream);
+		}
+	}
+
+	private void transfer(Path file, Attributes attributes) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			WritableByteChannel target = Channels.newChannel(attributes.getResponse()
+				.getOutputStream());
+
+			long position = 0;
+			long size = channel.size();
+			while (position < size)
+			{
+				position += channel.transferTo(position, size - position, target);
+			}
+		}
+	}
+
+	/**
+	 * Get the file of a resource stream.
+	 *
+	 * @param resourceStream
+	 *            resource stream
+	 * @return file or {@code null} if the stream does not read a plain file
+	 */
+	static Path getFile(IResourceStream resourceStream)
+	{
+		while (resourceStream instanceof ResourceStreamWrapper)
+		{
+			resourceStream = ((ResourceStreamWrapper)resourceStream).getDelegate();
+		}
+
+		if (resourceStream instanceof FileResourceStream)
+		{
+			return ((FileResourceStream)resourceStream).getFile().toPath();
+		}
+		else if (resourceStream instanceof FileSystemResourceStream)
+		{
+			Path path = ((FileSystemResourceStream)resourceStream).getPath();
+			if (path.getFileSystem() == FileSystems.getDefault())
+			{
+				return path;
+			}
+		}
+		return null;
+	}
+}
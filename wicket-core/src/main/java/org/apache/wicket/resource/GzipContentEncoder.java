@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes content with gzip, using the best compression since encoded content is cached.
+ */
+public class GzipContentEncoder implements IContentEncoder
+{
+	@Override
+	public String getName()
+	{
+		return "gzip";
+	}
+
+	@Override
+	public byte[] encode(byte[] content) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 3 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)
+		{
+			{
+				def.setLevel(Deflater.BEST_COMPRESSION);
+			}
+		})
+		{
+			gzip.write(content);
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.resource;
+
+import java.io.IOException;
+
+/**
+ * Encodes the content of a resource for transfer, e.g. with gzip or brotli.
+ * 
+ * @see GzipContentEncoder
+ * @see org.apache.wicket.settings.ResourceSettings#getContentEncoders()
+ */
+public interface IContentEncoder
+{
+	/**
+	 * @return the content coding as used in the {@code Accept-Encoding} and
+	 *         {@code Content-Encoding} headers, e.g. "gzip" or "br"
+	 */
+	String getName();
+
+	/**
+	 * Encode content.
+	 * 
+	 * @param content
+	 *            the content to encode
+	 * @return encoded content
+	 * @throws IOException
+	 */
+	byte[] encode(byte[] content) throws IOException;
+}
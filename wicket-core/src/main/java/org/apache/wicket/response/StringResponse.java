@@ -50,6 +50,12 @@ public class StringResponse extends Response
 		out.append(string);
 	}
 
+	@Override
+	public void write(final CharSequence sequence, final int start, final int end)
+	{
+		out.append(sequence, start, end);
+	}
+
 	/**
 	 * @see org.apache.wicket.request.Response#reset()
 	 */
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.compact;
+
+import java.io.InvalidClassException;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.core.util.lang.WicketObjects;
+
+/**
+ * A dictionary of classes of an application, assigning each class a small id.
+ * <p>
+ * Instead of a full class descriptor, a {@link CompactObjectOutputStream} writes the id of the
+ * class only. Each serialized object carries a table with the names of all classes it uses, so it
+ * can be read even if the ids were assigned differently, e.g. after a restart of the application.
+ *
+ * @see CompactSerializer
+ */
+public class ClassDictionary
+{
+	private final ConcurrentMap<Class<?>, Entry> entries = new ConcurrentHashMap<>();
+
+	private final AtomicInteger nextId = new AtomicInteger();
+
+	/**
+	 * Get the entry for a class, assigning a new id if the class is not known yet.
+	 *
+	 * @param clazz
+	 *            class
+	 * @return entry
+	 */
+	Entry getEntry(Class<?> clazz)
+	{
+		return entries.computeIfAbsent(clazz, key -> new Entry(nextId.getAndIncrement(), key));
+	}
+
+	/**
+	 * Get the entry for a class by its name, as written into a class table.
+	 *
+	 * @param name
+	 *            name of class
+	 * @param fingerprint
+	 *            fingerprint of class when it was written
+	 * @return entry
+	 * @throws ClassNotFoundException
+	 *             if class cannot be resolved
+	 * @throws InvalidClassException
+	 *             if the class has changed since it was written
+	 */
+	Entry getEntry(String name, int fingerprint)
+		throws ClassNotFoundException, InvalidClassException
+	{
+		Class<?> clazz = WicketObjects.resolveClass(name);
+		if (clazz == null)
+		{
+			throw new ClassNotFoundException(name);
+		}
+
+		Entry entry = getEntry(clazz);
+		if (entry.fingerprint != fingerprint)
+		{
+			throw new InvalidClassException(name,
+				"local class incompatible: fingerprint of written class = " + fingerprint +
+					", local class fingerprint = " + entry.fingerprint);
+		}
+		return entry;
+	}
+
+	/**
+	 * @return number of known classes
+	 */
+	public int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * A class known to the dictionary.
+	 */
+	static class Entry
+	{
+		final int id;
+
+		final ObjectStreamClass descriptor;
+
+		/**
+		 * Fingerprint of the serial version and fields, to detect changed classes.
+		 */
+		final int fingerprint;
+
+		private Entry(int id, Class<?> clazz)
+		{
+			this.id = id;
+
+			descriptor = ObjectStreamClass.lookupAny(clazz);
+
+			int hash = Long.hashCode(descriptor.getSerialVersionUID());
+			for (ObjectStreamField field : descriptor.getFields())
+			{
+				hash = 31 * hash + field.getName().hashCode();
+				hash = 31 * hash + field.getType().getName().hashCode();
+			}
+			fingerprint = hash;
+		}
+
+		String getName()
+		{
+			return descriptor.getName();
+		}
+	}
+}
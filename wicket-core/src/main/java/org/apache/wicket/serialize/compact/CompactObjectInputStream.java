@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.compact;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.StreamCorruptedException;
+import java.util.Map;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * An {@link ObjectInputStream} reading class ids written by a {@link CompactObjectOutputStream}.
+ *
+ * @see CompactObjectOutputStream
+ */
+public class CompactObjectInputStream extends ObjectInputStream
+{
+	private final Map<Integer, ClassDictionary.Entry> classes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param in
+	 *            stream to read from
+	 * @param classes
+	 *            the classes used in the stream, by id
+	 * @throws IOException
+	 */
+	CompactObjectInputStream(InputStream in, Map<Integer, ClassDictionary.Entry> classes)
+		throws IOException
+	{
+		super(in);
+
+		this.classes = Args.notNull(classes, "classes");
+	}
+
+	@Override
+	protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException
+	{
+		int id = readVarInt();
+
+		ClassDictionary.Entry entry = classes.get(id);
+		if (entry == null)
+		{
+			throw new StreamCorruptedException("Unknown class id " + id);
+		}
+		return entry.descriptor;
+	}
+
+	@Override
+	protected Class<?> resolveClass(ObjectStreamClass desc)
+		throws IOException, ClassNotFoundException
+	{
+		Class<?> clazz = desc.forClass();
+		if (clazz == null)
+		{
+			return super.resolveClass(desc);
+		}
+		return clazz;
+	}
+
+	/**
+	 * Read an int written with {@link CompactObjectOutputStream#writeVarInt(int)}.
+	 *
+	 * @return read value
+	 * @throws IOException
+	 */
+	public int readVarInt() throws IOException
+	{
+		return readVarInt(this);
+	}
+
+	static int readVarInt(DataInput in) throws IOException
+	{
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7)
+		{
+			byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new StreamCorruptedException("Malformed variable length int");
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.compact;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * An {@link ObjectOutputStream} writing class ids from a {@link ClassDictionary} instead of full
+ * class descriptors.
+ * <p>
+ * Framework classes like {@link org.apache.wicket.Component} detect this stream and write their
+ * state with {@link #writeVarInt(int)} instead of the default field serialization.
+ *
+ * @see CompactObjectInputStream
+ */
+public class CompactObjectOutputStream extends ObjectOutputStream
+{
+	private final ClassDictionary dictionary;
+
+	/**
+	 * All classes written to this stream, by id.
+	 */
+	private final Map<Integer, ClassDictionary.Entry> classes = new LinkedHashMap<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param out
+	 *            stream to write to
+	 * @param dictionary
+	 *            the dictionary of classes
+	 * @throws IOException
+	 */
+	public CompactObjectOutputStream(OutputStream out, ClassDictionary dictionary)
+		throws IOException
+	{
+		super(out);
+
+		this.dictionary = Args.notNull(dictionary, "dictionary");
+	}
+
+	@Override
+	protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException
+	{
+		ClassDictionary.Entry entry = dictionary.getEntry(desc.forClass());
+
+		classes.putIfAbsent(entry.id, entry);
+
+		writeVarInt(entry.id);
+	}
+
+	/**
+	 * Get all classes written so far.
+	 *
+	 * @return entries of written classes
+	 */
+	Collection<ClassDictionary.Entry> getClasses()
+	{
+		return classes.values();
+	}
+
+	/**
+	 * Write an int with a variable length, small positive values need less bytes.
+	 *
+	 * @param value
+	 *            value to write
+	 * @throws IOException
+	 */
+	public void writeVarInt(int value) throws IOException
+	{
+		writeVarInt(this, value);
+	}
+
+	static void writeVarInt(DataOutput out, int value) throws IOException
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+}
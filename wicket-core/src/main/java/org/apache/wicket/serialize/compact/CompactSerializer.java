@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.compact;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.core.util.objects.checker.CheckingObjectOutputStream;
+import org.apache.wicket.core.util.objects.checker.ObjectSerializationChecker;
+import org.apache.wicket.serialize.ISerializer;
+import org.apache.wicket.util.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An implementation of {@link ISerializer} producing a more compact output than
+ * {@link org.apache.wicket.serialize.java.JavaSerializer}.
+ * <p>
+ * Java serialization writes a full descriptor with all field names and types for each class. This
+ * serializer keeps a {@link ClassDictionary} for each application instead and writes a small id
+ * for each class, prefixed by a table of the names of all used classes. Furthermore
+ * {@link org.apache.wicket.Component}s and {@link org.apache.wicket.MarkupContainer}s write their
+ * state (flags, ids, children, behaviors, models and meta data) without reflection, using variable
+ * length ints. All other objects are written with Java serialization.
+ * <p>
+ * Pages have to be deserialized by the same version of the application, changed classes are
+ * detected and fail with an {@link java.io.InvalidClassException}.
+ * <p>
+ * To use this serializer, put the following code in your application's init:
+ *
+ * <pre>
+ * getFrameworkSettings().setSerializer(new CompactSerializer(getApplicationKey()));
+ * </pre>
+ */
+public class CompactSerializer implements ISerializer
+{
+	private static final Logger log = LoggerFactory.getLogger(CompactSerializer.class);
+
+	/**
+	 * The key of the application which can be used later to find the proper
+	 * {@link org.apache.wicket.application.IClassResolver}
+	 */
+	private final String applicationKey;
+
+	private final ClassDictionary dictionary = new ClassDictionary();
+
+	/**
+	 * Construct.
+	 *
+	 * @param applicationKey
+	 *            the name of the application
+	 */
+	public CompactSerializer(final String applicationKey)
+	{
+		this.applicationKey = applicationKey;
+	}
+
+	/**
+	 * @return the dictionary of classes
+	 */
+	public ClassDictionary getDictionary()
+	{
+		return dictionary;
+	}
+
+	@Override
+	public byte[] serialize(final Object object)
+	{
+		try
+		{
+			final ByteArrayOutputStream body = new ByteArrayOutputStream();
+			CompactObjectOutputStream oos = null;
+			Collection<ClassDictionary.Entry> classes;
+			try
+			{
+				oos = new CompactObjectOutputStream(body, dictionary);
+				oos.writeObject(object);
+				oos.flush();
+
+				classes = oos.getClasses();
+			}
+			finally
+			{
+				IOUtils.close(oos);
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() + classes.size() * 32);
+			DataOutputStream header = new DataOutputStream(out);
+			header.writeBoolean(applicationKey != null);
+			if (applicationKey != null)
+			{
+				header.writeUTF(applicationKey);
+			}
+			writeClasses(header, classes);
+			header.flush();
+
+			body.writeTo(out);
+
+			return out.toByteArray();
+		}
+		catch (NotSerializableException nsx)
+		{
+			log.error("Error serializing object " + object.getClass() + " [object=" + object + "]",
+				check(object, nsx));
+		}
+		catch (Exception e)
+		{
+			log.error("Error serializing object " + object.getClass() + " [object=" + object + "]",
+				e);
+		}
+		return null;
+	}
+
+	/**
+	 * Write the table of classes, sorted by name with each name sharing its prefix with the
+	 * preceding one.
+	 */
+	private void writeClasses(DataOutputStream out, Collection<ClassDictionary.Entry> classes)
+		throws IOException
+	{
+		List<ClassDictionary.Entry> sorted = new ArrayList<>(classes);
+		sorted.sort(Comparator.comparing(ClassDictionary.Entry::getName));
+
+		CompactObjectOutputStream.writeVarInt(out, sorted.size());
+		String previous = "";
+		for (ClassDictionary.Entry entry : sorted)
+		{
+			String name = entry.getName();
+
+			int prefix = 0;
+			int max = Math.min(previous.length(), name.length());
+			while (prefix < max && previous.charAt(prefix) == name.charAt(prefix))
+			{
+				prefix++;
+			}
+
+			CompactObjectOutputStream.writeVarInt(out, entry.id);
+			CompactObjectOutputStream.writeVarInt(out, prefix);
+			out.writeUTF(name.substring(prefix));
+			out.writeInt(entry.fingerprint);
+
+			previous = name;
+		}
+	}
+
+	/**
+	 * Read the table of classes.
+	 * 
+	 * @see #writeClasses(DataOutputStream, Collection)
+	 */
+	private Map<Integer, ClassDictionary.Entry> readClasses(DataInputStream in)
+		throws IOException, ClassNotFoundException
+	{
+		int count = CompactObjectInputStream.readVarInt(in);
+
+		Map<Integer, ClassDictionary.Entry> classes = new HashMap<>();
+		String previous = "";
+		for (int c = 0; c < count; c++)
+		{
+			int id = CompactObjectInputStream.readVarInt(in);
+			int prefix = CompactObjectInputStream.readVarInt(in);
+			String name = previous.substring(0, prefix) + in.readUTF();
+			int fingerprint = in.readInt();
+
+			classes.put(id, dictionary.getEntry(name, fingerprint));
+
+			previous = name;
+		}
+		return classes;
+	}
+
+	/**
+	 * Serialize the object again to gather more information about a non serializable object.
+	 *
+	 * @return exception with details
+	 */
+	private Exception check(Object object, NotSerializableException nsx)
+	{
+		if (CheckingObjectOutputStream.isAvailable())
+		{
+			try
+			{
+				CheckingObjectOutputStream checkingObjectOutputStream = new CheckingObjectOutputStream(
+					new ByteArrayOutputStream(), new ObjectSerializationChecker(nsx));
+				checkingObjectOutputStream.writeObject(object);
+			}
+			catch (Exception x)
+			{
+				return x;
+			}
+		}
+		return nsx;
+	}
+
+	@Override
+	public Object deserialize(final byte[] data)
+	{
+		ThreadContext old = ThreadContext.get(false);
+		final ByteArrayInputStream in = new ByteArrayInputStream(data);
+		CompactObjectInputStream ois = null;
+		try
+		{
+			Application oldApplication = ThreadContext.getApplication();
+			try
+			{
+				DataInputStream header = new DataInputStream(in);
+				if (header.readBoolean())
+				{
+					Application app = Application.get(header.readUTF());
+					if (app != null)
+					{
+						ThreadContext.setApplication(app);
+					}
+				}
+
+				Map<Integer, ClassDictionary.Entry> classes = readClasses(header);
+
+				ois = new CompactObjectInputStream(in, classes);
+				return ois.readObject();
+			}
+			finally
+			{
+				try
+				{
+					ThreadContext.setApplication(oldApplication);
+					IOUtils.close(ois);
+				}
+				finally
+				{
+					in.close();
+				}
+			}
+		}
+		catch (ClassNotFoundException | IOException cnfx)
+		{
+			throw new RuntimeException("Could not deserialize object from byte[]", cnfx);
+		}
+		finally
+		{
+			ThreadContext.restore(old);
+		}
+	}
+}
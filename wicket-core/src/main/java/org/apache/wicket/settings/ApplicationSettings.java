@@ -17,6 +17,7 @@
 package org.apache.wicket.settings;
 
 import java.lang.ref.WeakReference;
+import java.util.concurrent.Executor;
 
 import org.apache.wicket.Page;
 import org.apache.wicket.application.DefaultClassResolver;
@@ -65,6 +66,8 @@ public class ApplicationSettings
 
 	private IFeedbackMessageFilter feedbackMessageCleanupFilter = new DefaultCleanupFeedbackMessageFilter();
 
+	private Executor modelPrefetchExecutor;
+
 	/**
 	 * Gets the access denied page class.
 	 *
@@ -270,4 +273,28 @@ public class ApplicationSettings
 	{
 		return feedbackMessageCleanupFilter;
 	}
+
+	/**
+	 * Sets the executor to prefetch {@link org.apache.wicket.model.IPrefetchableModel}s on,
+	 * concurrently before components are rendered. By default no executor is set and models are
+	 * loaded one after another while rendering.
+	 *
+	 * @param executor
+	 *            executor or {@code null} to disable prefetching
+	 * @return {@code this} object for chaining
+	 * @see org.apache.wicket.model.ModelPrefetcher
+	 */
+	public ApplicationSettings setModelPrefetchExecutor(Executor executor)
+	{
+		modelPrefetchExecutor = executor;
+		return this;
+	}
+
+	/**
+	 * @return the executor to prefetch models on, or {@code null} if prefetching is disabled
+	 */
+	public Executor getModelPrefetchExecutor()
+	{
+		return modelPrefetchExecutor;
+	}
 }
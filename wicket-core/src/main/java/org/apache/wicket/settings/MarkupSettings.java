@@ -16,10 +16,17 @@
  */
 package org.apache.wicket.settings;
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.wicket.DefaultMarkupIdGenerator;
 import org.apache.wicket.IMarkupIdGenerator;
 import org.apache.wicket.markup.MarkupFactory;
+import org.apache.wicket.markup.html.cache.RenderCache;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 
 /**
  * Class for markup related settings.
@@ -71,6 +78,18 @@ public class MarkupSettings
 	 */
 	private IMarkupIdGenerator markupIdGenerator = new DefaultMarkupIdGenerator();
 
+	/** Packages of containers whose markup is parsed on startup */
+	private List<String> markupPrewarmPackages = Collections.emptyList();
+
+	/** File to save parsed markup to */
+	private File parsedMarkupCacheFile;
+
+	/** maximum size of cached render output */
+	private Bytes renderCacheSize = Bytes.megabytes(4);
+
+	/** the cache is created eagerly, so the hot path does not need to lock */
+	private volatile RenderCache renderCache = new RenderCache(renderCacheSize);
+
 	/**
 	 * Construct
 	 */
@@ -273,4 +292,91 @@ public class MarkupSettings
 		this.markupIdGenerator = Args.notNull(markupIdGenerator, "markupIdGenerator");
 		return this;
 	}
+
+	/**
+	 * @return packages of containers whose markup is parsed on startup
+	 * @see #setMarkupPrewarmPackages(String...)
+	 */
+	public List<String> getMarkupPrewarmPackages()
+	{
+		return markupPrewarmPackages;
+	}
+
+	/**
+	 * Sets the packages of containers whose markup should be parsed in parallel on startup of the
+	 * application, so the first requests do not have to. Sub-packages are included.
+	 *
+	 * @param packages
+	 *            names of packages, none to disable pre-warming
+	 * @return {@code this} object for chaining
+	 * @see org.apache.wicket.markup.MarkupPrewarmer
+	 */
+	public MarkupSettings setMarkupPrewarmPackages(String... packages)
+	{
+		markupPrewarmPackages = Collections.unmodifiableList(Arrays.asList(packages));
+		return this;
+	}
+
+	/**
+	 * @return file to save parsed markup to, may be {@code null}
+	 * @see #setParsedMarkupCacheFile(File)
+	 */
+	public File getParsedMarkupCacheFile()
+	{
+		return parsedMarkupCacheFile;
+	}
+
+	/**
+	 * Sets a file to save parsed markup to when the application is destroyed. On the next start
+	 * the markup is loaded from this file, so markup resources that did not change are not parsed
+	 * again.
+	 *
+	 * @param parsedMarkupCacheFile
+	 *            file, {@code null} to disable
+	 * @return {@code this} object for chaining
+	 * @see org.apache.wicket.markup.ParsedMarkupCache
+	 */
+	public MarkupSettings setParsedMarkupCacheFile(File parsedMarkupCacheFile)
+	{
+		this.parsedMarkupCacheFile = parsedMarkupCacheFile;
+		return this;
+	}
+
+	/**
+	 * Gets the maximum size of the render output to cache.
+	 *
+	 * @return maximum size
+	 * @see #getRenderCache()
+	 */
+	public Bytes getRenderCacheSize()
+	{
+		return renderCacheSize;
+	}
+
+	/**
+	 * Sets the maximum size of the render output to cache, {@link Bytes#bytes(long) zero}
+	 * disables caching.
+	 *
+	 * @param renderCacheSize
+	 *            maximum size
+	 * @return {@code this} object for chaining
+	 */
+	public MarkupSettings setRenderCacheSize(Bytes renderCacheSize)
+	{
+		this.renderCacheSize = Args.notNull(renderCacheSize, "renderCacheSize");
+		renderCache = renderCacheSize.bytes() > 0 ? new RenderCache(renderCacheSize) : null;
+		return this;
+	}
+
+	/**
+	 * Gets the cache for the render output of components with a
+	 * {@link org.apache.wicket.markup.html.cache.RenderCacheBehavior}.
+	 *
+	 * @return cache or {@code null} if caching is disabled
+	 * @see #setRenderCacheSize(Bytes)
+	 */
+	public RenderCache getRenderCache()
+	{
+		return renderCache;
+	}
 }
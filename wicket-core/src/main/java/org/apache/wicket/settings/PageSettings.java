@@ -20,6 +20,7 @@ import java.util.List;
 
 import org.apache.wicket.IRequestListener;
 import org.apache.wicket.markup.resolver.IComponentResolver;
+import org.apache.wicket.page.QueuedPageAccessSynchronizer;
 import org.apache.wicket.util.lang.Generics;
 
 /**
@@ -51,6 +52,11 @@ public class PageSettings
 	 */
 	private boolean callListenerAfterExpiry = false;
 
+	/** determines if threads waiting for a page are queued */
+	private boolean queuedPageLocking = false;
+
+	private final QueuedPageAccessSynchronizer.Statistics pageLockStatistics = new QueuedPageAccessSynchronizer.Statistics();
+
 	/**
 	 * Adds a component resolver to the list.
 	 *
@@ -155,4 +161,41 @@ public class PageSettings
 		this.callListenerAfterExpiry = callAfterExpiry;
 		return this;
 	}
+
+	/**
+	 * @return {@code true} if threads waiting for a page are queued
+	 * @see #setQueuedPageLocking(boolean)
+	 */
+	public boolean isQueuedPageLocking()
+	{
+		return queuedPageLocking;
+	}
+
+	/**
+	 * Sets whether threads waiting for a locked page should be queued by a
+	 * {@link QueuedPageAccessSynchronizer}, handing over the lock in FIFO order. Otherwise a
+	 * {@link org.apache.wicket.page.PageAccessSynchronizer} lets all waiting threads compete for a
+	 * released lock.
+	 *
+	 * @param queuedPageLocking
+	 *            {@code true} to queue waiting threads
+	 * @return {@code this} object for chaining
+	 * @see org.apache.wicket.Session#newPageAccessSynchronizer(java.time.Duration)
+	 */
+	public PageSettings setQueuedPageLocking(boolean queuedPageLocking)
+	{
+		this.queuedPageLocking = queuedPageLocking;
+		return this;
+	}
+
+	/**
+	 * Get the statistics of waiting for page locks, recorded if
+	 * {@link #isQueuedPageLocking()} is enabled.
+	 *
+	 * @return statistics
+	 */
+	public QueuedPageAccessSynchronizer.Statistics getPageLockStatistics()
+	{
+		return pageLockStatistics;
+	}
 }
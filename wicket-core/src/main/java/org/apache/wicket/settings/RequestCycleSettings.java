@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.List;
 import org.apache.wicket.response.filter.IResponseFilter;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 
 /**
  * Class for request related settings
@@ -134,7 +135,24 @@ public class RequestCycleSettings
 		 * because otherwise they wouldn't be bookmarkable.
 		 * </p>
 		 */
-		REDIRECT_TO_RENDER
+		REDIRECT_TO_RENDER,
+
+		/**
+		 * Like 'ONE_PASS_RENDER' all logical parts of a request are handled within the same
+		 * request, but the page is written to the browser while it is rendered instead of after
+		 * the whole page has been rendered into a buffer. The response is flushed as soon as the
+		 * &lt;/head&gt; has been written, so the browser can start fetching CSS and JavaScript
+		 * while the body is still rendered.
+		 * <p>
+		 * Since the response is committed early, an exception thrown while the body is rendered
+		 * cannot be shown with an error page, the browser receives a partial page instead. The
+		 * configured {@link org.apache.wicket.response.filter.IResponseFilter}s are applied to the
+		 * buffered output up to the &lt;/head&gt; only, the rest of the page is not filtered.
+		 * </p>
+		 * 
+		 * @see org.apache.wicket.protocol.http.StreamingWebResponse
+		 */
+		STREAMING_RENDER
 	}
 
 	/** True if the response should be buffered */
@@ -172,6 +190,12 @@ public class RequestCycleSettings
 
 	private int exceptionRetryCount = 10;
 
+	/** maximum size of stored buffered responses, {@code null} to keep them on the heap */
+	private Bytes storedResponsesMaxSize;
+
+	/** size above which a stored buffered response is moved into a temporary file */
+	private Bytes storedResponsesSpillThreshold = Bytes.kilobytes(256);
+
 // ****************************************************************************
 // IRequestCycleSettings Implementation
 // ****************************************************************************
@@ -417,4 +441,66 @@ public class RequestCycleSettings
 	{
 		return exceptionRetryCount;
 	}
+
+	/**
+	 * Gets the maximum size of the buffered responses stored for
+	 * {@link RenderStrategy#REDIRECT_TO_BUFFER}.
+	 *
+	 * @return maximum size or {@code null} if the responses are kept on the heap
+	 * @see #setStoredResponsesMaxSize(Bytes)
+	 */
+	public Bytes getStoredResponsesMaxSize()
+	{
+		return storedResponsesMaxSize;
+	}
+
+	/**
+	 * Sets the maximum size of the buffered responses stored for
+	 * {@link RenderStrategy#REDIRECT_TO_BUFFER}. If set, the data of the stored responses is moved
+	 * out of the heap into direct buffers, or into temporary files if larger than the
+	 * {@link #setStoredResponsesSpillThreshold(Bytes) spill threshold}, and least recently used
+	 * responses are evicted when the size is exceeded. A response evicted before the browser
+	 * followed the redirect is rendered again.
+	 * <p>
+	 * By default the size is not limited, at most 1000 responses are kept on the heap.
+	 * <p>
+	 * Has to be set before the first response is stored, e.g. in the application's init().
+	 *
+	 * @param storedResponsesMaxSize
+	 *            maximum size or {@code null} to keep the responses on the heap
+	 * @return {@code this} object for chaining
+	 * @see org.apache.wicket.protocol.http.WebApplication#getStoredResponses()
+	 */
+	public RequestCycleSettings setStoredResponsesMaxSize(Bytes storedResponsesMaxSize)
+	{
+		this.storedResponsesMaxSize = storedResponsesMaxSize;
+		return this;
+	}
+
+	/**
+	 * Gets the size above which a stored buffered response is moved into a temporary file.
+	 *
+	 * @return threshold
+	 * @see #setStoredResponsesMaxSize(Bytes)
+	 */
+	public Bytes getStoredResponsesSpillThreshold()
+	{
+		return storedResponsesSpillThreshold;
+	}
+
+	/**
+	 * Sets the size above which a stored buffered response is moved into a temporary file instead
+	 * of a direct buffer, 256 kilobytes by default. Only used if the
+	 * {@link #setStoredResponsesMaxSize(Bytes) size of stored responses} is limited.
+	 *
+	 * @param storedResponsesSpillThreshold
+	 *            threshold
+	 * @return {@code this} object for chaining
+	 */
+	public RequestCycleSettings setStoredResponsesSpillThreshold(Bytes storedResponsesSpillThreshold)
+	{
+		this.storedResponsesSpillThreshold = Args.notNull(storedResponsesSpillThreshold,
+			"storedResponsesSpillThreshold");
+		return this;
+	}
 }
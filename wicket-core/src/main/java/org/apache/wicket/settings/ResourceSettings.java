@@ -35,6 +35,8 @@ import org.apache.wicket.markup.head.ResourceAggregator.RecordedHeaderItem;
 import org.apache.wicket.markup.html.IPackageResourceGuard;
 import org.apache.wicket.markup.html.SecurePackageResourceGuard;
 import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.resource.PrecompressedVariants;
+import org.apache.wicket.request.resource.ProcessedResourceCache;
 import org.apache.wicket.request.resource.caching.FilenameWithVersionResourceCachingStrategy;
 import org.apache.wicket.request.resource.caching.IResourceCachingStrategy;
 import org.apache.wicket.request.resource.caching.NoOpResourceCachingStrategy;
@@ -43,6 +45,7 @@ import org.apache.wicket.request.resource.caching.version.IResourceVersion;
 import org.apache.wicket.request.resource.caching.version.LastModifiedResourceVersion;
 import org.apache.wicket.request.resource.caching.version.MessageDigestResourceVersion;
 import org.apache.wicket.request.resource.caching.version.RequestCycleCachedResourceVersion;
+import org.apache.wicket.resource.IContentEncoder;
 import org.apache.wicket.resource.IPropertiesFactoryContext;
 import org.apache.wicket.resource.PropertiesFactory;
 import org.apache.wicket.resource.loader.ClassStringResourceLoader;
@@ -54,6 +57,7 @@ import org.apache.wicket.resource.loader.ValidatorStringResourceLoader;
 import org.apache.wicket.util.file.IFileCleaner;
 import org.apache.wicket.util.file.IResourceFinder;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.lang.Generics;
 import org.apache.wicket.util.resource.IResourceStream;
 import java.time.Duration;
@@ -173,6 +177,17 @@ public class ResourceSettings implements IPropertiesFactoryContext
 
 	private boolean encodeJSessionId = false;
 
+	/** maximum size of processed package resources to cache */
+	private Bytes processedResourceCacheSize = Bytes.megabytes(4);
+
+	private ProcessedResourceCache processedResourceCache;
+
+	/** encoders for cached package resources */
+	private final List<IContentEncoder> contentEncoders = new ArrayList<>();
+
+	/** precompressed variants of static resources */
+	private PrecompressedVariants precompressedVariants;
+
 	/**
 	 * Configures Wicket's default ResourceLoaders.<br>
 	 * For an example in {@code FooApplication} let {@code bar.Foo} extend {@link Component}, this
@@ -568,6 +583,7 @@ public class ResourceSettings implements IPropertiesFactoryContext
 	{
 		IJavaScriptCompressor old = javascriptCompressor;
 		javascriptCompressor = compressor;
+		clearProcessedResourceCache();
 		return old;
 	}
 
@@ -598,6 +614,7 @@ public class ResourceSettings implements IPropertiesFactoryContext
 	{
 		ICssCompressor old = cssCompressor;
 		cssCompressor = compressor;
+		clearProcessedResourceCache();
 		return old;
 	}
 
@@ -770,4 +787,100 @@ public class ResourceSettings implements IPropertiesFactoryContext
 		this.encodeJSessionId = encodeJSessionId;
 		return this;
 	}
+
+	/**
+	 * Gets the maximum size of processed package resources to cache.
+	 *
+	 * @return maximum size
+	 * @see #getProcessedResourceCache()
+	 */
+	public Bytes getProcessedResourceCacheSize()
+	{
+		return processedResourceCacheSize;
+	}
+
+	/**
+	 * Sets the maximum size of processed package resources to cache, {@link Bytes#bytes(long)
+	 * zero} disables caching.
+	 *
+	 * @param processedResourceCacheSize
+	 *            maximum size
+	 * @return {@code this} object for chaining
+	 */
+	public synchronized ResourceSettings setProcessedResourceCacheSize(Bytes processedResourceCacheSize)
+	{
+		this.processedResourceCacheSize = Args.notNull(processedResourceCacheSize,
+			"processedResourceCacheSize");
+		processedResourceCache = null;
+		return this;
+	}
+
+	/**
+	 * Gets the cache for the content of package resources after processing by the
+	 * {@link #getJavaScriptCompressor() JavaScript} or {@link #getCssCompressor() CSS compressor},
+	 * so it is not compressed again on each request.
+	 *
+	 * @return cache or {@code null} if caching is disabled
+	 * @see #setProcessedResourceCacheSize(Bytes)
+	 */
+	public synchronized ProcessedResourceCache getProcessedResourceCache()
+	{
+		if (processedResourceCache == null && processedResourceCacheSize.bytes() > 0)
+		{
+			processedResourceCache = new ProcessedResourceCache(processedResourceCacheSize);
+		}
+		return processedResourceCache;
+	}
+
+	private synchronized void clearProcessedResourceCache()
+	{
+		if (processedResourceCache != null)
+		{
+			processedResourceCache.clear();
+		}
+	}
+
+	/**
+	 * Gets the encoders to apply to the {@link #getProcessedResourceCache() cached} content of
+	 * package resources, in order of preference. The encoded content is cached too and served to
+	 * clients accepting the encoding. Empty by default.
+	 * <p>
+	 * Example:
+	 *
+	 * <pre>
+	 * getResourceSettings().getContentEncoders().add(new GzipContentEncoder());
+	 * </pre>
+	 *
+	 * @return modifiable list of encoders
+	 */
+	public List<IContentEncoder> getContentEncoders()
+	{
+		return contentEncoders;
+	}
+
+	/**
+	 * Gets the precompressed variants to serve instead of static resources.
+	 *
+	 * @return variants or {@code null} if precompressed variants are not used
+	 */
+	public PrecompressedVariants getPrecompressedVariants()
+	{
+		return precompressedVariants;
+	}
+
+	/**
+	 * Sets the precompressed variants, e.g. {@code foo.js.br} or {@code foo.js.gz}, to serve
+	 * instead of {@link org.apache.wicket.request.resource.PackageResource package} and
+	 * {@link org.apache.wicket.request.resource.ContextRelativeResource context relative}
+	 * resources to clients accepting their content coding. Disabled by default.
+	 *
+	 * @param precompressedVariants
+	 *            variants, {@code null} to disable precompressed variants
+	 * @return {@code this} object for chaining
+	 */
+	public ResourceSettings setPrecompressedVariants(PrecompressedVariants precompressedVariants)
+	{
+		this.precompressedVariants = precompressedVariants;
+		return this;
+	}
 }
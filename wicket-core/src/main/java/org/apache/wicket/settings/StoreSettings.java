@@ -21,6 +21,8 @@ import java.io.IOException;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.pageStore.AsynchronousPageStore;
+import org.apache.wicket.pageStore.OffHeapPageStore;
 import org.apache.wicket.protocol.http.WebApplication;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Bytes;
@@ -41,16 +43,34 @@ public class StoreSettings
 
 	private static final int DEFAULT_ASYNCHRONOUS_QUEUE_CAPACITY = 100;
 
+	private static final int DEFAULT_ASYNCHRONOUS_THREADS = 1;
+
+	private static final int DEFAULT_ASYNCHRONOUS_BATCH_SIZE = 10;
+
 	private Bytes maxSizePerSession = DEFAULT_MAX_SIZE_PER_SESSION;
 
 	private File fileStoreFolder = null;
 
 	private int asynchronousQueueCapacity = DEFAULT_ASYNCHRONOUS_QUEUE_CAPACITY;
 
+	private int asynchronousThreads = DEFAULT_ASYNCHRONOUS_THREADS;
+
+	private int asynchronousBatchSize = DEFAULT_ASYNCHRONOUS_BATCH_SIZE;
+
+	private final AsynchronousPageStore.Statistics asynchronousStatistics = new AsynchronousPageStore.Statistics();
+
 	private boolean asynchronous = true;
 	
 	private boolean encrypted = false;
 
+	private boolean segmented = false;
+
+	private int deltaSnapshotInterval = 0;
+
+	private Bytes offHeapCacheSize = Bytes.bytes(0);
+
+	private final OffHeapPageStore.Statistics offHeapCacheStatistics = new OffHeapPageStore.Statistics();
+
 	/**
 	 * Construct.
 	 * 
@@ -159,6 +179,76 @@ public class StoreSettings
 		return this;
 	}
 
+	/**
+	 * @return the count of threads storing pages asynchronously
+	 * @see org.apache.wicket.pageStore.AsynchronousPageStore
+	 */
+	public int getAsynchronousThreads()
+	{
+		return asynchronousThreads;
+	}
+
+	/**
+	 * Sets the count of threads storing pages asynchronously. All pages of a single session are
+	 * always stored by the same thread.
+	 *
+	 * @param threads
+	 *            the count of threads
+	 * @see org.apache.wicket.pageStore.AsynchronousPageStore
+	 * @return {@code this} object for chaining
+	 */
+	public StoreSettings setAsynchronousThreads(int threads)
+	{
+		if (threads < 1)
+		{
+			throw new IllegalArgumentException(
+				"The count of asynchronous threads should be at least 1.");
+		}
+		asynchronousThreads = threads;
+		return this;
+	}
+
+	/**
+	 * @return the maximum count of pages stored asynchronously at once
+	 * @see org.apache.wicket.pageStore.AsynchronousPageStore
+	 */
+	public int getAsynchronousBatchSize()
+	{
+		return asynchronousBatchSize;
+	}
+
+	/**
+	 * Sets the maximum count of pages stored asynchronously at once.
+	 *
+	 * @param batchSize
+	 *            the maximum count of pages in a batch
+	 * @see org.apache.wicket.pageStore.AsynchronousPageStore
+	 * @see org.apache.wicket.pageStore.IPageStore#addPages(org.apache.wicket.pageStore.IPageContext, java.util.List)
+	 * @return {@code this} object for chaining
+	 */
+	public StoreSettings setAsynchronousBatchSize(int batchSize)
+	{
+		if (batchSize < 1)
+		{
+			throw new IllegalArgumentException(
+				"The size of asynchronous batches should be at least 1.");
+		}
+		asynchronousBatchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Get the statistics of asynchronous storing, e.g. to monitor the size of the queue and the
+	 * time pages wait in it.
+	 *
+	 * @return statistics
+	 * @see org.apache.wicket.pageStore.AsynchronousPageStore
+	 */
+	public AsynchronousPageStore.Statistics getAsynchronousStatistics()
+	{
+		return asynchronousStatistics;
+	}
+
 	/**
 	 * Sets a flag whether to wrap the configured {@link org.apache.wicket.pageStore.IPageStore} with
 	 * {@link org.apache.wicket.pageStore.AsynchronousPageStore}. By doing this the HTTP worker thread will not wait for the
@@ -203,4 +293,90 @@ public class StoreSettings
 	{
 		return encrypted;
 	}
+
+	/**
+	 * Sets a flag whether to persist pages with a {@link org.apache.wicket.pageStore.SegmentPageStore}
+	 * instead of a {@link org.apache.wicket.pageStore.DiskPageStore}.
+	 *
+	 * @param segmented
+	 *            {@code true} to store pages in shared segment files, {@code false} - otherwise
+	 * @return {@code this} object for chaining
+	 */
+	public StoreSettings setSegmented(boolean segmented)
+	{
+		this.segmented = segmented;
+		return this;
+	}
+
+	/**
+	 * @return {@code true} if pages are persisted in shared segment files
+	 */
+	public boolean isSegmented()
+	{
+		return segmented;
+	}
+
+	/**
+	 * Sets the count of page versions after which a full snapshot of a page is stored by a
+	 * {@link org.apache.wicket.pageStore.DeltaPageStore}, all versions in between are stored as
+	 * deltas against their predecessor.
+	 *
+	 * @param deltaSnapshotInterval
+	 *            the count of versions, {@code 0} disables storing of deltas
+	 * @return {@code this} object for chaining
+	 */
+	public StoreSettings setDeltaSnapshotInterval(int deltaSnapshotInterval)
+	{
+		if (deltaSnapshotInterval < 0)
+		{
+			throw new IllegalArgumentException(
+				"The delta snapshot interval should be at least 0.");
+		}
+		this.deltaSnapshotInterval = deltaSnapshotInterval;
+		return this;
+	}
+
+	/**
+	 * @return the count of page versions after which a full snapshot is stored, {@code 0} if
+	 *         deltas are disabled
+	 */
+	public int getDeltaSnapshotInterval()
+	{
+		return deltaSnapshotInterval;
+	}
+
+	/**
+	 * Sets the size of an {@link org.apache.wicket.pageStore.OffHeapPageStore} caching serialized
+	 * pages of all sessions outside of the Java heap. Each session is limited to
+	 * {@link #getMaxSizePerSession()} in the cache too.
+	 *
+	 * @param offHeapCacheSize
+	 *            the maximum size of the cache, {@code 0} disables the cache
+	 * @return {@code this} object for chaining
+	 */
+	public StoreSettings setOffHeapCacheSize(Bytes offHeapCacheSize)
+	{
+		this.offHeapCacheSize = Args.notNull(offHeapCacheSize, "offHeapCacheSize");
+		return this;
+	}
+
+	/**
+	 * @return the maximum size of the off-heap cache of pages, {@code 0} if disabled
+	 */
+	public Bytes getOffHeapCacheSize()
+	{
+		return offHeapCacheSize;
+	}
+
+	/**
+	 * Get the statistics of the off-heap cache of pages, e.g. to monitor its hit rate and memory
+	 * usage.
+	 *
+	 * @return statistics
+	 * @see org.apache.wicket.pageStore.OffHeapPageStore
+	 */
+	public OffHeapPageStore.Statistics getOffHeapCacheStatistics()
+	{
+		return offHeapCacheStatistics;
+	}
 }
@@ -40,6 +40,7 @@ import org.apache.wicket.request.Url;
 import org.apache.wicket.request.component.IRequestableComponent;
 import org.apache.wicket.request.component.IRequestablePage;
 import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.mapper.IndexedCompoundRequestMapper;
 import org.apache.wicket.request.mapper.parameter.INamedParameters;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.junit.jupiter.api.Test;
@@ -134,6 +135,41 @@ class MountedMapperTest extends AbstractMapperTest
 		assertTrue(page.getPageParameters().getNamedKeys().isEmpty());
 	}
 
+	/**
+	 * A case insensitive mount is not indexed, so it still matches through an indexed mapper.
+	 */
+	@Test
+	void decode1CaseInsensitivelyIndexed()
+	{
+		assertNotNull(encoder.getIndexSegments());
+		encoder.setCaseSensitiveMatch(false);
+		assertNull(encoder.getIndexSegments());
+
+		IndexedCompoundRequestMapper mapper = new IndexedCompoundRequestMapper();
+		mapper.add(encoder);
+
+		Url url = Url.parse("somE/moUnt/paTh");
+		IRequestHandler handler = mapper.mapRequest(getRequest(url));
+		assertThat(handler).isInstanceOf(RenderPageRequestHandler.class);
+	}
+
+	/**
+	 * A mapper with its own matching of segments is not indexed.
+	 */
+	@Test
+	void customSegmentsMatchNotIndexed()
+	{
+		MountedMapper mapper = new MountedMapper("/some/mount/path", MockPage.class)
+		{
+			@Override
+			protected boolean segmentsMatch(String mountedSegment, String urlSegment)
+			{
+				return true;
+			}
+		};
+		assertNull(mapper.getIndexSegments());
+	}
+
 	/**
 	 *
 	 */
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.wicket.markup.parser.XmlTag.TagType;
+import org.apache.wicket.response.StringResponse;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the rendering of immutable tags and their copies.
+ */
+class ComponentTagTemplateTest
+{
+	private static ComponentTag immutableTag()
+	{
+		ComponentTag tag = new ComponentTag("div", TagType.OPEN);
+		tag.put("wicket:id", "label");
+		tag.put("class", "a & b");
+		tag.makeImmutable();
+		return tag;
+	}
+
+	private static String render(ComponentTag tag, boolean stripWicketAttributes)
+	{
+		StringResponse response = new StringResponse();
+		tag.writeOutput(response, stripWicketAttributes, "wicket");
+		return response.toString();
+	}
+
+	/**
+	 * An unmodified copy renders like the original, without copying its attributes.
+	 */
+	@Test
+	void unmodifiedCopy()
+	{
+		ComponentTag tag = immutableTag();
+		ComponentTag copy = tag.mutable();
+
+		assertEquals("<div class=\"a &amp; b\">", render(copy, true));
+		assertEquals("<div wicket:id=\"label\" class=\"a &amp; b\">", render(copy, false));
+		assertEquals("a & b", copy.getAttribute("class"));
+		assertTrue(copy.getXmlTag().sharesAttributesWith(tag.getXmlTag()));
+	}
+
+	/**
+	 * Modifying a copy leaves the original untouched.
+	 */
+	@Test
+	void modifiedCopy()
+	{
+		ComponentTag tag = immutableTag();
+		assertEquals("<div class=\"a &amp; b\">", render(tag, true));
+
+		ComponentTag copy = tag.mutable();
+		copy.put("title", "label1");
+		assertFalse(copy.getXmlTag().sharesAttributesWith(tag.getXmlTag()));
+		assertEquals("<div class=\"a &amp; b\" title=\"label1\">", render(copy, true));
+
+		ComponentTag other = tag.mutable();
+		other.setName("span");
+		other.setType(TagType.OPEN_CLOSE);
+		assertEquals("<span class=\"a &amp; b\"/>", render(other, true));
+
+		assertNull(tag.getAttribute("title"));
+		assertEquals("<div class=\"a &amp; b\">", render(tag, true));
+		assertThrows(UnsupportedOperationException.class, () -> tag.put("title", "label2"));
+	}
+}
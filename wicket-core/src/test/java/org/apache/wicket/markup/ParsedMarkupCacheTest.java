@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.function.Consumer;
+
+import org.apache.wicket.Page;
+import org.apache.wicket.markup.parser.SubPageWithoutMarkup;
+import org.apache.wicket.markup.parser.SuperPage;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.queueing.transparentresolvers.SubPage;
+import org.apache.wicket.queueing.transparentresolvers.TransparentContainerQueuePage;
+import org.apache.wicket.settings.MarkupSettings;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link ParsedMarkupCache} and {@link MarkupPrewarmer}.
+ */
+class ParsedMarkupCacheTest
+{
+	private static final String PACKAGE = SubPage.class.getPackage().getName();
+
+	private File file;
+
+	/**
+	 * @throws IOException
+	 */
+	@BeforeEach
+	void before() throws IOException
+	{
+		file = Files.createTempFile("markup", ".bin").toFile();
+		file.delete();
+	}
+
+	/**
+	 */
+	@AfterEach
+	void after()
+	{
+		file.delete();
+	}
+
+	/**
+	 * Markup is parsed on startup.
+	 */
+	@Test
+	void prewarm()
+	{
+		String expected = render(TransparentContainerQueuePage.class, settings -> {
+		});
+
+		WicketTester tester = newTester(settings -> settings.setMarkupPrewarmPackages(PACKAGE));
+		try
+		{
+			ParsedMarkupCache cache = tester.getApplication()
+				.getMarkupSettings()
+				.getMarkupFactory()
+				.getParsedMarkupCache();
+			assertEquals(3, cache.size());
+			assertEquals(3, cache.getMissCount());
+
+			tester.startPage(TransparentContainerQueuePage.class);
+			assertEquals(expected, tester.getLastResponseAsString());
+
+			assertEquals(1, cache.getHitCount());
+			assertEquals(3, cache.getMissCount());
+		}
+		finally
+		{
+			tester.destroy();
+		}
+	}
+
+	/**
+	 * Parsed markup is saved on shutdown and loaded on startup.
+	 */
+	@Test
+	void saveAndLoad()
+	{
+		String expected = render(SubPage.class,
+			settings -> settings.setParsedMarkupCacheFile(file));
+		assertTrue(file.exists());
+
+		WicketTester tester = newTester(settings -> settings.setParsedMarkupCacheFile(file));
+		try
+		{
+			ParsedMarkupCache cache = tester.getApplication()
+				.getMarkupSettings()
+				.getMarkupFactory()
+				.getParsedMarkupCache();
+			assertEquals(2, cache.size());
+
+			tester.startPage(SubPage.class);
+			assertEquals(expected, tester.getLastResponseAsString());
+
+			assertEquals(2, cache.getHitCount());
+			assertEquals(0, cache.getMissCount());
+		}
+		finally
+		{
+			tester.destroy();
+		}
+	}
+
+	/**
+	 * Saved markup is not used if the markup settings change.
+	 */
+	@Test
+	void ignoreOutdated()
+	{
+		render(SubPage.class, settings -> settings.setParsedMarkupCacheFile(file));
+
+		WicketTester tester = newTester(
+			settings -> settings.setParsedMarkupCacheFile(file).setStripWicketTags(true));
+		try
+		{
+			ParsedMarkupCache cache = tester.getApplication()
+				.getMarkupSettings()
+				.getMarkupFactory()
+				.getParsedMarkupCache();
+			assertEquals(0, cache.size());
+		}
+		finally
+		{
+			tester.destroy();
+		}
+	}
+
+	/**
+	 * Markup shared by different container classes is cached for each of them.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void sharedMarkup() throws Exception
+	{
+		WicketTester tester = newTester(settings -> settings.setParsedMarkupCacheFile(file));
+		try
+		{
+			ParsedMarkupCache cache = tester.getApplication()
+				.getMarkupSettings()
+				.getMarkupFactory()
+				.getParsedMarkupCache();
+
+			Markup superMarkup = cache.getMarkup(newMarkupResourceStream(tester, SuperPage.class));
+			Markup subMarkup = cache.getMarkup(
+				newMarkupResourceStream(tester, SubPageWithoutMarkup.class));
+			assertEquals(superMarkup.size(), subMarkup.size());
+			assertEquals(2, cache.size());
+			assertEquals(2, cache.getMissCount());
+
+			Markup restored = cache.getMarkup(newMarkupResourceStream(tester, SuperPage.class));
+			assertNotSame(superMarkup, restored);
+			assertEquals(superMarkup.toString(), restored.toString());
+			assertEquals(SuperPage.class,
+				restored.getMarkupResourceStream().getContainerInfo().getContainerClass());
+			assertEquals(1, cache.getHitCount());
+			assertEquals(2, cache.getMissCount());
+		}
+		finally
+		{
+			tester.destroy();
+		}
+	}
+
+	private MarkupResourceStream newMarkupResourceStream(WicketTester tester,
+		Class<?> containerClass)
+	{
+		IResourceStream resourceStream = tester.getApplication()
+			.getResourceSettings()
+			.getResourceStreamLocator()
+			.locate(SuperPage.class, SuperPage.class.getName().replace('.', '/'), null, null, null,
+				MarkupType.HTML_MARKUP_TYPE.getExtension(), true);
+		ContainerInfo containerInfo = new ContainerInfo(containerClass, null, null, null,
+			MarkupType.HTML_MARKUP_TYPE);
+		return new MarkupResourceStream(resourceStream, containerInfo, containerClass);
+	}
+
+	private String render(Class<? extends Page> pageClass, Consumer<MarkupSettings> configurer)
+	{
+		WicketTester tester = newTester(configurer);
+		try
+		{
+			tester.startPage(pageClass);
+			return tester.getLastResponseAsString();
+		}
+		finally
+		{
+			tester.destroy();
+		}
+	}
+
+	private WicketTester newTester(Consumer<MarkupSettings> configurer)
+	{
+		return new WicketTester(new MockApplication()
+		{
+			@Override
+			protected void init()
+			{
+				super.init();
+
+				configurer.accept(getMarkupSettings());
+			}
+		});
+	}
+}
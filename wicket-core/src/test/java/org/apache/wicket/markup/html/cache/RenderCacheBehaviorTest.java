@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.html.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.head.JavaScriptHeaderItem;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.link.Link;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link RenderCacheBehavior}
+ */
+class RenderCacheBehaviorTest extends WicketTestCase
+{
+	private static int loads;
+
+	private static int configures;
+
+	private static String version;
+
+	private static boolean stateful;
+
+	@BeforeEach
+	void before()
+	{
+		loads = 0;
+		configures = 0;
+		version = "1";
+		stateful = false;
+	}
+
+	/**
+	 * The cached output is rendered without rendering the children.
+	 */
+	@Test
+	void cached()
+	{
+		tester.startPage(CachedPage.class);
+		String first = tester.getLastResponseAsString();
+		assertTrue(first.contains("<span wicket:id=\"label\">loaded 1</span>"), first);
+		assertTrue(first.contains("cached.js"), first);
+
+		tester.startPage(CachedPage.class);
+		String second = tester.getLastResponseAsString();
+		assertEquals(first, second);
+
+		assertEquals(1, loads);
+		assertEquals(1, configures);
+
+		RenderCache cache = tester.getApplication().getMarkupSettings().getRenderCache();
+		assertEquals(1, cache.getHitCount());
+	}
+
+	/**
+	 * Another key renders the children again.
+	 */
+	@Test
+	void keyChanged()
+	{
+		tester.startPage(CachedPage.class);
+
+		version = "2";
+		tester.startPage(CachedPage.class);
+		tester.assertContains("loaded 2");
+
+		version = "1";
+		tester.startPage(CachedPage.class);
+		tester.assertContains("loaded 1");
+
+		assertEquals(2, loads);
+	}
+
+	/**
+	 * The output of stateful components is not cached.
+	 */
+	@Test
+	void stateful()
+	{
+		stateful = true;
+
+		tester.startPage(CachedPage.class);
+		tester.startPage(CachedPage.class);
+		tester.assertContains("loaded 2");
+
+		assertEquals(2, loads);
+	}
+
+	/**
+	 * No output is cached if the cache size is zero.
+	 */
+	@Test
+	void disabled()
+	{
+		tester.getApplication().getMarkupSettings().setRenderCacheSize(Bytes.bytes(0));
+		assertNull(tester.getApplication().getMarkupSettings().getRenderCache());
+
+		tester.startPage(CachedPage.class);
+		tester.startPage(CachedPage.class);
+		tester.assertContains("loaded 2");
+
+		tester.getApplication().getMarkupSettings().setRenderCacheSize(Bytes.kilobytes(1));
+		assertNotNull(tester.getApplication().getMarkupSettings().getRenderCache());
+	}
+
+	/**
+	 * A page with a cached container
+	 */
+	public static class CachedPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Construct.
+		 */
+		public CachedPage()
+		{
+			RenderCachingContainer cached = new RenderCachingContainer("cached")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected Serializable getCacheKey()
+				{
+					return version;
+				}
+
+				@Override
+				protected Duration getTimeToLive()
+				{
+					return Duration.ofMinutes(1);
+				}
+			};
+			add(cached);
+
+			cached.add(new Label("label", (IModel<String>)() -> "loaded " + (++loads))
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void onConfigure()
+				{
+					super.onConfigure();
+
+					configures++;
+				}
+
+				@Override
+				public void renderHead(IHeaderResponse response)
+				{
+					response.render(JavaScriptHeaderItem.forUrl("cached.js"));
+				}
+			});
+
+			cached.add(new Link<Void>("link")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public void onClick()
+				{
+				}
+
+				@Override
+				protected void onConfigure()
+				{
+					super.onConfigure();
+
+					setVisible(stateful);
+				}
+			});
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream("<html><head></head><body>" +
+				"<div wicket:id=\"cached\"><span wicket:id=\"label\"></span><a wicket:id=\"link\"></a></div>" +
+				"</body></html>");
+		}
+	}
+}
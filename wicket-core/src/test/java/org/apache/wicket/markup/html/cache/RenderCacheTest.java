@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.html.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import org.apache.wicket.markup.head.StringHeaderItem;
+import org.apache.wicket.util.lang.Bytes;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link RenderCache}
+ */
+class RenderCacheTest
+{
+	/**
+	 * Least recently used entries are evicted.
+	 */
+	@Test
+	void evict()
+	{
+		RenderCache cache = new RenderCache(Bytes.bytes(20));
+
+		assertTrue(cache.put("a", "aaaa", Collections.emptyList(), Duration.ofMinutes(1)));
+		assertTrue(cache.put("b", "bbbb", Collections.emptyList(), Duration.ofMinutes(1)));
+		assertNotNull(cache.get("a"));
+
+		assertTrue(cache.put("c", "cccc", Collections.emptyList(), Duration.ofMinutes(1)));
+		assertEquals(Bytes.bytes(16), cache.getSize());
+		assertNull(cache.get("b"));
+		assertEquals("aaaa", cache.get("a").getMarkup());
+
+		assertFalse(cache.put("d", "too large markup", Collections.emptyList(),
+			Duration.ofMinutes(1)));
+	}
+
+	/**
+	 * Entries expire after their time to live.
+	 * 
+	 * @throws InterruptedException
+	 */
+	@Test
+	void expire() throws InterruptedException
+	{
+		RenderCache cache = new RenderCache(Bytes.kilobytes(1));
+
+		cache.put("a", "aaaa", Collections.singletonList(StringHeaderItem.forString("head")),
+			Duration.ofMillis(1));
+		Thread.sleep(5);
+
+		assertNull(cache.get("a"));
+		assertEquals(Bytes.bytes(0), cache.getSize());
+		assertEquals(1, cache.getMissCount());
+	}
+}
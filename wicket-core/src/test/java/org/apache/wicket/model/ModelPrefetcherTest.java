@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ModelPrefetcher}
+ */
+class ModelPrefetcherTest extends WicketTestCase
+{
+	/** threads models were loaded on */
+	private static final Map<String, Thread> threads = new ConcurrentHashMap<>();
+
+	/** counted down by each load */
+	private static CountDownLatch loads;
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	void before()
+	{
+		threads.clear();
+		loads = new CountDownLatch(3);
+
+		executor = Executors.newFixedThreadPool(3);
+		tester.getApplication().getApplicationSettings().setModelPrefetchExecutor(executor);
+	}
+
+	@AfterEach
+	void after()
+	{
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Models are loaded concurrently before rendering.
+	 */
+	@Test
+	void concurrently()
+	{
+		tester.startPage(new PrefetchPage(false));
+
+		assertRendered();
+		assertEquals(3, threads.size());
+		for (Thread thread : threads.values())
+		{
+			assertNotSame(Thread.currentThread(), thread);
+		}
+	}
+
+	/**
+	 * Models failing to prefetch are loaded while rendering.
+	 */
+	@Test
+	void failure()
+	{
+		tester.startPage(new PrefetchPage(true));
+
+		assertRendered();
+		assertSame(Thread.currentThread(), threads.get("c"));
+	}
+
+	/**
+	 * Without executor models are loaded while rendering.
+	 */
+	@Test
+	void disabled()
+	{
+		tester.getApplication().getApplicationSettings().setModelPrefetchExecutor(null);
+		loads = new CountDownLatch(0);
+
+		tester.startPage(new PrefetchPage(false));
+
+		assertRendered();
+		assertSame(Thread.currentThread(), threads.get("a"));
+	}
+
+	/**
+	 * Models rejected by the executor are loaded in the rendering thread.
+	 */
+	@Test
+	void rejected()
+	{
+		executor.shutdown();
+		loads = new CountDownLatch(0);
+
+		tester.startPage(new PrefetchPage(false));
+
+		assertRendered();
+		assertSame(Thread.currentThread(), threads.get("a"));
+		assertSame(Thread.currentThread(), threads.get("c"));
+	}
+
+	private void assertRendered()
+	{
+		tester.assertContains(">a</span><span wicket:id=\"b\">b</span><span wicket:id=\"c\">c<");
+	}
+
+	private static class LoadingModel extends LoadableDetachableModel<String>
+		implements IPrefetchableModel<String>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String value;
+
+		private final boolean failPrefetch;
+
+		private LoadingModel(String value, boolean failPrefetch)
+		{
+			this.value = value;
+			this.failPrefetch = failPrefetch;
+		}
+
+		@Override
+		protected String load()
+		{
+			threads.put(value, Thread.currentThread());
+
+			if (failPrefetch && loads.getCount() > 0)
+			{
+				loads.countDown();
+				throw new IllegalStateException("prefetch");
+			}
+
+			// all models have to be loading at the same time
+			loads.countDown();
+			try
+			{
+				if (loads.await(5, TimeUnit.SECONDS) == false)
+				{
+					throw new IllegalStateException("not concurrent");
+				}
+			}
+			catch (InterruptedException ex)
+			{
+				throw new IllegalStateException(ex);
+			}
+			return value;
+		}
+	}
+
+	/**
+	 * Page with labels for prefetchable models.
+	 */
+	public static class PrefetchPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param failPrefetch
+		 *            whether the last model fails to prefetch
+		 */
+		public PrefetchPage(boolean failPrefetch)
+		{
+			add(new Label("a", new LoadingModel("a", false)));
+			add(new Label("b", new LoadingModel("b", false)));
+			add(new Label("c", new LoadingModel("c", failPrefetch)));
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><span wicket:id='a'></span><span wicket:id='b'></span><span wicket:id='c'></span></body></html>");
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.page;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.mock.MockHomePage;
+import org.apache.wicket.mock.MockPageManager;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link QueuedPageAccessSynchronizer}.
+ */
+class QueuedPageAccessSynchronizerTest
+{
+	/**
+	 * A thread can lock a page again.
+	 */
+	@Test
+	void reentrant()
+	{
+		QueuedPageAccessSynchronizer sync = new QueuedPageAccessSynchronizer(Duration.ofSeconds(5));
+		sync.lockPage(0);
+		sync.lockPage(0);
+
+		sync.unlockPage(0);
+		assertTrue(sync.getQueues().get().isEmpty());
+	}
+
+	/**
+	 * Waiting threads get the lock in order.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void fifo() throws Exception
+	{
+		QueuedPageAccessSynchronizer sync = new QueuedPageAccessSynchronizer(Duration.ofSeconds(5));
+
+		List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+
+		sync.lockPage(1);
+
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < 5; t++)
+		{
+			final int index = t;
+			Thread thread = new Thread(() -> {
+				sync.lockPage(1);
+				order.add(index);
+				sync.unlockAllPages();
+			});
+			thread.start();
+			threads.add(thread);
+
+			// wait until queued
+			while (sync.getQueues().get().get(1).waiters.size() <= t)
+			{
+				TimeUnit.MILLISECONDS.sleep(1);
+			}
+		}
+
+		sync.unlockAllPages();
+
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		assertEquals(List.of(0, 1, 2, 3, 4), order);
+		assertTrue(sync.getQueues().get().isEmpty());
+	}
+
+	/**
+	 * A thread gives up after the timeout.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void timeout() throws Exception
+	{
+		QueuedPageAccessSynchronizer sync = new QueuedPageAccessSynchronizer(
+			Duration.ofMillis(100));
+
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		Thread holder = new Thread(() -> {
+			sync.lockPage(1);
+			locked.countDown();
+			try
+			{
+				done.await();
+			}
+			catch (InterruptedException e)
+			{
+				throw new RuntimeException(e);
+			}
+			sync.unlockAllPages();
+		});
+		holder.start();
+		locked.await();
+
+		assertThrows(CouldNotLockPageException.class, () -> sync.lockPage(1));
+		assertTrue(sync.getQueues().get().get(1).waiters.isEmpty());
+
+		done.countDown();
+		holder.join();
+
+		sync.lockPage(1);
+		sync.unlockAllPages();
+	}
+
+	/**
+	 * Wait times are recorded by page class.
+	 */
+	@Test
+	void statistics()
+	{
+		WicketTester tester = new WicketTester(new MockApplication());
+		try
+		{
+			QueuedPageAccessSynchronizer sync = new QueuedPageAccessSynchronizer(
+				Duration.ofSeconds(5));
+			IPageManager manager = sync.adapt(new MockPageManager());
+
+			MockHomePage page = new MockHomePage();
+			manager.touchPage(page);
+			manager.touchPage(page);
+			manager.detach();
+
+			Map<String, QueuedPageAccessSynchronizer.Histogram> histograms = tester
+				.getApplication()
+				.getPageSettings()
+				.getPageLockStatistics()
+				.getHistograms();
+			assertEquals(1, histograms.size());
+			assertEquals(1, histograms.get(MockHomePage.class.getName()).getCount(0));
+		}
+		finally
+		{
+			tester.destroy();
+		}
+	}
+}
@@ -23,6 +23,8 @@ import static org.junit.jupiter.api.Assertions.fail;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -384,6 +386,64 @@ public class AsynchronousPageStoreTest
 		}
 	}
 	
+	/**
+	 * Pages are added in batches, keeping the order of pages of each session.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	void storeAddsBatchesInOrder() throws InterruptedException
+	{
+		int sessions = 5;
+		int pages = 20;
+
+		final CountDownLatch lock = new CountDownLatch(sessions * pages);
+		final Map<String, List<Integer>> added = new ConcurrentHashMap<>();
+
+		IPageStore store = new NoopPageStore()
+		{
+			@Override
+			public void addPage(IPageContext context, IManageablePage page)
+			{
+				added.computeIfAbsent(context.getSessionId(false), key -> new ArrayList<>())
+					.add(page.getPageId());
+				lock.countDown();
+			}
+		};
+
+		AsynchronousPageStore.Statistics statistics = new AsynchronousPageStore.Statistics();
+		IPageStore asyncPageStore = new AsynchronousPageStore(store, 1000, 3, 10, statistics);
+
+		for (int pageId = 0; pageId < pages; pageId++)
+		{
+			for (int session = 0; session < sessions; session++)
+			{
+				IPageContext context = new MockPageContext("session" + session);
+
+				asyncPageStore.addPage(context, new SerializedPage(pageId, "", new byte[0]));
+			}
+		}
+
+		assertTrue(lock.await(10, TimeUnit.SECONDS));
+
+		for (int session = 0; session < sessions; session++)
+		{
+			List<Integer> ids = added.get("session" + session);
+			assertEquals(pages, ids.size());
+			for (int pageId = 0; pageId < pages; pageId++)
+			{
+				assertEquals(pageId, ids.get(pageId));
+			}
+		}
+
+		assertEquals(0, statistics.getQueueSize());
+		assertEquals(0, statistics.getSynchronousCount());
+		assertTrue(statistics.getBatchCount() > 0);
+		assertTrue(statistics.getMaxBatchSize() <= 10);
+
+		asyncPageStore.destroy();
+	}
+
 	// test run
 
 	private class Metrics
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.apache.wicket.mock.MockPageContext;
+import org.apache.wicket.mock.MockPageStore;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link DeltaPageStore}.
+ */
+public class DeltaPageStoreTest
+{
+	private final Random random = new Random(42);
+
+	/**
+	 * Consecutive versions are delegated as deltas, with a snapshot every few versions.
+	 */
+	@Test
+	void versions()
+	{
+		MockPageStore mockStore = new MockPageStore();
+		DeltaPageStore store = new DeltaPageStore(mockStore, 3);
+
+		IPageContext context = new MockPageContext();
+
+		byte[][] versions = new byte[6][];
+		versions[0] = randomBytes(10000);
+		for (int v = 0; v < versions.length; v++)
+		{
+			if (v > 0)
+			{
+				versions[v] = versions[v - 1].clone();
+				versions[v][random.nextInt(versions[v].length)]++;
+			}
+			store.addPage(context, new SerializedPage(v, "foo", versions[v]));
+		}
+
+		assertEquals(10000, delegatedSize(mockStore, 0));
+		assertTrue(delegatedSize(mockStore, 1) < 100);
+		assertTrue(delegatedSize(mockStore, 2) < 100);
+		assertEquals(10000, delegatedSize(mockStore, 3));
+		assertTrue(delegatedSize(mockStore, 4) < 100);
+		assertTrue(delegatedSize(mockStore, 5) < 100);
+
+		for (int v = 0; v < versions.length; v++)
+		{
+			SerializedPage page = (SerializedPage)store.getPage(context, v);
+			assertEquals("foo", page.getPageType());
+			assertArrayEquals(versions[v], page.getData());
+		}
+	}
+
+	/**
+	 * Replacing a page keeps pages based on it.
+	 */
+	@Test
+	void replaceBase()
+	{
+		MockPageStore mockStore = new MockPageStore();
+		DeltaPageStore store = new DeltaPageStore(mockStore, 10);
+
+		IPageContext context = new MockPageContext();
+
+		byte[] data0 = randomBytes(10000);
+		store.addPage(context, new SerializedPage(0, "foo", data0));
+		byte[] data1 = data0.clone();
+		data1[0]++;
+		store.addPage(context, new SerializedPage(1, "foo", data1));
+		assertTrue(delegatedSize(mockStore, 1) < 100);
+
+		byte[] data0b = data0.clone();
+		data0b[1]++;
+		store.addPage(context, new SerializedPage(0, "foo", data0b));
+
+		assertEquals(10000, delegatedSize(mockStore, 1));
+		assertArrayEquals(data0b, ((SerializedPage)store.getPage(context, 0)).getData());
+		assertArrayEquals(data1, ((SerializedPage)store.getPage(context, 1)).getData());
+	}
+
+	/**
+	 * A missing base cannot be rebuilt.
+	 */
+	@Test
+	void missingBase()
+	{
+		MockPageStore mockStore = new MockPageStore();
+		DeltaPageStore store = new DeltaPageStore(mockStore, 10);
+
+		IPageContext context = new MockPageContext();
+
+		byte[] data0 = randomBytes(10000);
+		store.addPage(context, new SerializedPage(0, "foo", data0));
+		byte[] data1 = data0.clone();
+		data1[0]++;
+		store.addPage(context, new SerializedPage(1, "foo", data1));
+
+		mockStore.removePage(context, new SerializedPage(0, "foo", data0));
+
+		assertNull(store.getPage(context, 1));
+	}
+
+	/**
+	 * A delta whose base was evicted by the delegate is removed when requested.
+	 */
+	@Test
+	void missingBaseRemoved()
+	{
+		MockPageStore mockStore = new MockPageStore();
+		DeltaPageStore store = new DeltaPageStore(mockStore, 10);
+
+		IPageContext context = new MockPageContext();
+
+		byte[] data0 = randomBytes(10000);
+		store.addPage(context, new SerializedPage(0, "foo", data0));
+		byte[] data1 = data0.clone();
+		data1[0]++;
+		store.addPage(context, new SerializedPage(1, "foo", data1));
+
+		mockStore.removePage(context, new SerializedPage(0, "foo", data0));
+
+		assertNull(store.getPage(context, 1));
+		assertNull(mockStore.getPage(context, 1));
+
+		// a new page with the same id is not based on the missing page
+		store.addPage(context, new SerializedPage(0, "foo", data0));
+		assertArrayEquals(data0, ((SerializedPage)store.getPage(context, 0)).getData());
+	}
+
+	/**
+	 * The oldest deltas are removed, pages based on them are kept.
+	 */
+	@Test
+	void maxDeltas()
+	{
+		MockPageStore mockStore = new MockPageStore();
+		DeltaPageStore store = new DeltaPageStore(mockStore, 10, 2);
+
+		IPageContext context = new MockPageContext();
+
+		byte[][] versions = new byte[5][];
+		versions[0] = randomBytes(10000);
+		for (int v = 0; v < versions.length; v++)
+		{
+			if (v > 0)
+			{
+				versions[v] = versions[v - 1].clone();
+				versions[v][random.nextInt(versions[v].length)]++;
+			}
+			store.addPage(context, new SerializedPage(v, "foo", versions[v]));
+		}
+
+		assertArrayEquals(versions[0], ((SerializedPage)store.getPage(context, 0)).getData());
+		assertNull(store.getPage(context, 1));
+		assertEquals(10000, delegatedSize(mockStore, 2));
+		for (int v = 2; v < versions.length; v++)
+		{
+			assertArrayEquals(versions[v], ((SerializedPage)store.getPage(context, v)).getData());
+		}
+	}
+
+	private int delegatedSize(MockPageStore mockStore, int id)
+	{
+		return ((SerializedPage)mockStore.getPage(null, id)).getData().length;
+	}
+
+	private byte[] randomBytes(int length)
+	{
+		byte[] bytes = new byte[length];
+		random.nextBytes(bytes);
+		return bytes;
+	}
+}
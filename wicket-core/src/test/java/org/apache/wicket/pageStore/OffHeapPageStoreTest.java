@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.apache.wicket.mock.MockPageContext;
+import org.apache.wicket.mock.MockPageStore;
+import org.apache.wicket.util.lang.Bytes;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link OffHeapPageStore}.
+ */
+public class OffHeapPageStoreTest
+{
+	private final Random random = new Random(42);
+
+	/**
+	 * Pages are served from the cache.
+	 */
+	@Test
+	void hit()
+	{
+		MockPageStore mockStore = new MockPageStore();
+		OffHeapPageStore.Statistics statistics = new OffHeapPageStore.Statistics();
+		OffHeapPageStore store = new OffHeapPageStore(mockStore, Bytes.kilobytes(64),
+			Bytes.kilobytes(64), 1024, statistics);
+
+		IPageContext context = new MockPageContext("session");
+
+		byte[] data = randomBytes(3000);
+		store.addPage(context, new SerializedPage(1, "foo", data));
+		assertEquals(1, mockStore.getPages().size());
+
+		mockStore.getPages().clear();
+
+		SerializedPage page = (SerializedPage)store.getPage(context, 1);
+		assertEquals("foo", page.getPageType());
+		assertArrayEquals(data, page.getData());
+
+		assertNull(store.getPage(context, 2));
+
+		assertEquals(1, statistics.getHitCount());
+		assertEquals(1, statistics.getMissCount());
+		assertEquals(0.5, statistics.getHitRate());
+		assertEquals(3072, statistics.getUsedBytes());
+		assertEquals(3000, store.getSessionBytes("session"));
+	}
+
+	/**
+	 * Direct memory is freed when the store is destroyed.
+	 */
+	@Test
+	void destroy()
+	{
+		OffHeapPageStore store = new OffHeapPageStore(new MockPageStore(), Bytes.megabytes(4),
+			Bytes.megabytes(4), 1024, new OffHeapPageStore.Statistics());
+
+		IPageContext context = new MockPageContext("session");
+		store.addPage(context, new SerializedPage(1, "foo", randomBytes(3000)));
+
+		long used = getDirectMemoryUsed();
+		store.destroy();
+		assertTrue(getDirectMemoryUsed() <= used - Bytes.megabytes(1).bytes());
+	}
+
+	private static long getDirectMemoryUsed()
+	{
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class))
+		{
+			if ("direct".equals(pool.getName()))
+			{
+				return pool.getMemoryUsed();
+			}
+		}
+		throw new IllegalStateException("No direct buffer pool");
+	}
+
+	/**
+	 * Pages read from the delegate are cached.
+	 */
+	@Test
+	void readThrough()
+	{
+		MockPageStore mockStore = new MockPageStore();
+		OffHeapPageStore.Statistics statistics = new OffHeapPageStore.Statistics();
+		OffHeapPageStore store = new OffHeapPageStore(mockStore, Bytes.kilobytes(64),
+			Bytes.kilobytes(64), 1024, statistics);
+
+		IPageContext context = new MockPageContext("session");
+
+		SerializedPage delegated = new SerializedPage(1, "foo", randomBytes(100));
+		mockStore.addPage(context, delegated);
+
+		assertSame(delegated, store.getPage(context, 1));
+
+		mockStore.getPages().clear();
+
+		assertArrayEquals(delegated.getData(), ((SerializedPage)store.getPage(context, 1)).getData());
+		assertEquals(1, statistics.getHitCount());
+	}
+
+	/**
+	 * Least recently used pages are evicted.
+	 */
+	@Test
+	void evictLeastRecentlyUsed()
+	{
+		MockPageStore mockStore = new MockPageStore();
+		OffHeapPageStore.Statistics statistics = new OffHeapPageStore.Statistics();
+		OffHeapPageStore store = new OffHeapPageStore(mockStore, Bytes.kilobytes(4),
+			Bytes.kilobytes(4), 1024, statistics);
+
+		IPageContext context1 = new MockPageContext("session1");
+		IPageContext context2 = new MockPageContext("session2");
+
+		store.addPage(context1, new SerializedPage(1, "foo", randomBytes(1500)));
+		store.addPage(context2, new SerializedPage(2, "foo", randomBytes(1500)));
+
+		// access first page so second is least recently used
+		store.getPage(context1, 1);
+
+		store.addPage(context1, new SerializedPage(3, "foo", randomBytes(1500)));
+
+		mockStore.getPages().clear();
+
+		assertEquals(1, statistics.getEvictionCount());
+		assertNull(store.getPage(context2, 2));
+		assertEquals(1500, ((SerializedPage)store.getPage(context1, 1)).getData().length);
+		assertEquals(1500, ((SerializedPage)store.getPage(context1, 3)).getData().length);
+		assertEquals(0, store.getSessionBytes("session2"));
+		assertEquals(1, statistics.getSessionCount());
+	}
+
+	/**
+	 * A session cannot exceed its maximum size.
+	 */
+	@Test
+	void maxSizePerSession()
+	{
+		MockPageStore mockStore = new MockPageStore();
+		OffHeapPageStore.Statistics statistics = new OffHeapPageStore.Statistics();
+		OffHeapPageStore store = new OffHeapPageStore(mockStore, Bytes.kilobytes(64),
+			Bytes.bytes(2500), 1024, statistics);
+
+		IPageContext context1 = new MockPageContext("session1");
+		IPageContext context2 = new MockPageContext("session2");
+
+		store.addPage(context2, new SerializedPage(1, "foo", randomBytes(1000)));
+		for (int id = 2; id < 10; id++)
+		{
+			store.addPage(context1, new SerializedPage(id, "foo", randomBytes(1000)));
+		}
+
+		assertEquals(2000, store.getSessionBytes("session1"));
+		assertEquals(1000, store.getSessionBytes("session2"));
+		assertEquals(2000, statistics.getMaxSessionBytes());
+
+		store.removeAllPages(context1);
+		assertEquals(0, store.getSessionBytes("session1"));
+		assertEquals(1, statistics.getPageCount());
+	}
+
+	private byte[] randomBytes(int length)
+	{
+		byte[] bytes = new byte[length];
+		random.nextBytes(bytes);
+		return bytes;
+	}
+}
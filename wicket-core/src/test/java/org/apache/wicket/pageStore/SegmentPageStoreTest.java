@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.wicket.mock.MockPageContext;
+import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.lang.Bytes;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link SegmentPageStore}.
+ */
+@Tag(WicketTestTag.SLOW)
+public class SegmentPageStoreTest extends AbstractConcurrentPageStoreTest
+{
+
+	private static final Bytes MAX_SIZE_PER_SESSION = Bytes.megabytes(10);
+
+	/**
+	 * @throws IOException
+	 */
+	@Test
+	void store() throws IOException
+	{
+		File folder = Files.createTempDirectory(null).toFile();
+
+		IPageStore pageStore = new SegmentPageStore("app1", folder, MAX_SIZE_PER_SESSION);
+
+		doTestStore(pageStore);
+
+		pageStore.destroy();
+	}
+
+	/**
+	 * Replaced pages are compacted.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void compact() throws IOException
+	{
+		File folder = Files.createTempDirectory(null).toFile();
+
+		SegmentPageStore pageStore = new SegmentPageStore("app1", folder, MAX_SIZE_PER_SESSION,
+			Bytes.bytes(100));
+
+		IPageContext context = new MockPageContext("session1");
+
+		for (int i = 0; i < 10; i++)
+		{
+			pageStore.addPage(context, new SerializedPage(1, "type", new byte[] { (byte)i, 1, 2, 3, 4, 5, 6, 7, 8, 9 }));
+			pageStore.addPage(context, new SerializedPage(2, "type", new byte[] { (byte)i, 1, 2, 3, 4, 5, 6, 7, 8, 9 }));
+		}
+
+		pageStore.compact();
+
+		assertEquals(Bytes.bytes(20), pageStore.getTotalSize());
+		assertArrayEquals(new byte[] { 9, 1, 2, 3, 4, 5, 6, 7, 8, 9 },
+			((SerializedPage)pageStore.getPage(context, 1)).getData());
+		assertArrayEquals(new byte[] { 9, 1, 2, 3, 4, 5, 6, 7, 8, 9 },
+			((SerializedPage)pageStore.getPage(context, 2)).getData());
+
+		pageStore.removeAllPages(context);
+		pageStore.compact();
+
+		assertEquals(Bytes.bytes(0), pageStore.getTotalSize());
+		assertNull(pageStore.getPage(context, 1));
+
+		pageStore.destroy();
+	}
+
+	/**
+	 * Compaction keeps the order in which pages were added.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void compactKeepsOrder() throws IOException
+	{
+		File folder = Files.createTempDirectory(null).toFile();
+
+		SegmentPageStore pageStore = new SegmentPageStore("app1", folder, Bytes.bytes(25),
+			Bytes.bytes(100));
+
+		IPageContext context = new MockPageContext("session1");
+
+		// page 1 is left alone in the first segment
+		pageStore.addPage(context, new SerializedPage(1, "type", new byte[10]));
+		for (int i = 0; i < 10; i++)
+		{
+			pageStore.addPage(context, new SerializedPage(2, "type", new byte[10]));
+		}
+
+		pageStore.compact();
+
+		// page 1 is still the eldest
+		pageStore.addPage(context, new SerializedPage(3, "type", new byte[10]));
+		assertNull(pageStore.getPage(context, 1));
+		assertNotNull(pageStore.getPage(context, 2));
+		assertNotNull(pageStore.getPage(context, 3));
+
+		pageStore.destroy();
+	}
+
+	/**
+	 * Segment files are created on first use only.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void lazySegments() throws IOException
+	{
+		File folder = Files.createTempDirectory(null).toFile();
+		File storeFolder = new File(folder, "app1-segmentstore");
+
+		SegmentPageStore pageStore = new SegmentPageStore("app1", folder, MAX_SIZE_PER_SESSION);
+		assertEquals(0, storeFolder.list().length);
+
+		IPageContext context = new MockPageContext("session1");
+		pageStore.addPage(context, new SerializedPage(1, "type", new byte[] { 1, 2, 3 }));
+		assertEquals(1, storeFolder.list().length);
+
+		pageStore.destroy();
+	}
+
+	/**
+	 * Pages read while the store is destroyed are either returned or fail with an exception.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void destroyWhileReading() throws Exception
+	{
+		File folder = Files.createTempDirectory(null).toFile();
+
+		SegmentPageStore pageStore = new SegmentPageStore("app1", folder, MAX_SIZE_PER_SESSION);
+		IPageContext context = new MockPageContext("session1");
+		String sessionIdentifier = pageStore.getSessionIdentifier(context);
+		pageStore.addPage(context, new SerializedPage(1, "type", new byte[1000]));
+
+		CountDownLatch reading = new CountDownLatch(1);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			try
+			{
+				while (true)
+				{
+					pageStore.getPersistedPage(sessionIdentifier, 1);
+					reading.countDown();
+				}
+			}
+			catch (Throwable ex)
+			{
+				failure.set(ex);
+			}
+		});
+		reader.start();
+
+		reading.await();
+		pageStore.destroy();
+		reader.join();
+
+		assertTrue(failure.get() instanceof IllegalStateException);
+	}
+
+	/**
+	 * Pages are still available after restart.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void restart() throws IOException
+	{
+		File folder = Files.createTempDirectory(null).toFile();
+
+		SegmentPageStore pageStore = new SegmentPageStore("app1", folder, MAX_SIZE_PER_SESSION);
+		IPageContext context = new MockPageContext("session1");
+		String sessionIdentifier = pageStore.getSessionIdentifier(context);
+		pageStore.addPage(context, new SerializedPage(1, "type", new byte[] { 1, 2, 3 }));
+		pageStore.destroy();
+
+		pageStore = new SegmentPageStore("app1", folder, MAX_SIZE_PER_SESSION);
+		assertEquals(1, pageStore.getPersistedPages(sessionIdentifier).size());
+		assertArrayEquals(new byte[] { 1, 2, 3 },
+			((SerializedPage)pageStore.getPersistedPage(sessionIdentifier, 1)).getData());
+		pageStore.destroy();
+	}
+}
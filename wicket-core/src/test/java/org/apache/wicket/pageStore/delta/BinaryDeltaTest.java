@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore.delta;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link BinaryDelta}.
+ */
+public class BinaryDeltaTest
+{
+	private final Random random = new Random(42);
+
+	@Test
+	void identical()
+	{
+		byte[] base = randomBytes(10000);
+
+		byte[] delta = BinaryDelta.create(base, base);
+
+		assertTrue(delta.length < 16);
+		assertArrayEquals(base, BinaryDelta.apply(base, delta));
+	}
+
+	@Test
+	void modified()
+	{
+		byte[] base = randomBytes(100000);
+
+		byte[] target = new byte[base.length + 10];
+		System.arraycopy(base, 0, target, 0, 50000);
+		System.arraycopy(randomBytes(10), 0, target, 50000, 10);
+		System.arraycopy(base, 50000, target, 50010, 50000);
+		target[100] ^= 1;
+		target[99999] ^= 1;
+
+		byte[] delta = BinaryDelta.create(base, target);
+
+		assertTrue(delta.length < 200);
+		assertArrayEquals(target, BinaryDelta.apply(base, delta));
+	}
+
+	@Test
+	void unrelated()
+	{
+		byte[] base = randomBytes(1000);
+		byte[] target = randomBytes(2000);
+
+		assertArrayEquals(target, BinaryDelta.apply(base, BinaryDelta.create(base, target)));
+	}
+
+	@Test
+	void empty()
+	{
+		byte[] base = new byte[0];
+		byte[] target = randomBytes(10);
+
+		assertArrayEquals(target, BinaryDelta.apply(base, BinaryDelta.create(base, target)));
+		assertArrayEquals(base, BinaryDelta.apply(target, BinaryDelta.create(target, base)));
+	}
+
+	private byte[] randomBytes(int length)
+	{
+		byte[] bytes = new byte[length];
+		random.nextBytes(bytes);
+		return bytes;
+	}
+}
@@ -16,12 +16,22 @@
  */
 package org.apache.wicket.protocol.http;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+import org.apache.wicket.RuntimeConfigurationType;
+import org.apache.wicket.mock.MockApplication;
 import org.apache.wicket.mock.MockWebResponse;
+import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
 import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.util.string.PreEncodedString;
 import org.apache.wicket.util.tester.WicketTestCase;
 import org.junit.jupiter.api.Test;
 
@@ -34,6 +44,20 @@ public class BufferedWebResponseTest extends WicketTestCase
 		SET_CONTENT_LENGTH, WRITE_RESPONSE, DISABLE_CACHING
 	}
 
+	@Override
+	protected WebApplication newApplication()
+	{
+		return new MockApplication()
+		{
+			@Override
+			public RuntimeConfigurationType getConfigurationType()
+			{
+				// without the response filter of development mode
+				return RuntimeConfigurationType.DEPLOYMENT;
+			}
+		};
+	}
+
 	/**
 	 * Asserting that set header actions are invoked before write in response actions.
 	 * 
@@ -74,4 +98,138 @@ public class BufferedWebResponseTest extends WicketTestCase
 		assertEquals(1, actionsSequence.indexOf(TestAction.DISABLE_CACHING));
 		assertEquals(2, actionsSequence.indexOf(TestAction.WRITE_RESPONSE));
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Text and binary data moved out of the heap is written unchanged.
+	 */
+	@Test
+	void storeData()
+	{
+		for (long spillThreshold : new long[] { 0, Long.MAX_VALUE })
+		{
+			BufferedWebResponse response = new BufferedWebResponse(null);
+			response.setContentType("text/plain");
+			response.write("some text \u00e4\ud83d\ude00");
+			assertEquals(16, response.storeData(spillThreshold));
+			assertThrows(IllegalStateException.class, () -> response.write("more"));
+
+			MockWebResponse target = new MockWebResponse();
+			response.writeTo(target);
+			assertEquals("text/plain", target.getContentType());
+			assertEquals("some text \u00e4\ud83d\ude00", target.getTextResponse().toString());
+
+			// released after writing
+			assertThrows(IllegalStateException.class, () -> response.writeTo(new MockWebResponse()));
+
+			// written as bytes to an UTF-8 encoded container response
+			BufferedWebResponse utf8 = new BufferedWebResponse(null);
+			utf8.setContentType("text/html; charset=UTF-8");
+			String text = "\u00e4\ud83d\ude00".repeat(5000);
+			utf8.write(text);
+			assertEquals(30000, utf8.storeData(spillThreshold));
+			target = new MockWebResponse()
+			{
+				@Override
+				public Object getContainerResponse()
+				{
+					return new MockHttpServletResponse(null);
+				}
+			};
+			utf8.writeTo(target);
+			assertEquals(text, new String(target.getBinaryResponse(), StandardCharsets.UTF_8));
+
+			// decoded in chunks otherwise
+			BufferedWebResponse latin = new BufferedWebResponse(null);
+			latin.setContentType("text/html; charset=ISO-8859-1");
+			latin.write(text);
+			latin.storeData(spillThreshold);
+			target = new MockWebResponse();
+			latin.writeTo(target);
+			assertEquals(text, target.getTextResponse().toString());
+
+			byte[] bytes = new byte[20000];
+			bytes[19999] = 1;
+			BufferedWebResponse binary = new BufferedWebResponse(null);
+			binary.write(bytes);
+			assertEquals(20000, binary.storeData(spillThreshold));
+
+			target = new MockWebResponse();
+			binary.writeTo(target);
+			assertArrayEquals(bytes, target.getBinaryResponse());
+		}
+	}
+
+	/**
+	 * Pre-encoded strings are written as their bytes to the container, the remaining text is
+	 * encoded.
+	 */
+	@Test
+	void preEncoded()
+	{
+		PreEncodedString markup = new PreEncodedString("<p>\u00e4</p>");
+
+		List<byte[]> writes = new ArrayList<>();
+		MockWebResponse target = new MockWebResponse()
+		{
+			@Override
+			public void write(byte[] array)
+			{
+				writes.add(array);
+				super.write(array);
+			}
+
+			@Override
+			public void write(byte[] array, int offset, int length)
+			{
+				writes.add(Arrays.copyOfRange(array, offset, offset + length));
+				super.write(array, offset, length);
+			}
+
+			@Override
+			public Object getContainerResponse()
+			{
+				return new MockHttpServletResponse(null);
+			}
+		};
+
+		BufferedWebResponse response = new BufferedWebResponse(null);
+		response.setContentType("text/html; charset=UTF-8");
+		response.write(markup);
+		response.write("\u00f6");
+		response.write(markup);
+		response.writeTo(target);
+
+		assertEquals(3, writes.size());
+		assertSame(markup.getBytes(), writes.get(0));
+		assertSame(markup.getBytes(), writes.get(2));
+		assertArrayEquals("\u00f6".getBytes(StandardCharsets.UTF_8), writes.get(1));
+		assertEquals("<p>\u00e4</p>\u00f6<p>\u00e4</p>",
+			new String(target.getBinaryResponse(), StandardCharsets.UTF_8));
+
+		// text larger than the encoding buffer
+		String text = "\u00fc".repeat(10000);
+		response = new BufferedWebResponse(null);
+		response.setContentType("text/html; charset=UTF-8");
+		response.write(markup);
+		response.write(text);
+		target = new MockWebResponse()
+		{
+			@Override
+			public Object getContainerResponse()
+			{
+				return new MockHttpServletResponse(null);
+			}
+		};
+		response.writeTo(target);
+		assertEquals("<p>\u00e4</p>" + text,
+			new String(target.getBinaryResponse(), StandardCharsets.UTF_8));
+
+		// other encodings are left to the container
+		response = new BufferedWebResponse(null);
+		response.setContentType("text/html; charset=ISO-8859-1");
+		response.write(markup);
+		target = new MockWebResponse();
+		response.writeTo(target);
+		assertEquals("<p>\u00e4</p>", target.getTextResponse().toString());
+	}
+}
@@ -17,6 +17,7 @@
 package org.apache.wicket.protocol.http;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -31,6 +32,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.lang.Bytes;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
@@ -95,6 +97,43 @@ class StoredResponsesMapTest
 
 	}
 
+	/**
+	 * Verifies that least recently used responses are evicted when the maximum size is exceeded.
+	 */
+	@Test
+	void maxSize()
+	{
+		StoredResponsesMap map = new StoredResponsesMap(1000, Duration.ofDays(1),
+			Bytes.bytes(10), Bytes.bytes(2));
+		map.put("a", response(4));
+		map.put("b", response(4));
+		assertNotNull(map.get("a"));
+		map.put("c", response(4));
+
+		assertEquals(8, map.getStoredSize().bytes());
+		assertEquals(1, map.getEvictionCount());
+		assertNull(map.get("b"));
+
+		map.put("d", response(11));
+		assertEquals(2, map.size());
+		assertEquals(2, map.getEvictionCount());
+
+		assertNotNull(map.remove("c"));
+		assertEquals(4, map.getStoredSize().bytes());
+		assertEquals(2, map.getHitCount());
+		assertEquals(1, map.getMissCount());
+
+		map.clear();
+		assertEquals(0, map.getStoredSize().bytes());
+	}
+
+	private BufferedWebResponse response(int size)
+	{
+		BufferedWebResponse response = new BufferedWebResponse(null);
+		response.write(new byte[size]);
+		return response;
+	}
+
 	/**
 	 * <a href="https://issues.apache.org/jira/browse/WICKET-3736">WICKET-3736</a>
 	 * 
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.link.Link;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link PageResponseCacheMapper}
+ */
+class PageResponseCacheMapperTest extends WicketTestCase
+{
+	private static int constructions;
+
+	private static boolean stateful;
+
+	@BeforeEach
+	void before()
+	{
+		constructions = 0;
+		stateful = false;
+	}
+
+	@Override
+	protected WebApplication newApplication()
+	{
+		return new MockApplication()
+		{
+			@Override
+			protected void init()
+			{
+				super.init();
+
+				mountPage("cached", CachedPage.class);
+
+				setRootRequestMapper(new PageResponseCacheMapper(getRootRequestMapper(),
+					new PageResponseCache(Bytes.megabytes(1))));
+			}
+		};
+	}
+
+	/**
+	 * A cached response is served without constructing the page.
+	 */
+	@Test
+	void cached()
+	{
+		get("cached?p=1");
+		String first = tester.getLastResponseAsString();
+		String etag = tester.getLastResponse().getHeader("ETag");
+		assertTrue(first.contains("<span wicket:id=\"label\">1</span>"), first);
+		assertNotNull(etag);
+
+		get("cached?p=1");
+		assertEquals(HttpServletResponse.SC_OK, tester.getLastResponse().getStatus());
+		assertEquals(first, tester.getLastResponseAsString());
+		assertEquals(etag, tester.getLastResponse().getHeader("ETag"));
+		assertEquals(1, constructions);
+
+		get("cached?p=2");
+		assertTrue(tester.getLastResponseAsString().contains("<span wicket:id=\"label\">2</span>"));
+		assertEquals(2, constructions);
+	}
+
+	/**
+	 * A conditional request for an unchanged response is answered with 304.
+	 */
+	@Test
+	void notModified()
+	{
+		get("cached");
+		String etag = tester.getLastResponse().getHeader("ETag");
+
+		tester.getRequest().setHeader("If-None-Match", etag);
+		get("cached");
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, tester.getLastResponse().getStatus());
+		assertEquals("", tester.getLastResponseAsString());
+		assertEquals(1, constructions);
+
+		tester.getRequest().setHeader("If-None-Match", "\"other\"");
+		get("cached");
+		assertEquals(HttpServletResponse.SC_OK, tester.getLastResponse().getStatus());
+		assertEquals(1, constructions);
+	}
+
+	/**
+	 * The responses of stateful pages are not cached.
+	 */
+	@Test
+	void stateful()
+	{
+		stateful = true;
+
+		get("cached");
+		get("cached");
+		assertEquals(2, constructions);
+	}
+
+	/**
+	 * A different value of a vary header is a different response.
+	 */
+	@Test
+	void varyHeader()
+	{
+		tester.getRequest().setHeader("User-Agent", "first");
+		get("cached");
+		assertEquals("User-Agent", tester.getLastResponse().getHeader("Vary"));
+
+		tester.getRequest().setHeader("User-Agent", "second");
+		get("cached");
+		assertEquals(2, constructions);
+
+		tester.getRequest().setHeader("User-Agent", "first");
+		get("cached");
+		assertEquals(2, constructions);
+	}
+
+	/**
+	 * Headers set by the page are served from the cache too.
+	 */
+	@Test
+	void pageHeaders()
+	{
+		get("cached");
+		assertEquals("value", tester.getLastResponse().getHeader("X-Page"));
+		assertEquals("no-cache", tester.getLastResponse().getHeader("Cache-Control"));
+
+		get("cached");
+		assertEquals(1, constructions);
+		assertEquals("value", tester.getLastResponse().getHeader("X-Page"));
+		assertEquals("no-cache", tester.getLastResponse().getHeader("Cache-Control"));
+
+		tester.getRequest().setHeader("If-None-Match",
+			tester.getLastResponse().getHeader("ETag"));
+		get("cached");
+		assertEquals(HttpServletResponse.SC_NOT_MODIFIED, tester.getLastResponse().getStatus());
+		assertEquals("value", tester.getLastResponse().getHeader("X-Page"));
+	}
+
+	private void get(String url)
+	{
+		tester.getRequest().setMethod("GET");
+		tester.executeUrl(url);
+	}
+
+	/**
+	 * A page with a cached response.
+	 */
+	@CacheResponse(timeToLive = 300, varyHeaders = "User-Agent")
+	public static class CachedPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Constructor
+		 *
+		 * @param parameters
+		 */
+		public CachedPage(PageParameters parameters)
+		{
+			super(parameters);
+
+			constructions++;
+
+			add(new Label("label", parameters.get("p").toString("")));
+
+			add(new Link<Void>("link")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				public void onClick()
+				{
+				}
+			}.setVisible(stateful));
+		}
+
+		@Override
+		protected void setHeaders(WebResponse response)
+		{
+			super.setHeaders(response);
+
+			response.setHeader("X-Page", "value");
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><span wicket:id=\"label\"></span><a wicket:id=\"link\"></a></body></html>");
+		}
+	}
+}
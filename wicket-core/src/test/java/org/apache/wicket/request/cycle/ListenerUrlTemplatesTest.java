@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.cycle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.core.request.handler.BookmarkableListenerRequestHandler;
+import org.apache.wicket.core.request.handler.ListenerRequestHandler;
+import org.apache.wicket.core.request.handler.PageAndComponentProvider;
+import org.apache.wicket.core.request.mapper.CryptoMapper;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.link.Link;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.visit.IVisit;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ListenerUrlTemplates}
+ */
+class ListenerUrlTemplatesTest extends WicketTestCase
+{
+	private RequestCycle cycle;
+
+	private int mapped;
+
+	/**
+	 * Urls of listeners are created from templates.
+	 */
+	@Test
+	void listener()
+	{
+		LinksPage page = startLinksPage(false);
+
+		for (Link<?> link : links(page))
+		{
+			IRequestHandler handler = new ListenerRequestHandler(
+				new PageAndComponentProvider(page, link));
+			assertMapped(handler);
+		}
+		// one for the template and one to verify it
+		assertEquals(2, mapped);
+	}
+
+	/**
+	 * Urls of bookmarkable listeners are created from templates.
+	 */
+	@Test
+	void bookmarkableListener()
+	{
+		LinksPage page = startLinksPage(false);
+
+		for (Link<?> link : links(page))
+		{
+			IRequestHandler handler = new BookmarkableListenerRequestHandler(
+				new PageAndComponentProvider(page, link));
+			assertMapped(handler);
+		}
+		assertEquals(2, mapped);
+	}
+
+	/**
+	 * Encrypted urls are not created from templates.
+	 */
+	@Test
+	void crypted()
+	{
+		LinksPage page = startLinksPage(true);
+
+		for (Link<?> link : links(page))
+		{
+			IRequestHandler handler = new ListenerRequestHandler(
+				new PageAndComponentProvider(page, link));
+			assertMapped(handler);
+		}
+		// each url is mapped once
+		assertEquals(links(page).size(), mapped);
+	}
+
+	private LinksPage startLinksPage(boolean crypt)
+	{
+		LinksPage page = tester.startPage(new LinksPage());
+		tester.assertRenderedPage(LinksPage.class);
+
+		IRequestMapper mapper = tester.getApplication().getRootRequestMapper();
+		IRequestMapper counting = new IRequestMapper()
+		{
+			@Override
+			public IRequestHandler mapRequest(Request request)
+			{
+				return mapper.mapRequest(request);
+			}
+
+			@Override
+			public int getCompatibilityScore(Request request)
+			{
+				return mapper.getCompatibilityScore(request);
+			}
+
+			@Override
+			public Url mapHandler(IRequestHandler requestHandler)
+			{
+				mapped++;
+				return mapper.mapHandler(requestHandler);
+			}
+		};
+		tester.getApplication().setRootRequestMapper(
+			crypt ? new CryptoMapper(counting, tester.getApplication()) : counting);
+		RequestCycle current = tester.getRequestCycle();
+		cycle = tester.getApplication().createRequestCycle(current.getRequest(),
+			current.getResponse());
+
+		return page;
+	}
+
+	private List<Link<?>> links(LinksPage page)
+	{
+		List<Link<?>> links = new ArrayList<>();
+		page.visitChildren(Link.class, (Link<?> link, IVisit<Void> visit) -> links.add(link));
+		assertEquals(10, links.size());
+		return links;
+	}
+
+	private void assertMapped(IRequestHandler handler)
+	{
+		Url url = cycle.mapUrlFor(handler);
+
+		int count = mapped;
+		assertEquals(tester.getApplication().getRootRequestMapper().mapHandler(handler), url);
+		mapped = count;
+	}
+
+	/**
+	 * A page with a list of links.
+	 */
+	public static class LinksPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Constructor.
+		 */
+		public LinksPage()
+		{
+			List<Integer> rows = new ArrayList<>();
+			for (int i = 0; i < 10; i++)
+			{
+				rows.add(i);
+			}
+
+			add(new ListView<Integer>("rows", rows)
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void populateItem(ListItem<Integer> item)
+				{
+					Link<Void> link = new Link<Void>("link")
+					{
+						private static final long serialVersionUID = 1L;
+
+						@Override
+						public void onClick()
+						{
+						}
+					};
+					item.add(link);
+				}
+			});
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><div wicket:id='rows'><a wicket:id='link'>link</a></div></body></html>");
+		}
+	}
+}
@@ -733,4 +733,20 @@ class UrlRendererTest
 		String renderedUrl = renderer.renderUrl(Url.parse("abc..."));
 		assertEquals("../abc...", renderedUrl);
 	}
+
+	/**
+	 * Changes of the base url are picked up, even if the same {@link Url} instance is modified.
+	 */
+	@Test
+	void renderAfterBaseUrlChange()
+	{
+		UrlRenderer renderer = new UrlRenderer(new MockWebRequest(Url.parse("a/b/c")));
+		assertEquals("../x", renderer.renderRelativeUrl(Url.parse("a/x")));
+
+		renderer.getBaseUrl().getSegments().remove(2);
+		assertEquals("./x", renderer.renderRelativeUrl(Url.parse("a/x")));
+
+		renderer.setBaseUrl(Url.parse("x/y"));
+		assertEquals("../a/x", renderer.renderRelativeUrl(Url.parse("a/x")));
+	}
 }
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.handler.render;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.RuntimeConfigurationType;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.head.JavaScriptHeaderItem;
+import org.apache.wicket.markup.html.WebComponent;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.cycle.IRequestCycleListener;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.settings.RequestCycleSettings.RenderStrategy;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link RenderStrategy#STREAMING_RENDER}
+ */
+class StreamingRenderTest extends WicketTestCase
+{
+	private final List<Exception> exceptions = new ArrayList<>();
+
+	@Override
+	protected WebApplication newApplication()
+	{
+		return new MockApplication()
+		{
+			@Override
+			protected void init()
+			{
+				super.init();
+
+				getRequestCycleSettings().setRenderStrategy(RenderStrategy.STREAMING_RENDER);
+				getRequestCycleListeners().add(new IRequestCycleListener()
+				{
+					@Override
+					public IRequestHandler onException(RequestCycle cycle, Exception ex)
+					{
+						exceptions.add(ex);
+						return null;
+					}
+				});
+			}
+		};
+	}
+
+	/**
+	 * The head is written before the body is rendered.
+	 */
+	@Test
+	void headBeforeBody()
+	{
+		StreamingPage page = new StreamingPage(null);
+		tester.startPage(page);
+
+		assertTrue(page.headWritten);
+		String document = tester.getLastResponseAsString();
+		assertTrue(document.contains("streaming.js"), document);
+		assertTrue(document.contains("<span wicket:id=\"label\">label</span>"), document);
+		assertTrue(document.endsWith("after</body></html>"), document);
+	}
+
+	/**
+	 * Without response filters static markup is written as pre-encoded bytes, the body has to be
+	 * streamed to the same output.
+	 */
+	@Test
+	void preEncodedMarkup()
+	{
+		WicketTester deploymentTester = new WicketTester(new MockApplication()
+		{
+			@Override
+			public RuntimeConfigurationType getConfigurationType()
+			{
+				// without the response filter of development mode
+				return RuntimeConfigurationType.DEPLOYMENT;
+			}
+
+			@Override
+			protected void init()
+			{
+				super.init();
+
+				getRequestCycleSettings().setRenderStrategy(RenderStrategy.STREAMING_RENDER);
+			}
+		});
+		try
+		{
+			StreamingPage page = new StreamingPage(null);
+			deploymentTester.startPage(page);
+
+			assertTrue(page.headWritten);
+			String document = deploymentTester.getLastResponseAsString();
+			assertTrue(document.startsWith("<html><head><title>streaming</title>"), document);
+			assertTrue(document.contains("<span>label</span>"), document);
+			assertTrue(document.endsWith("after</body></html>"), document);
+		}
+		finally
+		{
+			deploymentTester.destroy();
+		}
+	}
+
+	/**
+	 * An exception after the head has been written leaves a partial page.
+	 */
+	@Test
+	void exceptionInBody()
+	{
+		StreamingPage page = new StreamingPage(new IllegalStateException("body"));
+		tester.startPage(page);
+
+		String document = tester.getLastResponseAsString();
+		assertTrue(document.contains("<span wicket:id=\"label\">label</span>"), document);
+		assertFalse(document.contains("after"), document);
+
+		assertEquals(1, exceptions.size());
+		assertEquals("body", exceptions.get(0).getMessage());
+	}
+
+	/**
+	 * An exception before the head has been written is handled as usual.
+	 */
+	@Test
+	void exceptionInHead()
+	{
+		StreamingPage page = new StreamingPage(null)
+		{
+			@Override
+			public void renderHead(IHeaderResponse response)
+			{
+				throw new IllegalStateException("head");
+			}
+		};
+
+		WicketRuntimeException ex = assertThrows(WicketRuntimeException.class,
+			() -> tester.startPage(page));
+		assertEquals("head", ex.getCause().getMessage());
+	}
+
+	/**
+	 * Page streamed to the response.
+	 */
+	public static class StreamingPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		boolean headWritten;
+
+		/**
+		 * Construct.
+		 * 
+		 * @param exception
+		 *            exception to throw while rendering the body
+		 */
+		public StreamingPage(final RuntimeException exception)
+		{
+			add(new Label("label", "label")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void onRender()
+				{
+					MockHttpServletResponse response = (MockHttpServletResponse)getResponse()
+						.getContainerResponse();
+					headWritten = response.getDocument().contains("</head>");
+
+					super.onRender();
+				}
+			});
+			add(new WebComponent("fail")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void onRender()
+				{
+					if (exception != null)
+					{
+						throw exception;
+					}
+					super.onRender();
+				}
+			});
+		}
+
+		@Override
+		public void renderHead(IHeaderResponse response)
+		{
+			response.render(JavaScriptHeaderItem.forUrl("streaming.js"));
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream("<html><head><title>streaming</title></head>" +
+				"<body><span wicket:id=\"label\"></span><span wicket:id=\"fail\"></span>after</body></html>");
+		}
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.wicket.core.util.resource.UrlResourceStream;
+import org.apache.wicket.javascript.IJavaScriptCompressor;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.apache.wicket.util.tester.WicketTester;
+import org.apache.wicket.util.watch.ModificationWatcher;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link PrecompressedVariants}
+ */
+class PrecompressedVariantsTest extends WicketTestCase
+{
+	@Override
+	protected WebApplication newApplication()
+	{
+		return new MockApplication()
+		{
+			@Override
+			protected void init()
+			{
+				super.init();
+
+				getResourceSettings().setPrecompressedVariants(
+					new PrecompressedVariants(PrecompressedVariants.BROTLI,
+						PrecompressedVariants.GZIP));
+			}
+		};
+	}
+
+	/**
+	 * A precompressed package resource is served to clients accepting it.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void packageResource() throws IOException
+	{
+		tester.startResource(new PackageResource(PrecompressedVariantsTest.class,
+			"precompressed.js", null, null, null)
+		{
+			private static final long serialVersionUID = 1L;
+		});
+		assertEquals("Accept-Encoding", tester.getLastResponse().getHeader("Vary"));
+		assertNull(tester.getLastResponse().getHeader("Content-Encoding"));
+		assertArrayEquals(read("precompressed.js"), tester.getLastResponse().getBinaryContent());
+
+		tester.getRequest().addHeader("Accept-Encoding", "gzip, deflate, br");
+		tester.startResource(new PackageResource(PrecompressedVariantsTest.class,
+			"precompressed.js", null, null, null)
+		{
+			private static final long serialVersionUID = 1L;
+		});
+		assertEquals("Accept-Encoding", tester.getLastResponse().getHeader("Vary"));
+		assertEquals("gzip", tester.getLastResponse().getHeader("Content-Encoding"));
+		assertArrayEquals(read("precompressed.js.gz"),
+			tester.getLastResponse().getBinaryContent());
+	}
+
+	/**
+	 * No precompressed variant is served for a compressed or processed package resource.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void processedPackageResource() throws IOException
+	{
+		String original = new String(read("precompressed.js"), StandardCharsets.UTF_8);
+
+		tester.getRequest().addHeader("Accept-Encoding", "gzip");
+		tester.startResource(new JavaScriptPackageResource(PrecompressedVariantsTest.class,
+			"precompressed.js", null, null, null)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected IJavaScriptCompressor getCompressor()
+			{
+				return String::toUpperCase;
+			}
+		});
+		assertNull(tester.getLastResponse().getHeader("Content-Encoding"));
+		assertEquals(original.toUpperCase(),
+			new String(tester.getLastResponse().getBinaryContent(), StandardCharsets.UTF_8));
+
+		tester.getRequest().addHeader("Accept-Encoding", "gzip");
+		tester.startResource(new PackageResource(PrecompressedVariantsTest.class,
+			"precompressed.js", null, null, null)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected byte[] processResponse(Attributes attributes, byte[] original)
+			{
+				return new byte[] { 1, 2, 3 };
+			}
+		});
+		assertNull(tester.getLastResponse().getHeader("Content-Encoding"));
+		assertArrayEquals(new byte[] { 1, 2, 3 }, tester.getLastResponse().getBinaryContent());
+	}
+
+	/**
+	 * Whether a variant of an url exists is forgotten when the original is modified.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void urlModified() throws IOException
+	{
+		TestWatcher watcher = new TestWatcher();
+		tester.getApplication().getResourceSettings().setResourceWatcher(watcher);
+
+		Path root = Files.createTempDirectory("resources");
+		Path original = root.resolve("script.js");
+		Path gzip = root.resolve("script.js.gz");
+		try
+		{
+			Files.write(original, read("precompressed.js"));
+			UrlResourceStream stream = new UrlResourceStream(original.toUri().toURL());
+
+			PrecompressedVariants variants = tester.getApplication()
+				.getResourceSettings()
+				.getPrecompressedVariants();
+			assertNull(variants.find("gzip", stream));
+
+			// remembered
+			Files.write(gzip, new byte[] { 1, 2, 3 });
+			assertNull(variants.find("gzip", stream));
+
+			Files.setLastModifiedTime(original,
+				FileTime.from(Files.getLastModifiedTime(original).toInstant().plusSeconds(10)));
+			watcher.check();
+			assertEquals("gzip", variants.find("gzip", stream).getCoding());
+		}
+		finally
+		{
+			watcher.destroy();
+			Files.deleteIfExists(gzip);
+			Files.deleteIfExists(original);
+			Files.deleteIfExists(root);
+		}
+	}
+
+	/**
+	 * A precompressed context relative resource is served to clients accepting it.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void contextRelativeResource() throws IOException
+	{
+		Path root = Files.createTempDirectory("webapp");
+		Path original = root.resolve("script.js");
+		Path brotli = root.resolve("script.js.br");
+		try
+		{
+			Files.write(original, read("precompressed.js"));
+			Files.write(brotli, new byte[] { 1, 2, 3 });
+
+			tester.destroy();
+			tester = new WicketTester(newApplication(), root.toString());
+
+			tester.getRequest().addHeader("Accept-Encoding", "gzip;q=1.0, br;q=0.5");
+			tester.startResource(new ContextRelativeResource("script.js"));
+			assertEquals("Accept-Encoding", tester.getLastResponse().getHeader("Vary"));
+			assertEquals("br", tester.getLastResponse().getHeader("Content-Encoding"));
+			assertArrayEquals(new byte[] { 1, 2, 3 }, tester.getLastResponse().getBinaryContent());
+
+			tester.getRequest().addHeader("Accept-Encoding", "gzip");
+			tester.startResource(new ContextRelativeResource("script.js"));
+			assertNull(tester.getLastResponse().getHeader("Content-Encoding"));
+			assertEquals("function precompressed() {\n\treturn true;\n}\n",
+				new String(tester.getLastResponse().getBinaryContent(), StandardCharsets.UTF_8));
+		}
+		finally
+		{
+			Files.deleteIfExists(brotli);
+			Files.deleteIfExists(original);
+			Files.deleteIfExists(root);
+		}
+	}
+
+	private static class TestWatcher extends ModificationWatcher
+	{
+		void check()
+		{
+			checkModified();
+		}
+	}
+
+	private byte[] read(String name) throws IOException
+	{
+		try (InputStream input = getClass().getResourceAsStream(name))
+		{
+			return IOUtils.toByteArray(input);
+		}
+	}
+}
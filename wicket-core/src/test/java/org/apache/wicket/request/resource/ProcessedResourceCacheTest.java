@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.wicket.markup.html.PackageResourceTest;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.resource.GzipContentEncoder;
+import org.apache.wicket.resource.IContentEncoder;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ProcessedResourceCache}
+ */
+class ProcessedResourceCacheTest extends WicketTestCase
+{
+	private final AtomicInteger compressions = new AtomicInteger();
+
+	@Override
+	protected WebApplication newApplication()
+	{
+		return new MockApplication()
+		{
+			@Override
+			protected void init()
+			{
+				super.init();
+
+				getResourceSettings().setJavaScriptCompressor(original -> {
+					compressions.incrementAndGet();
+					return "COMPRESSED";
+				});
+			}
+		};
+	}
+
+	/**
+	 * Compressed content is reused.
+	 */
+	@Test
+	void compressOnce()
+	{
+		for (int i = 0; i < 3; i++)
+		{
+			tester.startResource(new JavaScriptPackageResource(PackageResourceTest.class,
+				"packaged1.txt", null, null, null));
+			assertEquals("COMPRESSED", tester.getLastResponseAsString());
+			assertNull(tester.getLastResponse().getHeader("Vary"));
+		}
+
+		assertEquals(1, compressions.get());
+		assertEquals(2, tester.getApplication()
+			.getResourceSettings()
+			.getProcessedResourceCache()
+			.getHitCount());
+	}
+
+	/**
+	 * Changing the compressor clears the cache.
+	 */
+	@Test
+	void changeCompressor()
+	{
+		tester.startResource(new JavaScriptPackageResource(PackageResourceTest.class,
+			"packaged1.txt", null, null, null));
+		assertEquals("COMPRESSED", tester.getLastResponseAsString());
+
+		tester.getApplication().getResourceSettings().setJavaScriptCompressor(original -> "OTHER");
+
+		tester.startResource(new JavaScriptPackageResource(PackageResourceTest.class,
+			"packaged1.txt", null, null, null));
+		assertEquals("OTHER", tester.getLastResponseAsString());
+	}
+
+	/**
+	 * Encoded content is served to clients accepting it.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void encoded() throws IOException
+	{
+		tester.getApplication()
+			.getResourceSettings()
+			.getContentEncoders()
+			.add(new GzipContentEncoder());
+
+		tester.startResource(new JavaScriptPackageResource(PackageResourceTest.class,
+			"packaged1.txt", null, null, null));
+		assertEquals("COMPRESSED", tester.getLastResponseAsString());
+		assertEquals("Accept-Encoding", tester.getLastResponse().getHeader("Vary"));
+		assertNull(tester.getLastResponse().getHeader("Content-Encoding"));
+
+		tester.getRequest().addHeader("Accept-Encoding", "deflate, gzip;q=0.5");
+		tester.startResource(new JavaScriptPackageResource(PackageResourceTest.class,
+			"packaged1.txt", null, null, null));
+		assertEquals("Accept-Encoding", tester.getLastResponse().getHeader("Vary"));
+		assertEquals("gzip", tester.getLastResponse().getHeader("Content-Encoding"));
+		try (InputStream input = new GZIPInputStream(
+			new ByteArrayInputStream(tester.getLastResponse().getBinaryContent())))
+		{
+			assertEquals("COMPRESSED", new String(IOUtils.toByteArray(input), "UTF-8"));
+		}
+
+		assertEquals(1, compressions.get());
+	}
+
+	/**
+	 * Least recently used content is evicted.
+	 */
+	@Test
+	void evict()
+	{
+		ProcessedResourceCache cache = new ProcessedResourceCache(Bytes.bytes(10));
+		Instant now = Instant.now();
+
+		cache.put("a", now, new byte[4]);
+		cache.put("b", now, new byte[4]);
+		cache.get("a", now);
+		cache.put("c", now, new byte[4]);
+
+		assertEquals(8, cache.getSize().bytes());
+		assertEquals(4, cache.get("a", now).length);
+		assertNull(cache.get("b", now));
+		assertNull(cache.get("a", now.plusSeconds(1)));
+
+		cache.put("d", now, new byte[11]);
+		assertNull(cache.get("d", now));
+
+		cache.remove("a");
+		assertEquals(4, cache.getSize().bytes());
+	}
+
+	/**
+	 * Encoders are selected by the server's preference.
+	 */
+	@Test
+	void selectEncoder()
+	{
+		IContentEncoder br = new IContentEncoder()
+		{
+			@Override
+			public String getName()
+			{
+				return "br";
+			}
+
+			@Override
+			public byte[] encode(byte[] content)
+			{
+				return content;
+			}
+		};
+		IContentEncoder gzip = new GzipContentEncoder();
+		List<IContentEncoder> encoders = Arrays.asList(br, gzip);
+
+		assertNull(ProcessedResourceCache.selectEncoder(null, encoders));
+		assertNull(ProcessedResourceCache.selectEncoder("identity", encoders));
+		assertSame(gzip, ProcessedResourceCache.selectEncoder("gzip, deflate", encoders));
+		assertSame(br, ProcessedResourceCache.selectEncoder("gzip, br", encoders));
+		assertSame(gzip, ProcessedResourceCache.selectEncoder("gzip, br;q=0", encoders));
+		assertSame(br, ProcessedResourceCache.selectEncoder("*", encoders));
+		assertNull(ProcessedResourceCache.selectEncoder("gzip;q=0, br;q=0.0", encoders));
+	}
+}
@@ -0,0 +1,3 @@
+function precompressed() {
+	return true;
+}
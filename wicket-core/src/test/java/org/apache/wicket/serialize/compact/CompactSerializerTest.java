@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.compact;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.AttributeModifier;
+import org.apache.wicket.Component;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.markup.html.WebComponent;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.serialize.java.JavaSerializer;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link CompactSerializer}.
+ */
+class CompactSerializerTest extends WicketTestCase
+{
+	private static final MetaDataKey<String> KEY1 = new MetaDataKey<String>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	private static final MetaDataKey<String> KEY2 = new MetaDataKey<String>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/**
+	 * The component tree is restored with all its state.
+	 */
+	@Test
+	void roundTrip()
+	{
+		WebPage page = new TestPage();
+
+		// many children are kept in a map
+		WebMarkupContainer many = new WebMarkupContainer("many");
+		page.add(many);
+		for (int i = 0; i < 30; i++)
+		{
+			many.add(new Label("label" + i, "text" + i));
+		}
+
+		// few children are kept in a list
+		WebMarkupContainer few = new WebMarkupContainer("few");
+		page.add(few);
+		few.add(new WebComponent("one"));
+		Label two = new Label("two", Model.of("model"));
+		two.setOutputMarkupId(true);
+		two.getMarkupId();
+		two.setVisible(false);
+		two.add(AttributeModifier.replace("class", "foo"));
+		two.setMetaData(KEY1, "value1");
+		two.setMetaData(KEY2, "value2");
+		few.add(two);
+
+		CompactSerializer serializer = new CompactSerializer(tester.getApplication()
+			.getApplicationKey());
+		byte[] data = serializer.serialize(page);
+
+		WebPage restored = (WebPage)serializer.deserialize(data);
+
+		assertEquals(paths(page), paths(restored));
+
+		Component restoredTwo = restored.get("few:two");
+		assertSame(restored, restoredTwo.getPage());
+		assertEquals("model", restoredTwo.getDefaultModelObject());
+		assertEquals(two.getMarkupId(), restoredTwo.getMarkupId());
+		assertEquals(false, restoredTwo.isVisible());
+		assertEquals(true, restoredTwo.getOutputMarkupId());
+		assertEquals(1, restoredTwo.getBehaviors(AttributeModifier.class).size());
+		assertEquals("value1", restoredTwo.getMetaData(KEY1));
+		assertEquals("value2", restoredTwo.getMetaData(KEY2));
+		assertEquals("text29", restored.get("many:label29").getDefaultModelObject());
+
+		// new children can be added to the restored containers
+		((WebMarkupContainer)restored.get("many")).add(new Label("label30"));
+		((WebMarkupContainer)restored.get("few")).add(new Label("three"));
+	}
+
+	/**
+	 * The compact output is smaller than Java serialization.
+	 */
+	@Test
+	void smallerThanJavaSerialization()
+	{
+		WebPage page = new TestPage();
+		for (int i = 0; i < 10; i++)
+		{
+			page.add(new Label("label" + i, "text" + i));
+		}
+
+		String applicationKey = tester.getApplication().getApplicationKey();
+		int compact = new CompactSerializer(applicationKey).serialize(page).length;
+		int java = new JavaSerializer(applicationKey).serialize(page).length;
+
+		assertTrue(compact < java * 2 / 3, "compact " + compact + " should be smaller than " + java);
+	}
+
+	/**
+	 * Serializing fails when an object is not serializable.
+	 */
+	@Test
+	void notSerializable()
+	{
+		CompactSerializer serializer = new CompactSerializer("CompactSerializerTest");
+		WebComponent component = new NotSerializableComponent("id");
+		byte[] serialized = serializer.serialize(component);
+		assertNull(serialized, "The produced byte[] must be null if there was an error");
+	}
+
+	private static List<String> paths(WebPage page)
+	{
+		List<String> paths = new ArrayList<>();
+		page.visitChildren((component, visit) -> paths.add(component.getPageRelativePath()));
+		return paths;
+	}
+
+	private static class TestPage extends WebPage
+	{
+		private static final long serialVersionUID = 1L;
+	}
+
+	private static class NotSerializableComponent extends WebComponent
+	{
+		private final NotSerializableObject member = new NotSerializableObject();
+
+		NotSerializableComponent(final String id)
+		{
+			super(id);
+		}
+	}
+
+	private static class NotSerializableObject
+	{
+	}
+}
@@ -45,6 +45,9 @@ import org.apache.wicket.util.visit.IVisitor;
  * <p> 
  * This component will also replace the contents when a normal request comes through and the
  * content is ready.
+ * <p>
+ * Inside a {@link StreamingLazyLoadContainer} no timer is used, the contents of all panels are
+ * streamed to the client in a single response instead.
  * 
  * @since 1.3
  */
@@ -137,14 +140,15 @@ public abstract class AjaxLazyLoadPanel<T extends Component> extends Panel
 	}
 
 	/**
-	 * Installs a page-global timer if not already present.
+	 * Installs a page-global timer if not already present, unless the content is streamed by a
+	 * {@link StreamingLazyLoadContainer}.
 	 */
 	@Override
 	protected void onBeforeRender()
 	{
 		super.onBeforeRender();
 
-		if (loaded == false) {
+		if (loaded == false && findParent(StreamingLazyLoadContainer.class) == null) {
 			initTimer();
 		}
 	}
@@ -227,6 +231,14 @@ public abstract class AjaxLazyLoadPanel<T extends Component> extends Panel
 		return loaded;
 	}
 
+	/**
+	 * @return whether the lazy loaded content replaced the loading component already
+	 */
+	final boolean isContentLoaded()
+	{
+		return loaded;
+	}
+
 	/**
 	 * The AJAX timer for updating the AjaxLazyLoadPanel. Is designed to be a page-local singleton
 	 * running as long as LazyLoadPanels are still loading.
@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.wicket.IRequestListener;
+import org.apache.wicket.core.util.string.JavaScriptUtils;
+import org.apache.wicket.markup.head.IHeaderResponse;
+import org.apache.wicket.markup.head.OnDomReadyHeaderItem;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.model.ModelPrefetcher;
+import org.apache.wicket.page.XmlPartialPageUpdate;
+import org.apache.wicket.request.IRequestCycle;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.resource.CoreLibrariesContributor;
+import org.apache.wicket.response.StringResponse;
+import org.apache.wicket.util.lang.Comparators;
+import org.apache.wicket.util.visit.IVisit;
+
+/**
+ * A container streaming the contents of all contained {@link AjaxLazyLoadPanel}s to the client in a
+ * single response, instead of polling for them with an Ajax timer.
+ * <p>
+ * The client opens an {@code EventSource} to this container, which replaces the loading component
+ * of each panel as soon as its content is ready and sends the rendered panel as a server-sent
+ * event holding an {@code <ajax-response>}. If a
+ * {@link org.apache.wicket.settings.ApplicationSettings#setModelPrefetchExecutor(Executor) model
+ * prefetch executor} is configured, the {@link org.apache.wicket.model.IPrefetchableModel}s of the
+ * panels are loaded concurrently and each panel is sent as soon as its models are loaded.
+ * <p>
+ * The page is locked while streaming, so a stream is ended after {@link #getStreamDuration()}.
+ * The client reconnects automatically if panels are still loading.
+ */
+public class StreamingLazyLoadContainer extends WebMarkupContainer implements IRequestListener
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param id
+	 *            component id
+	 */
+	public StreamingLazyLoadContainer(final String id)
+	{
+		super(id);
+	}
+
+	/**
+	 * Get the maximum duration of a stream, after which the client has to reconnect.
+	 * <p>
+	 * Ajax requests to the page wait while it is streamed, so the default is 10 seconds.
+	 * 
+	 * @return duration
+	 */
+	protected Duration getStreamDuration()
+	{
+		return Duration.ofSeconds(10);
+	}
+
+	@Override
+	public void renderHead(final IHeaderResponse response)
+	{
+		super.renderHead(response);
+
+		if (getPendingPanels().isEmpty() == false)
+		{
+			CoreLibrariesContributor.contributeAjax(getApplication(), response);
+
+			CharSequence url = JavaScriptUtils.escapeQuotes(urlForListener(new PageParameters()));
+			response.render(OnDomReadyHeaderItem.forScript(String.format(
+				"(function() { var source = new EventSource('%s'); " +
+					"source.onmessage = function(event) { Wicket.Ajax.process(event.data); }; " +
+					"source.addEventListener('done', function() { source.close(); }); })();",
+				url)));
+		}
+	}
+
+	/**
+	 * The stream has to continue with the rendered page.
+	 */
+	@Override
+	protected boolean getStatelessHint()
+	{
+		return false;
+	}
+
+	/**
+	 * The stream is not rendering the page.
+	 */
+	@Override
+	public boolean rendersPage()
+	{
+		return false;
+	}
+
+	@Override
+	public void onRequest()
+	{
+		getRequestCycle().scheduleRequestHandlerAfterCurrent(new StreamHandler());
+	}
+
+	/**
+	 * @return visible panels still showing their loading component
+	 */
+	private List<AjaxLazyLoadPanel<?>> getPendingPanels()
+	{
+		List<AjaxLazyLoadPanel<?>> panels = new ArrayList<>();
+		visitChildren(AjaxLazyLoadPanel.class, (AjaxLazyLoadPanel<?> panel, IVisit<Void> visit) -> {
+			// visibility may depend on models, so do not check panels being prefetched
+			if (panel.isContentLoaded() == false && panel.isVisibleInHierarchy())
+			{
+				panels.add(panel);
+			}
+			visit.dontGoDeeper();
+		});
+		return panels;
+	}
+
+	/**
+	 * Streams the panels as server-sent events.
+	 */
+	private class StreamHandler implements IRequestHandler
+	{
+		/** panels with replaced content not configured yet, in order of readiness */
+		private final Map<AjaxLazyLoadPanel<?>, CompletableFuture<Void>> configuring = new LinkedHashMap<>();
+
+		/** configured panels, in order of readiness */
+		private final Map<AjaxLazyLoadPanel<?>, CompletableFuture<Void>> loading = new LinkedHashMap<>();
+
+		private ModelPrefetcher prefetcher;
+
+		@Override
+		public void respond(final IRequestCycle requestCycle)
+		{
+			WebResponse response = (WebResponse)requestCycle.getResponse();
+			response.setContentType("text/event-stream; charset=UTF-8");
+			response.disableCaching();
+
+			Executor executor = getApplication().getApplicationSettings()
+				.getModelPrefetchExecutor();
+			prefetcher = executor != null ? new ModelPrefetcher(executor) : null;
+
+			Instant end = Instant.now().plus(getStreamDuration());
+			while (true)
+			{
+				Duration interval = Duration.ofMillis(Long.MAX_VALUE);
+				for (AjaxLazyLoadPanel<?> panel : getPendingPanels())
+				{
+					if (panel.isLoaded())
+					{
+						// content replaced, load its models before configuring it
+						configuring.put(panel, prefetcher != null
+							? prefetcher.prefetchUnconfiguredAsync(Collections.singletonList(panel))
+							: CompletableFuture.completedFuture(null));
+					}
+					else
+					{
+						interval = Comparators.min(interval, panel.getUpdateInterval());
+					}
+				}
+
+				Duration remaining = Duration.between(Instant.now(), end);
+
+				// panels with replaced content have to be written before the stream ends
+				configureLoaded(remaining.isNegative());
+				writeLoaded(response, remaining.isNegative());
+
+				boolean pending = interval.equals(Duration.ofMillis(Long.MAX_VALUE)) == false;
+				if (pending == false && configuring.isEmpty() && loading.isEmpty())
+				{
+					writeEvent(response, "done", "");
+					break;
+				}
+
+				if (remaining.isNegative())
+				{
+					// let the client reconnect, but not before the next panel might be ready
+					writeEvent(response, null, null, interval);
+					break;
+				}
+
+				await(Comparators.min(remaining, interval));
+			}
+		}
+
+		/**
+		 * Configure the panels whose models are loaded, and load the models of components added
+		 * while configuring.
+		 * 
+		 * @param all
+		 *            whether to wait for all panels
+		 */
+		private void configureLoaded(final boolean all)
+		{
+			Iterator<Map.Entry<AjaxLazyLoadPanel<?>, CompletableFuture<Void>>> iterator = configuring
+				.entrySet()
+				.iterator();
+			while (iterator.hasNext())
+			{
+				Map.Entry<AjaxLazyLoadPanel<?>, CompletableFuture<Void>> entry = iterator.next();
+				if (all || entry.getValue().isDone())
+				{
+					entry.getValue().join();
+					iterator.remove();
+
+					AjaxLazyLoadPanel<?> panel = entry.getKey();
+					panel.beforeRender();
+					loading.put(panel, prefetcher != null
+						? prefetcher.prefetchAsync(Collections.singletonList(panel))
+						: CompletableFuture.completedFuture(null));
+				}
+			}
+		}
+
+		/**
+		 * Write the panels whose models are loaded and which are still visible.
+		 * 
+		 * @param all
+		 *            whether to wait for all panels
+		 */
+		private void writeLoaded(final WebResponse response, final boolean all)
+		{
+			Iterator<Map.Entry<AjaxLazyLoadPanel<?>, CompletableFuture<Void>>> iterator = loading
+				.entrySet()
+				.iterator();
+			while (iterator.hasNext())
+			{
+				Map.Entry<AjaxLazyLoadPanel<?>, CompletableFuture<Void>> entry = iterator.next();
+				if (all || entry.getValue().isDone())
+				{
+					entry.getValue().join();
+					iterator.remove();
+
+					AjaxLazyLoadPanel<?> panel = entry.getKey();
+					if (panel.isVisibleInHierarchy())
+					{
+						writeEvent(response, null, render(panel));
+					}
+				}
+			}
+		}
+
+		/**
+		 * Wait until models of a panel are loaded or the given duration has elapsed.
+		 */
+		private void await(final Duration duration)
+		{
+			List<CompletableFuture<Void>> futures = new ArrayList<>(configuring.values());
+			futures.addAll(loading.values());
+			CompletableFuture<?> any = futures.isEmpty() ? new CompletableFuture<>()
+				: CompletableFuture.anyOf(futures.toArray(new CompletableFuture<?>[0]));
+			try
+			{
+				any.get(Math.max(1, duration.toMillis()), TimeUnit.MILLISECONDS);
+			}
+			catch (TimeoutException | ExecutionException ex)
+			{
+				// continue streaming
+			}
+			catch (InterruptedException ex)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private String render(final AjaxLazyLoadPanel<?> panel)
+		{
+			XmlPartialPageUpdate update = new XmlPartialPageUpdate(getPage());
+			update.add(panel, panel.getMarkupId());
+
+			StringResponse response = new StringResponse();
+			update.writeTo(response, "UTF-8");
+			return response.toString();
+		}
+
+		private void writeEvent(final WebResponse response, final String event, final String data)
+		{
+			writeEvent(response, event, data, null);
+		}
+
+		private void writeEvent(final WebResponse response, final String event, final String data,
+			final Duration retry)
+		{
+			StringBuilder builder = new StringBuilder();
+			if (retry != null)
+			{
+				builder.append("retry: ").append(retry.toMillis()).append('\n');
+			}
+			if (event != null)
+			{
+				builder.append("event: ").append(event).append('\n');
+			}
+			if (data != null)
+			{
+				for (String line : data.split("\n", -1))
+				{
+					builder.append("data: ").append(line).append('\n');
+				}
+			}
+			builder.append('\n');
+
+			response.write(builder);
+			response.flush();
+		}
+	}
+}
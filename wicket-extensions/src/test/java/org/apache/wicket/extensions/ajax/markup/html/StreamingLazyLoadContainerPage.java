@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.repeater.RepeatingView;
+import org.apache.wicket.model.IPrefetchableModel;
+
+/**
+ * Page with lazy panels in a {@link StreamingLazyLoadContainer}.
+ */
+public class StreamingLazyLoadContainerPage extends WebPage
+{
+	private static final long serialVersionUID = 1L;
+
+	/** the index of the last panel ready */
+	public int ready = 2;
+
+	/** the index of a panel hidden once its content is loaded */
+	public int hidden = -1;
+
+	/** the duration of prefetching a panel's model */
+	public long prefetchMillis = 0;
+
+	/** whether a model is being prefetched */
+	public transient volatile boolean prefetching;
+
+	/** whether the visibility of a panel was evaluated while its model was prefetched */
+	public transient volatile boolean visibleWhilePrefetching;
+
+	/** whether the loaded content uses its model in onConfigure() */
+	public boolean configureWithModel;
+
+	/** the threads models were loaded on */
+	public final transient Set<Thread> modelThreads = ConcurrentHashMap.newKeySet();
+
+	/** the update interval of the panels */
+	public Duration updateInterval = Duration.ofSeconds(1);
+
+	/** the maximum duration of a stream */
+	public Duration streamDuration = Duration.ofSeconds(10);
+
+	/** the container */
+	public final StreamingLazyLoadContainer container;
+
+	/**
+	 * Construct.
+	 */
+	public StreamingLazyLoadContainerPage()
+	{
+		container = new StreamingLazyLoadContainer("container")
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected Duration getStreamDuration()
+			{
+				return streamDuration;
+			}
+		};
+		add(container);
+
+		RepeatingView panels = new RepeatingView("panels");
+		container.add(panels);
+
+		for (int i = 0; i < 3; i++)
+		{
+			final int index = i;
+			panels.add(new AjaxLazyLoadPanel<Component>(panels.newChildId())
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean isContentReady()
+				{
+					return index <= ready;
+				}
+
+				@Override
+				public boolean isVisible()
+				{
+					if (isContentLoaded() && prefetching)
+					{
+						visibleWhilePrefetching = true;
+					}
+					return index != hidden || isContentLoaded() == false;
+				}
+
+				@Override
+				protected Duration getUpdateInterval()
+				{
+					return updateInterval;
+				}
+
+				@Override
+				public Component getLoadingComponent(String id)
+				{
+					return new Label(id, "LOADING");
+				}
+
+				@Override
+				public Component getLazyLoadComponent(String id)
+				{
+					return new Label(id, IPrefetchableModel.of(() -> {
+						modelThreads.add(Thread.currentThread());
+						if (prefetchMillis > 0)
+						{
+							prefetching = true;
+							try
+							{
+								Thread.sleep(prefetchMillis);
+							}
+							catch (InterruptedException ex)
+							{
+								Thread.currentThread().interrupt();
+							}
+							finally
+							{
+								prefetching = false;
+							}
+						}
+						return "LOADED" + index;
+					}))
+					{
+						private static final long serialVersionUID = 1L;
+
+						@Override
+						protected void onConfigure()
+						{
+							super.onConfigure();
+
+							if (configureWithModel)
+							{
+								setVisible(getDefaultModelObject() != null);
+							}
+						}
+					};
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.extensions.ajax.markup.html;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link StreamingLazyLoadContainer}.
+ */
+class StreamingLazyLoadContainerTest extends WicketTestCase
+{
+	/**
+	 * All panels are streamed in one response.
+	 */
+	@Test
+	void stream()
+	{
+		StreamingLazyLoadContainerPage page = new StreamingLazyLoadContainerPage();
+
+		tester.startPage(page);
+
+		// loading components and event source, but no timer
+		tester.assertContains("LOADING");
+		tester.assertContains("new EventSource\\(");
+		tester.assertContainsNot("Wicket.Timer.set\\(");
+
+		tester.executeListener(page.container);
+
+		String stream = tester.getLastResponseAsString();
+		assertEquals("text/event-stream; charset=UTF-8", tester.getLastResponse().getContentType());
+		assertTrue(stream.indexOf("LOADED0") < stream.indexOf("LOADED1"));
+		assertTrue(stream.indexOf("LOADED1") < stream.indexOf("LOADED2"));
+		assertTrue(stream.startsWith("data: <?xml version=\"1.0\" encoding=\"UTF-8\"?><ajax-response>"));
+		assertTrue(stream.endsWith("event: done\ndata: \n\n"));
+	}
+
+	/**
+	 * Models are prefetched with the configured executor.
+	 */
+	@Test
+	void prefetch()
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			tester.getApplication().getApplicationSettings().setModelPrefetchExecutor(executor);
+
+			StreamingLazyLoadContainerPage page = new StreamingLazyLoadContainerPage();
+			tester.startPage(page);
+			tester.executeListener(page.container);
+
+			String stream = tester.getLastResponseAsString();
+			assertTrue(stream.contains("LOADED0"));
+			assertTrue(stream.contains("LOADED1"));
+			assertTrue(stream.contains("LOADED2"));
+			assertTrue(stream.endsWith("event: done\ndata: \n\n"));
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Models used while configuring the content are prefetched before.
+	 */
+	@Test
+	void prefetchBeforeConfigure()
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			tester.getApplication().getApplicationSettings().setModelPrefetchExecutor(executor);
+
+			StreamingLazyLoadContainerPage page = new StreamingLazyLoadContainerPage();
+			page.configureWithModel = true;
+			tester.startPage(page);
+			tester.executeListener(page.container);
+
+			String stream = tester.getLastResponseAsString();
+			assertTrue(stream.contains("LOADED0"));
+			assertTrue(stream.contains("LOADED1"));
+			assertTrue(stream.contains("LOADED2"));
+			assertFalse(page.modelThreads.contains(Thread.currentThread()));
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * The visibility of panels is not evaluated while their models are prefetched.
+	 */
+	@Test
+	void noVisibilityWhilePrefetching()
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			tester.getApplication().getApplicationSettings().setModelPrefetchExecutor(executor);
+
+			StreamingLazyLoadContainerPage page = new StreamingLazyLoadContainerPage();
+			page.ready = 0;
+			page.prefetchMillis = 200;
+			page.updateInterval = Duration.ofMillis(10);
+			page.streamDuration = Duration.ofMillis(500);
+
+			tester.startPage(page);
+			tester.executeListener(page.container);
+
+			String stream = tester.getLastResponseAsString();
+			assertTrue(stream.contains("LOADED0"));
+			assertFalse(page.visibleWhilePrefetching);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Panels hidden once their content is loaded are not streamed.
+	 */
+	@Test
+	void hiddenWhenLoaded()
+	{
+		StreamingLazyLoadContainerPage page = new StreamingLazyLoadContainerPage();
+		page.hidden = 1;
+
+		tester.startPage(page);
+		tester.executeListener(page.container);
+
+		String stream = tester.getLastResponseAsString();
+		assertTrue(stream.contains("LOADED0"));
+		assertTrue(stream.contains("LOADED1") == false);
+		assertTrue(stream.contains("LOADED2"));
+		assertTrue(stream.endsWith("event: done\ndata: \n\n"));
+	}
+
+	/**
+	 * The stream ends if panels are not ready in time, letting the client reconnect.
+	 */
+	@Test
+	void reconnect()
+	{
+		StreamingLazyLoadContainerPage page = new StreamingLazyLoadContainerPage();
+		page.ready = 0;
+		page.streamDuration = Duration.ofMillis(100);
+
+		tester.startPage(page);
+
+		tester.executeListener(page.container);
+
+		String stream = tester.getLastResponseAsString();
+		assertTrue(stream.contains("LOADED0"));
+		assertTrue(stream.contains("LOADED1") == false);
+		assertTrue(stream.endsWith("retry: 1000\n\n"));
+
+		page.ready = 2;
+		tester.executeListener(page.container);
+
+		stream = tester.getLastResponseAsString();
+		assertTrue(stream.contains("LOADED0") == false);
+		assertTrue(stream.contains("LOADED1"));
+		assertTrue(stream.contains("LOADED2"));
+		assertTrue(stream.endsWith("event: done\ndata: \n\n"));
+
+		tester.startPage(page);
+		tester.assertContainsNot("new EventSource\\(");
+	}
+}
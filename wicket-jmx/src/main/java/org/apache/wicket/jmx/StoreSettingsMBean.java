@@ -46,4 +46,99 @@ public interface StoreSettingsMBean
 	 *         bytes in {@link IPageStore}
 	 */
 	boolean isAsynchronous();
+
+	/**
+	 * @return the count of threads storing pages asynchronously
+	 */
+	int getAsynchronousThreads();
+
+	/**
+	 * @return the maximum count of pages stored asynchronously at once
+	 */
+	int getAsynchronousBatchSize();
+
+	/**
+	 * @return the count of pages currently waiting to be stored asynchronously
+	 */
+	long getAsynchronousQueueSize();
+
+	/**
+	 * @return the count of pages stored synchronously, because the queue was full
+	 */
+	long getAsynchronousSynchronousCount();
+
+	/**
+	 * @return the count of batches stored asynchronously
+	 */
+	long getAsynchronousBatchCount();
+
+	/**
+	 * @return the average count of pages in a batch
+	 */
+	double getAsynchronousAverageBatchSize();
+
+	/**
+	 * @return the maximum count of pages in a batch
+	 */
+	long getAsynchronousMaxBatchSize();
+
+	/**
+	 * @return the average time in milliseconds a page waited to be stored asynchronously
+	 */
+	long getAsynchronousAverageWaitTime();
+
+	/**
+	 * @return the maximum time in milliseconds a page waited to be stored asynchronously
+	 */
+	long getAsynchronousMaxWaitTime();
+
+	/**
+	 * @return the maximum size in bytes of the off-heap cache of pages
+	 */
+	long getOffHeapCacheSize();
+
+	/**
+	 * @return the ratio of pages found in the off-heap cache
+	 */
+	double getOffHeapCacheHitRate();
+
+	/**
+	 * @return the count of pages found in the off-heap cache
+	 */
+	long getOffHeapCacheHitCount();
+
+	/**
+	 * @return the count of pages not found in the off-heap cache
+	 */
+	long getOffHeapCacheMissCount();
+
+	/**
+	 * @return the count of pages evicted from the off-heap cache
+	 */
+	long getOffHeapCacheEvictionCount();
+
+	/**
+	 * @return the bytes currently used by the off-heap cache
+	 */
+	long getOffHeapCacheUsedBytes();
+
+	/**
+	 * @return the count of pages currently in the off-heap cache
+	 */
+	long getOffHeapCachePageCount();
+
+	/**
+	 * @return the count of sessions with pages in the off-heap cache
+	 */
+	long getOffHeapCacheSessionCount();
+
+	/**
+	 * @return the average bytes per session in the off-heap cache
+	 */
+	long getOffHeapCacheAverageSessionBytes();
+
+	/**
+	 * @return the maximum bytes a single session used in the off-heap cache
+	 */
+	long getOffHeapCacheMaxSessionBytes();
 }
@@ -18,6 +18,8 @@ package org.apache.wicket.jmx.wrapper;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.jmx.StoreSettingsMBean;
+import org.apache.wicket.pageStore.AsynchronousPageStore;
+import org.apache.wicket.pageStore.OffHeapPageStore;
 
 /**
  * Exposes Application's StoreSettings for JMX.
@@ -60,4 +62,128 @@ public class StoreSettings implements StoreSettingsMBean
 		return application.getStoreSettings().isAsynchronous();
 	}
 
+	@Override
+	public int getAsynchronousThreads()
+	{
+		return application.getStoreSettings().getAsynchronousThreads();
+	}
+
+	@Override
+	public int getAsynchronousBatchSize()
+	{
+		return application.getStoreSettings().getAsynchronousBatchSize();
+	}
+
+	@Override
+	public long getAsynchronousQueueSize()
+	{
+		return getAsynchronousStatistics().getQueueSize();
+	}
+
+	@Override
+	public long getAsynchronousSynchronousCount()
+	{
+		return getAsynchronousStatistics().getSynchronousCount();
+	}
+
+	@Override
+	public long getAsynchronousBatchCount()
+	{
+		return getAsynchronousStatistics().getBatchCount();
+	}
+
+	@Override
+	public double getAsynchronousAverageBatchSize()
+	{
+		return getAsynchronousStatistics().getAverageBatchSize();
+	}
+
+	@Override
+	public long getAsynchronousMaxBatchSize()
+	{
+		return getAsynchronousStatistics().getMaxBatchSize();
+	}
+
+	@Override
+	public long getAsynchronousAverageWaitTime()
+	{
+		return getAsynchronousStatistics().getAverageWaitTime().toMillis();
+	}
+
+	@Override
+	public long getAsynchronousMaxWaitTime()
+	{
+		return getAsynchronousStatistics().getMaxWaitTime().toMillis();
+	}
+
+	private AsynchronousPageStore.Statistics getAsynchronousStatistics()
+	{
+		return application.getStoreSettings().getAsynchronousStatistics();
+	}
+
+	@Override
+	public long getOffHeapCacheSize()
+	{
+		return application.getStoreSettings().getOffHeapCacheSize().bytes();
+	}
+
+	@Override
+	public double getOffHeapCacheHitRate()
+	{
+		return getOffHeapCacheStatistics().getHitRate();
+	}
+
+	@Override
+	public long getOffHeapCacheHitCount()
+	{
+		return getOffHeapCacheStatistics().getHitCount();
+	}
+
+	@Override
+	public long getOffHeapCacheMissCount()
+	{
+		return getOffHeapCacheStatistics().getMissCount();
+	}
+
+	@Override
+	public long getOffHeapCacheEvictionCount()
+	{
+		return getOffHeapCacheStatistics().getEvictionCount();
+	}
+
+	@Override
+	public long getOffHeapCacheUsedBytes()
+	{
+		return getOffHeapCacheStatistics().getUsedBytes();
+	}
+
+	@Override
+	public long getOffHeapCachePageCount()
+	{
+		return getOffHeapCacheStatistics().getPageCount();
+	}
+
+	@Override
+	public long getOffHeapCacheSessionCount()
+	{
+		return getOffHeapCacheStatistics().getSessionCount();
+	}
+
+	@Override
+	public long getOffHeapCacheAverageSessionBytes()
+	{
+		return getOffHeapCacheStatistics().getAverageSessionBytes();
+	}
+
+	@Override
+	public long getOffHeapCacheMaxSessionBytes()
+	{
+		return getOffHeapCacheStatistics().getMaxSessionBytes();
+	}
+
+	private OffHeapPageStore.Statistics getOffHeapCacheStatistics()
+	{
+		return application.getStoreSettings().getOffHeapCacheStatistics();
+	}
+
 }
@@ -17,6 +17,7 @@
 package org.apache.wicket.protocol.ws;
 
 import org.apache.wicket.Application;
+import org.apache.wicket.IApplicationListener;
 import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.Page;
 import org.apache.wicket.protocol.ws.api.IWebSocketConnection;
@@ -35,10 +36,12 @@ import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.request.http.WebResponse;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.string.Strings;
+import org.apache.wicket.util.thread.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -108,6 +111,15 @@ public class WebSocketSettings
 		public static void set(Application application, WebSocketSettings settings)
 		{
 			application.setMetaData(KEY, settings);
+
+			application.getApplicationListeners().add(new IApplicationListener()
+			{
+				@Override
+				public void onBeforeDestroyed(Application application)
+				{
+					settings.destroy();
+				}
+			});
 		}
 	}
 
@@ -152,6 +164,14 @@ public class WebSocketSettings
 	 * Set the executor for processing websocket push messages broadcasted to all sessions.
 	 * Default executor does all the processing in the caller thread. Using a proper thread pool is adviced
 	 * for applications that send push events from ajax calls to avoid page level deadlocks.
+	 * A {@link VirtualThreadExecutor} processes each message in its own virtual thread, so
+	 * messages waiting for a page lock or a slow backend do not block any platform thread.
+	 * <p>
+	 * The default is not a {@link VirtualThreadExecutor} even on runtimes supporting virtual
+	 * threads: with the default, a broadcast is processed before it returns, which
+	 * {@link org.apache.wicket.protocol.ws.util.tester.WebSocketTester} and existing applications
+	 * rely on, independently of the JDK. A {@link VirtualThreadExecutor} is shut down when the
+	 * application is destroyed.
 	 *
 	 * @param executor
 	 *            The executor used for processing push messages.
@@ -163,6 +183,23 @@ public class WebSocketSettings
 		return this;
 	}
 
+	/**
+	 * Release the resources of these settings, called when the application is destroyed.
+	 */
+	public void destroy()
+	{
+		shutdown(webSocketPushMessageExecutor);
+		shutdown(sendPayloadExecutor);
+	}
+
+	private static void shutdown(Executor executor)
+	{
+		if (executor instanceof VirtualThreadExecutor)
+		{
+			((VirtualThreadExecutor)executor).shutdown();
+		}
+	}
+
 	/**
 	 * @return the executor for processing websocket push messages broadcasted to all sessions.
 	 */
@@ -377,4 +414,56 @@ public class WebSocketSettings
 			command.run();
 		}
 	}
+
+	/**
+	 * Executor that runs each task in a new virtual thread, or in a platform daemon thread on
+	 * JDKs without virtual threads.
+	 *
+	 * @see VirtualThreads
+	 */
+	public static class VirtualThreadExecutor implements Executor
+	{
+		private final ExecutorService executor;
+
+		/**
+		 * Constructor.
+		 */
+		public VirtualThreadExecutor()
+		{
+			this("wicket-websocket-");
+		}
+
+		/**
+		 * Constructor.
+		 *
+		 * @param namePrefix
+		 *            prefix of the thread names
+		 */
+		public VirtualThreadExecutor(String namePrefix)
+		{
+			executor = VirtualThreads.newThreadPerTaskExecutor(namePrefix);
+		}
+
+		@Override
+		public void run(Runnable command)
+		{
+			executor.execute(command);
+		}
+
+		/**
+		 * Shut down this executor - tasks already started are completed, new ones are rejected.
+		 */
+		public void shutdown()
+		{
+			executor.shutdown();
+		}
+
+		/**
+		 * @return whether this executor is shut down
+		 */
+		public boolean isShutdown()
+		{
+			return executor.isShutdown();
+		}
+	}
 }
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.protocol.ws.WebSocketSettings.VirtualThreadExecutor;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link WebSocketSettings}
+ */
+class WebSocketSettingsTest
+{
+	/**
+	 * A virtual thread executor is shut down with the application.
+	 */
+	@Test
+	void shutdownOnDestroy()
+	{
+		WicketTester tester = new WicketTester(new MockApplication());
+
+		VirtualThreadExecutor executor = new VirtualThreadExecutor();
+		WebSocketSettings.Holder.get(tester.getApplication())
+			.setWebSocketPushMessageExecutor(executor);
+		assertFalse(executor.isShutdown());
+
+		tester.destroy();
+		assertTrue(executor.isShutdown());
+	}
+}
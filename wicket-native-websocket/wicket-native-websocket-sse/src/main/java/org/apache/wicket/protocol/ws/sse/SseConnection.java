@@ -0,0 +1,339 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.sse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.protocol.ws.WebSocketSettings;
+import org.apache.wicket.protocol.ws.api.AbstractWebSocketConnection;
+import org.apache.wicket.protocol.ws.api.IWebSocketConnection;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A connection that sends the messages to the client as
+ * <a href="https://html.spec.whatwg.org/multipage/server-sent-events.html">server-sent events</a>
+ * over the response of an asynchronous request.
+ * <p>
+ * The events are written with non-blocking I/O: they are queued and written whenever the container
+ * reports the output stream as ready, so neither idle nor slow clients hold a thread. Text
+ * messages are sent as {@code message} events, binary messages are Base64 encoded and sent as
+ * {@code binary} events.
+ */
+public class SseConnection extends AbstractWebSocketConnection
+{
+	private static final Logger LOG = LoggerFactory.getLogger(SseConnection.class);
+
+	/**
+	 * The close code used when the client went away or the stream timed out
+	 */
+	private static final int GOING_AWAY = 1001;
+
+	/**
+	 * Server-sent events accept CRLF, CR and LF as line terminators
+	 */
+	private static final Pattern LINE_TERMINATOR = Pattern.compile("\r\n|\r|\n");
+
+	private final AsyncContext asyncContext;
+
+	private final ServletOutputStream output;
+
+	private final SseProcessor processor;
+
+	/**
+	 * Events not written yet
+	 */
+	private final Deque<byte[]> pending = new ArrayDeque<>();
+
+	private final AtomicBoolean completed = new AtomicBoolean(false);
+
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+
+	private volatile boolean open = true;
+
+	/**
+	 * Whether to complete the response as soon as all pending events are written
+	 */
+	private boolean completing;
+
+	private int closeCode = GOING_AWAY;
+
+	private String closeReason = "The client went away";
+
+	/**
+	 * Constructor.
+	 *
+	 * @param asyncContext
+	 *            the context of the asynchronous request to stream the events with
+	 * @param processor
+	 *            the processor to delegate to
+	 * @param reconnectDelay
+	 *            the delay for the client to wait before it reconnects a closed stream
+	 * @throws IOException
+	 *             when the output stream of the response is not available
+	 */
+	public SseConnection(AsyncContext asyncContext, SseProcessor processor,
+		Duration reconnectDelay) throws IOException
+	{
+		super(processor);
+
+		this.asyncContext = Args.notNull(asyncContext, "asyncContext");
+		this.processor = processor;
+		this.output = asyncContext.getResponse().getOutputStream();
+
+		pending.add(("retry: " + reconnectDelay.toMillis() + "\n\n").getBytes(StandardCharsets.UTF_8));
+
+		ContainerListener listener = new ContainerListener();
+		asyncContext.addListener(listener);
+		output.setWriteListener(listener);
+
+		write();
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return open;
+	}
+
+	@Override
+	public void close(int code, String reason)
+	{
+		synchronized (this)
+		{
+			if (open == false)
+			{
+				return;
+			}
+			open = false;
+			closeCode = code;
+			closeReason = reason;
+
+			// tells the client not to reconnect
+			pending.add(encode("close", code + " " + reason));
+			completing = true;
+		}
+
+		write();
+	}
+
+	@Override
+	public IWebSocketConnection sendMessage(String message) throws IOException
+	{
+		send(encode(null, message));
+		return this;
+	}
+
+	@Override
+	public IWebSocketConnection sendMessage(byte[] message, int offset, int length)
+		throws IOException
+	{
+		String data = Base64.getEncoder().encodeToString(
+			Arrays.copyOfRange(message, offset, offset + length));
+		send(encode("binary", data));
+		return this;
+	}
+
+	/**
+	 * Delivers a message sent by the client.
+	 *
+	 * @param message
+	 *            the text message
+	 */
+	void onMessage(String message)
+	{
+		processor.onMessage(message);
+	}
+
+	private void send(byte[] event)
+	{
+		synchronized (this)
+		{
+			if (open == false)
+			{
+				throw new IllegalStateException("The connection is closed.");
+			}
+			pending.add(event);
+		}
+
+		write();
+	}
+
+	/**
+	 * Writes pending events as long as the output stream does not block. Called again by the
+	 * container when it gets ready.
+	 */
+	private void write()
+	{
+		boolean complete = false;
+
+		synchronized (this)
+		{
+			try
+			{
+				while (pending.isEmpty() == false && output.isReady())
+				{
+					output.write(pending.poll());
+				}
+
+				if (pending.isEmpty() && output.isReady())
+				{
+					if (completing)
+					{
+						complete = true;
+					}
+					else
+					{
+						output.flush();
+					}
+				}
+			}
+			catch (IOException | RuntimeException x)
+			{
+				LOG.debug("Cannot write server-sent events", x);
+
+				open = false;
+				pending.clear();
+				complete = true;
+			}
+		}
+
+		if (complete)
+		{
+			complete();
+		}
+	}
+
+	private void complete()
+	{
+		if (completed.compareAndSet(false, true))
+		{
+			try
+			{
+				asyncContext.complete();
+			}
+			catch (IllegalStateException x)
+			{
+				LOG.debug("The response is already completed", x);
+			}
+		}
+	}
+
+	/**
+	 * Notifies the processor once the stream has ended, unless the client has reconnected with
+	 * another connection already.
+	 */
+	private void onClosed()
+	{
+		open = false;
+
+		if (closed.compareAndSet(false, true))
+		{
+			Application application = getApplication();
+			IWebSocketConnection current = WebSocketSettings.Holder.get(application)
+				.getConnectionRegistry()
+				.getConnection(application, getSessionId(), getKey());
+			if (current == this)
+			{
+				processor.onClose(closeCode, closeReason);
+			}
+		}
+	}
+
+	private static byte[] encode(String event, String data)
+	{
+		StringBuilder builder = new StringBuilder(data.length() + 16);
+		if (event != null)
+		{
+			builder.append("event: ").append(event).append('\n');
+		}
+		for (String line : LINE_TERMINATOR.split(data, -1))
+		{
+			builder.append("data: ").append(line).append('\n');
+		}
+		builder.append('\n');
+		return builder.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Listens to the container for the asynchronous request and its output stream.
+	 */
+	private class ContainerListener implements AsyncListener, WriteListener
+	{
+		@Override
+		public void onWritePossible()
+		{
+			write();
+		}
+
+		@Override
+		public void onError(Throwable t)
+		{
+			LOG.debug("Cannot write server-sent events", t);
+
+			open = false;
+			complete();
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event)
+		{
+			onClosed();
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event)
+		{
+			synchronized (SseConnection.this)
+			{
+				closeReason = "The stream timed out";
+				open = false;
+			}
+			complete();
+		}
+
+		@Override
+		public void onError(AsyncEvent event)
+		{
+			processor.onError(event.getThrowable());
+
+			open = false;
+			complete();
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event)
+		{
+		}
+	}
+}
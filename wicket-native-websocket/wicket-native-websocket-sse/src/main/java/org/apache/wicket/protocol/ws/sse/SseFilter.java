@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.sse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.protocol.ws.AbstractUpgradeFilter;
+import org.apache.wicket.protocol.ws.WebSocketSettings;
+import org.apache.wicket.protocol.ws.api.IWebSocketConnection;
+import org.apache.wicket.protocol.ws.api.WicketWebSocketJQueryResourceReference;
+import org.apache.wicket.protocol.ws.api.registry.IKey;
+import org.apache.wicket.protocol.ws.api.registry.PageIdKey;
+import org.apache.wicket.protocol.ws.api.registry.ResourceNameKey;
+import org.apache.wicket.request.UrlUtils;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.string.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A filter that pushes the messages of {@link org.apache.wicket.protocol.ws.api.WebSocketBehavior}s
+ * and {@link org.apache.wicket.protocol.ws.api.WebSocketResource}s to the browser as server-sent
+ * events instead of over a WebSocket. The events are streamed over a plain HTTP response, which
+ * works with HTTP/2 and with proxies that do not support WebSocket upgrades.
+ * <p>
+ * The streams are kept open with asynchronous servlet processing, so the filter has to be
+ * configured with {@code <async-supported>true</async-supported>}. Messages from the client are
+ * posted to the same url.
+ * <p>
+ * On initialization the filter replaces {@link WicketWebSocketJQueryResourceReference} with
+ * {@link WicketSseJQueryResourceReference} and sets the filter prefix of the
+ * {@link WebSocketSettings} to its filter path, so no changes to the pages are needed.
+ */
+public class SseFilter extends AbstractUpgradeFilter
+{
+	private static final Logger LOG = LoggerFactory.getLogger(SseFilter.class);
+
+	/**
+	 * The path of the event streams, relative to the filter path
+	 */
+	static final String WICKET_SSE_PATH = "wicket/sse";
+
+	public SseFilter()
+	{
+		super();
+	}
+
+	public SseFilter(WebApplication application)
+	{
+		super(application);
+	}
+
+	@Override
+	public void init(final boolean isServlet, final FilterConfig filterConfig) throws ServletException
+	{
+		super.init(isServlet, filterConfig);
+
+		WebApplication application = getApplication();
+		application.addResourceReplacement(WicketWebSocketJQueryResourceReference.get(),
+			WicketSseJQueryResourceReference.get());
+
+		if (getFilterPath() != null)
+		{
+			WebSocketSettings.Holder.get(application)
+				.setFilterPrefix(UrlUtils.normalizePath(getFilterPath()));
+		}
+	}
+
+	@Override
+	protected boolean processRequestCycle(final RequestCycle requestCycle, final WebResponse webResponse,
+			final HttpServletRequest httpServletRequest, final HttpServletResponse httpServletResponse,
+			final FilterChain chain)
+		throws IOException, ServletException
+	{
+		if (WICKET_SSE_PATH.equals(requestCycle.getRequest().getUrl().getPath()))
+		{
+			acceptEventStream(httpServletRequest, httpServletResponse);
+			return true;
+		}
+
+		return super.processRequestCycle(requestCycle, webResponse, httpServletRequest,
+			httpServletResponse, chain);
+	}
+
+	/**
+	 * Starts streaming the events for a {@code GET} request, or delivers the message of a
+	 * {@code POST} request to the open stream of the same page or resource.
+	 *
+	 * @param req
+	 *            the http request
+	 * @param resp
+	 *            the http response
+	 * @throws IOException
+	 *             when the response cannot be written
+	 */
+	protected void acceptEventStream(HttpServletRequest req, HttpServletResponse resp)
+		throws IOException
+	{
+		if (!verifyOrigin(req.getHeader("Origin")))
+		{
+			resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+
+		if ("POST".equalsIgnoreCase(req.getMethod()))
+		{
+			acceptMessage(req, resp);
+			return;
+		}
+
+		if (!req.isAsyncSupported())
+		{
+			LOG.error("Server-sent events need asynchronous processing, please enable it for filter '{}'",
+				getFilterConfig().getFilterName());
+			resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			return;
+		}
+
+		resp.setContentType("text/event-stream");
+		resp.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		resp.setHeader("Cache-Control", "no-cache");
+		// do not let nginx buffer the stream
+		resp.setHeader("X-Accel-Buffering", "no");
+
+		AsyncContext asyncContext = req.startAsync();
+		asyncContext.setTimeout(getTimeout().toMillis());
+		try
+		{
+			new SseProcessor(req, getApplication(), asyncContext, getReconnectDelay());
+		}
+		catch (RuntimeException x)
+		{
+			asyncContext.complete();
+			throw x;
+		}
+	}
+
+	private void acceptMessage(HttpServletRequest req, HttpServletResponse resp) throws IOException
+	{
+		HttpSession httpSession = req.getSession(false);
+
+		// the custom header cannot be sent cross-origin without a preflight request
+		if (httpSession == null || !"true".equals(req.getHeader(WebRequest.HEADER_AJAX)))
+		{
+			resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+			return;
+		}
+
+		IKey key;
+		String resourceName = req.getParameter("resourceName");
+		if (Strings.isEmpty(resourceName))
+		{
+			try
+			{
+				key = new PageIdKey(Integer.valueOf(req.getParameter("pageId")));
+			}
+			catch (NumberFormatException x)
+			{
+				resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+				return;
+			}
+		}
+		else
+		{
+			key = new ResourceNameKey(resourceName);
+		}
+
+		WebApplication application = getApplication();
+		IWebSocketConnection connection = WebSocketSettings.Holder.get(application)
+			.getConnectionRegistry()
+			.getConnection(application, httpSession.getId(), key);
+		if (!(connection instanceof SseConnection) || !connection.isOpen())
+		{
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		if (req.getCharacterEncoding() == null)
+		{
+			req.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		}
+		((SseConnection)connection).onMessage(IOUtils.toString(req.getReader()));
+
+		resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+	}
+
+	/**
+	 * The time after which an event stream is closed. The client reconnects after
+	 * {@link #getReconnectDelay()}, so a timeout keeps proxies from cutting off idle streams.
+	 *
+	 * @return the timeout of the event streams, 5 minutes by default
+	 */
+	protected Duration getTimeout()
+	{
+		return Duration.ofMinutes(5);
+	}
+
+	/**
+	 * @return the delay for the client to wait before it reconnects a closed stream, 1 second
+	 *         by default
+	 */
+	protected Duration getReconnectDelay()
+	{
+		return Duration.ofSeconds(1);
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.sse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.protocol.ws.api.AbstractWebSocketProcessor;
+
+/**
+ * An {@link org.apache.wicket.protocol.ws.api.IWebSocketProcessor processor} that streams the
+ * messages to the client as server-sent events.
+ *
+ * @see SseFilter
+ */
+public class SseProcessor extends AbstractWebSocketProcessor
+{
+	/**
+	 * Constructor.
+	 *
+	 * @param request
+	 *            the http request of the event stream
+	 * @param application
+	 *            the current Wicket Application
+	 * @param asyncContext
+	 *            the context of the asynchronous request
+	 * @param reconnectDelay
+	 *            the delay for the client to wait before it reconnects a closed stream
+	 * @throws IOException
+	 *             when the output stream of the response is not available
+	 */
+	public SseProcessor(final HttpServletRequest request, final WebApplication application,
+		final AsyncContext asyncContext, final Duration reconnectDelay) throws IOException
+	{
+		super(request, application);
+
+		onConnect(new SseConnection(asyncContext, this, reconnectDelay));
+	}
+
+	@Override
+	public void onOpen(Object containerConnection)
+	{
+	}
+}
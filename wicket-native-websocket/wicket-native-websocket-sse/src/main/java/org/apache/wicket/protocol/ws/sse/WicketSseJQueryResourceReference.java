@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.sse;
+
+import java.util.List;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.ajax.WicketAjaxJQueryResourceReference;
+import org.apache.wicket.markup.head.HeaderItem;
+import org.apache.wicket.markup.head.JavaScriptHeaderItem;
+import org.apache.wicket.request.resource.JavaScriptResourceReference;
+import org.apache.wicket.request.resource.ResourceReference;
+
+/**
+ * A resource reference that provides a replacement for
+ * {@link org.apache.wicket.protocol.ws.api.WicketWebSocketJQueryResourceReference}: its
+ * {@code Wicket.WebSocket} receives the messages as server-sent events with an
+ * {@code EventSource} and posts the messages to send.
+ *
+ * @see SseFilter
+ */
+public class WicketSseJQueryResourceReference extends JavaScriptResourceReference
+{
+	private static final long serialVersionUID = 1;
+
+	private static final WicketSseJQueryResourceReference instance = new WicketSseJQueryResourceReference();
+
+	/**
+	 * @return the singleton instance
+	 */
+	public static WicketSseJQueryResourceReference get()
+	{
+		return instance;
+	}
+
+	private WicketSseJQueryResourceReference()
+	{
+		super(WicketSseJQueryResourceReference.class, "res/js/wicket-sse-jquery.js");
+	}
+
+	@Override
+	public List<HeaderItem> getDependencies()
+	{
+		final ResourceReference wicketAjaxReference;
+		if (Application.exists())
+		{
+			wicketAjaxReference = Application.get().getJavaScriptLibrarySettings().getWicketAjaxReference();
+		}
+		else
+		{
+			wicketAjaxReference = WicketAjaxJQueryResourceReference.get();
+		}
+		List<HeaderItem> dependencies = super.getDependencies();
+		dependencies.add(JavaScriptHeaderItem.forReference(wicketAjaxReference));
+		return dependencies;
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*jshint evil: true, nomen: false, onevar: false, regexp: false, strict: true, boss: true, undef: true, maxlen: 160, curly: true, eqeqeq: true */
+/*global document: false, jQuery:false, DOMParser: true, window: false, Wicket: true */
+
+/*
+ * A replacement of wicket-websocket-jquery.js that receives the messages as server-sent events
+ * and posts the messages to send.
+ */
+;(function (undefined) {
+
+	'use strict';
+
+	if (typeof(Wicket) === 'undefined' || typeof(Wicket.Ajax) === 'undefined') {
+		throw 'Wicket.WebSocket needs wicket-ajax.js as prerequisite.';
+	}
+
+	jQuery.extend(Wicket.Event.Topic, {
+		WebSocket: {
+			Opened:       '/websocket/open',
+			Message:      '/websocket/message',
+			Closed:       '/websocket/closed',
+			Error:        '/websocket/error',
+			NotSupported: '/websocket/notsupported'
+		}
+	});
+
+	Wicket.WebSocket = Wicket.Class.create();
+
+	Wicket.WebSocket.MESSAGE_CHANNEL = 'websocketMessage|s';
+
+	Wicket.WebSocket.prototype = {
+
+		es: null,
+
+		url: null,
+
+		initialize: function () {
+			var topics = Wicket.Event.Topic.WebSocket;
+
+			if (('EventSource' in window)) {
+
+				var self = this,
+					url,
+					WWS = Wicket.WebSocket;
+
+				url = WWS.contextPath + WWS.filterPrefix + '/wicket/sse';
+
+				if (WWS.sessionId !== '') {
+					url += ';jsessionid=' + encodeURIComponent(WWS.sessionId);
+				}
+
+				if (WWS.pageId !== false) {
+					url += '?pageId=' + encodeURIComponent(WWS.pageId);
+				} else if (WWS.resourceName) {
+					url += '?resourceName=' + encodeURIComponent(WWS.resourceName);
+				}
+
+				url += '&wicket-ajax-baseurl=' + encodeURIComponent(WWS.baseUrl);
+				url += '&wicket-app-name=' + encodeURIComponent(WWS.appName);
+
+				self.url = url;
+				self.es = new EventSource(url);
+
+				self.es.onopen = function (evt) {
+					Wicket.Event.publish(topics.Opened, evt);
+				};
+
+				self.es.onmessage = function (event) {
+
+					var message = event.data;
+					if (message.indexOf('<ajax-response>') > -1) {
+						Wicket.channelManager.schedule(Wicket.WebSocket.MESSAGE_CHANNEL, Wicket.bind(function () {
+							var context = {
+								attrs: {},
+								steps: []
+							};
+							var xmlDocument = Wicket.Xml.parse(message);
+							this.loadedCallback(xmlDocument, context);
+							context.steps.push(function () {
+								Wicket.channelManager.done(Wicket.WebSocket.MESSAGE_CHANNEL);
+								return Wicket.ChannelManager.FunctionsExecuter.DONE;
+							});
+							var executer = new Wicket.ChannelManager.FunctionsExecuter(context.steps);
+							executer.start();
+						}, new Wicket.Ajax.Call()));
+					} else {
+						Wicket.Event.publish(topics.Message, message);
+					}
+				};
+
+				self.es.addEventListener('binary', function (event) {
+					var data = window.atob(event.data),
+						bytes = new Uint8Array(data.length);
+					for (var i = 0; i < data.length; i++) {
+						bytes[i] = data.charCodeAt(i);
+					}
+					Wicket.Event.publish(topics.Message, bytes.buffer);
+				});
+
+				// the server closed the connection, do not reconnect
+				self.es.addEventListener('close', function (evt) {
+					if (self.es) {
+						self.es.close();
+						self.es = null;
+						Wicket.Event.publish(topics.Closed, evt);
+					}
+				});
+
+				self.es.onerror = function (evt) {
+					// the browser reconnects unless the stream failed for good
+					if (self.es && self.es.readyState === EventSource.CLOSED) {
+						self.es = null;
+						Wicket.Event.publish(topics.Error, evt);
+					}
+				};
+			} else {
+				var errMessage = '[WebSocket.initialize] Server-sent events are not supported in your browser!';
+				Wicket.Log.error(errMessage);
+				Wicket.Event.publish(topics.NotSupported, errMessage);
+			}
+		},
+
+		send: function (text) {
+			if (this.es && text) {
+				Wicket.Log.info('[WebSocket.send] Sending: ' + text);
+				jQuery.ajax({
+					url: this.url,
+					type: 'POST',
+					contentType: 'text/plain; charset=UTF-8',
+					headers: { 'Wicket-Ajax': 'true' },
+					data: text
+				});
+			} else if (!text) {
+				Wicket.Log.error('[WebSocket.send] Cannot send an empty text message!');
+			} else {
+				Wicket.Log.error('[WebSocket.send] No open event stream! Cannot send text message: ' + text);
+			}
+		},
+
+		close: function () {
+			if (this.es) {
+				this.es.close();
+				this.es = null;
+				Wicket.Log.info('[WebSocket.close] Connection closed.');
+			} else {
+				Wicket.Log.info('[WebSocket.close] Connection already closed.');
+			}
+		}
+	};
+
+	Wicket.WebSocket.createDefaultConnection = function () {
+		if (!Wicket.WebSocket.INSTANCE) {
+			Wicket.WebSocket.INSTANCE = new Wicket.WebSocket();
+		}
+	};
+
+	Wicket.WebSocket.send = function (text) {
+		if (Wicket.WebSocket.INSTANCE) {
+			Wicket.WebSocket.INSTANCE.send(text);
+		} else {
+			Wicket.Log.error('[WebSocket.send] No default connection available!');
+		}
+	};
+
+	Wicket.WebSocket.close = function () {
+		if (Wicket.WebSocket.INSTANCE) {
+			Wicket.WebSocket.INSTANCE.close();
+			delete Wicket.WebSocket.INSTANCE;
+		} else {
+			Wicket.Log.info('[WebSocket.close] No default connection to close.');
+		}
+	};
+
+})();
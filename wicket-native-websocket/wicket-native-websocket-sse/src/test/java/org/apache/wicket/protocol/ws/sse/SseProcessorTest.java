@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.sse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.protocol.http.mock.MockHttpServletRequest;
+import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
+import org.apache.wicket.protocol.ws.WebSocketSettings;
+import org.apache.wicket.protocol.ws.api.IWebSocketConnection;
+import org.apache.wicket.protocol.ws.api.WebSocketBehavior;
+import org.apache.wicket.protocol.ws.api.WebSocketPushBroadcaster;
+import org.apache.wicket.protocol.ws.api.WebSocketRequestHandler;
+import org.apache.wicket.protocol.ws.api.message.ClosedMessage;
+import org.apache.wicket.protocol.ws.api.message.IWebSocketPushMessage;
+import org.apache.wicket.protocol.ws.api.message.TextMessage;
+import org.apache.wicket.protocol.ws.api.registry.IWebSocketConnectionRegistry;
+import org.apache.wicket.protocol.ws.api.registry.PageIdKey;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link SseProcessor} and {@link SseConnection}
+ */
+class SseProcessorTest
+{
+	private WicketTester tester;
+
+	private SsePage page;
+
+	@BeforeEach
+	void before()
+	{
+		tester = new WicketTester();
+		tester.getApplication().getWicketFilter().setFilterPath("");
+		page = tester.startPage(new SsePage());
+	}
+
+	@AfterEach
+	void after()
+	{
+		tester.destroy();
+	}
+
+	/**
+	 * Pushed messages and component updates are written as events.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void push() throws IOException
+	{
+		TestAsyncContext context = connect();
+		assertEquals("retry: 2000\n\n", context.getOutput());
+
+		new WebSocketPushBroadcaster(getRegistry()).broadcastAll(tester.getApplication(),
+			new Push("first\r\nsecond"));
+
+		String output = context.getOutput();
+		assertTrue(output.startsWith("retry: 2000\n\ndata: first\ndata: second\n\n" +
+			"event: binary\ndata: Zmlyc3QNCnNlY29uZA==\n\n" + "data: <?xml"), output);
+		assertTrue(output.contains("<ajax-response>"), output);
+		assertTrue(output.contains("first\ndata: second</span>"), output);
+		assertTrue(output.endsWith("</ajax-response>\n\n"), output);
+		assertFalse(context.completed);
+	}
+
+	/**
+	 * Messages posted by the client are delivered to the page.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void message() throws IOException
+	{
+		TestAsyncContext context = connect();
+
+		SseConnection connection = (SseConnection)getConnection();
+		connection.onMessage("hello");
+
+		assertEquals("retry: 2000\n\ndata: HELLO\n\n", context.getOutput());
+	}
+
+	/**
+	 * A timed out stream is completed and the page is notified.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void timeout() throws IOException
+	{
+		TestAsyncContext context = connect();
+		IWebSocketConnection connection = getConnection();
+
+		context.timeout();
+
+		assertTrue(context.completed);
+		assertFalse(connection.isOpen());
+		assertNull(getConnection());
+		assertEquals(1001, page.closeCode);
+	}
+
+	/**
+	 * Closing the connection tells the client to not reconnect.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void close() throws IOException
+	{
+		TestAsyncContext context = connect();
+
+		getConnection().close(1000, "done");
+
+		assertEquals("retry: 2000\n\nevent: close\ndata: 1000 done\n\n", context.getOutput());
+		assertTrue(context.completed);
+		assertNull(getConnection());
+		assertEquals(1000, page.closeCode);
+	}
+
+	/**
+	 * A stream closed after the client has reconnected does not unregister the new connection.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void reconnect() throws IOException
+	{
+		TestAsyncContext first = connect();
+		TestAsyncContext second = connect();
+		IWebSocketConnection connection = getConnection();
+
+		first.timeout();
+
+		assertSame(connection, getConnection());
+		assertTrue(connection.isOpen());
+		assertFalse(second.completed);
+		assertEquals(0, page.closeCode);
+	}
+
+	private TestAsyncContext connect() throws IOException
+	{
+		MockHttpServletRequest request = new MockHttpServletRequest(tester.getApplication(),
+			tester.getHttpSession(), null);
+		request.addParameter("pageId", page.getId());
+		request.addParameter(WebRequest.PARAM_AJAX_BASE_URL, ".");
+
+		TestAsyncContext context = new TestAsyncContext(request);
+		new SseProcessor(request, tester.getApplication(), context, Duration.ofSeconds(2));
+		return context;
+	}
+
+	private IWebSocketConnectionRegistry getRegistry()
+	{
+		return WebSocketSettings.Holder.get(tester.getApplication()).getConnectionRegistry();
+	}
+
+	private IWebSocketConnection getConnection()
+	{
+		return getRegistry().getConnection(tester.getApplication(), tester.getHttpSession().getId(),
+			new PageIdKey(page.getPageId()));
+	}
+
+	private static class Push implements IWebSocketPushMessage
+	{
+		private final String text;
+
+		Push(String text)
+		{
+			this.text = text;
+		}
+	}
+
+	/**
+	 * A page with a {@link WebSocketBehavior}
+	 */
+	public static class SsePage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		int closeCode;
+
+		SsePage()
+		{
+			Label label = new Label("label", Model.of(""));
+			label.setOutputMarkupId(true);
+			add(label);
+
+			add(new WebSocketBehavior()
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void onPush(WebSocketRequestHandler handler, IWebSocketPushMessage message)
+				{
+					String text = ((Push)message).text;
+					handler.push(text);
+					byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+					handler.push(bytes, 0, bytes.length);
+
+					label.setDefaultModelObject(text);
+					handler.add(label);
+				}
+
+				@Override
+				protected void onMessage(WebSocketRequestHandler handler, TextMessage message)
+				{
+					handler.push(message.getText().toUpperCase());
+				}
+
+				@Override
+				protected void onClose(ClosedMessage message)
+				{
+					closeCode = message.getCloseCode();
+				}
+			});
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><span wicket:id=\"label\"></span></body></html>");
+		}
+	}
+
+	/**
+	 * An asynchronous context notifying its listeners like a container.
+	 */
+	private static class TestAsyncContext implements AsyncContext
+	{
+		private final MockHttpServletRequest request;
+
+		private final MockHttpServletResponse response;
+
+		private final List<AsyncListener> listeners = new ArrayList<>();
+
+		private boolean completed;
+
+		TestAsyncContext(MockHttpServletRequest request)
+		{
+			this.request = request;
+			this.response = new MockHttpServletResponse(request);
+		}
+
+		String getOutput()
+		{
+			return new String(response.getBinaryContent(), StandardCharsets.UTF_8);
+		}
+
+		void timeout() throws IOException
+		{
+			for (AsyncListener listener : listeners)
+			{
+				listener.onTimeout(new AsyncEvent(this));
+			}
+		}
+
+		@Override
+		public ServletRequest getRequest()
+		{
+			return request;
+		}
+
+		@Override
+		public ServletResponse getResponse()
+		{
+			return response;
+		}
+
+		@Override
+		public boolean hasOriginalRequestAndResponse()
+		{
+			return true;
+		}
+
+		@Override
+		public void dispatch()
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void dispatch(String path)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void dispatch(ServletContext context, String path)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void complete()
+		{
+			if (completed)
+			{
+				throw new IllegalStateException();
+			}
+			completed = true;
+
+			for (AsyncListener listener : listeners)
+			{
+				try
+				{
+					listener.onComplete(new AsyncEvent(this));
+				}
+				catch (IOException x)
+				{
+					throw new RuntimeException(x);
+				}
+			}
+		}
+
+		@Override
+		public void start(Runnable run)
+		{
+			run.run();
+		}
+
+		@Override
+		public void addListener(AsyncListener listener)
+		{
+			listeners.add(listener);
+		}
+
+		@Override
+		public void addListener(AsyncListener listener, ServletRequest servletRequest,
+			ServletResponse servletResponse)
+		{
+			listeners.add(listener);
+		}
+
+		@Override
+		public <T extends AsyncListener> T createListener(Class<T> clazz)
+		{
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void setTimeout(long timeout)
+		{
+		}
+
+		@Override
+		public long getTimeout()
+		{
+			return 0;
+		}
+	}
+}
@@ -18,6 +18,7 @@ package org.apache.wicket.request;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Writer;
 
 import org.apache.wicket.util.lang.Args;
 
@@ -32,6 +33,9 @@ import org.apache.wicket.util.lang.Args;
  */
 public abstract class Response
 {
+	/** lazily created writer delegating to this response */
+	private Writer writer;
+
 	/**
 	 * Writes the {@link CharSequence} to output.
 	 * 
@@ -41,6 +45,23 @@ public abstract class Response
 	 */
 	public abstract void write(CharSequence sequence);
 
+	/**
+	 * Writes a part of the {@link CharSequence} to output. Subclasses should override this method
+	 * to write the part without creating a subsequence.
+	 * 
+	 * @param sequence
+	 * @param start
+	 *            the index of the first character to write
+	 * @param end
+	 *            the index after the last character to write
+	 * @throws IllegalStateException
+	 *             if {@link #write(byte[])} has already been called on this instance
+	 */
+	public void write(CharSequence sequence, int start, int end)
+	{
+		write(sequence.subSequence(start, end));
+	}
+
 	/**
 	 * Writes the buffer to output.
 	 * 
@@ -120,6 +141,86 @@ public abstract class Response
 		return new StreamAdapter(this);
 	}
 
+	/**
+	 * Returns a {@link Writer} suitable for writing text in the response, e.g. with an escaping
+	 * method appending to an {@link Appendable}.
+	 * <p>
+	 * This method returns a writer that delegates to {@link #write(CharSequence)},
+	 * {@link #write(CharSequence, int, int)} and {@link #close()} methods of this response
+	 * instance
+	 * </p>
+	 * 
+	 * @return writer
+	 */
+	public Writer getWriter()
+	{
+		if (writer == null)
+		{
+			writer = new WriterAdapter(this);
+		}
+		return writer;
+	}
+
+	private static class WriterAdapter extends Writer
+	{
+		private final Response response;
+
+		public WriterAdapter(Response response)
+		{
+			Args.notNull(response, "response");
+			this.response = response;
+		}
+
+		@Override
+		public void write(int c) throws IOException
+		{
+			response.write(String.valueOf((char)c));
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException
+		{
+			response.write(new String(cbuf, off, len));
+		}
+
+		@Override
+		public void write(String str) throws IOException
+		{
+			response.write(str);
+		}
+
+		@Override
+		public void write(String str, int off, int len) throws IOException
+		{
+			response.write(str, off, off + len);
+		}
+
+		@Override
+		public Writer append(CharSequence csq) throws IOException
+		{
+			response.write(csq != null ? csq : "null");
+			return this;
+		}
+
+		@Override
+		public Writer append(CharSequence csq, int start, int end) throws IOException
+		{
+			response.write(csq != null ? csq : "null", start, end);
+			return this;
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			response.close();
+		}
+	}
+
 	private static class StreamAdapter extends OutputStream
 	{
 		private final Response response;
@@ -16,6 +16,8 @@
  */
 package org.apache.wicket.request;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -77,7 +79,11 @@ public class Url implements Serializable
 
 	private final List<String> segments;
 
-	private final List<QueryParameter> parameters;
+	/** query parameters, {@code null} until {@link #query} has been parsed */
+	private volatile List<QueryParameter> parameters;
+
+	/** query string not parsed yet, guarded by this url */
+	private transient String query;
 
 	private String charsetName;
 	private transient Charset _charset;
@@ -145,7 +151,11 @@ public class Url implements Serializable
 		host = url.host;
 		port = url.port;
 		segments = new ArrayList<>(url.segments);
-		parameters = new ArrayList<>(url.parameters);
+		synchronized (url)
+		{
+			parameters = url.parameters != null ? new ArrayList<>(url.parameters) : null;
+			query = url.query;
+		}
 		charsetName = url.charsetName;
 		_charset = url._charset;
 	}
@@ -327,49 +337,61 @@ public class Url implements Serializable
 			relativeUrl = absoluteUrl;
 		}
 
+		// split the segments, keeping a trailing empty one
 		if (relativeUrl.length() > 0)
 		{
-			boolean removeLast = false;
-			if (relativeUrl.endsWith("/"))
-			{
-				// we need to append something and remove it after splitting
-				// because otherwise the
-				// trailing slashes will be lost
-				relativeUrl += "/x";
-				removeLast = true;
-			}
-
-			String segmentArray[] = Strings.split(relativeUrl, '/');
-
-			if (removeLast)
+			int start = 0;
+			while (true)
 			{
-				segmentArray[segmentArray.length - 1] = null;
-			}
-
-			for (String s : segmentArray)
-			{
-				if (s != null)
+				int next = relativeUrl.indexOf('/', start);
+				if (next == -1)
 				{
-					result.segments.add(decodeSegment(s, charset));
+					result.segments.add(decodeSegment(relativeUrl.substring(start), charset));
+					break;
 				}
+				result.segments.add(decodeSegment(relativeUrl.substring(start, next), charset));
+				start = next + 1;
 			}
 		}
 
+		// query parameters are parsed on first access
 		if (queryString.length() > 0)
 		{
-			String queryArray[] = Strings.split(queryString, '&');
-			for (String s : queryArray)
-			{
-				if (Strings.isEmpty(s) == false)
-				{
-					result.parameters.add(parseQueryParameter(s, charset));
-				}
-			}
+			result.parameters = null;
+			result.query = queryString;
 		}
 
 		return result;
 	}
 
+	/**
+	 * Parses the query string.
+	 * 
+	 * @param queryString
+	 * @param charset
+	 * @return query parameters
+	 */
+	private static List<QueryParameter> parseQueryParameters(final String queryString,
+		final Charset charset)
+	{
+		List<QueryParameter> parameters = new ArrayList<>();
+		int start = 0;
+		while (start <= queryString.length())
+		{
+			int next = queryString.indexOf('&', start);
+			if (next == -1)
+			{
+				next = queryString.length();
+			}
+			if (next > start)
+			{
+				parameters.add(parseQueryParameter(queryString.substring(start, next), charset));
+			}
+			start = next + 1;
+		}
+		return parameters;
+	}
+
 	/**
 	 * 
 	 * @param qp
@@ -462,6 +484,13 @@ public class Url implements Serializable
 		return segments;
 	}
 
+	private void writeObject(final ObjectOutputStream out) throws IOException
+	{
+		// the unparsed query string is not serialized
+		getQueryParameters();
+		out.defaultWriteObject();
+	}
+
 	/**
 	 * Returns query parameters of the URL.
 	 * 
@@ -469,7 +498,21 @@ public class Url implements Serializable
 	 */
 	public List<QueryParameter> getQueryParameters()
 	{
-		return parameters;
+		List<QueryParameter> result = parameters;
+		if (result == null)
+		{
+			synchronized (this)
+			{
+				result = parameters;
+				if (result == null)
+				{
+					result = parseQueryParameters(query, getCharset());
+					query = null;
+					parameters = result;
+				}
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -603,7 +646,7 @@ public class Url implements Serializable
 	 */
 	public QueryParameter getQueryParameter(final String name)
 	{
-		for (QueryParameter parameter : parameters)
+		for (QueryParameter parameter : getQueryParameters())
 		{
 			if (Objects.equal(name, parameter.getName()))
 			{
@@ -1005,13 +1048,24 @@ public class Url implements Serializable
 		public String toString(final Charset charset)
 		{
 			StringBuilder result = new StringBuilder();
+			appendTo(result, charset);
+			return result.toString();
+		}
+
+		/**
+		 * Appends the encoded parameter.
+		 * 
+		 * @param result
+		 * @param charset
+		 */
+		void appendTo(final StringBuilder result, final Charset charset)
+		{
 			result.append(encodeParameter(getName(), charset));
 			if (!Strings.isEmpty(getValue()))
 			{
 				result.append('=');
 				result.append(encodeParameter(getValue(), charset));
 			}
-			return result.toString();
 		}
 	}
 
@@ -1088,8 +1142,8 @@ public class Url implements Serializable
 		getSegments().addAll(relative.getSegments());
 
 		// replace query params with the ones from relative
-		parameters.clear();
-		parameters.addAll(relative.getQueryParameters());
+		getQueryParameters().clear();
+		getQueryParameters().addAll(relative.getQueryParameters());
 	}
 
 	/**
@@ -16,11 +16,14 @@
  */
 package org.apache.wicket.request;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.wicket.util.encoding.UrlEncoder;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.string.PrependingStringBuffer;
 import org.apache.wicket.util.string.Strings;
@@ -48,9 +51,26 @@ public class UrlRenderer
 		PROTO_TO_PORT.put("https", 443);
 	}
 
+	/** charset of relative urls */
+	private static final Charset CHARSET = StandardCharsets.UTF_8;
+
 	private final Request request;
 	private Url baseUrl;
 
+	/** reused to render relative urls */
+	private final StringBuilder renderBuffer = new StringBuilder(128);
+
+	/** segments of context and filter path */
+	private List<String> commonPrefix;
+
+	/** segments of the base url relative urls are rendered against */
+	private List<String> baseSegments;
+
+	private boolean baseContextRelative;
+
+	/** count of common prefixes in {@link #baseSegments} */
+	private int baseStart;
+
 	/**
 	 * Construct.
 	 * 
@@ -239,28 +259,31 @@ public class UrlRenderer
 			return renderer.renderRelativeUrl(url, getBaseUrl());
 		}
 
-		List<String> baseUrlSegments =  new ArrayList<>(getBaseUrl().getSegments());
-		List<String> urlSegments = new ArrayList<>(url.getSegments());
-
-		if (!getBaseUrl().isContextRelative())
+		final Url base = getBaseUrl();
+		if (baseSegments == null || baseContextRelative != base.isContextRelative() ||
+			baseSegments.equals(base.getSegments()) == false)
 		{
+			baseSegments = new ArrayList<>(base.getSegments());
+			baseContextRelative = base.isContextRelative();
+
 			// so we remove any possible filter/context segments
-			removeCommonPrefixes(request, baseUrlSegments);
+			baseStart = baseContextRelative ? 0 : countCommonPrefixes(baseSegments);
 		}
-		removeCommonPrefixes(request, urlSegments);
-
-		List<String> newSegments = new ArrayList<>();
+		final int baseSize = baseSegments.size() - baseStart;
 
-		int common = 0;
+		final List<String> urlSegments = url.getSegments();
+		final int urlSize = urlSegments.size();
 
-		String last = null;
+		// index of the first url segment not in common with the base url
+		int next = countCommonPrefixes(urlSegments);
 
-		for (String s : baseUrlSegments)
+		int common = 0;
+		for (int i = baseStart; i < baseSegments.size(); i++)
 		{
-			if (!urlSegments.isEmpty() && s.equals(urlSegments.get(0)))
+			if (next < urlSize && baseSegments.get(i).equals(urlSegments.get(next)))
 			{
 				++common;
-				last = urlSegments.remove(0);
+				++next;
 			}
 			else
 			{
@@ -269,88 +292,160 @@ public class UrlRenderer
 		}
 
 		// we want the new URL to have at least one segment (other than possible ../)
-		if ((last != null) && (urlSegments.isEmpty() || (baseUrlSegments.size() == common)))
+		if ((common > 0) && (next == urlSize || (baseSize == common)))
 		{
 			--common;
-			urlSegments.add(0, last);
+			--next;
 		}
 
-		int baseUrlSize = baseUrlSegments.size();
-		if (common + 1 == baseUrlSize && urlSegments.isEmpty())
+		final StringBuilder render = renderBuffer;
+		render.setLength(0);
+
+		boolean slash = false;
+		if (common + 1 == baseSize && next == urlSize)
 		{
-			newSegments.add(".");
+			render.append('.');
+			slash = true;
 		}
 		else
 		{
-			for (int i = common + 1; i < baseUrlSize; ++i)
+			for (int i = common + 1; i < baseSize; ++i)
 			{
-				newSegments.add("..");
+				if (slash)
+				{
+					render.append('/');
+				}
+				render.append("..");
+				slash = true;
 			}
 		}
-		newSegments.addAll(urlSegments);
+		for (int i = next; i < urlSize; i++)
+		{
+			if (slash)
+			{
+				render.append('/');
+			}
+			render.append(UrlEncoder.PATH_INSTANCE.encode(urlSegments.get(i), CHARSET));
+			slash = true;
+		}
 
-		Url relativeUrl = new Url(newSegments, url.getQueryParameters());
-		relativeUrl.setFragment(url.getFragment());
-		String renderedUrl = relativeUrl.toString();
+		final List<Url.QueryParameter> parameters = url.getQueryParameters();
+		if (parameters.isEmpty() == false)
+		{
+			render.append('?');
+			final int queryStart = render.length();
+			for (Url.QueryParameter parameter : parameters)
+			{
+				if (render.length() != queryStart)
+				{
+					render.append('&');
+				}
+				parameter.appendTo(render, CHARSET);
+			}
+		}
+
+		final String fragment = url.getFragment();
+		if (Strings.isEmpty(fragment) == false)
+		{
+			render.append('#').append(fragment);
+		}
 
 		// sanitize start
-		if (renderedUrl.startsWith("...") || (!renderedUrl.startsWith("..") && !renderedUrl.equals(".")))
+		if (startsWith(render, "...") || (!startsWith(render, "..") && !equals(render, ".")))
 		{
 			// WICKET-4260
-			renderedUrl = "./" + renderedUrl;
+			render.insert(0, "./");
 		}
 
 		// add trailing slash if the url has no query string and ends with ..
-		if (renderedUrl.indexOf('?') == -1 && (renderedUrl.endsWith("..") && renderedUrl.endsWith("...") == false))
+		if (render.indexOf("?") == -1 && (endsWith(render, "..") && endsWith(render, "...") == false))
 		{
 			// WICKET-4401
-			renderedUrl = renderedUrl + '/';
+			render.append('/');
 		}
 
-		return renderedUrl;
+		return render.toString();
 	}
 
 	/**
-	 * Removes common prefixes like empty first segment, context path and filter path.
+	 * Counts common prefixes like empty first segment, context path and filter path.
 	 * 
-	 * @param request
-	 *            the current web request
 	 * @param segments
-	 *            the segments to clean
+	 *            the segments to check
+	 * @return count of leading segments to skip
 	 */
-	private void removeCommonPrefixes(Request request, List<String> segments)
+	private int countCommonPrefixes(List<String> segments)
 	{
 		// try to remove context/filter path only if the Url starts with '/',
 		// i.e. has an empty segment in the beginning
 		if (segments.isEmpty() || "".equals(segments.get(0)) == false)
 		{
-			return;
+			return 0;
 		}
 
-		Url commonPrefix = Url.parse(request.getContextPath() + request.getFilterPath());
-		// if both context and filter path are empty, common prefixes are empty too
-		if (commonPrefix.getSegments().isEmpty())
+		if (commonPrefix == null)
 		{
-			// WICKET-4920 and WICKET-4935
-			commonPrefix.getSegments().add("");
+			Url prefix = Url.parse(request.getContextPath() + request.getFilterPath());
+			// if both context and filter path are empty, common prefixes are empty too
+			if (prefix.getSegments().isEmpty())
+			{
+				// WICKET-4920 and WICKET-4935
+				prefix.getSegments().add("");
+			}
+			commonPrefix = prefix.getSegments();
 		}
 
-		for (int i = 0; i < commonPrefix.getSegments().size() && i < segments.size(); i++)
+		for (int i = 0; i < commonPrefix.size() && i < segments.size(); i++)
 		{
-			String commonPrefixSegment = Strings.stripJSessionId(commonPrefix.getSegments().get(i));
+			String commonPrefixSegment = Strings.stripJSessionId(commonPrefix.get(i));
 			String segmentToClean = Strings.stripJSessionId(segments.get(i));
 			if (commonPrefixSegment.equals(segmentToClean) == false)
 			{
 				LOG.debug("Segments '{}' do not start with common prefix '{}'", segments,
 					commonPrefix);
-				return;
+				return 0;
 			}
 		}
 
-		for (int i = 0; i < commonPrefix.getSegments().size() && !segments.isEmpty(); i++)
+		return Math.min(commonPrefix.size(), segments.size());
+	}
+
+	private static boolean startsWith(CharSequence string, String prefix)
+	{
+		if (string.length() < prefix.length())
+		{
+			return false;
+		}
+		for (int i = 0; i < prefix.length(); i++)
 		{
-			segments.remove(0);
+			if (string.charAt(i) != prefix.charAt(i))
+			{
+				return false;
+			}
 		}
+		return true;
+	}
+
+	private static boolean endsWith(CharSequence string, String suffix)
+	{
+		int offset = string.length() - suffix.length();
+		if (offset < 0)
+		{
+			return false;
+		}
+		for (int i = 0; i < suffix.length(); i++)
+		{
+			if (string.charAt(offset + i) != suffix.charAt(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean equals(CharSequence string, String other)
+	{
+		return string.length() == other.length() && startsWith(string, other);
 	}
 
 	/**
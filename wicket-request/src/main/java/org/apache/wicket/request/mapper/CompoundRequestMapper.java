@@ -128,7 +128,7 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	{
 		List<MapperWithScore> list = new ArrayList<>(mappers.size());
 
-		for (IRequestMapper mapper : this)
+		for (IRequestMapper mapper : getCandidateMappers(request))
 		{
 			int score = mapper.getCompatibilityScore(request);
 			list.add(new MapperWithScore(mapper, score));
@@ -154,6 +154,22 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 		return null;
 	}
 
+	/**
+	 * Returns the registered {@link IRequestMapper}s that might be able to map the request, in the
+	 * order they are searched when their compatibility scores are equal. The other mappers must
+	 * not be able to map the request.
+	 * <p>
+	 * By default all registered mappers are returned.
+	 *
+	 * @param request
+	 *      the request to map
+	 * @return candidate mappers
+	 */
+	protected Iterable<IRequestMapper> getCandidateMappers(final Request request)
+	{
+		return this;
+	}
+
 	/**
 	 * Logs all mappers with a positive compatibility score
 	 *
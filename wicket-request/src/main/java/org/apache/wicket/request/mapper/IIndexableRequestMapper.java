@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.mapper;
+
+import org.apache.wicket.request.IRequestMapper;
+
+/**
+ * A {@link IRequestMapper} that can only map requests whose URLs start with certain segments, e.g.
+ * the segments of its mount path. This allows an {@link IndexedCompoundRequestMapper} to find the
+ * mapper without asking it for its compatibility score.
+ * 
+ * @see IndexedCompoundRequestMapper
+ */
+public interface IIndexableRequestMapper extends IRequestMapper
+{
+	/**
+	 * Returns the segments every URL starts with that this mapper can map or give a positive
+	 * compatibility score to. Segments in the format <code>${key}</code> match any URL segment,
+	 * segments in the format <code>#{key}</code> match any URL segment or none at all.
+	 * <p>
+	 * Segments after the last fixed segment are not indexed, i.e. a mapper may accept URLs of
+	 * any length as long as they start with these segments.
+	 * 
+	 * @return segments or <code>null</code> if this mapper cannot be indexed
+	 */
+	String[] getIndexSegments();
+}
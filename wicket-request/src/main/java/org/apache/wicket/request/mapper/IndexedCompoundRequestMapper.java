@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.mapper;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Url;
+
+/**
+ * A {@link CompoundRequestMapper} that indexes the segments of its
+ * {@link IIndexableRequestMapper}s in a trie, so for each request only the mappers whose segments
+ * match the requested URL have to be scored. Mappers that are not indexable are always scored.
+ * <p>
+ * Requests with an empty path are always matched against all registered mappers, since mounted
+ * mappers may redirect the home page to their mount path.
+ * 
+ * @see IIndexableRequestMapper#getIndexSegments()
+ */
+public class IndexedCompoundRequestMapper extends CompoundRequestMapper
+{
+	private volatile Index index;
+
+	@Override
+	public synchronized IndexedCompoundRequestMapper add(final IRequestMapper mapper)
+	{
+		super.add(mapper);
+		index = null;
+		return this;
+	}
+
+	@Override
+	public synchronized IndexedCompoundRequestMapper remove(final IRequestMapper mapper)
+	{
+		super.remove(mapper);
+		index = null;
+		return this;
+	}
+
+	@Override
+	protected Iterable<IRequestMapper> getCandidateMappers(final Request request)
+	{
+		Url url = request.getUrl();
+		if (url == null || url.getSegments().isEmpty())
+		{
+			return this;
+		}
+
+		return getIndex().getCandidates(url.getSegments());
+	}
+
+	private Index getIndex()
+	{
+		Index current = index;
+		if (current == null)
+		{
+			synchronized (this)
+			{
+				current = index;
+				if (current == null)
+				{
+					current = new Index(this);
+					index = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * A snapshot of the registered mappers with a trie of their segments.
+	 */
+	private static class Index
+	{
+		private final List<IRequestMapper> mappers = new ArrayList<>();
+
+		private final Node root = new Node();
+
+		/** mappers which are not indexed */
+		private final BitSet unindexed = new BitSet();
+
+		Index(final Iterable<IRequestMapper> mappers)
+		{
+			for (IRequestMapper mapper : mappers)
+			{
+				int position = this.mappers.size();
+				this.mappers.add(mapper);
+
+				String[] segments = null;
+				if (mapper instanceof IIndexableRequestMapper)
+				{
+					segments = ((IIndexableRequestMapper)mapper).getIndexSegments();
+				}
+
+				if (segments == null)
+				{
+					unindexed.set(position);
+				}
+				else
+				{
+					int lastFixed = segments.length - 1;
+					while (lastFixed >= 0 && isPlaceholder(segments[lastFixed]))
+					{
+						lastFixed--;
+					}
+					root.add(segments, 0, lastFixed, position);
+				}
+			}
+		}
+
+		List<IRequestMapper> getCandidates(final List<String> segments)
+		{
+			BitSet candidates = (BitSet)unindexed.clone();
+			root.collect(candidates);
+
+			List<Node> nodes = new ArrayList<>();
+			nodes.add(root);
+			for (int i = 0; i < segments.size() && nodes.isEmpty() == false; i++)
+			{
+				String segment = segments.get(i);
+
+				List<Node> next = new ArrayList<>();
+				for (Node node : nodes)
+				{
+					node.match(segment, next);
+				}
+				for (Node node : next)
+				{
+					node.collect(candidates);
+				}
+				nodes = next;
+			}
+
+			List<IRequestMapper> result = new ArrayList<>(candidates.cardinality());
+			for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
+			{
+				result.add(mappers.get(i));
+			}
+			return result;
+		}
+	}
+
+	private static class Node
+	{
+		private Map<String, Node> children;
+
+		/** child for placeholder segments */
+		private Node any;
+
+		private BitSet positions;
+
+		void add(final String[] segments, final int index, final int lastFixed, final int position)
+		{
+			if (index > lastFixed)
+			{
+				if (positions == null)
+				{
+					positions = new BitSet();
+				}
+				positions.set(position);
+				return;
+			}
+
+			String segment = segments[index];
+			if (isOptionalPlaceholder(segment))
+			{
+				// the optional segment may be missing
+				add(segments, index + 1, lastFixed, position);
+				any().add(segments, index + 1, lastFixed, position);
+			}
+			else if (isPlaceholder(segment))
+			{
+				any().add(segments, index + 1, lastFixed, position);
+			}
+			else
+			{
+				if (children == null)
+				{
+					children = new HashMap<>();
+				}
+				children.computeIfAbsent(segment, s -> new Node()).add(segments, index + 1,
+					lastFixed, position);
+			}
+		}
+
+		private Node any()
+		{
+			if (any == null)
+			{
+				any = new Node();
+			}
+			return any;
+		}
+
+		void match(final String segment, final List<Node> matches)
+		{
+			if (children != null)
+			{
+				Node child = children.get(segment);
+				if (child != null)
+				{
+					matches.add(child);
+				}
+			}
+			if (any != null)
+			{
+				matches.add(any);
+			}
+		}
+
+		void collect(final BitSet candidates)
+		{
+			if (positions != null)
+			{
+				candidates.or(positions);
+			}
+		}
+	}
+
+	private static boolean isPlaceholder(final String segment)
+	{
+		return isPlaceholder(segment, '$') || isOptionalPlaceholder(segment);
+	}
+
+	private static boolean isOptionalPlaceholder(final String segment)
+	{
+		return isPlaceholder(segment, '#');
+	}
+
+	private static boolean isPlaceholder(final String segment, final char startChar)
+	{
+		return segment.length() >= 4 && segment.charAt(0) == startChar &&
+			segment.charAt(1) == '{' && segment.endsWith("}");
+	}
+}
@@ -20,6 +20,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -32,6 +33,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.wicket.request.Url.QueryParameter;
 import org.apache.wicket.request.Url.StringMode;
@@ -1003,4 +1008,61 @@ class UrlTest
 		checkUrl(url, "http", "[::1]", 1234, "", "myapp");
 
 	}
+
+	/**
+	 * The query string is parsed on first access, copies and serialized urls keep it.
+	 */
+	@Test
+	void lazyQueryParameters() throws Exception
+	{
+		Url url = Url.parse("foo/bar?a=b%20c&&d");
+
+		Url copy = new Url(url);
+		checkQueryParams(copy, "a", "b c", "d", "");
+
+		Url clone = cloneObject(url);
+		checkSegments(clone, "foo", "bar");
+		checkQueryParams(clone, "a", "b c", "d", "");
+
+		url.addQueryParameter("e", "f");
+		checkQueryParams(url, "a", "b c", "d", "", "e", "f");
+		assertEquals("foo/bar?a=b+c&d&e=f", url.toString());
+	}
+
+	/**
+	 * Concurrent first accesses of the query parameters all get the same list.
+	 */
+	@Test
+	void lazyQueryParametersConcurrently() throws Exception
+	{
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			for (int i = 0; i < 100; i++)
+			{
+				Url url = Url.parse("foo?a=b&c=d");
+
+				CyclicBarrier barrier = new CyclicBarrier(threads);
+				List<Future<List<QueryParameter>>> results = new ArrayList<>();
+				for (int t = 0; t < threads; t++)
+				{
+					results.add(executor.submit(() -> {
+						barrier.await();
+						return url.getQueryParameters();
+					}));
+				}
+
+				for (Future<List<QueryParameter>> result : results)
+				{
+					assertSame(url.getQueryParameters(), result.get());
+				}
+				checkQueryParams(url, "a", "b", "c", "d");
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
 }
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Url;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link IndexedCompoundRequestMapper}
+ */
+class IndexedCompoundRequestMapperTest
+{
+	private final List<IRequestMapper> scored = new ArrayList<>();
+
+	/**
+	 * Only mappers with matching segments are scored.
+	 */
+	@Test
+	void candidates()
+	{
+		Mapper a = new Mapper("a/b");
+		Mapper b = new Mapper("a/${p}/c");
+		Mapper c = new Mapper("x/#{p}/y");
+		Mapper d = new Mapper("${p}");
+		Mapper e = new Mapper(null);
+
+		IndexedCompoundRequestMapper compound = new IndexedCompoundRequestMapper();
+		compound.add(a).add(b).add(c).add(d).add(e);
+
+		assertSame(a.handler, compound.mapRequest(request("a/b")));
+		assertEquals(List.of(e, d, a), scored);
+
+		scored.clear();
+		assertSame(b.handler, compound.mapRequest(request("a/z/c/more")));
+		assertEquals(List.of(e, d, b), scored);
+
+		scored.clear();
+		assertSame(c.handler, compound.mapRequest(request("x/y")));
+		assertEquals(List.of(e, d, c), scored);
+
+		scored.clear();
+		assertSame(c.handler, compound.mapRequest(request("x/z/y")));
+		assertEquals(List.of(e, d, c), scored);
+
+		scored.clear();
+		assertSame(d.handler, compound.mapRequest(request("q/b")));
+		assertEquals(List.of(e, d), scored);
+	}
+
+	/**
+	 * Requests with empty path and mappers added later are handled.
+	 */
+	@Test
+	void emptyPathAndChanges()
+	{
+		Mapper a = new Mapper("a");
+		Mapper b = new Mapper("b");
+
+		IndexedCompoundRequestMapper compound = new IndexedCompoundRequestMapper();
+		compound.add(a);
+
+		assertNull(compound.mapRequest(request("b")));
+
+		compound.add(b);
+		assertSame(b.handler, compound.mapRequest(request("b")));
+
+		scored.clear();
+		compound.mapRequest(request(""));
+		assertEquals(List.of(b, a), scored);
+
+		compound.remove(b);
+		assertNull(compound.mapRequest(request("b")));
+	}
+
+	private Request request(final String url)
+	{
+		return new Request()
+		{
+			@Override
+			public Url getUrl()
+			{
+				return Url.parse(url);
+			}
+
+			@Override
+			public Url getClientUrl()
+			{
+				return getUrl();
+			}
+
+			@Override
+			public Locale getLocale()
+			{
+				return Locale.ENGLISH;
+			}
+
+			@Override
+			public Charset getCharset()
+			{
+				return StandardCharsets.UTF_8;
+			}
+
+			@Override
+			public Object getContainerRequest()
+			{
+				return null;
+			}
+		};
+	}
+
+	private class Mapper extends AbstractMapper implements IIndexableRequestMapper
+	{
+		private final String[] segments;
+
+		private final IRequestHandler handler = requestCycle -> {
+		};
+
+		Mapper(String path)
+		{
+			segments = path == null ? null : getMountSegments(path);
+		}
+
+		@Override
+		public String[] getIndexSegments()
+		{
+			return segments;
+		}
+
+		@Override
+		public IRequestHandler mapRequest(Request request)
+		{
+			if (segments != null && matches(request.getUrl().getSegments(), 0, 0))
+			{
+				return handler;
+			}
+			return null;
+		}
+
+		private boolean matches(List<String> urlSegments, int index, int urlIndex)
+		{
+			if (index == segments.length)
+			{
+				return true;
+			}
+
+			String segment = segments[index];
+			if (getOptionalPlaceholder(segment) != null &&
+				matches(urlSegments, index + 1, urlIndex))
+			{
+				return true;
+			}
+			if (urlIndex == urlSegments.size())
+			{
+				return false;
+			}
+			if (isFixed(segment) && segment.equals(urlSegments.get(urlIndex)) == false)
+			{
+				return false;
+			}
+			return matches(urlSegments, index + 1, urlIndex + 1);
+		}
+
+		private boolean isFixed(String segment)
+		{
+			return getPlaceholder(segment) == null && getOptionalPlaceholder(segment) == null;
+		}
+
+		@Override
+		public int getCompatibilityScore(Request request)
+		{
+			scored.add(this);
+			return mapRequest(request) != null ? segments.length : 0;
+		}
+
+		@Override
+		public Url mapHandler(IRequestHandler requestHandler)
+		{
+			return null;
+		}
+	}
+}
@@ -40,15 +40,14 @@ public abstract class AbstractCrypt implements ICrypt
 	/** Log. */
 	private static final Logger log = LoggerFactory.getLogger(AbstractCrypt.class);
 
-	/** Key used to de-/encrypt the data */
-	private String encryptionKey;
+	/** Key used to de-/encrypt the data, a random key is generated lazily if not set */
+	private volatile String encryptionKey;
 
 	/**
 	 * Constructor
 	 */
 	public AbstractCrypt()
 	{
-		this.encryptionKey = UUID.randomUUID().toString();
 	}
 
 	/**
@@ -109,7 +108,20 @@ public abstract class AbstractCrypt implements ICrypt
 	 */
 	public String getKey()
 	{
-		return encryptionKey;
+		String key = encryptionKey;
+		if (key == null)
+		{
+			synchronized (this)
+			{
+				key = encryptionKey;
+				if (key == null)
+				{
+					key = UUID.randomUUID().toString();
+					encryptionKey = key;
+				}
+			}
+		}
+		return key;
 	}
 
 	/**
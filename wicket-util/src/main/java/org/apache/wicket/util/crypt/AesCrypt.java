@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.crypt;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.wicket.util.lang.Args;
+
+
+/**
+ * Authenticated encryption with AES in counter mode and a synthetic initialization vector, i.e.
+ * an HMAC-SHA256 of the plain text, which is prepended to the encrypted data. On decryption the
+ * HMAC is verified, so modified data is rejected.
+ * <p>
+ * Encryption is deterministic: the same text is always encrypted the same way with the same key,
+ * as required by {@link org.apache.wicket.util.crypt.ICrypt}s used to encrypt URLs.
+ * <p>
+ * In contrast to {@link SunJceCrypt} the keys are derived only once and the {@link Cipher}s and
+ * {@link Mac}s are reused by each thread, so instances are cheap to use for many encryptions, e.g.
+ * of all URLs of a page. Instances are thread-safe.
+ * <p>
+ * The keys are either given as a {@link SecretKey} of 32 bytes, the first half used for AES and
+ * the second half for the HMAC, or derived from the string key with
+ * <em>PBKDF2WithHmacSHA256</em>.
+ * 
+ * @see CryptFactoryCachingDecorator
+ */
+public class AesCrypt extends AbstractCrypt
+{
+	/** Name of the encryption method */
+	public static final String CRYPT_METHOD = "AES/CTR/NoPadding";
+
+	/** Name of the authentication method */
+	public static final String MAC_METHOD = "HmacSHA256";
+
+	/** Length of the initialization vector in bytes */
+	private static final int IV_LENGTH = 16;
+
+	/** Length of keys in bytes */
+	private static final int KEY_LENGTH = 32;
+
+	/** Iteration count used to derive keys */
+	private static final int COUNT = 1000;
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	/** ciphers reused by each thread */
+	private static final ThreadLocal<Cipher> CIPHERS = new ThreadLocal<>();
+
+	/** macs reused by each thread */
+	private static final ThreadLocal<Mac> MACS = new ThreadLocal<>();
+
+	/** the keys, lazily derived from the string key */
+	private volatile Keys keys;
+
+	/**
+	 * Constructor using keys derived from the string key.
+	 */
+	public AesCrypt()
+	{
+	}
+
+	/**
+	 * Constructor using the given key.
+	 * 
+	 * @param secretKey
+	 *            key of 32 bytes
+	 * @see #generateSecretKey()
+	 */
+	public AesCrypt(final SecretKey secretKey)
+	{
+		keys = new Keys(Args.notNull(secretKey, "secretKey").getEncoded());
+	}
+
+	/**
+	 * Sets the string key to derive the secret key from.
+	 */
+	@Override
+	public void setKey(final String key)
+	{
+		super.setKey(key);
+
+		keys = null;
+	}
+
+	@Override
+	protected byte[] crypt(final byte[] input, final int mode) throws GeneralSecurityException
+	{
+		Keys keys = getKeys();
+		Cipher cipher = getCipher();
+
+		if (mode == Cipher.ENCRYPT_MODE)
+		{
+			byte[] iv = mac(keys, input, 0, input.length);
+
+			cipher.init(Cipher.ENCRYPT_MODE, keys.encryptionKey, new IvParameterSpec(iv));
+			byte[] output = new byte[IV_LENGTH + input.length];
+			System.arraycopy(iv, 0, output, 0, IV_LENGTH);
+			cipher.doFinal(input, 0, input.length, output, IV_LENGTH);
+			return output;
+		}
+		else
+		{
+			if (input.length < IV_LENGTH)
+			{
+				throw new AEADBadTagException("Input too short");
+			}
+
+			cipher.init(Cipher.DECRYPT_MODE, keys.encryptionKey,
+				new IvParameterSpec(input, 0, IV_LENGTH));
+			byte[] output = cipher.doFinal(input, IV_LENGTH, input.length - IV_LENGTH);
+
+			byte[] iv = mac(keys, output, 0, output.length);
+			if (MessageDigest.isEqual(iv, Arrays.copyOf(input, IV_LENGTH)) == false)
+			{
+				throw new AEADBadTagException("Authentication failed");
+			}
+			return output;
+		}
+	}
+
+	private byte[] mac(final Keys keys, final byte[] input, final int offset, final int length)
+		throws GeneralSecurityException
+	{
+		Mac mac = getMac();
+		mac.init(keys.macKey);
+		mac.update(input, offset, length);
+
+		byte[] iv = new byte[IV_LENGTH];
+		System.arraycopy(mac.doFinal(), 0, iv, 0, IV_LENGTH);
+		return iv;
+	}
+
+	private Keys getKeys() throws GeneralSecurityException
+	{
+		Keys current = keys;
+		if (current == null)
+		{
+			current = new Keys(deriveSecretKey(getKey()).getEncoded());
+			keys = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Derive a secret key from a string key.
+	 * 
+	 * @param key
+	 *            string key
+	 * @return key of 32 bytes
+	 * @throws GeneralSecurityException
+	 */
+	protected SecretKey deriveSecretKey(final String key) throws GeneralSecurityException
+	{
+		SecretKeyFactory keyFactory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+		PBEKeySpec spec = new PBEKeySpec(key.toCharArray(), SunJceCrypt.SALT, COUNT,
+			KEY_LENGTH * 8);
+		try
+		{
+			return new SecretKeySpec(keyFactory.generateSecret(spec).getEncoded(), "AES");
+		}
+		finally
+		{
+			spec.clearPassword();
+		}
+	}
+
+	/**
+	 * Generate a random secret key.
+	 * 
+	 * @return key of 32 bytes
+	 */
+	public static SecretKey generateSecretKey()
+	{
+		byte[] key = new byte[KEY_LENGTH];
+		RANDOM.nextBytes(key);
+		return new SecretKeySpec(key, "AES");
+	}
+
+	private static Cipher getCipher() throws GeneralSecurityException
+	{
+		Cipher cipher = CIPHERS.get();
+		if (cipher == null)
+		{
+			cipher = Cipher.getInstance(CRYPT_METHOD);
+			CIPHERS.set(cipher);
+		}
+		return cipher;
+	}
+
+	private static Mac getMac() throws GeneralSecurityException
+	{
+		Mac mac = MACS.get();
+		if (mac == null)
+		{
+			mac = Mac.getInstance(MAC_METHOD);
+			MACS.set(mac);
+		}
+		return mac;
+	}
+
+	/**
+	 * The keys for encryption and authentication.
+	 */
+	private static class Keys
+	{
+		private final SecretKey encryptionKey;
+
+		private final SecretKey macKey;
+
+		Keys(final byte[] key)
+		{
+			if (key == null || key.length != KEY_LENGTH)
+			{
+				throw new IllegalArgumentException("Key must have " + KEY_LENGTH + " bytes");
+			}
+
+			encryptionKey = new SecretKeySpec(key, 0, KEY_LENGTH / 2, "AES");
+			macKey = new SecretKeySpec(key, KEY_LENGTH / 2, KEY_LENGTH / 2, MAC_METHOD);
+		}
+	}
+}
@@ -95,6 +95,11 @@ public class UrlDecoder
 			return s;
 		}
 
+		if (needsDecoding(s) == false)
+		{
+			return s;
+		}
+
 		int numChars = s.length();
 		StringBuilder sb = new StringBuilder(numChars > 500 ? numChars / 2 : numChars);
 		int i = 0;
@@ -183,4 +188,22 @@ public class UrlDecoder
 		// that way none will come through
 		return sb.toString().replace("\0", "NULL");
 	}
+
+	/**
+	 * @param s
+	 *            string to decode
+	 * @return {@code false} if the decoded string would be equal to the given one
+	 */
+	private boolean needsDecoding(final String s)
+	{
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			if (c == '%' || c == '\0' || (c == '+' && decodePlus))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
 }
\ No newline at end of file
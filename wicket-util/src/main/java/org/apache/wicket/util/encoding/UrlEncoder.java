@@ -247,9 +247,7 @@ public class UrlEncoder
 	public String encode(final String unsafeInput, final String charsetName)
 	{
 		final String s = unsafeInput.replace("\0", "NULL");
-		StringBuilder out = new StringBuilder(s.length());
 		Charset charset;
-		CharArrayWriter charArrayWriter = new CharArrayWriter();
 
 		Args.notNull(charsetName, "charsetName");
 
@@ -262,6 +260,14 @@ public class UrlEncoder
 			throw new RuntimeException(new UnsupportedEncodingException(charsetName));
 		}
 
+		if (needsEncoding(s) == false)
+		{
+			return s;
+		}
+
+		StringBuilder out = new StringBuilder(s.length());
+		CharArrayWriter charArrayWriter = new CharArrayWriter();
+
 		for (int i = 0; i < s.length();)
 		{
 			int c = s.charAt(i);
@@ -342,4 +348,22 @@ public class UrlEncoder
 
 		return out.toString();
 	}
+
+	/**
+	 * @param s
+	 *            string to encode
+	 * @return {@code false} if the encoded string would be equal to the given one
+	 */
+	private boolean needsEncoding(final String s)
+	{
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			if (c == ' ' || dontNeedEncoding.get(c) == false)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
 }
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.io;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utilities methods for working with {@link ByteBuffer}s.
+ */
+public final class ByteBuffers
+{
+	private static final Logger log = LoggerFactory.getLogger(ByteBuffers.class);
+
+	private static final Object UNSAFE;
+
+	private static final Method INVOKE_CLEANER;
+
+	static
+	{
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try
+		{
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		}
+		catch (Exception | LinkageError ex)
+		{
+			log.debug("Direct buffers cannot be freed explicitly, they are freed by the garbage collector", ex);
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	/**
+	 * Construct.
+	 */
+	private ByteBuffers()
+	{
+	}
+
+	/**
+	 * Frees the memory of a direct or mapped buffer at once, instead of waiting for the garbage
+	 * collector. The buffer must not be used afterwards, neither directly nor through any
+	 * duplicate or slice of it.
+	 *
+	 * @param buffer
+	 *            buffer to free, may be {@code null}
+	 * @return {@code true} if the memory was freed
+	 */
+	public static boolean free(final ByteBuffer buffer)
+	{
+		if (buffer == null || buffer.isDirect() == false || INVOKE_CLEANER == null)
+		{
+			return false;
+		}
+
+		try
+		{
+			INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			return true;
+		}
+		catch (Exception ex)
+		{
+			// e.g. a duplicate or slice
+			log.debug("Cannot free buffer", ex);
+			return false;
+		}
+	}
+}
@@ -527,6 +527,39 @@ public final class AppendingStringBuffer implements java.io.Serializable, CharSe
 		return this;
 	}
 
+	/**
+	 * Appends a subsequence of the specified <code>CharSequence</code> to this string buffer.
+	 *
+	 * @param s
+	 *            the sequence to append.
+	 * @param start
+	 *            the index of the first character to append.
+	 * @param end
+	 *            the index after the last character to append.
+	 * @return a reference to this <code>AppendingStringBuffer</code> object.
+	 */
+	public AppendingStringBuffer append(final CharSequence s, final int start, final int end)
+	{
+		int newcount = count + end - start;
+		if (newcount > value.length)
+		{
+			expandCapacity(newcount);
+		}
+		if (s instanceof String)
+		{
+			((String)s).getChars(start, end, value, count);
+		}
+		else
+		{
+			for (int i = start, j = count; i < end; i++, j++)
+			{
+				value[j] = s.charAt(i);
+			}
+		}
+		count = newcount;
+		return this;
+	}
+
 	/**
 	 * Appends the string representation of the <code>boolean</code> argument to the string buffer.
 	 * <p>
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.string;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * An immutable string that keeps its UTF-8 encoding, so text written again and again, e.g. static
+ * markup, has to be encoded only once. The encoding is created on construction, i.e. when the
+ * markup is loaded, so no request pays for it.
+ * <p>
+ * Responses writing bytes may use {@link #getBytes()} instead of encoding the characters.
+ */
+public final class PreEncodedString implements CharSequence
+{
+	private final String string;
+
+	private final byte[] bytes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param string
+	 *            the characters
+	 */
+	public PreEncodedString(CharSequence string)
+	{
+		this.string = Args.notNull(string, "string").toString();
+		bytes = this.string.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return the UTF-8 encoded characters, must not be modified
+	 */
+	public byte[] getBytes()
+	{
+		return bytes;
+	}
+
+	@Override
+	public int length()
+	{
+		return string.length();
+	}
+
+	@Override
+	public char charAt(int index)
+	{
+		return string.charAt(index);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end)
+	{
+		return string.subSequence(start, end);
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		return o instanceof PreEncodedString && string.equals(((PreEncodedString)o).string);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return string.hashCode();
+	}
+
+	@Override
+	public String toString()
+	{
+		return string;
+	}
+}
@@ -16,6 +16,8 @@
  */
 package org.apache.wicket.util.string;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.security.AccessController;
@@ -76,6 +78,34 @@ public final class Strings
 		}
 	});
 
+	/** Replacements of ASCII characters in markup, {@code null} if a character is kept */
+	private static final String[] MARKUP_ESCAPES = new String[128];
+
+	/** Replacements of ASCII characters in markup, including spaces and tabs */
+	private static final String[] MARKUP_ESCAPES_SPACES;
+
+	static
+	{
+		for (int i = 0; i < 32; i++)
+		{
+			// non-printable and not whitespace (TAB, LF, CR)
+			if (i != 9 && i != 10 && i != 13)
+			{
+				MARKUP_ESCAPES[i] = "&#" + i + ";";
+			}
+		}
+		MARKUP_ESCAPES['<'] = "&lt;";
+		MARKUP_ESCAPES['>'] = "&gt;";
+		MARKUP_ESCAPES['&'] = "&amp;";
+		MARKUP_ESCAPES['"'] = "&quot;";
+		MARKUP_ESCAPES['\''] = "&#039;";
+
+		MARKUP_ESCAPES_SPACES = MARKUP_ESCAPES.clone();
+		MARKUP_ESCAPES_SPACES[' '] = "&nbsp;";
+		// Assumption is four space tabs (sorry, but that's just how it is!)
+		MARKUP_ESCAPES_SPACES['\t'] = "&nbsp;&nbsp;&nbsp;&nbsp;";
+	}
+
 	private static final Pattern HTML_NUMBER_REGEX = Pattern.compile("&#\\d+;");
 	
 	private static final String[] NO_STRINGS = new String[0];
@@ -329,6 +359,8 @@ public final class Strings
 			return null;
 		}
 
+		final String[] escapes = escapeSpaces ? MARKUP_ESCAPES_SPACES : MARKUP_ESCAPES;
+
 		int len = s.length();
 		final AppendingStringBuffer buffer = new AppendingStringBuffer((int)(len * 1.1));
 
@@ -336,81 +368,110 @@ public final class Strings
 		{
 			final char c = s.charAt(i);
 
-			if (NONCHARACTERS.contains(c))
+			final String escape = escape(c, escapes, convertToHtmlUnicodeEscapes);
+			if (escape == null)
 			{
-				continue;
+				buffer.append(c);
 			}
-			switch (c)
+			else
 			{
-				case '\t' :
-					if (escapeSpaces)
-					{
-						// Assumption is four space tabs (sorry, but that's
-						// just how it is!)
-						buffer.append("&nbsp;&nbsp;&nbsp;&nbsp;");
-					}
-					else
-					{
-						buffer.append(c);
-					}
-					break;
-
-				case ' ' :
-					if (escapeSpaces)
-					{
-						buffer.append("&nbsp;");
-					}
-					else
-					{
-						buffer.append(c);
-					}
-					break;
-
-				case '<' :
-					buffer.append("&lt;");
-					break;
-
-				case '>' :
-					buffer.append("&gt;");
-					break;
-
-				case '&' :
-
-					buffer.append("&amp;");
-					break;
+				buffer.append(escape);
+			}
+		}
 
-				case '"' :
-					buffer.append("&quot;");
-					break;
+		return buffer;
+	}
 
-				case '\'' :
-					buffer.append("&#039;");
-					break;
+	/**
+	 * Converts a Java String to HTML markup like
+	 * {@link #escapeMarkup(CharSequence, boolean, boolean)}, but appends the escaped characters to
+	 * the given target instead of creating a new string. Characters not to be escaped are appended
+	 * in runs.
+	 * 
+	 * @param s
+	 *            The characters to escape
+	 * @param escapeSpaces
+	 *            True to replace ' ' with nonbreaking space
+	 * @param convertToHtmlUnicodeEscapes
+	 *            True to convert non-7 bit characters to unicode HTML (&amp;#...)
+	 * @param target
+	 *            The target to append to
+	 * @throws UncheckedIOException
+	 *             if the target fails to append
+	 */
+	public static void escapeMarkup(final CharSequence s, final boolean escapeSpaces,
+		final boolean convertToHtmlUnicodeEscapes, final Appendable target)
+	{
+		Args.notNull(target, "target");
 
-				default :
+		if (s == null)
+		{
+			return;
+		}
 
-					int ci = 0xffff & c;
+		final String[] escapes = escapeSpaces ? MARKUP_ESCAPES_SPACES : MARKUP_ESCAPES;
 
-					if (
-					// if this is non-printable and not whitespace (TAB, LF, CR)
-					((ci < 32) && (ci != 9) && (ci != 10) && (ci != 13)) ||
-					// or non-ASCII (XXX: why 160+ ?!) and need to UNICODE escape it
-						(convertToHtmlUnicodeEscapes && (ci > 159)))
-					{
-						buffer.append("&#");
-						buffer.append(Integer.toString(ci));
-						buffer.append(';');
-					}
-					else
+		try
+		{
+			int len = s.length();
+			int start = 0;
+			for (int i = 0; i < len; i++)
+			{
+				final String escape = escape(s.charAt(i), escapes, convertToHtmlUnicodeEscapes);
+				if (escape != null)
+				{
+					if (start < i)
 					{
-						// ASCII or whitespace
-						buffer.append(c);
+						target.append(s, start, i);
 					}
-					break;
+					target.append(escape);
+					start = i + 1;
+				}
+			}
+			if (start < len)
+			{
+				target.append(s, start, len);
 			}
 		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
 
-		return buffer;
+	/**
+	 * Gets the replacement of a character in markup.
+	 * 
+	 * @param c
+	 *            The character
+	 * @param escapes
+	 *            Replacements of ASCII characters
+	 * @param convertToHtmlUnicodeEscapes
+	 *            True to convert non-7 bit characters to unicode HTML (&amp;#...)
+	 * @return The replacement, an empty string for a noncharacter or {@code null} if the
+	 *         character is kept
+	 */
+	private static String escape(final char c, final String[] escapes,
+		final boolean convertToHtmlUnicodeEscapes)
+	{
+		if (c < 128)
+		{
+			return escapes[c];
+		}
+
+		if ((c >= 0xFDD0 && c <= 0xFDEF) || c == 0xFFFE)
+		{
+			// noncharacters are dropped
+			return "";
+		}
+
+		// XXX: why 160+ ?!
+		if (convertToHtmlUnicodeEscapes && c > 159)
+		{
+			return "&#" + (int)c + ";";
+		}
+
+		return null;
 	}
 
 	/**
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.thread;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates virtual threads on JDKs supporting them, platform daemon threads otherwise.
+ * <p>
+ * Virtual threads are looked up reflectively, so Wicket can still be run on JDKs without them.
+ */
+public final class VirtualThreads
+{
+	private static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+
+	/** {@code Thread.ofVirtual()} or {@code null} if not supported */
+	private static final Method OF_VIRTUAL;
+
+	/** {@code Thread.Builder#name(String, long)} */
+	private static final Method NAME;
+
+	/** {@code Thread.Builder#factory()} */
+	private static final Method FACTORY;
+
+	/** {@code Thread#isVirtual()} */
+	private static final Method IS_VIRTUAL;
+
+	static
+	{
+		Method ofVirtual = null;
+		Method name = null;
+		Method factory = null;
+		Method isVirtual = null;
+		try
+		{
+			Class<?> builder = Class.forName("java.lang.Thread$Builder");
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			name = builder.getMethod("name", String.class, long.class);
+			factory = builder.getMethod("factory");
+			isVirtual = Thread.class.getMethod("isVirtual");
+		}
+		catch (ClassNotFoundException | NoSuchMethodException ex)
+		{
+			ofVirtual = null;
+		}
+		OF_VIRTUAL = ofVirtual;
+		NAME = name;
+		FACTORY = factory;
+		IS_VIRTUAL = isVirtual;
+	}
+
+	private VirtualThreads()
+	{
+	}
+
+	/**
+	 * @return {@code true} if the JDK supports virtual threads
+	 */
+	public static boolean isSupported()
+	{
+		return OF_VIRTUAL != null && newVirtualThreadFactory("") != null;
+	}
+
+	/**
+	 * Is the given thread a virtual thread.
+	 * 
+	 * @param thread
+	 *            thread
+	 * @return {@code true} if virtual
+	 */
+	public static boolean isVirtual(final Thread thread)
+	{
+		if (IS_VIRTUAL == null)
+		{
+			return false;
+		}
+		try
+		{
+			return (Boolean)IS_VIRTUAL.invoke(thread);
+		}
+		catch (ReflectiveOperationException ex)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Create a factory of virtual threads if supported, of platform daemon threads otherwise.
+	 * 
+	 * @param namePrefix
+	 *            prefix of the thread names, followed by a counter
+	 * @return thread factory
+	 */
+	public static ThreadFactory newThreadFactory(final String namePrefix)
+	{
+		Args.notNull(namePrefix, "namePrefix");
+
+		ThreadFactory factory = newVirtualThreadFactory(namePrefix);
+		if (factory == null)
+		{
+			final AtomicLong counter = new AtomicLong();
+			factory = runnable -> {
+				Thread thread = new Thread(runnable, namePrefix + counter.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			};
+		}
+		return factory;
+	}
+
+	/**
+	 * Create an executor starting a new thread for each task, a virtual thread if supported.
+	 * <p>
+	 * Without virtual threads idle platform threads are reused.
+	 * 
+	 * @param namePrefix
+	 *            prefix of the thread names, followed by a counter
+	 * @return executor
+	 */
+	public static ExecutorService newThreadPerTaskExecutor(final String namePrefix)
+	{
+		Args.notNull(namePrefix, "namePrefix");
+
+		ThreadFactory factory = newVirtualThreadFactory(namePrefix);
+		if (factory != null)
+		{
+			try
+			{
+				return (ExecutorService)Executors.class.getMethod("newThreadPerTaskExecutor",
+					ThreadFactory.class).invoke(null, factory);
+			}
+			catch (ReflectiveOperationException ex)
+			{
+				log.debug("Cannot create executor for virtual threads", ex);
+			}
+		}
+		return Executors.newCachedThreadPool(newThreadFactory(namePrefix));
+	}
+
+	private static ThreadFactory newVirtualThreadFactory(final String namePrefix)
+	{
+		if (OF_VIRTUAL == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			Object builder = OF_VIRTUAL.invoke(null);
+			builder = NAME.invoke(builder, namePrefix, 0L);
+			return (ThreadFactory)FACTORY.invoke(builder);
+		}
+		catch (ReflectiveOperationException ex)
+		{
+			// preview feature not enabled
+			log.debug("Virtual threads are not available", ex);
+			return null;
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.crypt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link AesCrypt}
+ */
+class AesCryptTest
+{
+	private static final String INPUT = "wicket/page?3-1.0-form-submit&a=b";
+
+	/**
+	 * Encrypted text is URL safe and decrypted to the input.
+	 */
+	@Test
+	void roundTrip()
+	{
+		AesCrypt crypt = new AesCrypt(AesCrypt.generateSecretKey());
+
+		String encrypted = crypt.encryptUrlSafe(INPUT);
+		assertTrue(encrypted.matches("[A-Za-z0-9_-]+"), encrypted);
+		assertEquals(INPUT, crypt.decryptUrlSafe(encrypted));
+
+		// deterministic
+		assertEquals(encrypted, crypt.encryptUrlSafe(INPUT));
+		assertNotEquals(encrypted, crypt.encryptUrlSafe(INPUT + "&c=d"));
+	}
+
+	/**
+	 * Keys are derived from string keys.
+	 */
+	@Test
+	void stringKey()
+	{
+		AesCrypt crypt = new AesCrypt();
+		crypt.setKey("secret");
+		String encrypted = crypt.encryptUrlSafe(INPUT);
+
+		AesCrypt other = new AesCrypt();
+		other.setKey("secret");
+		assertEquals(INPUT, other.decryptUrlSafe(encrypted));
+
+		other.setKey("other");
+		assertNull(other.decryptUrlSafe(encrypted));
+	}
+
+	/**
+	 * Modified or truncated text is not decrypted.
+	 */
+	@Test
+	void tampered()
+	{
+		AesCrypt crypt = new AesCrypt(AesCrypt.generateSecretKey());
+		String encrypted = crypt.encryptUrlSafe(INPUT);
+
+		char last = encrypted.charAt(encrypted.length() - 1);
+		String modified = encrypted.substring(0, encrypted.length() - 1) + (last == 'A' ? 'B' : 'A');
+		assertNull(crypt.decryptUrlSafe(modified));
+		assertNull(crypt.decryptUrlSafe(encrypted.substring(0, 20)));
+		assertNull(crypt.decryptUrlSafe(encrypted.substring(0, 10)));
+		assertNull(crypt.decryptUrlSafe("not encrypted"));
+	}
+}
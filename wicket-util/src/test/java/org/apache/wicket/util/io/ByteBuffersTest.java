@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.io;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ByteBuffers}.
+ */
+class ByteBuffersTest
+{
+	/**
+	 * Only direct buffers are freed.
+	 */
+	@Test
+	void free()
+	{
+		assertFalse(ByteBuffers.free(null));
+		assertFalse(ByteBuffers.free(ByteBuffer.allocate(10)));
+
+		ByteBuffer direct = ByteBuffer.allocateDirect(10);
+		assertFalse(ByteBuffers.free(direct.duplicate()));
+		assertTrue(ByteBuffers.free(direct));
+	}
+}
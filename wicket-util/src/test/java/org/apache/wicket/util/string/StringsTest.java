@@ -194,6 +194,28 @@ public class StringsTest
 
 	}
 
+	@Test
+	public void escapeMarkupToAppendable()
+	{
+		String[] inputs = { "", "plain", "< >&\"'?:;", "\t\u0001 a\ufdd0b\ufffe", "\u00c7\u00fc\u009f" };
+		for (String input : inputs)
+		{
+			for (boolean escapeSpaces : new boolean[] { false, true })
+			{
+				for (boolean unicode : new boolean[] { false, true })
+				{
+					StringBuilder target = new StringBuilder("x");
+					Strings.escapeMarkup(input, escapeSpaces, unicode, target);
+					assertEquals("x" + Strings.escapeMarkup(input, escapeSpaces, unicode), target.toString());
+				}
+			}
+		}
+
+		StringBuilder target = new StringBuilder();
+		Strings.escapeMarkup(null, false, false, target);
+		assertEquals("", target.toString());
+	}
+
 	@Test
 	public void replaceHtmlEscapeNumber()
 	{
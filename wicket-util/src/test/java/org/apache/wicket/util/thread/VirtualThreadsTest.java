@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.thread;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link VirtualThreads}
+ */
+class VirtualThreadsTest
+{
+	/**
+	 * Tasks run in new threads, virtual ones if supported.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void threadPerTask() throws Exception
+	{
+		ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+		try
+		{
+			Thread thread = executor.submit(Thread::currentThread).get();
+
+			assertTrue(thread.getName().startsWith("test-"));
+			assertEquals(VirtualThreads.isSupported(), VirtualThreads.isVirtual(thread));
+		}
+		finally
+		{
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+		}
+	}
+}